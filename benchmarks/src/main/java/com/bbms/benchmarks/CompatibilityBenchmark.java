@@ -0,0 +1,43 @@
+package com.bbms.benchmarks;
+
+import com.bbms.util.BloodTypeCompatibility;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ABO/Rh compatibility lookups from BloodTypeCompatibility.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompatibilityBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private String[] donors;
+    private String[] recipients;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        donors = SyntheticData.bloodGroups(PAIRS);
+        recipients = SyntheticData.bloodGroups(PAIRS * 2);
+    }
+
+    @Benchmark
+    public boolean canDonateRBCTo() {
+        int i = index++ & (PAIRS - 1);
+        return BloodTypeCompatibility.canDonateRBCTo(donors[i], recipients[i + PAIRS]);
+    }
+
+    @Benchmark
+    public void getCompatibleRBCDonors(Blackhole blackhole) {
+        int i = index++ & (PAIRS - 1);
+        blackhole.consume(BloodTypeCompatibility.getCompatibleRBCDonors(recipients[i]));
+    }
+}
@@ -0,0 +1,70 @@
+package com.bbms.benchmarks;
+
+import com.bbms.util.DonationEligibilityChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full donor screening through DonationEligibilityChecker.checkEligibility.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EligibilityBenchmark {
+
+    private static final int DONORS = 1024;
+    private static final String[] DONATION_TYPES = {"whole_blood", "platelets", "plasma"};
+    private static final List<List<String>> CONDITIONS = List.of(
+            List.of(),
+            List.of(),
+            List.of("cold_flu"),
+            List.of("tattoo_piercing", "vaccination"),
+            List.of("hepatitis_b"));
+
+    private LocalDate[] birthDates;
+    private double[] weights;
+    private double[] hemoglobin;
+    private String[] genders;
+    private LocalDate[] lastDonations;
+    private String[] donationTypes;
+    private List<List<String>> conditions;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(SyntheticData.SEED);
+        LocalDate today = LocalDate.now();
+        birthDates = new LocalDate[DONORS];
+        weights = new double[DONORS];
+        hemoglobin = new double[DONORS];
+        genders = new String[DONORS];
+        lastDonations = new LocalDate[DONORS];
+        donationTypes = new String[DONORS];
+        conditions = new ArrayList<>(DONORS);
+
+        for (int i = 0; i < DONORS; i++) {
+            birthDates[i] = today.minusYears(16 + random.nextInt(55)).minusDays(random.nextInt(365));
+            weights[i] = 45 + random.nextDouble() * 50;
+            hemoglobin[i] = 11.5 + random.nextDouble() * 5;
+            genders[i] = random.nextBoolean() ? "male" : "female";
+            lastDonations[i] = random.nextInt(4) == 0 ? null : today.minusDays(random.nextInt(200));
+            donationTypes[i] = DONATION_TYPES[random.nextInt(DONATION_TYPES.length)];
+            conditions.add(CONDITIONS.get(random.nextInt(CONDITIONS.size())));
+        }
+    }
+
+    @Benchmark
+    public DonationEligibilityChecker.EligibilityResult checkEligibility() {
+        int i = index++ & (DONORS - 1);
+        return DonationEligibilityChecker.checkEligibility(birthDates[i], weights[i], genders[i],
+                hemoglobin[i], lastDonations[i], donationTypes[i], conditions.get(i));
+    }
+}
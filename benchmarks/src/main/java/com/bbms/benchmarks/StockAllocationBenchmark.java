@@ -0,0 +1,92 @@
+package com.bbms.benchmarks;
+
+import com.bbms.dao.BloodRequestDao;
+import com.bbms.dao.BloodStockDao;
+import com.bbms.dao.DemandModelDao;
+import com.bbms.dao.StockHoldDao;
+import com.bbms.dao.TransfusionDao;
+import com.bbms.forecast.ForecastService;
+import com.bbms.model.BloodStock;
+import com.bbms.model.DemandModel;
+import com.bbms.model.StockHold;
+import com.bbms.service.BloodStockService;
+import com.bbms.service.ReservationService;
+import com.bbms.service.StockLedgerService;
+import com.bbms.util.TimerWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BloodStockService.findCompatibleStock over an in-memory inventory, so the
+ * filtering and FIFO sort are measured without database round trips. The
+ * service gets its own reservation and forecast services with no holds or
+ * models, so nothing is loaded from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockAllocationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int lots;
+
+    @Param({"O-", "A+", "AB+"})
+    public String recipientGroup;
+
+    private BloodStockService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryStockDao stockDao = new InMemoryStockDao(SyntheticData.stockLots(lots));
+        StockLedgerService ledger = new StockLedgerService();
+        ReservationService reservations = new ReservationService(new NoHoldsDao(), stockDao, ledger,
+                Duration.ofMinutes(30), new TimerWheel(1000, 16, "benchmark-wheel"));
+        ForecastService forecasts = new ForecastService(new NoModelsDao(), new BloodRequestDao(),
+                new TransfusionDao());
+        service = new BloodStockService(stockDao, ledger, reservations, new BloodRequestDao(), forecasts);
+    }
+
+    @Benchmark
+    public List<BloodStockService.AvailableStock> findCompatibleStock() {
+        return service.findCompatibleStock(recipientGroup, BloodStock.ComponentType.RBC);
+    }
+
+    @Benchmark
+    public List<BloodStockService.AvailableStock> findCompatibleStockAnyComponent() {
+        return service.findCompatibleStock(recipientGroup, null);
+    }
+
+    static final class InMemoryStockDao extends BloodStockDao {
+        private final List<BloodStock> inventory;
+
+        InMemoryStockDao(List<BloodStock> inventory) {
+            this.inventory = inventory;
+        }
+
+        @Override
+        public List<BloodStock> findAvailable() {
+            return inventory;
+        }
+    }
+
+    static final class NoHoldsDao extends StockHoldDao {
+        @Override
+        public List<StockHold> findLive(LocalDateTime now) {
+            return List.of();
+        }
+    }
+
+    static final class NoModelsDao extends DemandModelDao {
+        @Override
+        public List<DemandModel> findAll() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.bbms.benchmarks;
+
+import com.bbms.model.BloodStock;
+import com.bbms.util.BloodCompatibility;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic inputs shared by the benchmarks.
+ */
+final class SyntheticData {
+
+    static final String[] BLOOD_GROUPS = BloodCompatibility.ALL_BLOOD_GROUPS;
+    static final long SEED = 42L;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Stock lots spread across all groups and components, with expiry dates
+     * from a week in the past to a year ahead.
+     */
+    static List<BloodStock> stockLots(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        BloodStock.ComponentType[] components = BloodStock.ComponentType.values();
+        LocalDate today = LocalDate.now();
+
+        List<BloodStock> lots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BloodStock stock = new BloodStock(
+                    BLOOD_GROUPS[random.nextInt(BLOOD_GROUPS.length)],
+                    components[random.nextInt(components.length)],
+                    1 + random.nextInt(20));
+            stock.setId((long) i + 1);
+            stock.setStatus(BloodStock.StockStatus.AVAILABLE);
+            stock.setCollectionDate(today.minusDays(random.nextInt(30)));
+            stock.setExpiryDate(today.plusDays(random.nextInt(-7, 365)));
+            lots.add(stock);
+        }
+        return lots;
+    }
+
+    static String[] bloodGroups(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String[] groups = new String[count];
+        for (int i = 0; i < count; i++) {
+            groups[i] = BLOOD_GROUPS[random.nextInt(BLOOD_GROUPS.length)];
+        }
+        return groups;
+    }
+}
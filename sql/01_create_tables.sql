@@ -39,6 +39,61 @@ BEGIN
 EXCEPTION WHEN OTHERS THEN NULL;
 END;
 /
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE outbox_events CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE audit_log CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE audit_chain_head CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE audit_pending CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE stock_movements CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE stock_balances CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE blood_units CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE stock_holds CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE demand_models CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE donor_deferrals CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP TABLE donor_stats CASCADE CONSTRAINTS';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
 
 -- Drop sequences
 BEGIN
@@ -76,6 +131,46 @@ BEGIN
 EXCEPTION WHEN OTHERS THEN NULL;
 END;
 /
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE outbox_events_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE audit_pending_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE blood_units_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE stock_movements_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE stock_balances_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE stock_holds_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE demand_models_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
+BEGIN
+    EXECUTE IMMEDIATE 'DROP SEQUENCE donor_deferrals_seq';
+EXCEPTION WHEN OTHERS THEN NULL;
+END;
+/
 
 -- ============================================================================
 -- USERS TABLE
@@ -124,6 +219,7 @@ CREATE TABLE donors (
     full_name           VARCHAR2(100) NOT NULL,
     blood_group         VARCHAR2(5) NOT NULL,
     phone               VARCHAR2(20),
+    phone_key           VARCHAR2(10),
     email               VARCHAR2(100),
     address             VARCHAR2(500),
     date_of_birth       DATE,
@@ -161,6 +257,21 @@ BEGIN
 END;
 /
 
+-- Last ten digits of the phone number, for duplicate detection (see DonorProfile.phoneKey)
+CREATE OR REPLACE TRIGGER donors_phone_key_trg
+BEFORE INSERT OR UPDATE OF phone ON donors
+FOR EACH ROW
+DECLARE
+    digits VARCHAR2(20) := REGEXP_REPLACE(:NEW.phone, '[^0-9]', '');
+BEGIN
+    IF digits IS NULL OR LENGTH(digits) < 7 THEN
+        :NEW.phone_key := NULL;
+    ELSE
+        :NEW.phone_key := SUBSTR(digits, GREATEST(LENGTH(digits) - 9, 1));
+    END IF;
+END;
+/
+
 -- ============================================================================
 -- RECIPIENTS TABLE
 -- ============================================================================
@@ -364,11 +475,263 @@ BEGIN
 END;
 /
 
+-- ============================================================================
+-- OUTBOX EVENTS TABLE (written with the business change, dispatched async)
+-- ============================================================================
+CREATE TABLE outbox_events (
+    id                  NUMBER(19) PRIMARY KEY,
+    aggregate_type      VARCHAR2(50) NOT NULL,
+    aggregate_id        NUMBER(19) NOT NULL,
+    event_type          VARCHAR2(50) NOT NULL,
+    payload             CLOB,
+    status              VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+    attempts            NUMBER(10) DEFAULT 0 NOT NULL,
+    next_attempt_at     TIMESTAMP,
+    last_error          VARCHAR2(1000),
+    claimed_until       TIMESTAMP,
+    delivered_to        VARCHAR2(500),
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    processed_at        TIMESTAMP,
+    CONSTRAINT chk_outbox_status CHECK (status IN ('PENDING', 'IN_FLIGHT', 'DONE', 'FAILED'))
+);
+
+CREATE SEQUENCE outbox_events_seq START WITH 1 INCREMENT BY 1;
+
+CREATE OR REPLACE TRIGGER outbox_events_bi_trg
+BEFORE INSERT ON outbox_events
+FOR EACH ROW
+BEGIN
+    IF :NEW.id IS NULL THEN
+        SELECT outbox_events_seq.NEXTVAL INTO :NEW.id FROM dual;
+    END IF;
+END;
+/
+
+-- ============================================================================
+-- AUDIT LOG (append-only; ids are hash chain positions assigned by the writer)
+-- ============================================================================
+CREATE TABLE audit_log (
+    id                  NUMBER(19) PRIMARY KEY,
+    entity_type         VARCHAR2(50) NOT NULL,
+    entity_id           VARCHAR2(64) NOT NULL,
+    action              VARCHAR2(10) NOT NULL,
+    actor               VARCHAR2(50) NOT NULL,
+    occurred_at         TIMESTAMP NOT NULL,
+    changes             CLOB,
+    prev_hash           VARCHAR2(64),
+    hash                VARCHAR2(64) NOT NULL,
+    CONSTRAINT chk_audit_action CHECK (action IN ('CREATE', 'UPDATE', 'DELETE'))
+);
+
+CREATE TABLE audit_chain_head (
+    id                  NUMBER(19) PRIMARY KEY,
+    last_entry_id       NUMBER(19) DEFAULT 0 NOT NULL,
+    last_hash           VARCHAR2(64)
+);
+
+INSERT INTO audit_chain_head (id, last_entry_id) VALUES (1, 0);
+
+-- Entries written with the business change, chained into audit_log by the writer
+CREATE TABLE audit_pending (
+    id                  NUMBER(19) PRIMARY KEY,
+    entity_type         VARCHAR2(50) NOT NULL,
+    entity_id           VARCHAR2(64) NOT NULL,
+    action              VARCHAR2(10) NOT NULL,
+    actor               VARCHAR2(50) NOT NULL,
+    occurred_at         TIMESTAMP NOT NULL,
+    changes             CLOB,
+    CONSTRAINT chk_audit_pending_action CHECK (action IN ('CREATE', 'UPDATE', 'DELETE'))
+);
+
+CREATE SEQUENCE audit_pending_seq START WITH 1 INCREMENT BY 1;
+
+-- Reject edits and deletes; the application only ever inserts
+CREATE OR REPLACE TRIGGER audit_log_no_change_trg
+BEFORE UPDATE OR DELETE ON audit_log
+BEGIN
+    RAISE_APPLICATION_ERROR(-20001, 'audit_log is append-only');
+END;
+/
+
+-- ============================================================================
+-- STOCK LEDGER (one row per bag, append-only movements, running balances)
+-- ============================================================================
+CREATE TABLE blood_units (
+    id                  NUMBER(19) PRIMARY KEY,
+    barcode             VARCHAR2(20) NOT NULL UNIQUE,
+    stock_id            NUMBER(19),
+    blood_group         VARCHAR2(5) NOT NULL,
+    component_type      VARCHAR2(30) NOT NULL,
+    volume_ml           NUMBER(10),
+    collection_date     DATE,
+    expiry_date         DATE NOT NULL,
+    status              VARCHAR2(20) DEFAULT 'IN_STOCK' NOT NULL,
+    reserved_for        NUMBER(19),
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT fk_unit_stock FOREIGN KEY (stock_id) REFERENCES blood_stock(id),
+    CONSTRAINT chk_unit_status CHECK (status IN ('IN_STOCK', 'RESERVED', 'ISSUED', 'DISCARDED'))
+);
+
+CREATE SEQUENCE blood_units_seq START WITH 1 INCREMENT BY 1;
+
+-- A bag's identity never changes; only its status moves
+CREATE OR REPLACE TRIGGER blood_units_immutable_trg
+BEFORE UPDATE OF barcode, stock_id, blood_group, component_type, volume_ml,
+                 collection_date, expiry_date, created_at ON blood_units
+BEGIN
+    RAISE_APPLICATION_ERROR(-20002, 'blood_units identity columns are immutable');
+END;
+/
+
+CREATE TABLE stock_movements (
+    id                  NUMBER(19) PRIMARY KEY,
+    unit_id             NUMBER(19) NOT NULL,
+    blood_group         VARCHAR2(5) NOT NULL,
+    component_type      VARCHAR2(30) NOT NULL,
+    movement_type       VARCHAR2(20) NOT NULL,
+    on_hand_delta       NUMBER(5) NOT NULL,
+    reserved_delta      NUMBER(5) NOT NULL,
+    on_hand_after       NUMBER(10) NOT NULL,
+    reserved_after      NUMBER(10) NOT NULL,
+    reference           VARCHAR2(100),
+    actor               VARCHAR2(50),
+    occurred_at         TIMESTAMP NOT NULL,
+    CONSTRAINT fk_movement_unit FOREIGN KEY (unit_id) REFERENCES blood_units(id),
+    CONSTRAINT chk_movement_type CHECK (movement_type IN ('RECEIVED', 'RESERVED', 'RELEASED', 'ISSUED', 'DISCARDED'))
+);
+
+CREATE SEQUENCE stock_movements_seq START WITH 1 INCREMENT BY 1;
+
+CREATE OR REPLACE TRIGGER stock_movements_no_change_trg
+BEFORE UPDATE OR DELETE ON stock_movements
+BEGIN
+    RAISE_APPLICATION_ERROR(-20001, 'stock_movements is append-only');
+END;
+/
+
+CREATE TABLE stock_balances (
+    id                  NUMBER(19) PRIMARY KEY,
+    blood_group         VARCHAR2(5) NOT NULL,
+    component_type      VARCHAR2(30) NOT NULL,
+    on_hand             NUMBER(10) DEFAULT 0 NOT NULL,
+    reserved            NUMBER(10) DEFAULT 0 NOT NULL,
+    updated_at          TIMESTAMP,
+    CONSTRAINT uq_balance_key UNIQUE (blood_group, component_type)
+);
+
+CREATE SEQUENCE stock_balances_seq START WITH 1 INCREMENT BY 1;
+
+-- One balance row per group and component up front, so writers only ever lock existing rows
+INSERT INTO stock_balances (id, blood_group, component_type)
+SELECT stock_balances_seq.NEXTVAL, g.blood_group, c.component_type
+FROM (SELECT 'A+' blood_group FROM dual UNION ALL SELECT 'A-' FROM dual UNION ALL
+      SELECT 'B+' FROM dual UNION ALL SELECT 'B-' FROM dual UNION ALL
+      SELECT 'AB+' FROM dual UNION ALL SELECT 'AB-' FROM dual UNION ALL
+      SELECT 'O+' FROM dual UNION ALL SELECT 'O-' FROM dual) g
+CROSS JOIN
+     (SELECT 'WHOLE_BLOOD' component_type FROM dual UNION ALL SELECT 'RBC' FROM dual UNION ALL
+      SELECT 'PLASMA' FROM dual UNION ALL SELECT 'PLATELETS' FROM dual UNION ALL
+      SELECT 'WBC' FROM dual) c;
+
+-- ============================================================================
+-- STOCK HOLDS TABLE (crossmatch reservations, deleted when released or expired)
+-- ============================================================================
+CREATE TABLE stock_holds (
+    id                  NUMBER(19) PRIMARY KEY,
+    stock_id            NUMBER(19) NOT NULL,
+    request_id          NUMBER(19) NOT NULL,
+    units               NUMBER(10) NOT NULL CHECK (units > 0),
+    held_by             VARCHAR2(50),
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at          TIMESTAMP NOT NULL,
+    CONSTRAINT fk_hold_stock FOREIGN KEY (stock_id) REFERENCES blood_stock(id) ON DELETE CASCADE,
+    CONSTRAINT fk_hold_request FOREIGN KEY (request_id) REFERENCES blood_requests(id) ON DELETE CASCADE
+);
+
+CREATE SEQUENCE stock_holds_seq START WITH 1 INCREMENT BY 1;
+
+-- ============================================================================
+-- DEMAND MODELS TABLE (forecast state per group and component, trained nightly)
+-- ============================================================================
+CREATE TABLE demand_models (
+    id                  NUMBER(19) PRIMARY KEY,
+    blood_group         VARCHAR2(5) NOT NULL,
+    component_type      VARCHAR2(30) NOT NULL,
+    level_value         NUMBER NOT NULL,
+    weekday_factors     VARCHAR2(200) NOT NULL,
+    mse                 NUMBER NOT NULL,
+    observations        NUMBER(19) DEFAULT 0 NOT NULL,
+    last_date           DATE,
+    updated_at          TIMESTAMP,
+    CONSTRAINT uq_demand_model_key UNIQUE (blood_group, component_type)
+);
+
+CREATE SEQUENCE demand_models_seq START WITH 1 INCREMENT BY 1;
+
+-- One model per group and component up front, so training only ever locks existing rows
+INSERT INTO demand_models (id, blood_group, component_type, level_value, weekday_factors, mse)
+SELECT demand_models_seq.NEXTVAL, g.blood_group, c.component_type, 0, '0,0,0,0,0,0,0', 0
+FROM (SELECT 'A+' blood_group FROM dual UNION ALL SELECT 'A-' FROM dual UNION ALL
+      SELECT 'B+' FROM dual UNION ALL SELECT 'B-' FROM dual UNION ALL
+      SELECT 'AB+' FROM dual UNION ALL SELECT 'AB-' FROM dual UNION ALL
+      SELECT 'O+' FROM dual UNION ALL SELECT 'O-' FROM dual) g
+CROSS JOIN
+     (SELECT 'WHOLE_BLOOD' component_type FROM dual UNION ALL SELECT 'RBC' FROM dual UNION ALL
+      SELECT 'PLASMA' FROM dual UNION ALL SELECT 'PLATELETS' FROM dual UNION ALL
+      SELECT 'WBC' FROM dual) c;
+
+-- ============================================================================
+-- DONOR DEFERRALS TABLE (deferral history; a NULL end_date defers permanently)
+-- ============================================================================
+CREATE TABLE donor_deferrals (
+    id                  NUMBER(19) PRIMARY KEY,
+    donor_id            NUMBER(19) NOT NULL,
+    condition_code      VARCHAR2(50) NOT NULL,
+    start_date          DATE NOT NULL,
+    end_date            DATE,
+    status              VARCHAR2(20) DEFAULT 'ACTIVE' NOT NULL
+                        CHECK (status IN ('ACTIVE', 'RELEASED', 'REVOKED')),
+    notes               VARCHAR2(500),
+    recorded_by         VARCHAR2(50),
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    released_at         TIMESTAMP,
+    CONSTRAINT fk_deferral_donor FOREIGN KEY (donor_id) REFERENCES donors(id) ON DELETE CASCADE,
+    CONSTRAINT chk_deferral_dates CHECK (end_date IS NULL OR end_date > start_date)
+);
+
+CREATE SEQUENCE donor_deferrals_seq START WITH 1 INCREMENT BY 1;
+
+-- ============================================================================
+-- DONOR STATS TABLE (lifetime totals per donor, kept in step with donations
+-- and deferrals; rebuilt nightly from the history)
+-- ============================================================================
+CREATE TABLE donor_stats (
+    donor_id            NUMBER(19) PRIMARY KEY,
+    donations           NUMBER(10) DEFAULT 0 NOT NULL,
+    volume_ml           NUMBER(12) DEFAULT 0 NOT NULL,
+    whole_blood         NUMBER(10) DEFAULT 0 NOT NULL,
+    plasma              NUMBER(10) DEFAULT 0 NOT NULL,
+    platelets           NUMBER(10) DEFAULT 0 NOT NULL,
+    rbc                 NUMBER(10) DEFAULT 0 NOT NULL,
+    wbc                 NUMBER(10) DEFAULT 0 NOT NULL,
+    first_donation_date DATE,
+    last_donation_date  DATE,
+    last_hemoglobin     NUMBER(5,2),
+    last_hemoglobin_date DATE,
+    deferrals           NUMBER(10) DEFAULT 0 NOT NULL,
+    updated_at          TIMESTAMP,
+    CONSTRAINT fk_stats_donor FOREIGN KEY (donor_id) REFERENCES donors(id) ON DELETE CASCADE
+);
+
 -- ============================================================================
 -- INDEXES FOR PERFORMANCE
 -- ============================================================================
-CREATE INDEX idx_donors_blood_group ON donors(blood_group);
+-- Keyset paging of the donor list: (full_name, id), optionally within a group
+CREATE INDEX idx_donors_name ON donors(full_name, id);
+CREATE INDEX idx_donors_blood_group ON donors(blood_group, full_name, id);
 CREATE INDEX idx_donors_phone ON donors(phone);
+CREATE INDEX idx_donors_phone_key ON donors(phone_key);
+CREATE INDEX idx_donors_dob_group ON donors(date_of_birth, blood_group);
 CREATE INDEX idx_donors_eligible ON donors(is_eligible);
 
 CREATE INDEX idx_recipients_blood_group ON recipients(blood_group);
@@ -383,10 +746,31 @@ CREATE INDEX idx_donations_date ON donations(donation_date);
 CREATE INDEX idx_requests_recipient ON blood_requests(recipient_id);
 CREATE INDEX idx_requests_status ON blood_requests(status);
 CREATE INDEX idx_requests_priority ON blood_requests(priority);
+CREATE INDEX idx_requests_date ON blood_requests(request_date);
 
 CREATE INDEX idx_transfusions_recipient ON transfusions(recipient_id);
 CREATE INDEX idx_transfusions_date ON transfusions(transfusion_date);
 
+CREATE INDEX idx_outbox_status ON outbox_events(status, id);
+CREATE INDEX idx_outbox_processed ON outbox_events(status, processed_at);
+
+CREATE INDEX idx_audit_entity ON audit_log(entity_type, entity_id, id);
+
+CREATE INDEX idx_units_fifo ON blood_units(blood_group, component_type, status, expiry_date, id);
+CREATE INDEX idx_units_lot ON blood_units(stock_id, reserved_for);
+CREATE INDEX idx_movements_unit ON stock_movements(unit_id, id);
+CREATE INDEX idx_movements_key ON stock_movements(blood_group, component_type, id);
+
+CREATE INDEX idx_holds_stock ON stock_holds(stock_id, expires_at);
+CREATE INDEX idx_holds_expiry ON stock_holds(expires_at);
+
+CREATE INDEX idx_deferrals_donor ON donor_deferrals(donor_id, start_date);
+CREATE INDEX idx_deferrals_active ON donor_deferrals(status, end_date);
+
+CREATE INDEX idx_donor_stats_donations ON donor_stats(donations);
+CREATE INDEX idx_donor_stats_first ON donor_stats(first_donation_date);
+CREATE INDEX idx_donor_stats_last ON donor_stats(last_donation_date);
+
 COMMIT;
 
 -- Verify tables created
@@ -17,9 +17,8 @@ public class BloodBankApp extends Application {
         try {
             logger.info("Starting Blood Bank Management System...");
             
-            // Initialize Hibernate
-            HibernateUtil.getSessionFactory();
-            logger.info("Database connection established");
+            // Build Hibernate in the background; the first DAO call waits for it
+            HibernateUtil.initializeAsync();
             
             // Load login screen
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/login.fxml"));
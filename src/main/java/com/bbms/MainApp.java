@@ -1,9 +1,27 @@
 package com.bbms;
 
+import com.bbms.alert.StockAlertService;
+import com.bbms.audit.AuditTrail;
+import com.bbms.config.AppConfig;
 import com.bbms.config.HibernateUtil;
+import com.bbms.deferral.DeferralService;
+import com.bbms.forecast.ForecastService;
+import com.bbms.metrics.MetricsExport;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.StartupTimer;
+import com.bbms.outbox.ActivityLogConsumer;
+import com.bbms.outbox.OutboxDispatcher;
+import com.bbms.outbox.StatsRollupConsumer;
+import com.bbms.outbox.StockAlertConsumer;
+import com.bbms.planner.WastagePlanRunner;
+import com.bbms.security.PasswordHashingService;
+import com.bbms.service.AuthService;
+import com.bbms.service.ReservationService;
+import com.bbms.stats.DonorStatsService;
+import com.bbms.util.AlertUtil;
+import com.bbms.util.ViewCache;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
@@ -11,22 +29,69 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.util.Objects;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class MainApp extends Application {
 
     private static final Logger logger = LogManager.getLogger(MainApp.class);
     private static Stage primaryStage;
+    private static ViewCache viewCache;
 
     @Override
     public void start(Stage stage) {
         primaryStage = stage;
         logger.info("Starting Blood Bank Management System");
         
+        StartupTimer.mark("fx.start");
+
         try {
-            // Initialize Hibernate
-            HibernateUtil.getSessionFactory();
-            logger.info("Database connection established");
+            // Build Hibernate in the background; the first DAO call waits for it
+            HibernateUtil.initializeAsync().whenComplete((factory, error) -> {
+                if (error != null) {
+                    Platform.runLater(() -> AlertUtil.showDatabaseError(
+                            "Failed to connect to database. Please check your configuration."));
+                } else {
+                    logger.info("Database connection established");
+                }
+            });
+
+            MetricsExport.start();
+
+            // Record every DAO change with the logged-in user as actor
+            AuditTrail audit = AuditTrail.getInstance();
+            audit.setActorSupplier(AuthService.getInstance()::getCurrentUsername);
+            audit.start();
+
+            // Deliver domain events (donations, transfusions) to their consumers
+            OutboxDispatcher outbox = OutboxDispatcher.getInstance();
+            outbox.register(new ActivityLogConsumer());
+            outbox.register(new StatsRollupConsumer());
+            outbox.register(new StockAlertConsumer());
+            outbox.start();
+
+            // Recover crossmatch holds and expire them on time
+            ReservationService.getInstance().start();
+
+            // Re-plan issues so near-expiry units reach open requests first
+            WastagePlanRunner.getInstance().start();
+
+            // Catch up demand forecasts, then retrain nightly
+            ForecastService.getInstance().start();
+
+            // Evaluate the stock alert rules on every stock change
+            StockAlertService.getInstance().start();
+
+            // Index active donor deferrals and release expired ones nightly
+            DeferralService.getInstance().start();
+
+            // Build donor lifetime stats if missing and rebuild them nightly
+            DonorStatsService.getInstance().start();
+
+            // Benchmark password hashing off the FX thread before the first login needs it
+            CompletableFuture.runAsync(PasswordHashingService::getInstance);
             
             // Load login screen
             loadScene("/fxml/login.fxml", "Blood Bank - Login");
@@ -34,6 +99,7 @@ public class MainApp extends Application {
             primaryStage.setMinWidth(800);
             primaryStage.setMinHeight(600);
             primaryStage.show();
+            StartupTimer.markInteractive("login.shown");
             
             logger.info("Application started successfully");
         } catch (Exception e) {
@@ -44,26 +110,46 @@ public class MainApp extends Application {
 
     public static void loadScene(String fxmlPath, String title) {
         try {
-            Parent root = FXMLLoader.load(Objects.requireNonNull(
-                    MainApp.class.getResource(fxmlPath)));
-            Scene scene = new Scene(root);
-            
-            // Load CSS
-            String cssPath = MainApp.class.getResource("/css/styles.css") != null 
-                    ? "/css/styles.css" : null;
-            if (cssPath != null) {
-                scene.getStylesheets().add(Objects.requireNonNull(
-                        MainApp.class.getResource(cssPath)).toExternalForm());
-            }
-            
+            long start = System.nanoTime();
+            Scene scene = viewCache().get(fxmlPath).scene();
+
             primaryStage.setTitle(title);
             primaryStage.setScene(scene);
             primaryStage.centerOnScreen();
+            MetricsRegistry.getInstance().timer("ui.navigate").recordNanos(System.nanoTime() - start);
         } catch (IOException e) {
             logger.error("Failed to load scene: " + fxmlPath, e);
         }
     }
 
+    /**
+     * Load frequently used views in the background (ui.preload.views).
+     */
+    public static void preloadScenes() {
+        String paths = AppConfig.getInstance().getString("ui.preload.views", "");
+        List<String> fxmlPaths = Arrays.stream(paths.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .toList();
+        viewCache().preload(fxmlPaths);
+    }
+
+    /**
+     * Forget all cached views, e.g. on logout.
+     */
+    public static void clearSceneCache() {
+        viewCache().clear();
+    }
+
+    private static ViewCache viewCache() {
+        if (viewCache == null) {
+            URL css = MainApp.class.getResource("/css/styles.css");
+            viewCache = new ViewCache(AppConfig.getInstance().getInt("ui.view.cache.size", 6),
+                    css != null ? css.toExternalForm() : null);
+        }
+        return viewCache;
+    }
+
     public static Stage getPrimaryStage() {
         return primaryStage;
     }
@@ -71,6 +157,19 @@ public class MainApp extends Application {
     @Override
     public void stop() {
         logger.info("Shutting down application");
+        MetricsExport.stop();
+        if (viewCache != null) {
+            viewCache.shutdown();
+        }
+        OutboxDispatcher.getInstance().stop();
+        ReservationService.getInstance().stop();
+        WastagePlanRunner.getInstance().stop();
+        ForecastService.getInstance().stop();
+        StockAlertService.getInstance().stop();
+        DeferralService.getInstance().stop();
+        DonorStatsService.getInstance().stop();
+        AuditTrail.getInstance().stop();
+        AuthService.getInstance().shutdown();
         HibernateUtil.shutdown();
     }
 
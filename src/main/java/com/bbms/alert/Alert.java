@@ -0,0 +1,11 @@
+package com.bbms.alert;
+
+import java.time.LocalDateTime;
+
+/**
+ * A raised stock alert. The key is the rule name plus the subject, so the
+ * same condition on the same lot or group is one alert however often it
+ * is evaluated; raisedAt is when it was first seen.
+ */
+public record Alert(String key, String rule, AlertRule.Severity severity, String message, LocalDateTime raisedAt) {
+}
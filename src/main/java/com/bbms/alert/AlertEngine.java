@@ -0,0 +1,220 @@
+package com.bbms.alert;
+
+import com.bbms.event.EventBus;
+import com.bbms.model.BloodStock;
+import com.bbms.util.BloodCompatibility;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates compiled alert rules against an inventory snapshot and pushes
+ * the changes to subscribers.
+ *
+ * One pass over the lots evaluates the lot rules and accumulates the
+ * series and group totals; the series and group rules then run over those
+ * totals. An alert stays raised, with its original raisedAt, for as long
+ * as its rule keeps matching its subject. It is only reported as raised
+ * again once the rule's repeat interval has passed, so a condition that
+ * persists across evaluations does not flood subscribers.
+ */
+public class AlertEngine {
+
+    private static final Logger logger = LogManager.getLogger(AlertEngine.class);
+    private static final List<String> BLOOD_GROUPS = List.of(BloodCompatibility.ALL_BLOOD_GROUPS);
+    private static final BloodStock.ComponentType[] COMPONENTS = BloodStock.ComponentType.values();
+
+    private final List<AlertRule> rules;
+    private final List<AlertRule> lotRules = new ArrayList<>();
+    private final List<AlertRule> seriesRules = new ArrayList<>();
+    private final List<AlertRule> groupRules = new ArrayList<>();
+
+    private final Map<String, Raised> raised = new HashMap<>();
+    private final List<Consumer<AlertUpdate>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile List<Alert> active = List.of();
+
+    public AlertEngine(List<AlertRule> rules) {
+        this.rules = List.copyOf(rules);
+        for (AlertRule rule : this.rules) {
+            switch (rule.getScope()) {
+                case LOT -> lotRules.add(rule);
+                case SERIES -> seriesRules.add(rule);
+                case GROUP -> groupRules.add(rule);
+            }
+        }
+    }
+
+    public List<AlertRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Receive an update after every evaluation that changed the active
+     * alerts. Updates arrive on the evaluating thread; UI subscribers hand
+     * off to the FX thread.
+     */
+    public EventBus.Subscription subscribe(Consumer<AlertUpdate> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * Alerts raised by the last evaluation, most severe first, then in
+     * rule order.
+     */
+    public List<Alert> getActiveAlerts() {
+        return active;
+    }
+
+    /**
+     * Evaluate every rule against one snapshot of the available lots and
+     * notify subscribers. Returns the update, or null when nothing changed.
+     */
+    public synchronized AlertUpdate evaluate(Collection<BloodStock> lots, ThresholdSource thresholds,
+                                             LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        long[][] seriesUnits = new long[BLOOD_GROUPS.size()][COMPONENTS.length];
+        int[][] seriesLots = new int[BLOOD_GROUPS.size()][COMPONENTS.length];
+        Map<String, Fired> fired = new LinkedHashMap<>();
+
+        double[] facts = new double[AlertRule.Scope.LOT.metrics().size()];
+        for (BloodStock lot : lots) {
+            int g = BLOOD_GROUPS.indexOf(lot.getBloodGroup());
+            if (g < 0 || lot.getComponentType() == null || lot.getStatus() != BloodStock.StockStatus.AVAILABLE) {
+                continue;
+            }
+            int units = lot.getUnitsAvailable() == null ? 0 : lot.getUnitsAvailable();
+            long days = lot.getExpiryDate() == null
+                    ? Long.MAX_VALUE : ChronoUnit.DAYS.between(today, lot.getExpiryDate());
+            if (!lotRules.isEmpty()) {
+                facts[0] = units;
+                facts[1] = days;
+                for (AlertRule rule : lotRules) {
+                    if (rule.appliesTo(lot.getComponentType()) && rule.matches(facts)) {
+                        fire(fired, rule, AlertRule.Subject.lot(lot), facts);
+                    }
+                }
+            }
+            if (days >= 0) {
+                seriesUnits[g][lot.getComponentType().ordinal()] += units;
+                seriesLots[g][lot.getComponentType().ordinal()]++;
+            }
+        }
+
+        if (!seriesRules.isEmpty()) {
+            facts = new double[AlertRule.Scope.SERIES.metrics().size()];
+            for (int g = 0; g < BLOOD_GROUPS.size(); g++) {
+                String bloodGroup = BLOOD_GROUPS.get(g);
+                for (BloodStock.ComponentType componentType : COMPONENTS) {
+                    int c = componentType.ordinal();
+                    if (seriesLots[g][c] == 0 && !thresholds.hasDemandHistory(bloodGroup, componentType)) {
+                        continue;
+                    }
+                    facts[0] = seriesUnits[g][c];
+                    facts[1] = seriesLots[g][c];
+                    facts[2] = thresholds.lowStockThreshold(bloodGroup, componentType);
+                    for (AlertRule rule : seriesRules) {
+                        if (rule.appliesTo(componentType) && rule.matches(facts)) {
+                            fire(fired, rule, new AlertRule.Subject(bloodGroup, componentType, null), facts);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!groupRules.isEmpty()) {
+            facts = new double[AlertRule.Scope.GROUP.metrics().size()];
+            for (int g = 0; g < BLOOD_GROUPS.size(); g++) {
+                facts[0] = Arrays.stream(seriesUnits[g]).sum();
+                facts[1] = Arrays.stream(seriesLots[g]).sum();
+                for (AlertRule rule : groupRules) {
+                    if (rule.matches(facts)) {
+                        fire(fired, rule, new AlertRule.Subject(BLOOD_GROUPS.get(g), null, null), facts);
+                    }
+                }
+            }
+        }
+
+        return apply(fired, now);
+    }
+
+    private void fire(Map<String, Fired> fired, AlertRule rule, AlertRule.Subject subject, double[] facts) {
+        String key = rule.getName() + ":" + subject.key();
+        fired.put(key, new Fired(rule, rule.format(subject, facts)));
+    }
+
+    /**
+     * Diff the fired alerts against the raised ones, apply the repeat
+     * intervals and publish.
+     */
+    private AlertUpdate apply(Map<String, Fired> fired, LocalDateTime now) {
+        List<Alert> newlyRaised = new ArrayList<>();
+        boolean changed = false;
+        Map<String, Raised> next = new HashMap<>();
+        for (Map.Entry<String, Fired> entry : fired.entrySet()) {
+            String key = entry.getKey();
+            AlertRule rule = entry.getValue().rule();
+            String message = entry.getValue().message();
+            Raised previous = raised.get(key);
+            if (previous == null) {
+                Alert alert = new Alert(key, rule.getName(), rule.getSeverity(), message, now);
+                newlyRaised.add(alert);
+                next.put(key, new Raised(alert, now, rules.indexOf(rule)));
+                continue;
+            }
+            Alert alert = previous.alert();
+            if (!alert.message().equals(message)) {
+                alert = new Alert(key, rule.getName(), rule.getSeverity(), message, alert.raisedAt());
+                changed = true;
+            }
+            LocalDateTime lastSent = previous.lastSent();
+            if (!rule.getRepeat().isZero() && !now.isBefore(lastSent.plus(rule.getRepeat()))) {
+                newlyRaised.add(alert);
+                lastSent = now;
+            }
+            next.put(key, new Raised(alert, lastSent, previous.order()));
+        }
+
+        List<Alert> cleared = new ArrayList<>();
+        for (Map.Entry<String, Raised> entry : raised.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                cleared.add(entry.getValue().alert());
+            }
+        }
+        raised.clear();
+        raised.putAll(next);
+
+        if (newlyRaised.isEmpty() && cleared.isEmpty() && !changed) {
+            return null;
+        }
+        active = next.values().stream()
+                .sorted(Comparator.comparing((Raised r) -> r.alert().severity()).reversed()
+                        .thenComparingInt(Raised::order)
+                        .thenComparing(r -> r.alert().raisedAt())
+                        .thenComparing(r -> r.alert().key()))
+                .map(Raised::alert)
+                .toList();
+
+        AlertUpdate update = new AlertUpdate(active, List.copyOf(newlyRaised), List.copyOf(cleared));
+        for (Consumer<AlertUpdate> subscriber : subscribers) {
+            try {
+                subscriber.accept(update);
+            } catch (Exception e) {
+                logger.warn("Alert subscriber failed", e);
+            }
+        }
+        return update;
+    }
+
+    private record Fired(AlertRule rule, String message) {
+    }
+
+    private record Raised(Alert alert, LocalDateTime lastSent, int order) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.bbms.alert;
+
+import com.bbms.model.BloodStock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A configured stock alert rule, compiled once when the rules are loaded.
+ *
+ * Rule {@code name} is read from the alert.rule.name.* properties:
+ * <ul>
+ *   <li>scope: lot, series (blood group and component) or group (blood group)</li>
+ *   <li>when: comparisons joined by and/or, e.g. {@code units < threshold}.
+ *       Operands are numbers, ${property} references or metrics of the
+ *       scope: lot has units and days (to expiry, negative once expired),
+ *       series has units, lots and threshold (the forecast low-stock
+ *       level), group has units and lots</li>
+ *   <li>component: optional component filter for lot and series rules</li>
+ *   <li>severity: INFO, WARNING or CRITICAL (default WARNING)</li>
+ *   <li>message: text with {bloodGroup}, {component}, {stockId}, {expiry}
+ *       and {metric} placeholders</li>
+ *   <li>repeat.minutes: how often an alert that stays raised is sent
+ *       again; 0 (the default) sends it once</li>
+ * </ul>
+ * Series and group totals only count unexpired lots.
+ */
+public final class AlertRule {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    public enum Scope {
+        LOT("units", "days"),
+        SERIES("units", "lots", "threshold"),
+        GROUP("units", "lots");
+
+        private final List<String> metrics;
+
+        Scope(String... metrics) {
+            this.metrics = List.of(metrics);
+        }
+
+        public List<String> metrics() {
+            return metrics;
+        }
+    }
+
+    public enum Severity {
+        INFO, WARNING, CRITICAL
+    }
+
+    /**
+     * What an alert is about: a lot, a blood group and component, or a
+     * blood group. The key identifies the alert across evaluations.
+     */
+    public record Subject(String bloodGroup, BloodStock.ComponentType componentType, BloodStock lot) {
+
+        static Subject lot(BloodStock lot) {
+            return new Subject(lot.getBloodGroup(), lot.getComponentType(), lot);
+        }
+
+        String key() {
+            if (lot != null) {
+                return "lot:" + lot.getId();
+            }
+            return componentType == null ? bloodGroup : bloodGroup + "|" + componentType;
+        }
+    }
+
+    private final String name;
+    private final Scope scope;
+    private final Severity severity;
+    private final BloodStock.ComponentType component;
+    private final Predicate<double[]> condition;
+    private final List<BiFunction<Subject, double[], String>> message;
+    private final Duration repeat;
+
+    private AlertRule(String name, Scope scope, Severity severity, BloodStock.ComponentType component,
+                      Predicate<double[]> condition, List<BiFunction<Subject, double[], String>> message,
+                      Duration repeat) {
+        this.name = name;
+        this.scope = scope;
+        this.severity = severity;
+        this.component = component;
+        this.condition = condition;
+        this.message = message;
+        this.repeat = repeat;
+    }
+
+    /**
+     * Compile every rule listed in alert.rules, in order.
+     */
+    public static List<AlertRule> loadAll(Function<String, String> properties) {
+        String names = properties.apply("alert.rules");
+        List<AlertRule> rules = new ArrayList<>();
+        if (names != null) {
+            for (String name : names.split(",")) {
+                if (!name.isBlank()) {
+                    rules.add(compile(name.trim(), properties));
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Compile one rule. Throws IllegalArgumentException naming the rule and
+     * property when the configuration is invalid.
+     */
+    public static AlertRule compile(String name, Function<String, String> properties) {
+        String prefix = "alert.rule." + name + ".";
+        try {
+            Scope scope = Scope.valueOf(required(properties, prefix + "scope").toUpperCase(Locale.ROOT));
+            String severityValue = properties.apply(prefix + "severity");
+            Severity severity = severityValue == null || severityValue.isBlank()
+                    ? Severity.WARNING : Severity.valueOf(severityValue.trim().toUpperCase(Locale.ROOT));
+
+            BloodStock.ComponentType component = null;
+            String componentValue = properties.apply(prefix + "component");
+            if (componentValue != null && !componentValue.isBlank()) {
+                if (scope == Scope.GROUP) {
+                    throw new IllegalArgumentException("A component filter needs lot or series scope");
+                }
+                component = BloodStock.ComponentType.valueOf(componentValue.trim().toUpperCase(Locale.ROOT));
+            }
+
+            Predicate<double[]> condition = RuleExpression.compile(required(properties, prefix + "when"), scope, properties);
+            List<BiFunction<Subject, double[], String>> message =
+                    compileMessage(required(properties, prefix + "message"), scope);
+
+            String repeatValue = properties.apply(prefix + "repeat.minutes");
+            long repeatMinutes = repeatValue == null || repeatValue.isBlank() ? 0 : Long.parseLong(repeatValue.trim());
+            return new AlertRule(name, scope, severity, component, condition, message,
+                    Duration.ofMinutes(Math.max(0, repeatMinutes)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid alert rule '" + name + "': " + e.getMessage(), e);
+        }
+    }
+
+    public String getName() { return name; }
+
+    public Scope getScope() { return scope; }
+
+    public Severity getSeverity() { return severity; }
+
+    public BloodStock.ComponentType getComponent() { return component; }
+
+    /**
+     * Zero when a raised alert is only sent once.
+     */
+    public Duration getRepeat() { return repeat; }
+
+    boolean appliesTo(BloodStock.ComponentType componentType) {
+        return component == null || component == componentType;
+    }
+
+    boolean matches(double[] facts) {
+        return condition.test(facts);
+    }
+
+    String format(Subject subject, double[] facts) {
+        StringBuilder sb = new StringBuilder();
+        for (BiFunction<Subject, double[], String> part : message) {
+            sb.append(part.apply(subject, facts));
+        }
+        return sb.toString();
+    }
+
+    private static List<BiFunction<Subject, double[], String>> compileMessage(String template, Scope scope) {
+        List<BiFunction<Subject, double[], String>> parts = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int at = 0;
+        while (matcher.find()) {
+            String text = template.substring(at, matcher.start());
+            if (!text.isEmpty()) {
+                parts.add((subject, facts) -> text);
+            }
+            parts.add(placeholder(matcher.group(1), scope));
+            at = matcher.end();
+        }
+        String tail = template.substring(at);
+        if (!tail.isEmpty()) {
+            parts.add((subject, facts) -> tail);
+        }
+        return parts;
+    }
+
+    private static BiFunction<Subject, double[], String> placeholder(String name, Scope scope) {
+        switch (name) {
+            case "bloodGroup":
+                return (subject, facts) -> subject.bloodGroup();
+            case "component":
+                if (scope == Scope.GROUP) {
+                    break;
+                }
+                return (subject, facts) -> String.valueOf(subject.componentType());
+            case "stockId":
+                if (scope != Scope.LOT) {
+                    break;
+                }
+                return (subject, facts) -> String.valueOf(subject.lot().getId());
+            case "expiry":
+                if (scope != Scope.LOT) {
+                    break;
+                }
+                return (subject, facts) -> String.valueOf(subject.lot().getExpiryDate());
+            default:
+                int index = scope.metrics().indexOf(name);
+                if (index >= 0) {
+                    return (subject, facts) -> formatNumber(facts[index]);
+                }
+        }
+        throw new IllegalArgumentException("Unknown placeholder {" + name + "} for "
+                + scope.name().toLowerCase(Locale.ROOT) + " rules");
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String required(Function<String, String> properties, String key) {
+        String value = properties.apply(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(key + " is not set");
+        }
+        return value.trim();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + scope.name().toLowerCase(Locale.ROOT) + ", " + severity + ")";
+    }
+}
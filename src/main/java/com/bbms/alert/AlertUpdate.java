@@ -0,0 +1,11 @@
+package com.bbms.alert;
+
+import java.util.List;
+
+/**
+ * Sent to subscribers after an evaluation that changed something: every
+ * alert now active, the ones raised (or due for a repeat) and the ones
+ * that cleared.
+ */
+public record AlertUpdate(List<Alert> active, List<Alert> raised, List<Alert> cleared) {
+}
@@ -0,0 +1,145 @@
+package com.bbms.alert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the condition of an alert rule into a predicate over the
+ * metrics of its scope.
+ *
+ * Grammar: {@code expr := and ('or' and)*}, {@code and := cmp ('and' cmp)*},
+ * {@code cmp := operand op operand} with op one of {@code < <= > >= == !=}.
+ * An operand is a number, a ${property} reference (resolved once, here) or
+ * a metric name (resolved to its index in the facts array, here).
+ */
+final class RuleExpression {
+
+    private static final Pattern TOKEN =
+            Pattern.compile("\\s*(\\$\\{[^}]+}|<=|>=|==|!=|<|>|-?\\d+(?:\\.\\d+)?|[A-Za-z_][A-Za-z_0-9]*)");
+
+    private final String source;
+    private final AlertRule.Scope scope;
+    private final Function<String, String> properties;
+    private final List<String> tokens;
+    private int pos;
+
+    private RuleExpression(String source, AlertRule.Scope scope, Function<String, String> properties) {
+        this.source = source;
+        this.scope = scope;
+        this.properties = properties;
+        this.tokens = tokenize(source);
+    }
+
+    static Predicate<double[]> compile(String source, AlertRule.Scope scope, Function<String, String> properties) {
+        RuleExpression expression = new RuleExpression(source, scope, properties);
+        Predicate<double[]> predicate = expression.parseOr();
+        if (expression.pos < expression.tokens.size()) {
+            throw expression.error("Unexpected '" + expression.tokens.get(expression.pos) + "'");
+        }
+        return predicate;
+    }
+
+    private Predicate<double[]> parseOr() {
+        Predicate<double[]> left = parseAnd();
+        while (accept("or")) {
+            left = left.or(parseAnd());
+        }
+        return left;
+    }
+
+    private Predicate<double[]> parseAnd() {
+        Predicate<double[]> left = parseComparison();
+        while (accept("and")) {
+            left = left.and(parseComparison());
+        }
+        return left;
+    }
+
+    private Predicate<double[]> parseComparison() {
+        ToDoubleFunction<double[]> a = parseOperand();
+        String op = next("a comparison");
+        ToDoubleFunction<double[]> b = parseOperand();
+        return switch (op) {
+            case "<" -> facts -> a.applyAsDouble(facts) < b.applyAsDouble(facts);
+            case "<=" -> facts -> a.applyAsDouble(facts) <= b.applyAsDouble(facts);
+            case ">" -> facts -> a.applyAsDouble(facts) > b.applyAsDouble(facts);
+            case ">=" -> facts -> a.applyAsDouble(facts) >= b.applyAsDouble(facts);
+            case "==" -> facts -> a.applyAsDouble(facts) == b.applyAsDouble(facts);
+            case "!=" -> facts -> a.applyAsDouble(facts) != b.applyAsDouble(facts);
+            default -> throw error("Expected a comparison but found '" + op + "'");
+        };
+    }
+
+    private ToDoubleFunction<double[]> parseOperand() {
+        String token = next("a number, property or metric");
+        if (token.startsWith("${")) {
+            String key = token.substring(2, token.length() - 1).trim();
+            String value = properties.apply(key);
+            if (value == null || value.isBlank()) {
+                throw error("Property '" + key + "' is not set");
+            }
+            double constant = parseNumber(value.trim(), "Property '" + key + "'");
+            return facts -> constant;
+        }
+        if (Character.isDigit(token.charAt(0)) || token.charAt(0) == '-') {
+            double constant = parseNumber(token, "Literal");
+            return facts -> constant;
+        }
+        int index = scope.metrics().indexOf(token);
+        if (index < 0) {
+            throw error("Unknown metric '" + token + "' for " + scope.name().toLowerCase()
+                    + " rules; expected one of " + scope.metrics());
+        }
+        return facts -> facts[index];
+    }
+
+    private boolean accept(String keyword) {
+        if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(keyword)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private String next(String expected) {
+        if (pos >= tokens.size()) {
+            throw error("Expected " + expected + " at end of condition");
+        }
+        return tokens.get(pos++);
+    }
+
+    private double parseNumber(String value, String what) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw error(what + " is not a number: " + value);
+        }
+    }
+
+    private List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        int at = 0;
+        while (at < text.length()) {
+            matcher.region(at, text.length());
+            if (!matcher.lookingAt()) {
+                if (text.substring(at).isBlank()) {
+                    break;
+                }
+                throw error("Unexpected character at position " + at);
+            }
+            result.add(matcher.group(1));
+            at = matcher.end();
+        }
+        return result;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " in condition '" + source + "'");
+    }
+}
@@ -0,0 +1,173 @@
+package com.bbms.alert;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.BloodStockDao;
+import com.bbms.event.EventBus;
+import com.bbms.forecast.ForecastService;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.BloodStock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs the {@link AlertEngine} with the rules from alert.rules on a
+ * background thread, so screens subscribe to alerts instead of querying
+ * for them on every refresh.
+ *
+ * Stock changes trigger an evaluation, coalesced over alert.debounce.ms;
+ * a full evaluation also runs every alert.eval.interval.seconds so expiry
+ * rules fire without a change and changes made on other workstations are
+ * picked up. Each evaluation reads the available lots with one query.
+ * Raised alerts are logged and counted as alerts.&lt;rule&gt;.
+ */
+public class StockAlertService {
+
+    private static final Logger logger = LogManager.getLogger(StockAlertService.class);
+
+    // Resolved once so calls do no registry lookups
+    private static final Timer EVALUATE_TIMER = timer("evaluate");
+
+    private static class Holder {
+        private static final StockAlertService INSTANCE = new StockAlertService();
+    }
+
+    private final AlertEngine engine;
+    private final BloodStockDao bloodStockDao;
+    private final ThresholdSource thresholds;
+    private final long debounceMillis;
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+    private EventBus.Subscription stockEvents;
+
+    private StockAlertService() {
+        AppConfig config = AppConfig.getInstance();
+        List<AlertRule> rules;
+        try {
+            rules = AlertRule.loadAll(key -> config.getString(key, null));
+        } catch (IllegalArgumentException e) {
+            logger.error("Stock alerts are disabled: {}", e.getMessage());
+            rules = List.of();
+        }
+        this.engine = new AlertEngine(rules);
+        this.bloodStockDao = new BloodStockDao();
+        this.debounceMillis = Math.max(0, config.getLong("alert.debounce.ms", 500));
+
+        ForecastService forecastService = ForecastService.getInstance();
+        this.thresholds = new ThresholdSource() {
+            @Override
+            public int lowStockThreshold(String bloodGroup, BloodStock.ComponentType componentType) {
+                return forecastService.getLowStockThreshold(bloodGroup, componentType);
+            }
+
+            @Override
+            public boolean hasDemandHistory(String bloodGroup, BloodStock.ComponentType componentType) {
+                return forecastService.isTrained(bloodGroup, componentType);
+            }
+        };
+
+        engine.subscribe(this::report);
+        MetricsRegistry.getInstance().gauge("alerts.active", () -> engine.getActiveAlerts().size());
+    }
+
+    public static StockAlertService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public synchronized void start() {
+        AppConfig config = AppConfig.getInstance();
+        if (scheduler != null || !config.getBoolean("alert.enabled", true)) {
+            return;
+        }
+        long intervalSeconds = Math.max(1, config.getLong("alert.eval.interval.seconds", 60));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-alerts");
+            t.setDaemon(true);
+            return t;
+        });
+        stockEvents = EventBus.getInstance().subscribe(BloodStock.class, event -> evaluateSoon());
+        scheduler.scheduleWithFixedDelay(this::evaluateQuietly, 0, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("{} stock alert rule(s) evaluated on change and every {}s", engine.getRules().size(), intervalSeconds);
+    }
+
+    public synchronized void stop() {
+        if (stockEvents != null) {
+            stockEvents.close();
+            stockEvents = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * See {@link AlertEngine#subscribe}.
+     */
+    public EventBus.Subscription subscribe(Consumer<AlertUpdate> subscriber) {
+        return engine.subscribe(subscriber);
+    }
+
+    /**
+     * Alerts raised by the last evaluation, most severe first.
+     */
+    public List<Alert> getActiveAlerts() {
+        return engine.getActiveAlerts();
+    }
+
+    /**
+     * Queue an evaluation on the alert thread. Calls within the debounce
+     * window share one evaluation.
+     */
+    public void evaluateSoon() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && queued.compareAndSet(false, true)) {
+            current.schedule(() -> {
+                queued.set(false);
+                evaluateQuietly();
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Evaluate now on the calling thread. Returns the update, or null when
+     * nothing changed.
+     */
+    public AlertUpdate evaluate() {
+        return EVALUATE_TIMER.record(() ->
+                engine.evaluate(bloodStockDao.findAvailable(), thresholds, LocalDateTime.now()));
+    }
+
+    private void evaluateQuietly() {
+        try {
+            evaluate();
+        } catch (Exception e) {
+            logger.warn("Stock alert evaluation failed", e);
+        }
+    }
+
+    private void report(AlertUpdate update) {
+        for (Alert alert : update.raised()) {
+            MetricsRegistry.getInstance().increment("alerts." + alert.rule());
+            if (alert.severity() == AlertRule.Severity.CRITICAL) {
+                logger.warn("{}", alert.message());
+            } else {
+                logger.info("{}", alert.message());
+            }
+        }
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.StockAlertService." + method);
+    }
+}
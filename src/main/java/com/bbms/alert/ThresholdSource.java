@@ -0,0 +1,17 @@
+package com.bbms.alert;
+
+import com.bbms.model.BloodStock;
+
+/**
+ * Low-stock thresholds per blood group and component for series rules.
+ */
+public interface ThresholdSource {
+
+    int lowStockThreshold(String bloodGroup, BloodStock.ComponentType componentType);
+
+    /**
+     * False for a series with no demand history; such a series is only
+     * evaluated while it has stock.
+     */
+    boolean hasDemandHistory(String bloodGroup, BloodStock.ComponentType componentType);
+}
@@ -0,0 +1,65 @@
+package com.bbms.audit;
+
+import com.bbms.model.AuditEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * SHA-256 hash chain over audit entries. Each hash covers the entry's
+ * position, content and the previous hash, so editing, removing or
+ * reordering an entry breaks every hash after it.
+ */
+public final class AuditChain {
+
+    private AuditChain() {
+    }
+
+    /**
+     * Give entries consecutive ids after lastId and chain them onto lastHash.
+     * Returns the new last hash.
+     */
+    public static String link(List<AuditEntry> entries, long lastId, String lastHash) {
+        long id = lastId;
+        String prevHash = lastHash;
+        for (AuditEntry entry : entries) {
+            entry.setId(++id);
+            entry.setPrevHash(prevHash);
+            prevHash = hash(entry);
+            entry.setHash(prevHash);
+        }
+        return prevHash;
+    }
+
+    /**
+     * True if the entry sits at expectedId, points at prevHash and its own
+     * hash matches its content.
+     */
+    public static boolean isIntact(AuditEntry entry, long expectedId, String prevHash) {
+        return entry.getId() != null && entry.getId() == expectedId
+                && Objects.equals(prevHash, entry.getPrevHash())
+                && hash(entry).equals(entry.getHash());
+    }
+
+    static String hash(AuditEntry entry) {
+        String content = String.join("\n",
+                String.valueOf(entry.getId()),
+                String.valueOf(entry.getPrevHash()),
+                entry.getEntityType(),
+                entry.getEntityId(),
+                String.valueOf(entry.getAction()),
+                entry.getActor(),
+                String.valueOf(entry.getOccurredAt()),
+                String.valueOf(entry.getChanges()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.bbms.audit;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.AuditEntryDao;
+import com.bbms.dao.Transactions;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.model.AuditChainHead;
+import com.bbms.model.AuditEntry;
+import com.bbms.model.PendingAuditEntry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Append-only audit log of every entity change made through AbstractDao.
+ *
+ * Each change writes a {@link PendingAuditEntry} in its own transaction,
+ * so an entry commits or rolls back with the change and survives a crash
+ * before it is chained. The audit-writer thread drains pending entries in
+ * batches, woken after each commit and polling every flush interval for
+ * entries left by other workstations or an earlier run. Each batch is
+ * appended under a lock on the chain head row and hash-chained (see
+ * {@link AuditChain}) in the transaction that deletes its pending rows.
+ * Failed writes are retried. Before {@link #start()} pending entries are
+ * chained synchronously after each commit.
+ */
+public class AuditTrail {
+
+    private static final Logger logger = LogManager.getLogger(AuditTrail.class);
+    private static final AuditTrail INSTANCE = new AuditTrail();
+    private static final String SYSTEM_ACTOR = "system";
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final int VERIFY_PAGE_SIZE = 500;
+
+    private final AuditEntryDao auditEntryDao = new AuditEntryDao();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    private volatile Supplier<String> actorSupplier = () -> SYSTEM_ACTOR;
+    private volatile boolean running;
+    private Thread writer;
+
+    private AuditTrail() {
+        AppConfig config = AppConfig.getInstance();
+        this.enabled = config.getBoolean("audit.enabled", true);
+        this.batchSize = Math.max(1, config.getInt("audit.batch.size", 200));
+        this.flushIntervalMs = Math.max(10, config.getLong("audit.flush.interval.ms", 500));
+    }
+
+    public static AuditTrail getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Who to record as the actor, e.g. the logged-in user. A null result
+     * is recorded as "system".
+     */
+    public void setActorSupplier(Supplier<String> actorSupplier) {
+        this.actorSupplier = actorSupplier;
+    }
+
+    public synchronized void start() {
+        if (writer != null || !enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Audit writer started (batch {}, flush every {} ms)", batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Chain everything still pending, then stop the writer thread.
+     */
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            current = writer;
+            writer = null;
+            running = false;
+        }
+        if (current == null) {
+            return;
+        }
+        wakeUps.release();
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current.isAlive()) {
+            logger.warn("Audit writer did not finish in time; pending entries are chained on the next start");
+        }
+    }
+
+    /**
+     * The pending entry for a change, for the caller to write in the
+     * change's own transaction, or null when auditing is off. Call
+     * {@link #wakeUp()} once that transaction commits.
+     */
+    public PendingAuditEntry pending(AuditEntry.Action action, String entityType, String entityId, String changes) {
+        if (!enabled) {
+            return null;
+        }
+        return new PendingAuditEntry(entityType, entityId, action, currentActor(),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), changes);
+    }
+
+    /**
+     * Have committed pending entries chained: by the writer thread once
+     * started, otherwise right away on this thread. Entries that cannot be
+     * chained now stay pending for a later attempt.
+     */
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        if (running) {
+            if (wakeUps.availablePermits() == 0) {
+                wakeUps.release();
+            }
+            return;
+        }
+        try {
+            drain();
+        } catch (Exception e) {
+            metrics.increment("audit.write.failed");
+            logger.error("Failed to chain pending audit entries; they stay pending", e);
+        }
+    }
+
+    /**
+     * Audit history of one entity, oldest first. Entries still pending are
+     * not included.
+     */
+    public List<AuditEntry> history(Class<?> entityType, Object id) {
+        return auditEntryDao.findByEntity(entityType.getSimpleName(), String.valueOf(id));
+    }
+
+    /**
+     * Walk the whole chain and compare it with the chain head. Returns the
+     * id of the first entry that was altered, removed or reordered, or empty
+     * if the chain is intact.
+     */
+    public OptionalLong verify() {
+        long lastId = 0;
+        String lastHash = null;
+        List<AuditEntry> page;
+        while (!(page = auditEntryDao.findAfter(lastId, VERIFY_PAGE_SIZE)).isEmpty()) {
+            for (AuditEntry entry : page) {
+                if (!AuditChain.isIntact(entry, lastId + 1, lastHash)) {
+                    return OptionalLong.of(lastId + 1);
+                }
+                lastId = entry.getId();
+                lastHash = entry.getHash();
+            }
+        }
+        AuditChainHead head = auditEntryDao.findChainHead().orElse(null);
+        long headId = head == null ? 0 : head.getLastEntryId();
+        String headHash = head == null ? null : head.getLastHash();
+        if (headId != lastId || (headHash != null && !headHash.equals(lastHash))) {
+            // Entries at the end of the chain are missing
+            return OptionalLong.of(lastId + 1);
+        }
+        return OptionalLong.empty();
+    }
+
+    private void runWriter() {
+        long retryDelayMs = flushIntervalMs;
+        while (true) {
+            boolean stopping = !running;
+            try {
+                drain();
+                retryDelayMs = flushIntervalMs;
+            } catch (Exception e) {
+                metrics.increment("audit.write.failed");
+                if (stopping) {
+                    logger.error("Audit log unavailable at shutdown; pending entries are chained on the next start", e);
+                    break;
+                }
+                logger.warn("Failed to chain pending audit entries, retrying in {} ms", retryDelayMs, e);
+                sleep(retryDelayMs);
+                retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+            awaitWakeUp();
+        }
+    }
+
+    /**
+     * Chain pending entries batch by batch until none are left.
+     */
+    private void drain() {
+        while (auditEntryDao.hasPending() && write() == batchSize) {
+            // A full batch may have more behind it
+        }
+    }
+
+    /**
+     * Append the oldest pending entries at the end of the chain and delete
+     * them, in one transaction. Ids and hashes are assigned under the chain
+     * head lock, so a failed attempt leaves the entries pending and they
+     * are simply linked again on retry. Returns the number chained.
+     */
+    private int write() {
+        int written = metrics.timer("audit.write").record(() -> Transactions.inTransaction(() -> {
+            AuditChainHead head = auditEntryDao.lockChainHead();
+            List<PendingAuditEntry> pending = auditEntryDao.findPending(batchSize);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<AuditEntry> batch = new ArrayList<>(pending.size());
+            pending.forEach(entry -> batch.add(entry.toEntry()));
+            String lastHash = AuditChain.link(batch, head.getLastEntryId(), head.getLastHash());
+            auditEntryDao.append(batch);
+            auditEntryDao.deletePending(pending.stream().map(PendingAuditEntry::getId).toList());
+            head.setLastEntryId(batch.get(batch.size() - 1).getId());
+            head.setLastHash(lastHash);
+            return batch.size();
+        }));
+        metrics.add("audit.written", written);
+        return written;
+    }
+
+    /**
+     * Actor for records written on the current thread, "system" if unknown.
+     */
+    public String currentActor() {
+        try {
+            String actor = actorSupplier.get();
+            return actor == null || actor.isBlank() ? SYSTEM_ACTOR : actor;
+        } catch (Exception e) {
+            return SYSTEM_ACTOR;
+        }
+    }
+
+    private void awaitWakeUp() {
+        try {
+            if (wakeUps.tryAcquire(flushIntervalMs, TimeUnit.MILLISECONDS)) {
+                wakeUps.drainPermits();
+            }
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
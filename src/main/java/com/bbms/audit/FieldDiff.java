@@ -0,0 +1,78 @@
+package com.bbms.audit;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Renders the fields that differ between two entity states as compact JSON,
+ * e.g. {"unitsAvailable":["5","3"]} - old value first, null where a side has
+ * no value. Unchanged fields are left out to keep the audit log small, and
+ * secrets are recorded as changed without their values.
+ */
+public final class FieldDiff {
+
+    static final String REDACTED = "[redacted]";
+    private static final Set<String> SENSITIVE = Set.of("passwordHash");
+
+    private FieldDiff() {
+    }
+
+    /**
+     * JSON of the changed fields, or null if nothing changed.
+     */
+    public static String describe(Map<String, String> before, Map<String, String> after) {
+        Set<String> names = new LinkedHashSet<>(before.keySet());
+        names.addAll(after.keySet());
+
+        StringBuilder json = new StringBuilder("{");
+        for (String name : names) {
+            String oldValue = before.get(name);
+            String newValue = after.get(name);
+            if (Objects.equals(oldValue, newValue)) {
+                continue;
+            }
+            if (SENSITIVE.contains(name)) {
+                oldValue = oldValue == null ? null : REDACTED;
+                newValue = newValue == null ? null : REDACTED;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, name);
+            json.append(":[");
+            appendString(json, oldValue);
+            json.append(',');
+            appendString(json, newValue);
+            json.append(']');
+        }
+        return json.length() == 1 ? null : json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
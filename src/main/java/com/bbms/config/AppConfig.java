@@ -0,0 +1,111 @@
+package com.bbms.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Typed access to application.properties.
+ * System properties (-Dkey=value) take precedence over the bundled file.
+ */
+public class AppConfig {
+
+    private static final Logger logger = LogManager.getLogger(AppConfig.class);
+    private static final String CONFIG_FILE = "application.properties";
+    private static final AppConfig INSTANCE = load();
+
+    private final Properties properties;
+
+    AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static AppConfig getInstance() {
+        return INSTANCE;
+    }
+
+    private static AppConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                properties.load(in);
+            } else {
+                logger.warn("{} not found on classpath, using defaults", CONFIG_FILE);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read " + CONFIG_FILE, e);
+        }
+        return new AppConfig(properties);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: '{}', using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid long for {}: '{}', using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: '{}', using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Connection pool and JDBC tuning derived from the db.* keys.
+     */
+    public PoolSettings getPoolSettings() {
+        int maxPoolSize = Math.max(1, getInt("db.pool.size", 10));
+        return new PoolSettings(
+                maxPoolSize,
+                Math.min(maxPoolSize, Math.max(0, getInt("db.pool.min.idle", 2))),
+                getLong("db.pool.idle.timeout", 300_000L),
+                getLong("db.pool.max.lifetime", 600_000L),
+                getLong("db.pool.connection.timeout", 20_000L),
+                Math.max(0, getInt("db.statement.cache.size", 50)),
+                Math.max(1, getInt("db.fetch.size", 100))
+        );
+    }
+
+    public record PoolSettings(int maximumPoolSize,
+                               int minimumIdle,
+                               long idleTimeoutMs,
+                               long maxLifetimeMs,
+                               long connectionTimeoutMs,
+                               int statementCacheSize,
+                               int fetchSize) {
+    }
+}
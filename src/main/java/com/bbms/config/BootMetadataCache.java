@@ -0,0 +1,91 @@
+package com.bbms.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.DatabaseVersion;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Remembers what Hibernate learned about the database on the previous run
+ * (dialect and server version) so the next boot can skip the JDBC metadata
+ * round trips. The entry is keyed by connection URL and ignored if it changes.
+ */
+class BootMetadataCache {
+
+    private static final Logger logger = LogManager.getLogger(BootMetadataCache.class);
+
+    private static final String URL = "connection.url";
+    private static final String DIALECT = "dialect";
+    private static final String MAJOR = "database.major.version";
+    private static final String MINOR = "database.minor.version";
+
+    private final Path file;
+
+    BootMetadataCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Apply the cached metadata if it matches this configuration.
+     * Returns true if Hibernate will boot without reading JDBC metadata.
+     */
+    boolean applyTo(Configuration configuration) {
+        if (!Files.isReadable(file)) {
+            return false;
+        }
+        Properties cached = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            cached.load(in);
+        } catch (IOException e) {
+            logger.warn("Failed to read boot metadata cache {}", file, e);
+            return false;
+        }
+
+        String url = configuration.getProperty("hibernate.connection.url");
+        if (url == null || !url.equals(cached.getProperty(URL)) || cached.getProperty(MAJOR) == null) {
+            logger.info("Boot metadata cache does not match {}, reading JDBC metadata", url);
+            return false;
+        }
+
+        configuration.setProperty("hibernate.dialect", cached.getProperty(DIALECT));
+        configuration.setProperty("jakarta.persistence.database-major-version", cached.getProperty(MAJOR));
+        configuration.setProperty("jakarta.persistence.database-minor-version", cached.getProperty(MINOR, "0"));
+        configuration.setProperty("hibernate.boot.allow_jdbc_metadata_access", "false");
+        return true;
+    }
+
+    /**
+     * Store what the freshly built factory resolved, for the next run.
+     */
+    void store(Configuration configuration, SessionFactory sessionFactory) {
+        var dialect = sessionFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        DatabaseVersion version = dialect.getVersion();
+
+        Properties cached = new Properties();
+        cached.setProperty(URL, configuration.getProperty("hibernate.connection.url"));
+        cached.setProperty(DIALECT, dialect.getClass().getName());
+        cached.setProperty(MAJOR, String.valueOf(version.getDatabaseMajorVersion()));
+        cached.setProperty(MINOR, String.valueOf(version.getDatabaseMinorVersion()));
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                cached.store(out, "Hibernate boot metadata, safe to delete");
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write boot metadata cache {}", file, e);
+        }
+    }
+}
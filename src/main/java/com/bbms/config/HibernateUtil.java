@@ -1,45 +1,122 @@
 package com.bbms.config;
 
+import com.bbms.metrics.PoolMetricsTrackerFactory;
+import com.bbms.metrics.SlowQueryListener;
+import com.bbms.metrics.SqlStatementInspector;
+import com.bbms.metrics.StartupTimer;
 import com.bbms.model.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 
-import java.io.InputStream;
-import java.util.Properties;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Owns the application SessionFactory.
+ *
+ * The factory is built on a background thread (see {@link #initializeAsync()})
+ * so the login screen can appear while Hibernate boots; getSessionFactory()
+ * waits for it. Schema changes are not applied at startup - use SchemaTool.
+ */
 public class HibernateUtil {
 
     private static final Logger logger = LogManager.getLogger(HibernateUtil.class);
-    private static SessionFactory sessionFactory;
+    private static volatile CompletableFuture<SessionFactory> sessionFactory;
 
-    static {
-        try {
-            Configuration configuration = new Configuration();
-            
-            // Load hibernate.cfg.xml
-            configuration.configure("hibernate.cfg.xml");
-            
-            // Override with environment variables if present
-            overrideFromEnvironment(configuration);
-            
-            // Add annotated classes
-            configuration.addAnnotatedClass(User.class);
-            configuration.addAnnotatedClass(Donor.class);
-            configuration.addAnnotatedClass(Recipient.class);
-            configuration.addAnnotatedClass(BloodStock.class);
-            configuration.addAnnotatedClass(Donation.class);
-            configuration.addAnnotatedClass(BloodRequest.class);
-            configuration.addAnnotatedClass(Transfusion.class);
-            
-            sessionFactory = configuration.buildSessionFactory();
-            logger.info("Hibernate SessionFactory initialized successfully");
-            
-        } catch (Exception e) {
-            logger.error("Failed to initialize Hibernate SessionFactory", e);
-            throw new ExceptionInInitializerError(e);
+    /**
+     * Start building the SessionFactory in the background if not already started.
+     */
+    public static synchronized CompletableFuture<SessionFactory> initializeAsync() {
+        if (sessionFactory == null) {
+            CompletableFuture<SessionFactory> future = new CompletableFuture<>();
+            Thread builder = new Thread(() -> {
+                try {
+                    future.complete(build());
+                } catch (Throwable e) {
+                    logger.error("Failed to initialize Hibernate SessionFactory", e);
+                    future.completeExceptionally(e);
+                }
+            }, "hibernate-bootstrap");
+            builder.setDaemon(true);
+            builder.start();
+            sessionFactory = future;
+        }
+        return sessionFactory;
+    }
+
+    private static SessionFactory build() {
+        long start = System.nanoTime();
+        Configuration configuration = buildConfiguration();
+
+        // Schema management: none unless db.schema.action says otherwise (e.g. validate)
+        String schemaAction = AppConfig.getInstance().getString("db.schema.action", null);
+        if (schemaAction != null) {
+            configuration.setProperty("hibernate.hbm2ddl.auto", schemaAction);
+        }
+
+        BootMetadataCache cache = bootMetadataCache();
+        boolean cached = cache != null && cache.applyTo(configuration);
+
+        SessionFactory factory = configuration.buildSessionFactory();
+        if (cache != null && !cached) {
+            cache.store(configuration, factory);
         }
+
+        logger.info("Hibernate SessionFactory initialized in {} ms (boot metadata {})",
+                (System.nanoTime() - start) / 1_000_000, cached ? "from cache" : "read from JDBC");
+        StartupTimer.mark("hibernate.ready");
+        return factory;
+    }
+
+    /**
+     * Configuration shared by the application and SchemaTool.
+     */
+    static Configuration buildConfiguration() {
+        Configuration configuration = new Configuration();
+
+        // Load hibernate.cfg.xml (the load-test profile points this at an embedded database)
+        configuration.configure(System.getProperty("bbms.hibernate.config", "hibernate.cfg.xml"));
+
+        // Override with environment variables if present
+        overrideFromEnvironment(configuration);
+
+        // Pool sizing and JDBC tuning from application.properties
+        applyPoolSettings(configuration, AppConfig.getInstance().getPoolSettings());
+
+        // Slow-query log: capture SQL text and time each JDBC execution
+        configuration.setProperty("hibernate.session_factory.statement_inspector",
+                SqlStatementInspector.class.getName());
+        configuration.setProperty("hibernate.session.events.auto", SlowQueryListener.class.getName());
+
+        // Add annotated classes
+        configuration.addAnnotatedClass(User.class);
+        configuration.addAnnotatedClass(Donor.class);
+        configuration.addAnnotatedClass(Recipient.class);
+        configuration.addAnnotatedClass(BloodStock.class);
+        configuration.addAnnotatedClass(Donation.class);
+        configuration.addAnnotatedClass(BloodRequest.class);
+        configuration.addAnnotatedClass(Transfusion.class);
+        configuration.addAnnotatedClass(OutboxEvent.class);
+        configuration.addAnnotatedClass(AuditEntry.class);
+        configuration.addAnnotatedClass(AuditChainHead.class);
+        configuration.addAnnotatedClass(PendingAuditEntry.class);
+        configuration.addAnnotatedClass(BloodUnit.class);
+        configuration.addAnnotatedClass(StockMovement.class);
+        configuration.addAnnotatedClass(StockBalance.class);
+        configuration.addAnnotatedClass(StockHold.class);
+        configuration.addAnnotatedClass(DemandModel.class);
+        configuration.addAnnotatedClass(DonorDeferral.class);
+        configuration.addAnnotatedClass(DonorStats.class);
+
+        return configuration;
+    }
+
+    private static BootMetadataCache bootMetadataCache() {
+        String file = AppConfig.getInstance().getString("db.boot.cache.file", null);
+        return file == null ? null : new BootMetadataCache(Path.of(file));
     }
 
     private static void overrideFromEnvironment(Configuration configuration) {
@@ -59,13 +136,58 @@ public class HibernateUtil {
         }
     }
 
+    private static void applyPoolSettings(Configuration configuration, AppConfig.PoolSettings pool) {
+        configuration.setProperty("hibernate.hikari.maximumPoolSize", String.valueOf(pool.maximumPoolSize()));
+        configuration.setProperty("hibernate.hikari.minimumIdle", String.valueOf(pool.minimumIdle()));
+        configuration.setProperty("hibernate.hikari.idleTimeout", String.valueOf(pool.idleTimeoutMs()));
+        configuration.setProperty("hibernate.hikari.maxLifetime", String.valueOf(pool.maxLifetimeMs()));
+        configuration.setProperty("hibernate.hikari.connectionTimeout", String.valueOf(pool.connectionTimeoutMs()));
+        configuration.setProperty("hibernate.hikari.metricsTrackerFactory", PoolMetricsTrackerFactory.class.getName());
+
+        // Oracle implicit statement cache, passed through to the driver per connection
+        String url = configuration.getProperty("hibernate.connection.url");
+        if (url != null && url.startsWith("jdbc:oracle:")) {
+            configuration.setProperty("hibernate.hikari.dataSource.oracle.jdbc.implicitStatementCacheSize",
+                    String.valueOf(pool.statementCacheSize()));
+        }
+        configuration.setProperty("hibernate.jdbc.fetch_size", String.valueOf(pool.fetchSize()));
+
+        logger.info("Connection pool: max={}, minIdle={}, statementCache={}, fetchSize={}",
+                pool.maximumPoolSize(), pool.minimumIdle(), pool.statementCacheSize(), pool.fetchSize());
+    }
+
+    /**
+     * The SessionFactory, waiting for the background build if it is still running.
+     */
     public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+        try {
+            return initializeAsync().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Hibernate SessionFactory is not available", e.getCause());
+        }
+    }
+
+    public static boolean isReady() {
+        CompletableFuture<SessionFactory> future = sessionFactory;
+        return future != null && future.isDone() && !future.isCompletedExceptionally();
     }
 
     public static void shutdown() {
-        if (sessionFactory != null && !sessionFactory.isClosed()) {
-            sessionFactory.close();
+        CompletableFuture<SessionFactory> future = sessionFactory;
+        if (future == null || future.isCompletedExceptionally()) {
+            return;
+        }
+        SessionFactory factory = future.getNow(null);
+        if (factory == null) {
+            future.thenAccept(HibernateUtil::close);
+        } else {
+            close(factory);
+        }
+    }
+
+    private static void close(SessionFactory factory) {
+        if (!factory.isClosed()) {
+            factory.close();
             logger.info("Hibernate SessionFactory closed");
         }
     }
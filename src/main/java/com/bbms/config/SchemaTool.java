@@ -0,0 +1,46 @@
+package com.bbms.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+/**
+ * Checks or migrates the database schema outside the application, so
+ * startup never has to scan the data dictionary.
+ *
+ * Usage: java -cp bloodbank.jar com.bbms.config.SchemaTool [validate|update]
+ */
+public class SchemaTool {
+
+    private static final Logger logger = LogManager.getLogger(SchemaTool.class);
+
+    public static void main(String[] args) {
+        String action = args.length > 0 ? args[0] : "validate";
+        if (!action.equals("validate") && !action.equals("update")) {
+            System.err.println("Usage: SchemaTool [validate|update]");
+            System.exit(2);
+        }
+
+        Configuration configuration = HibernateUtil.buildConfiguration();
+        configuration.setProperty("hibernate.hbm2ddl.auto", action);
+        // Keep the pool to a single connection; this is a one-shot tool
+        configuration.setProperty("hibernate.hikari.maximumPoolSize", "1");
+        configuration.setProperty("hibernate.hikari.minimumIdle", "0");
+
+        // Building the factory runs the validation or migration
+        long start = System.nanoTime();
+        SessionFactory sessionFactory = null;
+        try {
+            sessionFactory = configuration.buildSessionFactory();
+            logger.info("Schema {} completed in {} ms", action, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Schema " + action + " failed", e);
+            System.exit(1);
+        } finally {
+            if (sessionFactory != null) {
+                sessionFactory.close();
+            }
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.bbms.controller;
 
 import com.bbms.MainApp;
+import com.bbms.alert.Alert;
+import com.bbms.alert.StockAlertService;
+import com.bbms.event.EventBus;
 import com.bbms.model.BloodStock;
+import com.bbms.planner.WastagePlan;
+import com.bbms.planner.WastagePlanRunner;
 import com.bbms.service.BloodStockService;
 import com.bbms.util.AlertUtil;
 import com.bbms.util.BloodCompatibility;
+import com.bbms.util.StaleTracker;
+import com.bbms.util.TablePatcher;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -14,12 +23,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
-public class BloodStockController {
+public class BloodStockController implements RefreshableView {
 
     private static final Logger logger = LogManager.getLogger(BloodStockController.class);
+    private static final DateTimeFormatter PLAN_TIME = DateTimeFormatter.ofPattern("HH:mm");
 
     @FXML private TableView<BloodStock> stockTable;
     @FXML private TableColumn<BloodStock, Long> idCol;
@@ -44,8 +56,16 @@ public class BloodStockController {
     @FXML private Label stockABNeg;
 
     @FXML private ListView<String> alertsList;
+    @FXML private Label planSummary;
+    @FXML private ListView<String> planList;
 
     private final BloodStockService stockService = new BloodStockService();
+    private final ObservableList<BloodStock> stocks = FXCollections.observableArrayList();
+    private final StockAlertService stockAlertService = StockAlertService.getInstance();
+    private TablePatcher<BloodStock> patcher;
+    private EventBus.Subscription alertSubscription;
+    private final StaleTracker stockChanges = StaleTracker.watch(BloodStock.class);
+    private boolean loaded;
 
     @FXML
     public void initialize() {
@@ -88,19 +108,73 @@ public class BloodStockController {
         }
         componentFilter.setValue("All");
 
-        // Load data
-        refreshData();
+        // Issues, saves and deletes patch single rows through the event bus
+        stockTable.setItems(stocks);
+        patcher = TablePatcher.bind(stocks, BloodStock.class, BloodStock::getId);
+
+        // Alerts are pushed after each evaluation
+        alertSubscription = stockAlertService.subscribe(update -> Platform.runLater(() -> showAlerts(update.active())));
+
+        // Data is loaded on first show; this may run on the preload thread
+    }
+
+    /**
+     * The first show loads everything. After that the patcher keeps the rows
+     * current, so coming back re-reads the totals only if stock changed and
+     * shows the planner's latest plan.
+     */
+    @Override
+    public void onShow() {
+        if (!loaded) {
+            loaded = true;
+            stockChanges.takeStale();
+            refreshData();
+            return;
+        }
+        if (stockChanges.takeStale()) {
+            refreshTotals();
+        }
+        showPlan(WastagePlanRunner.getInstance().getLatestPlan());
+    }
+
+    @Override
+    public void dispose() {
+        patcher.close();
+        alertSubscription.close();
+        stockChanges.close();
     }
 
     public void refreshData() {
         refreshTable();
         loadSummary();
         loadAlerts();
+        showPlan(WastagePlanRunner.getInstance().getLatestPlan());
+    }
+
+    /**
+     * Summary and alerts only; table rows are patched by events.
+     */
+    private void refreshTotals() {
+        loadSummary();
+        loadAlerts();
     }
 
+    /**
+     * Load the rows matching the filters and have the patcher keep to them.
+     */
     private void refreshTable() {
-        List<BloodStock> stocks = stockService.findAll();
-        stockTable.setItems(FXCollections.observableArrayList(stocks));
+        String bloodGroup = selected(bloodGroupFilter.getValue());
+        String component = selected(componentFilter.getValue());
+        BloodStock.ComponentType componentType = component == null ? null : BloodStock.ComponentType.valueOf(component);
+
+        Predicate<BloodStock> filter = s -> (bloodGroup == null || s.getBloodGroup().equals(bloodGroup))
+                && (componentType == null || s.getComponentType() == componentType);
+        patcher.setFilter(filter);
+        stocks.setAll(stockService.findFiltered(bloodGroup, componentType));
+    }
+
+    private static String selected(String value) {
+        return value == null || "All".equals(value) ? null : value;
     }
 
     private void loadSummary() {
@@ -117,11 +191,14 @@ public class BloodStockController {
     }
 
     private void loadAlerts() {
+        showAlerts(stockAlertService.getActiveAlerts());
+    }
+
+    private void showAlerts(List<Alert> alerts) {
         if (alertsList == null) return;
         
         alertsList.getItems().clear();
-        var alerts = stockService.getAlerts();
-        for (var alert : alerts) {
+        for (Alert alert : alerts) {
             alertsList.getItems().add(alert.message());
         }
         
@@ -130,17 +207,37 @@ public class BloodStockController {
         }
     }
 
-    @FXML
-    public void handleFilter(ActionEvent event) {
-        String bloodGroup = bloodGroupFilter.getValue();
-        String component = componentFilter.getValue();
+    /**
+     * The planner's latest issue orders and the lots it expects to expire
+     * unused. The plan is kept in memory by the runner.
+     */
+    private void showPlan(WastagePlan plan) {
+        if (planList == null) return;
 
-        List<BloodStock> filtered = stockService.findAll().stream()
-                .filter(s -> "All".equals(bloodGroup) || s.getBloodGroup().equals(bloodGroup))
-                .filter(s -> "All".equals(component) || s.getComponentType().name().equals(component))
-                .toList();
+        planList.getItems().clear();
+        if (plan == null) {
+            planSummary.setText("No plan yet");
+            return;
+        }
+        planSummary.setText(String.format("%d unit(s) expected to expire unused, %d unit(s) unmet (planned %s)",
+                plan.expectedWastageUnits(), plan.unmetUnits(), plan.generatedAt().format(PLAN_TIME)));
+        for (WastagePlan.IssueOrder order : plan.issueOrders()) {
+            planList.getItems().add(String.format("Issue %d %s %s from lot #%d to request #%d (%s%s)",
+                    order.units(), order.donorGroup(), order.componentType(), order.stockId(),
+                    order.requestId(), order.priority(), order.held() ? ", held" : ""));
+        }
+        for (WastagePlan.AtRiskLot lot : plan.atRisk()) {
+            planList.getItems().add(String.format("At risk: %d %s %s in lot #%d expire %s",
+                    lot.units(), lot.bloodGroup(), lot.componentType(), lot.stockId(), lot.expiryDate()));
+        }
+        if (planList.getItems().isEmpty()) {
+            planList.getItems().add("Nothing to issue");
+        }
+    }
 
-        stockTable.setItems(FXCollections.observableArrayList(filtered));
+    @FXML
+    public void handleFilter(ActionEvent event) {
+        refreshTable();
     }
 
     @FXML
@@ -157,7 +254,7 @@ public class BloodStockController {
         dialog.showAndWait().ifPresent(stock -> {
             try {
                 stockService.saveStock(stock);
-                refreshData();
+                refreshTotals();
                 AlertUtil.showSuccess("Blood stock added successfully");
             } catch (Exception e) {
                 logger.error("Failed to add stock", e);
@@ -244,7 +341,7 @@ public class BloodStockController {
                 "Are you sure you want to delete this stock entry?")) {
             try {
                 stockService.deleteStock(selected.getId());
-                refreshData();
+                refreshTotals();
                 AlertUtil.showSuccess("Stock deleted successfully");
             } catch (Exception e) {
                 logger.error("Failed to delete stock", e);
@@ -257,7 +354,7 @@ public class BloodStockController {
     public void handleMarkExpired(ActionEvent event) {
         int count = stockService.markExpiredStocks();
         if (count > 0) {
-            refreshData();
+            refreshTotals();
             AlertUtil.showInfo("Expired Stocks", count + " stock(s) marked as expired");
         } else {
             AlertUtil.showInfo("No Expired Stocks", "No expired stocks found");
@@ -1,9 +1,17 @@
 package com.bbms.controller;
 
 import com.bbms.MainApp;
+import com.bbms.alert.Alert;
+import com.bbms.alert.StockAlertService;
+import com.bbms.event.EventBus;
 import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.Donor;
+import com.bbms.model.Recipient;
 import com.bbms.service.*;
 import com.bbms.util.AlertUtil;
+import com.bbms.util.StaleTracker;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,9 +20,10 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
 import java.util.Map;
 
-public class DashboardController {
+public class DashboardController implements RefreshableView {
 
     private static final Logger logger = LogManager.getLogger(DashboardController.class);
 
@@ -45,6 +54,9 @@ public class DashboardController {
     private final DonorService donorService = new DonorService();
     private final RecipientService recipientService = new RecipientService();
     private final BloodStockService bloodStockService = new BloodStockService();
+    private final StockAlertService stockAlertService = StockAlertService.getInstance();
+    private EventBus.Subscription alertSubscription;
+    private final StaleTracker changes = StaleTracker.watch(Donor.class, Recipient.class, BloodRequest.class, BloodStock.class);
 
     @FXML
     public void initialize() {
@@ -61,8 +73,25 @@ public class DashboardController {
             requestPriorityCol.setCellValueFactory(new PropertyValueFactory<>("priority"));
         }
 
-        // Load dashboard data
-        refreshDashboard();
+        // Alerts are pushed after each evaluation
+        alertSubscription = stockAlertService.subscribe(update -> Platform.runLater(() -> showAlerts(update.active())));
+    }
+
+    /**
+     * Loads on first show, then again only if something it counts was
+     * written since; alerts are pushed.
+     */
+    @Override
+    public void onShow() {
+        if (changes.takeStale()) {
+            refreshDashboard();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        alertSubscription.close();
+        changes.close();
     }
 
     public void refreshDashboard() {
@@ -109,11 +138,14 @@ public class DashboardController {
     }
 
     private void loadAlerts() {
+        showAlerts(stockAlertService.getActiveAlerts());
+    }
+
+    private void showAlerts(List<Alert> alerts) {
         if (alertsList == null) return;
         
         alertsList.getItems().clear();
-        var alerts = bloodStockService.getAlerts();
-        for (var alert : alerts) {
+        for (Alert alert : alerts) {
             alertsList.getItems().add(alert.message());
         }
         
@@ -152,10 +184,20 @@ public class DashboardController {
         MainApp.loadScene("/fxml/reports.fxml", "Blood Bank - Reports");
     }
 
+    @FXML
+    public void navigateToDiagnostics(ActionEvent event) {
+        if (!authService.isAdmin()) {
+            AlertUtil.showWarning("Access Denied", "Diagnostics are available to administrators only");
+            return;
+        }
+        MainApp.loadScene("/fxml/diagnostics.fxml", "Blood Bank - Diagnostics");
+    }
+
     @FXML
     public void handleLogout(ActionEvent event) {
         if (AlertUtil.showConfirmation("Logout", "Are you sure you want to logout?")) {
             authService.logout();
+            MainApp.clearSceneCache();
             MainApp.loadScene("/fxml/login.fxml", "Blood Bank - Login");
         }
     }
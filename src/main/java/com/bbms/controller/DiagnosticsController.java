@@ -0,0 +1,77 @@
+package com.bbms.controller;
+
+import com.bbms.MainApp;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.SlowQueryLog;
+import com.bbms.metrics.SlowQueryLog.SlowQuery;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.Map;
+
+/**
+ * Admin-only view of connection pool and runtime metrics.
+ */
+public class DiagnosticsController implements RefreshableView {
+
+    @FXML private TableView<Map.Entry<String, Number>> metricsTable;
+    @FXML private TableColumn<Map.Entry<String, Number>, String> metricNameCol;
+    @FXML private TableColumn<Map.Entry<String, Number>, String> metricValueCol;
+
+    @FXML private Label slowQueryTitle;
+    @FXML private TableView<SlowQuery> slowQueryTable;
+    @FXML private TableColumn<SlowQuery, String> slowMaxCol;
+    @FXML private TableColumn<SlowQuery, String> slowMeanCol;
+    @FXML private TableColumn<SlowQuery, String> slowCountCol;
+    @FXML private TableColumn<SlowQuery, String> slowCallerCol;
+    @FXML private TableColumn<SlowQuery, String> slowQueryCol;
+    @FXML private TableColumn<SlowQuery, String> slowParamsCol;
+
+    @FXML
+    public void initialize() {
+        metricNameCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getKey()));
+        metricValueCol.setCellValueFactory(cell -> new SimpleStringProperty(format(cell.getValue().getValue())));
+
+        slowMaxCol.setCellValueFactory(cell -> new SimpleStringProperty(format(cell.getValue().maxMillis())));
+        slowMeanCol.setCellValueFactory(cell -> new SimpleStringProperty(format(cell.getValue().meanMillis())));
+        slowCountCol.setCellValueFactory(cell -> new SimpleStringProperty(String.valueOf(cell.getValue().count())));
+        slowCallerCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().caller()));
+        slowQueryCol.setCellValueFactory(cell -> new SimpleStringProperty(
+                cell.getValue().hql() != null ? cell.getValue().hql() : cell.getValue().sql()));
+        slowParamsCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().lastParams()));
+        slowQueryTitle.setText("Slow Queries (over " + SlowQueryLog.getThresholdMillis() + " ms)");
+    }
+
+    @Override
+    public void onShow() {
+        refreshMetrics();
+    }
+
+    public void refreshMetrics() {
+        Map<String, Number> snapshot = MetricsRegistry.getInstance().snapshot();
+        metricsTable.setItems(FXCollections.observableArrayList(snapshot.entrySet()));
+        slowQueryTable.setItems(FXCollections.observableArrayList(SlowQueryLog.getTopQueries()));
+    }
+
+    private static String format(Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            return String.format("%.2f", value.doubleValue());
+        }
+        return String.valueOf(value);
+    }
+
+    @FXML
+    public void handleRefresh(ActionEvent event) {
+        refreshMetrics();
+    }
+
+    @FXML
+    public void handleBack(ActionEvent event) {
+        MainApp.loadScene("/fxml/dashboard.fxml", "Blood Bank - Dashboard");
+    }
+}
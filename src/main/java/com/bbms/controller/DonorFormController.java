@@ -1,6 +1,7 @@
 package com.bbms.controller;
 
 import com.bbms.MainApp;
+import com.bbms.dedup.DuplicateMatch;
 import com.bbms.model.Donor;
 import com.bbms.service.DonorService;
 import com.bbms.util.AlertUtil;
@@ -12,6 +13,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class DonorFormController {
 
@@ -28,6 +31,7 @@ public class DonorFormController {
     @FXML private ComboBox<String> genderCombo;
     @FXML private TextField weightField;
     @FXML private TextArea medicalNotesArea;
+    @FXML private ListView<String> conditionsList;
     @FXML private CheckBox eligibleCheckbox;
 
     private final DonorService donorService = new DonorService();
@@ -45,6 +49,10 @@ public class DonorFormController {
         // Setup gender combo
         genderCombo.getItems().addAll("MALE", "FEMALE", "OTHER");
 
+        // Conditions reported at check-in are recorded as deferrals on save
+        conditionsList.getItems().setAll(donorService.getDeferralConditions());
+        conditionsList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         // Restrict date picker to past dates
         dobPicker.setDayCellFactory(picker -> new DateCell() {
             @Override
@@ -110,10 +118,27 @@ public class DonorFormController {
             currentDonor.setMedicalNotes(medicalNotesArea.getText());
             currentDonor.setIsEligible(eligibleCheckbox.isSelected());
 
+            // A re-registration splits donation history; let the user back out
+            if (currentDonor.getId() == null && !confirmNotDuplicate()) {
+                return;
+            }
+
             // Save
-            donorService.saveDonor(currentDonor);
-            
-            AlertUtil.showSuccess("Donor saved successfully");
+            Donor saved = donorService.saveDonor(currentDonor);
+
+            List<String> conditions = List.copyOf(conditionsList.getSelectionModel().getSelectedItems());
+            if (conditions.isEmpty()) {
+                AlertUtil.showSuccess("Donor saved successfully");
+            } else {
+                DonorService.DonorEligibility eligibility =
+                        donorService.screenAtCheckIn(saved, conditions, medicalNotesArea.getText());
+                if (eligibility.isEligible()) {
+                    AlertUtil.showSuccess("Donor saved successfully");
+                } else {
+                    AlertUtil.showWarning("Donor Deferred", "Donor saved. Not eligible to donate: "
+                            + eligibility.getReason());
+                }
+            }
             handleCancel(null);
             
         } catch (IllegalArgumentException e) {
@@ -124,6 +149,21 @@ public class DonorFormController {
         }
     }
 
+    private boolean confirmNotDuplicate() {
+        List<DuplicateMatch> matches = donorService.findPossibleDuplicates(currentDonor);
+        if (matches.isEmpty()) {
+            return true;
+        }
+        String existing = matches.stream()
+                .limit(5)
+                .map(match -> donorService.findById(match.otherId())
+                        .map(d -> "#" + d.getId() + " " + d.getFullName() + " (" + d.getPhone() + ")")
+                        .orElse("#" + match.otherId()))
+                .collect(Collectors.joining("\n"));
+        return AlertUtil.showConfirmation("Possible Duplicate",
+                "This donor may already be registered:\n" + existing + "\n\nSave as a new donor anyway?");
+    }
+
     private boolean validateForm() {
         if (nameField.getText().trim().isEmpty()) {
             AlertUtil.showValidationError("Name is required");
@@ -177,6 +217,7 @@ public class DonorFormController {
         genderCombo.setValue(null);
         weightField.clear();
         medicalNotesArea.clear();
+        conditionsList.getSelectionModel().clearSelection();
         eligibleCheckbox.setSelected(true);
     }
 }
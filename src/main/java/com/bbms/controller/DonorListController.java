@@ -1,21 +1,43 @@
 package com.bbms.controller;
 
 import com.bbms.MainApp;
+import com.bbms.config.AppConfig;
+import com.bbms.dedup.DuplicateMatch;
+import com.bbms.importer.DonorImporter;
+import com.bbms.importer.ImportReport;
+import com.bbms.model.BloodStock;
 import com.bbms.model.Donor;
+import com.bbms.model.DonorStats;
 import com.bbms.service.DonorService;
 import com.bbms.util.AlertUtil;
 import com.bbms.util.BloodCompatibility;
+import com.bbms.util.KeysetWindow;
+import com.bbms.util.TablePatcher;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.stage.FileChooser;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
 
-public class DonorListController {
+public class DonorListController implements RefreshableView {
 
     private static final Logger logger = LogManager.getLogger(DonorListController.class);
 
@@ -32,6 +54,16 @@ public class DonorListController {
     @FXML private ComboBox<String> bloodGroupFilter;
 
     private final DonorService donorService = new DonorService();
+    private final ObservableList<Donor> donors = FXCollections.observableArrayList();
+    private TablePatcher<Donor> patcher;
+    private final ExecutorService pageLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "donor-pages");
+        t.setDaemon(true);
+        return t;
+    });
+    private KeysetWindow<Donor> window;
+    private VirtualFlow<?> flow;
+    private boolean loaded;
 
     @FXML
     public void initialize() {
@@ -49,8 +81,23 @@ public class DonorListController {
         bloodGroupFilter.getItems().addAll(BloodCompatibility.ALL_BLOOD_GROUPS);
         bloodGroupFilter.setValue("All");
 
-        // Load data
-        refreshTable();
+        // Saves and deletes patch single rows through the event bus
+        donorTable.setItems(donors);
+        patcher = TablePatcher.bind(donors, Donor.class, Donor::getId);
+
+        // Rows are paged in by name as the user scrolls, keeping a few pages
+        AppConfig config = AppConfig.getInstance();
+        window = new KeysetWindow<>(donors, Math.max(1, config.getInt("ui.donor.page.size", 100)),
+                Math.max(2, config.getInt("ui.donor.page.window", 5)), pageLoader, Platform::runLater);
+        window.setOnChange(this::onRowsShifted);
+        donorTable.skinProperty().addListener((obs, old, skin) -> {
+            flow = (VirtualFlow<?>) donorTable.lookup(".virtual-flow");
+            if (flow != null) {
+                flow.positionProperty().addListener((o, before, after) -> checkVisibleRows());
+            }
+        });
+
+        // Rows are paged in on first show; this may run on the preload thread
 
         // Double-click to edit
         donorTable.setRowFactory(tv -> {
@@ -64,9 +111,46 @@ public class DonorListController {
         });
     }
 
+    /**
+     * The first show pages in the rows. After that saves and deletes made
+     * elsewhere are patched in by events, so the window is left as it was.
+     */
+    @Override
+    public void onShow() {
+        if (!loaded) {
+            loaded = true;
+            refreshTable();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        patcher.close();
+        pageLoader.shutdownNow();
+    }
+
     public void refreshTable() {
-        List<Donor> donors = donorService.findAll();
-        donorTable.setItems(FXCollections.observableArrayList(donors));
+        window.reset(donorService.pages(null, null));
+        patcher.setFilter(donor -> true);
+    }
+
+    /**
+     * Keep the same rows in view when rows above them were added or
+     * dropped, then fetch more if the window still ends on screen.
+     */
+    private void onRowsShifted(int shift) {
+        if (flow != null && flow.getFirstVisibleCell() != null && shift != 0) {
+            flow.scrollTo(Math.max(0, flow.getFirstVisibleCell().getIndex() + shift));
+        }
+        checkVisibleRows();
+    }
+
+    private void checkVisibleRows() {
+        // Before the first layout only the first page is needed
+        if (flow == null || flow.getFirstVisibleCell() == null) {
+            return;
+        }
+        window.visible(flow.getFirstVisibleCell().getIndex(), flow.getLastVisibleCell().getIndex());
     }
 
     @FXML
@@ -74,16 +158,23 @@ public class DonorListController {
         String keyword = searchField.getText().trim();
         String bloodGroup = bloodGroupFilter.getValue();
 
-        List<Donor> results;
+        KeysetWindow.PageSource<Donor> pages;
+        Predicate<Donor> filter;
         if (!keyword.isEmpty()) {
-            results = donorService.search(keyword);
+            pages = donorService.pages(keyword, null);
+            String lower = keyword.toLowerCase();
+            filter = donor -> (donor.getFullName() != null && donor.getFullName().toLowerCase().contains(lower))
+                    || (donor.getPhone() != null && donor.getPhone().contains(lower));
         } else if (!"All".equals(bloodGroup)) {
-            results = donorService.findByBloodGroup(bloodGroup);
+            pages = donorService.pages(null, bloodGroup);
+            filter = donor -> bloodGroup.equals(donor.getBloodGroup());
         } else {
-            results = donorService.findAll();
+            pages = donorService.pages(null, null);
+            filter = donor -> true;
         }
 
-        donorTable.setItems(FXCollections.observableArrayList(results));
+        window.reset(pages);
+        patcher.setFilter(filter);
     }
 
     @FXML
@@ -125,7 +216,6 @@ public class DonorListController {
                 "Are you sure you want to delete " + selected.getFullName() + "?")) {
             try {
                 donorService.deleteDonor(selected.getId());
-                refreshTable();
                 AlertUtil.showSuccess("Donor deleted successfully");
             } catch (Exception e) {
                 logger.error("Failed to delete donor", e);
@@ -150,6 +240,130 @@ public class DonorListController {
         }
     }
 
+    /**
+     * Show the selected donor's lifetime statistics.
+     */
+    @FXML
+    public void handleViewStats(ActionEvent event) {
+        Donor selected = donorTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            AlertUtil.showWarning("No Selection", "Please select a donor");
+            return;
+        }
+
+        DonorStats stats = donorService.getStats(selected.getId());
+        StringBuilder text = new StringBuilder()
+                .append("Completed donations: ").append(stats.getDonations())
+                .append(String.format(" (%.2f L)", stats.getVolumeMl() / 1000.0));
+        for (BloodStock.ComponentType type : BloodStock.ComponentType.values()) {
+            if (stats.getDonationCount(type) > 0) {
+                text.append("\n  ").append(type).append(": ").append(stats.getDonationCount(type));
+            }
+        }
+        if (stats.getFirstDonationDate() != null) {
+            text.append("\nFirst donation: ").append(stats.getFirstDonationDate())
+                    .append("\nLast donation: ").append(stats.getLastDonationDate());
+        }
+        if (stats.getLastHemoglobin() != null) {
+            text.append("\nLast hemoglobin: ").append(stats.getLastHemoglobin())
+                    .append(" g/dL (").append(stats.getLastHemoglobinDate()).append(")");
+        }
+        text.append("\nDeferrals: ").append(stats.getDeferrals());
+        AlertUtil.showInfo(selected.getFullName(), text.toString());
+    }
+
+    /**
+     * Import a blood drive spreadsheet saved as CSV. Runs off the UI thread;
+     * rejected rows are written next to the file as name.errors.csv.
+     */
+    @FXML
+    public void handleImportCsv(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Donors");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(donorTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        donorTable.setDisable(true);
+        Thread importer = new Thread(() -> {
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                ImportReport report = new DonorImporter().importCsv(reader);
+                Path errors = null;
+                if (!report.errors().isEmpty()) {
+                    String name = file.getName().replaceFirst("(?i)\\.csv$", "");
+                    errors = file.toPath().resolveSibling(name + ".errors.csv");
+                    try (Writer writer = Files.newBufferedWriter(errors, StandardCharsets.UTF_8)) {
+                        report.writeErrors(writer);
+                    }
+                }
+                Path errorFile = errors;
+                Platform.runLater(() -> {
+                    donorTable.setDisable(false);
+                    handleSearch(null);
+                    if (errorFile == null) {
+                        AlertUtil.showInfo("Import Complete", report.summary());
+                    } else {
+                        AlertUtil.showWarning("Import Complete",
+                                report.summary() + "\n\nRejected rows are listed in " + errorFile);
+                    }
+                });
+            } catch (Exception e) {
+                logger.error("Donor import failed", e);
+                Platform.runLater(() -> {
+                    donorTable.setDisable(false);
+                    AlertUtil.showError("Import Failed", e.getMessage());
+                });
+            }
+        }, "donor-import");
+        importer.setDaemon(true);
+        importer.start();
+    }
+
+    /**
+     * Fold a likely duplicate of the selected donor into it.
+     */
+    @FXML
+    public void handleMergeDuplicate(ActionEvent event) {
+        Donor selected = donorTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            AlertUtil.showWarning("No Selection", "Please select the donor record to keep");
+            return;
+        }
+
+        Map<String, Donor> choices = new LinkedHashMap<>();
+        for (DuplicateMatch match : donorService.findPossibleDuplicates(selected)) {
+            donorService.findById(match.otherId()).ifPresent(d -> choices.put(
+                    String.format("#%d %s, %s (%.0f%% name match)",
+                            d.getId(), d.getFullName(), d.getPhone(), match.nameSimilarity() * 100), d));
+        }
+        if (choices.isEmpty()) {
+            AlertUtil.showInfo("No Duplicates", "No likely duplicates of " + selected.getFullName() + " were found");
+            return;
+        }
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.keySet().iterator().next(), choices.keySet());
+        dialog.setTitle("Merge Duplicate");
+        dialog.setHeaderText("Merge into #" + selected.getId() + " " + selected.getFullName());
+        dialog.setContentText("Duplicate:");
+        dialog.showAndWait().map(choices::get).ifPresent(duplicate -> {
+            if (!AlertUtil.showConfirmation("Merge Duplicate", "Move the donations of #" + duplicate.getId()
+                    + " to #" + selected.getId() + " and delete #" + duplicate.getId() + "?")) {
+                return;
+            }
+            try {
+                donorService.mergeDonors(selected.getId(), duplicate.getId());
+                AlertUtil.showSuccess("Donor records merged");
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                AlertUtil.showValidationError(e.getMessage());
+            } catch (Exception e) {
+                logger.error("Failed to merge donors", e);
+                AlertUtil.showDatabaseError("Failed to merge donors");
+            }
+        });
+    }
+
     @FXML
     public void handleBack(ActionEvent event) {
         MainApp.loadScene("/fxml/dashboard.fxml", "Blood Bank - Dashboard");
@@ -3,6 +3,7 @@ package com.bbms.controller;
 import com.bbms.MainApp;
 import com.bbms.service.AuthService;
 import com.bbms.util.AlertUtil;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -13,6 +14,9 @@ import javafx.scene.input.KeyEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 public class LoginController {
 
     private static final Logger logger = LogManager.getLogger(LoginController.class);
@@ -48,21 +52,28 @@ public class LoginController {
 
         loginButton.setDisable(true);
 
-        try {
-            if (authService.login(username, password)) {
+        // Password verification runs on the auth executor; UI updates go back to the FX thread
+        authService.loginAsync(username, password).whenComplete((success, error) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    AlertUtil.showWarning("Busy", "Too many logins in progress. Please try again.");
+                } else {
+                    logger.error("Login error", cause);
+                    AlertUtil.showDatabaseError("Failed to connect to database. Please check your configuration.");
+                }
+            } else if (success) {
                 logger.info("Login successful for user: {}", username);
                 MainApp.loadScene("/fxml/dashboard.fxml", "Blood Bank - Dashboard");
+                MainApp.preloadScenes();
             } else {
                 AlertUtil.showError("Login Failed", "Invalid username or password");
                 passwordField.clear();
                 passwordField.requestFocus();
             }
-        } catch (Exception e) {
-            logger.error("Login error", e);
-            AlertUtil.showDatabaseError("Failed to connect to database. Please check your configuration.");
-        } finally {
-            loginButton.setDisable(false);
-        }
+        }));
     }
 
     @FXML
@@ -0,0 +1,16 @@
+package com.bbms.controller;
+
+/**
+ * Implemented by controllers of cached views. initialize() only sets the
+ * view up, since it may run on the preload thread; onShow() is called on
+ * the FX thread each time the view is shown, the first time included.
+ */
+public interface RefreshableView {
+
+    /** Load the data on first show, then whatever changed while hidden. */
+    void onShow();
+
+    /** Release subscriptions when the view is evicted from the cache. */
+    default void dispose() {
+    }
+}
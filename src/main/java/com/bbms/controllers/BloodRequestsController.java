@@ -1,11 +1,17 @@
 package com.bbms.controllers;
 
+import com.bbms.controller.RefreshableView;
 import com.bbms.dao.BloodRequestDao;
 import com.bbms.dao.BloodStockDao;
 import com.bbms.model.BloodRequest;
 import com.bbms.model.BloodRequest.Priority;
 import com.bbms.model.BloodRequest.RequestStatus;
+import com.bbms.model.StockHold;
+import com.bbms.model.Transfusion;
+import com.bbms.service.AuthService;
 import com.bbms.service.BloodStockService;
+import com.bbms.service.RecipientService;
+import com.bbms.util.StaleTracker;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -21,9 +27,10 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class BloodRequestsController {
+public class BloodRequestsController implements RefreshableView {
     private static final Logger logger = LogManager.getLogger(BloodRequestsController.class);
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
     
     @FXML private TextField searchField;
     @FXML private ComboBox<String> statusFilter;
@@ -51,6 +58,8 @@ public class BloodRequestsController {
     
     private final BloodRequestDao requestDao = new BloodRequestDao();
     private final BloodStockService stockService = new BloodStockService();
+    private final RecipientService recipientService = new RecipientService();
+    private final StaleTracker changes = StaleTracker.watch(BloodRequest.class);
     private ObservableList<BloodRequest> requests = FXCollections.observableArrayList();
     
     private int currentPage = 1;
@@ -62,9 +71,23 @@ public class BloodRequestsController {
         setupFilters();
         setupTableColumns();
         setupActionsColumn();
-        loadRequests();
-        loadUrgentRequests();
-        loadStatistics();
+    }
+
+    /**
+     * Loads on first show, then again only if a request was written since.
+     */
+    @Override
+    public void onShow() {
+        if (changes.takeStale()) {
+            loadRequests();
+            loadUrgentRequests();
+            loadStatistics();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        changes.close();
     }
     
     private void setupFilters() {
@@ -123,12 +146,15 @@ public class BloodRequestsController {
     private void setupActionsColumn() {
         actionsColumn.setCellFactory(col -> new TableCell<>() {
             private final Button viewBtn = new Button("View");
+            private final Button holdBtn = new Button("Hold");
             private final Button processBtn = new Button("Process");
             
             {
                 viewBtn.getStyleClass().add("table-btn");
+                holdBtn.getStyleClass().add("table-btn");
                 processBtn.getStyleClass().addAll("table-btn", "success-btn");
                 viewBtn.setOnAction(e -> handleViewRequest(getTableRow().getItem()));
+                holdBtn.setOnAction(e -> handleHoldRequest(getTableRow().getItem()));
                 processBtn.setOnAction(e -> handleProcessRequest(getTableRow().getItem()));
             }
             
@@ -141,8 +167,8 @@ public class BloodRequestsController {
                     BloodRequest request = getTableRow().getItem();
                     javafx.scene.layout.HBox buttons = new javafx.scene.layout.HBox(5);
                     buttons.getChildren().add(viewBtn);
-                    if (request != null && request.getStatus() == RequestStatus.PENDING) {
-                        buttons.getChildren().add(processBtn);
+                    if (request != null && isOpen(request)) {
+                        buttons.getChildren().addAll(holdBtn, processBtn);
                     }
                     setGraphic(buttons);
                 }
@@ -266,31 +292,88 @@ public class BloodRequestsController {
         alert.showAndWait();
     }
     
+    private static boolean isOpen(BloodRequest request) {
+        return request.getStatus() == RequestStatus.PENDING
+            || request.getStatus() == RequestStatus.APPROVED
+            || request.getStatus() == RequestStatus.PARTIALLY_FULFILLED;
+    }
+    
+    /**
+     * Crossmatch: hold compatible units for the request so no other
+     * workstation can issue them until it is processed or the hold lapses.
+     */
+    private void handleHoldRequest(BloodRequest request) {
+        if (request == null) return;
+        try {
+            List<StockHold> holds = recipientService.crossmatch(request);
+            int held = holds.stream().mapToInt(StockHold::getUnits).sum();
+            Alert alert = new Alert(holds.isEmpty() ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION);
+            alert.setTitle("Crossmatch Hold");
+            alert.setHeaderText("Request #" + request.getId());
+            alert.setContentText(holds.isEmpty()
+                ? "No compatible " + request.getBloodGroup() + " stock is free to hold."
+                : "Held " + held + " of " + request.getRemainingUnits() + " unit(s) in " + holds.size() + " lot(s) until "
+                    + holds.get(0).getExpiresAt().format(TIME_FORMAT) + ".");
+            alert.showAndWait();
+        } catch (Exception e) {
+            logger.error("Failed to hold stock for request #{}", request.getId(), e);
+            showError("Could not hold stock: " + e.getMessage());
+        }
+    }
+    
     private void handleProcessRequest(BloodRequest request) {
         if (request == null) return;
         
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Process Request");
         confirm.setHeaderText("Fulfill blood request?");
-        confirm.setContentText("This will allocate " + request.getUnitsRequested() + 
-            " units of " + request.getBloodGroup() + " blood.");
+        confirm.setContentText("This will issue the units held for this request (holding " + request.getRemainingUnits() +
+            " units of compatible " + request.getBloodGroup() + " blood first if none are held).");
         
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                request.setStatus(RequestStatus.FULFILLED);
-                requestDao.update(request);
-                logger.info("Fulfilled request #{}", request.getId());
-                loadRequests();
-                loadUrgentRequests();
-                loadStatistics();
+                try {
+                    if (recipientService.getHolds(request.getId()).isEmpty()) {
+                        recipientService.crossmatch(request);
+                    }
+                    List<Transfusion> transfusions = recipientService.transfuseHeld(request,
+                        AuthService.getInstance().getCurrentUsername());
+                    if (transfusions.isEmpty()) {
+                        showError("No compatible " + request.getBloodGroup() + " stock is available.");
+                        return;
+                    }
+                    logger.info("Processed request #{}: {} transfusion(s), status {}",
+                        request.getId(), transfusions.size(), request.getStatus());
+                    loadRequests();
+                    loadUrgentRequests();
+                    loadStatistics();
+                } catch (Exception e) {
+                    logger.error("Failed to process request #{}", request.getId(), e);
+                    showError("Could not process request: " + e.getMessage());
+                }
             }
         });
     }
     
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Blood Request");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+    
     @FXML private void handleProcessSelected() {
         BloodRequest selected = requestsTable.getSelectionModel().getSelectedItem();
         if (selected != null) handleProcessRequest(selected);
     }
+    @FXML private void handleReleaseSelected() {
+        BloodRequest selected = requestsTable.getSelectionModel().getSelectedItem();
+        if (selected != null) {
+            recipientService.releaseHolds(selected);
+            logger.info("Released holds of request #{}", selected.getId());
+        }
+    }
     @FXML private void handleViewCompatibility() { logger.info("Viewing compatibility"); }
     @FXML private void handleExportPending() { logger.info("Exporting pending requests"); }
 }
@@ -1,9 +1,11 @@
 package com.bbms.controllers;
 
+import com.bbms.controller.RefreshableView;
 import com.bbms.dao.DonationDao;
 import com.bbms.dao.DonorDao;
 import com.bbms.model.Donation;
 import com.bbms.model.Donation.DonationStatus;
+import com.bbms.util.StaleTracker;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -18,7 +20,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class DonationsController {
+public class DonationsController implements RefreshableView {
     private static final Logger logger = LogManager.getLogger(DonationsController.class);
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
@@ -47,6 +49,7 @@ public class DonationsController {
     
     private final DonationDao donationDao = new DonationDao();
     private ObservableList<Donation> donations = FXCollections.observableArrayList();
+    private final StaleTracker changes = StaleTracker.watch(Donation.class);
     
     private int currentPage = 1;
     private int pageSize = 20;
@@ -57,8 +60,22 @@ public class DonationsController {
         setupFilters();
         setupTableColumns();
         setupActionsColumn();
-        loadDonations();
-        loadStatistics();
+    }
+
+    /**
+     * Loads on first show, then again only if a donation was written since.
+     */
+    @Override
+    public void onShow() {
+        if (changes.takeStale()) {
+            loadDonations();
+            loadStatistics();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        changes.close();
     }
     
     private void setupFilters() {
@@ -170,27 +187,20 @@ public class DonationsController {
     }
     
     private void loadStatistics() {
-        List<Donation> allDonations = donationDao.findAll();
-        totalDonationsLabel.setText(String.valueOf(allDonations.size()));
-        
         LocalDate today = LocalDate.now();
         LocalDate monthStart = today.withDayOfMonth(1);
         
-        long monthlyCount = allDonations.stream()
-            .filter(d -> d.getDonationDate() != null && !d.getDonationDate().isBefore(monthStart))
-            .count();
-        monthlyDonationsLabel.setText(String.valueOf(monthlyCount));
-        
-        long todayCount = allDonations.stream()
-            .filter(d -> today.equals(d.getDonationDate()))
-            .count();
-        todayDonationsLabel.setText(String.valueOf(todayCount));
-        
-        double totalVolume = allDonations.stream()
-            .filter(d -> d.getStatus() == DonationStatus.COMPLETED)
-            .mapToInt(d -> d.getVolumeMl() != null ? d.getVolumeMl() : 0)
-            .sum() / 1000.0;
-        totalVolumeLabel.setText(String.format("%.1f", totalVolume));
+        // monthly, today, completed volume (ml)
+        long[] totals = new long[3];
+        long totalCount = donationDao.scanAll(d -> {
+            if (d.getDonationDate() != null && !d.getDonationDate().isBefore(monthStart)) totals[0]++;
+            if (today.equals(d.getDonationDate())) totals[1]++;
+            if (d.getStatus() == DonationStatus.COMPLETED && d.getVolumeMl() != null) totals[2] += d.getVolumeMl();
+        });
+        totalDonationsLabel.setText(String.valueOf(totalCount));
+        monthlyDonationsLabel.setText(String.valueOf(totals[0]));
+        todayDonationsLabel.setText(String.valueOf(totals[1]));
+        totalVolumeLabel.setText(String.format("%.1f", totals[2] / 1000.0));
     }
     
     private void updatePagination() {
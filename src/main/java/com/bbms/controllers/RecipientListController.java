@@ -1,8 +1,10 @@
 package com.bbms.controllers;
 
+import com.bbms.controller.RefreshableView;
 import com.bbms.dao.RecipientDao;
 import com.bbms.dao.BloodRequestDao;
 import com.bbms.model.Recipient;
+import com.bbms.util.StaleTracker;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -23,7 +25,7 @@ import java.time.Period;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class RecipientListController {
+public class RecipientListController implements RefreshableView {
     private static final Logger logger = LogManager.getLogger(RecipientListController.class);
     
     @FXML private TextField searchField;
@@ -46,6 +48,7 @@ public class RecipientListController {
     
     private final RecipientDao recipientDao = new RecipientDao();
     private final BloodRequestDao requestDao = new BloodRequestDao();
+    private final StaleTracker changes = StaleTracker.watch(Recipient.class);
     private ObservableList<Recipient> recipients = FXCollections.observableArrayList();
     
     private int currentPage = 1;
@@ -57,8 +60,22 @@ public class RecipientListController {
         setupFilters();
         setupTableColumns();
         setupActionsColumn();
-        loadRecipients();
-        loadStatistics();
+    }
+
+    /**
+     * Loads on first show, then again only if a recipient was written since.
+     */
+    @Override
+    public void onShow() {
+        if (changes.takeStale()) {
+            loadRecipients();
+            loadStatistics();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        changes.close();
     }
     
     private void setupFilters() {
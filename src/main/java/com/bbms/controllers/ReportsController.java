@@ -1,11 +1,15 @@
 package com.bbms.controllers;
 
+import com.bbms.controller.RefreshableView;
 import com.bbms.dao.DonationDao;
 import com.bbms.dao.BloodRequestDao;
 import com.bbms.dao.BloodStockDao;
+import com.bbms.dao.DonorStatsDao;
 import com.bbms.model.BloodStock;
 import com.bbms.model.Donation;
 import com.bbms.model.BloodRequest;
+import com.bbms.stats.DonorStatsService;
+import com.bbms.util.StaleTracker;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -17,9 +21,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class ReportsController {
+public class ReportsController implements RefreshableView {
     private static final Logger logger = LogManager.getLogger(ReportsController.class);
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
@@ -39,12 +42,29 @@ public class ReportsController {
     private final DonationDao donationDao = new DonationDao();
     private final BloodRequestDao requestDao = new BloodRequestDao();
     private final BloodStockDao stockDao = new BloodStockDao();
+    private final DonorStatsService statsService = DonorStatsService.getInstance();
+    private final StaleTracker changes = StaleTracker.watch(Donation.class, BloodRequest.class, BloodStock.class);
 
     @FXML
     public void initialize() {
         setupReportTypes();
         setupDefaultDateRange();
-        loadQuickStats();
+    }
+
+    /**
+     * Loads on first show, then again only if a donation, request or lot was
+     * written since.
+     */
+    @Override
+    public void onShow() {
+        if (changes.takeStale()) {
+            loadQuickStats();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        changes.close();
     }
     
     private void setupReportTypes() {
@@ -62,21 +82,14 @@ public class ReportsController {
     private void loadQuickStats() {
         LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
         
-        long donations = donationDao.findAll().stream()
-            .filter(d -> d.getDonationDate() != null && !d.getDonationDate().isBefore(thirtyDaysAgo))
-            .count();
+        long donations = donationDao.countSince(thirtyDaysAgo);
         donationsStatLabel.setText(String.valueOf(donations));
         transfusionsStatLabel.setText("--");
         
-        long requests = requestDao.findAll().stream()
-            .filter(r -> r.getRequestDate() != null && !r.getRequestDate().isBefore(thirtyDaysAgo))
-            .count();
+        long requests = requestDao.countSince(thirtyDaysAgo);
         requestsStatLabel.setText(String.valueOf(requests));
         
-        long expired = stockDao.findAll().stream()
-            .filter(BloodStock::isExpired)
-            .count();
-        expiredStatLabel.setText(String.valueOf(expired));
+        expiredStatLabel.setText(String.valueOf(stockDao.countExpired()));
     }
 
     @FXML
@@ -111,14 +124,15 @@ public class ReportsController {
         reportTitle.setText("Blood Inventory Summary");
         reportDate.setText("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
         
-        List<BloodStock> stock = stockDao.findAll();
-        
-        Map<String, Integer> stockByGroup = stock.stream()
-            .filter(s -> s.getStatus() == BloodStock.StockStatus.AVAILABLE)
-            .collect(Collectors.groupingBy(
-                BloodStock::getBloodGroup,
-                Collectors.summingInt(s -> s.getUnitsAvailable() != null ? s.getUnitsAvailable() : 0)
-            ));
+        Map<String, Integer> stockByGroup = new HashMap<>();
+        long[] expiringSoon = new long[1];
+        stockDao.scanAll(s -> {
+            if (s.getStatus() == BloodStock.StockStatus.AVAILABLE) {
+                stockByGroup.merge(s.getBloodGroup(), s.getUnitsAvailable() != null ? s.getUnitsAvailable() : 0,
+                    Integer::sum);
+            }
+            if (s.isExpiringSoon()) expiringSoon[0]++;
+        });
         
         VBox section = new VBox(10);
         section.getChildren().add(createSectionTitle("Current Stock Levels"));
@@ -135,9 +149,8 @@ public class ReportsController {
         section.getChildren().add(table);
         
         section.getChildren().add(createSectionTitle("Expiring Within 7 Days"));
-        long expiringSoon = stock.stream().filter(BloodStock::isExpiringSoon).count();
-        Label expiringLabel = new Label(expiringSoon == 0 ? "No units expiring within 7 days." : expiringSoon + " units expiring soon.");
-        if (expiringSoon > 0) expiringLabel.setStyle("-fx-text-fill: #f39c12;");
+        Label expiringLabel = new Label(expiringSoon[0] == 0 ? "No units expiring within 7 days." : expiringSoon[0] + " units expiring soon.");
+        if (expiringSoon[0] > 0) expiringLabel.setStyle("-fx-text-fill: #f39c12;");
         section.getChildren().add(expiringLabel);
         
         reportBody.getChildren().add(section);
@@ -149,20 +162,18 @@ public class ReportsController {
         reportTitle.setText("Donation Statistics");
         reportDate.setText("Period: " + from.format(DATE_FORMAT) + " to " + to.format(DATE_FORMAT));
         
-        List<Donation> donations = donationDao.findAll().stream()
-            .filter(d -> d.getDonationDate() != null && 
-                !d.getDonationDate().isBefore(from) && !d.getDonationDate().isAfter(to))
-            .collect(Collectors.toList());
+        long[] totalVolume = new long[1];
+        long donations = donationDao.scanByDateRange(from, to, d -> {
+            if (d.getStatus() == Donation.DonationStatus.COMPLETED && d.getVolumeMl() != null) {
+                totalVolume[0] += d.getVolumeMl();
+            }
+        });
         
         VBox section = new VBox(10);
         section.getChildren().add(createSectionTitle("Summary"));
-        section.getChildren().add(new Label("Total Donations: " + donations.size()));
+        section.getChildren().add(new Label("Total Donations: " + donations));
         
-        int totalVolume = donations.stream()
-            .filter(d -> d.getStatus() == Donation.DonationStatus.COMPLETED)
-            .mapToInt(d -> d.getVolumeMl() != null ? d.getVolumeMl() : 0)
-            .sum();
-        section.getChildren().add(new Label("Total Volume Collected: " + (totalVolume / 1000.0) + " L"));
+        section.getChildren().add(new Label("Total Volume Collected: " + (totalVolume[0] / 1000.0) + " L"));
         
         reportBody.getChildren().add(section);
         logger.info("Generated donation report");
@@ -173,21 +184,17 @@ public class ReportsController {
         reportTitle.setText("Blood Request Analysis");
         reportDate.setText("Period: " + from.format(DATE_FORMAT) + " to " + to.format(DATE_FORMAT));
         
-        List<BloodRequest> requests = requestDao.findAll().stream()
-            .filter(r -> r.getRequestDate() != null &&
-                !r.getRequestDate().isBefore(from) && !r.getRequestDate().isAfter(to))
-            .collect(Collectors.toList());
+        Map<BloodRequest.RequestStatus, Long> byStatus = new EnumMap<>(BloodRequest.RequestStatus.class);
+        long requests = requestDao.scanByDateRange(from, to, r -> byStatus.merge(r.getStatus(), 1L, Long::sum));
         
         VBox section = new VBox(10);
         section.getChildren().add(createSectionTitle("Request Summary"));
-        section.getChildren().add(new Label("Total Requests: " + requests.size()));
+        section.getChildren().add(new Label("Total Requests: " + requests));
         
-        Map<BloodRequest.RequestStatus, Long> byStatus = requests.stream()
-            .collect(Collectors.groupingBy(BloodRequest::getStatus, Collectors.counting()));
         byStatus.forEach((status, count) -> section.getChildren().add(new Label(status.name() + ": " + count)));
         
         long fulfilled = byStatus.getOrDefault(BloodRequest.RequestStatus.FULFILLED, 0L);
-        double rate = requests.isEmpty() ? 0 : (fulfilled * 100.0 / requests.size());
+        double rate = requests == 0 ? 0 : (fulfilled * 100.0 / requests);
         section.getChildren().add(new Label(String.format("Fulfillment Rate: %.1f%%", rate)));
         
         reportBody.getChildren().add(section);
@@ -199,9 +206,35 @@ public class ReportsController {
         reportTitle.setText("Donor Activity Report");
         reportDate.setText("Period: " + from.format(DATE_FORMAT) + " to " + to.format(DATE_FORMAT));
         
+        // Read from the donor_stats projection, not the donation history
+        DonorStatsDao.Totals totals = statsService.totals();
+        
         VBox section = new VBox(10);
         section.getChildren().add(createSectionTitle("Donor Activity"));
-        section.getChildren().add(new Label("Detailed donor activity analysis available."));
+        section.getChildren().add(new Label("Donors who donated in this period: " + statsService.countActiveDonors(from, to)));
+        section.getChildren().add(new Label("First-time donors in this period: " + statsService.countNewDonors(from, to)));
+        
+        section.getChildren().add(createSectionTitle("Lifetime Totals"));
+        section.getChildren().add(new Label("Donors with donations: " + totals.donors()));
+        section.getChildren().add(new Label("Completed donations: " + totals.donations()
+            + " (" + (totals.volumeMl() / 1000.0) + " L)"));
+        section.getChildren().add(new Label(String.format(
+            "Whole blood: %d, Plasma: %d, Platelets: %d, RBC: %d, WBC: %d",
+            totals.wholeBlood(), totals.plasma(), totals.platelets(), totals.rbc(), totals.wbc())));
+        section.getChildren().add(new Label("Deferrals recorded: " + totals.deferrals()));
+        
+        section.getChildren().add(createSectionTitle("Top Donors"));
+        StringBuilder tableContent = new StringBuilder();
+        tableContent.append("Donor                          | Group | Donations | Volume\n");
+        tableContent.append("---------------------------------------------------------\n");
+        for (DonorStatsDao.TopDonor donor : statsService.findTopDonors(10)) {
+            tableContent.append(String.format("%-31s| %-6s| %-10d| %.1f L%n",
+                donor.fullName(), donor.bloodGroup(), donor.donations(), donor.volumeMl() / 1000.0));
+        }
+        Label table = new Label(tableContent.toString());
+        table.setStyle("-fx-font-family: monospace; -fx-font-size: 14px;");
+        section.getChildren().add(table);
+        
         reportBody.getChildren().add(section);
         logger.info("Generated donor report");
     }
@@ -211,9 +244,12 @@ public class ReportsController {
         reportTitle.setText("Blood Expiry Report");
         reportDate.setText("Generated: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
         
-        List<BloodStock> stock = stockDao.findAll();
-        List<BloodStock> expired = stock.stream().filter(BloodStock::isExpired).collect(Collectors.toList());
-        List<BloodStock> expiringSoon = stock.stream().filter(BloodStock::isExpiringSoon).collect(Collectors.toList());
+        List<BloodStock> expired = new ArrayList<>();
+        List<BloodStock> expiringSoon = new ArrayList<>();
+        stockDao.scanAll(s -> {
+            if (s.isExpired()) expired.add(s);
+            if (s.isExpiringSoon()) expiringSoon.add(s);
+        });
         
         VBox section = new VBox(10);
         section.getChildren().add(createSectionTitle("Currently Expired"));
@@ -1,74 +1,330 @@
 package com.bbms.dao;
 
+import com.bbms.audit.AuditTrail;
+import com.bbms.audit.FieldDiff;
+import com.bbms.config.AppConfig;
 import com.bbms.config.HibernateUtil;
+import com.bbms.event.EntityEvent;
+import com.bbms.event.EventBus;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.SlowQueryLog;
+import com.bbms.metrics.Timer;
+import com.bbms.model.AuditEntry;
+import com.bbms.model.PendingAuditEntry;
+import jakarta.persistence.PersistenceUnitUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
 
 import java.lang.reflect.ParameterizedType;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class AbstractDao<T, ID> implements GenericDao<T, ID> {
 
     private static final Logger logger = LogManager.getLogger(AbstractDao.class);
+
+    private static final StackWalker STACK_WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    // Rows per round trip for scan()
+    private static final int SCAN_FETCH_SIZE = Math.max(1, AppConfig.getInstance().getInt("db.scan.fetch.size", 1000));
+
     private final Class<T> entityClass;
 
-    @SuppressWarnings("unchecked")
+    // Per-entity operation timers, resolved once so the hot path does no lookups
+    private final Timer saveTimer;
+    private final Timer updateTimer;
+    private final Timer deleteTimer;
+    private final Timer findByIdTimer;
+    private final Timer findAllTimer;
+    private final Timer countTimer;
+    private final ConcurrentMap<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Timer scanTimer;
+    private final String metricsPrefix;
+    private final String rowsMetric;
+
     public AbstractDao() {
-        this.entityClass = (Class<T>) ((ParameterizedType) getClass()
-                .getGenericSuperclass()).getActualTypeArguments()[0];
+        this.entityClass = resolveEntityClass(getClass());
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        String prefix = "dao." + entityClass.getSimpleName() + ".";
+        this.saveTimer = metrics.timer(prefix + "save");
+        this.updateTimer = metrics.timer(prefix + "update");
+        this.deleteTimer = metrics.timer(prefix + "delete");
+        this.findByIdTimer = metrics.timer(prefix + "findById");
+        this.findAllTimer = metrics.timer(prefix + "findAll");
+        this.countTimer = metrics.timer(prefix + "count");
+        this.scanTimer = metrics.timer(prefix + "scan");
+        this.metricsPrefix = prefix;
+        this.rowsMetric = prefix + "rows";
+    }
+
+    /**
+     * Find T from the AbstractDao&lt;T, ID&gt; declaration, also when the concrete
+     * DAO is itself subclassed (e.g. test or benchmark doubles).
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> resolveEntityClass(Class<?> type) {
+        Class<?> current = type;
+        while (current.getSuperclass() != AbstractDao.class) {
+            current = current.getSuperclass();
+        }
+        return (Class<T>) ((ParameterizedType) current.getGenericSuperclass()).getActualTypeArguments()[0];
+    }
+
+    private void recordRows(long rows) {
+        MetricsRegistry.getInstance().add(rowsMetric, rows);
+    }
+
+    /**
+     * Tell in-process subscribers (e.g. open tables) about a committed change.
+     */
+    private void publish(EntityEvent.Type type, Object id, T entity) {
+        EntityEvent<T> event = new EntityEvent<>(type, entityClass, id, entity);
+        Transactions.afterCommit(() -> EventBus.getInstance().publish(event));
+    }
+
+    /**
+     * Whether save/update/delete are recorded in the audit trail. Off for
+     * bookkeeping tables such as the outbox and the audit log itself.
+     */
+    protected boolean isAudited() {
+        return true;
+    }
+
+    /**
+     * Field diff of a change, taken inside the transaction from the state
+     * Hibernate loaded (before) and the entity's current state (after).
+     */
+    private String diff(Session session, AuditEntry.Action action, T managed) {
+        if (!isAudited()) {
+            return null;
+        }
+        Map<String, String> before = action == AuditEntry.Action.CREATE ? Map.of() : stateOf(session, managed, true);
+        Map<String, String> after = action == AuditEntry.Action.DELETE ? Map.of() : stateOf(session, managed, false);
+        String changes = FieldDiff.describe(before, after);
+        return changes == null && action != AuditEntry.Action.UPDATE ? "{}" : changes;
+    }
+
+    private Map<String, String> stateOf(Session session, T entity, boolean loaded) {
+        SessionImplementor source = session.unwrap(SessionImplementor.class);
+        EntityPersister persister = source.getEntityPersister(null, entity);
+        Object[] values;
+        if (loaded) {
+            EntityEntry entry = source.getPersistenceContextInternal().getEntry(entity);
+            values = entry == null ? null : entry.getLoadedState();
+        } else {
+            values = persister.getValues(entity);
+        }
+        if (values == null) {
+            return Map.of();
+        }
+
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        PersistenceUnitUtil units = session.getSessionFactory().getPersistenceUnitUtil();
+        Map<String, String> state = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = values[i];
+            // Associations are recorded by id, without loading them
+            if (value != null && types[i].isEntityType()) {
+                value = units.getIdentifier(value);
+            }
+            state.put(names[i], value == null ? null : String.valueOf(value));
+        }
+        return state;
+    }
+
+    /**
+     * Write the change's pending audit entry in its own transaction, so it
+     * commits or rolls back with the change. Returns whether one was
+     * written.
+     */
+    private boolean audit(Session session, AuditEntry.Action action, Object id, T managed) {
+        String changes = diff(session, action, managed);
+        if (changes == null) {
+            return false;
+        }
+        PendingAuditEntry entry = AuditTrail.getInstance().pending(action, entityClass.getSimpleName(),
+                String.valueOf(id), changes);
+        if (entry == null) {
+            return false;
+        }
+        session.persist(entry);
+        return true;
+    }
+
+    /**
+     * Write one pending audit entry per row a bulk update changed, in the
+     * session's transaction, since bulk statements bypass {@link #update}.
+     * Returns whether any were written; pass that to
+     * {@link #wakeAuditWriter} once the transaction has been handed back.
+     */
+    protected boolean auditBulkUpdate(Session session, Collection<?> ids,
+                                      Map<String, String> before, Map<String, String> after) {
+        String changes = isAudited() ? FieldDiff.describe(before, after) : null;
+        if (changes == null) {
+            return false;
+        }
+        boolean audited = false;
+        for (Object id : ids) {
+            PendingAuditEntry entry = AuditTrail.getInstance().pending(AuditEntry.Action.UPDATE,
+                    entityClass.getSimpleName(), String.valueOf(id), changes);
+            if (entry == null) {
+                return false;
+            }
+            session.persist(entry);
+            audited = true;
+        }
+        return audited;
+    }
+
+    /**
+     * Have the audit writer chain the entry once the transaction commits.
+     */
+    protected static void wakeAuditWriter(boolean audited) {
+        if (audited) {
+            Transactions.afterCommit(AuditTrail.getInstance()::wakeUp);
+        }
     }
 
     protected Session getSession() {
         return HibernateUtil.getSessionFactory().openSession();
     }
 
-    @Override
-    public T save(T entity) {
+    /**
+     * Run work in the caller's transaction (see {@link Transactions}) or in a
+     * new one that commits before returning.
+     */
+    protected <R> R inTransaction(Function<Session, R> work) {
+        Session shared = Transactions.currentSession();
+        if (shared != null) {
+            return work.apply(shared);
+        }
         Transaction tx = null;
         try (Session session = getSession()) {
             tx = session.beginTransaction();
-            session.persist(entity);
+            R result = work.apply(session);
             tx.commit();
+            return result;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Run a read in the caller's transaction if there is one, so it sees
+     * that transaction's uncommitted changes, or in a short-lived session.
+     */
+    protected <R> R withSession(Function<Session, R> work) {
+        Session shared = Transactions.currentSession();
+        if (shared != null) {
+            return work.apply(shared);
+        }
+        try (Session session = getSession()) {
+            return work.apply(session);
+        }
+    }
+
+    /**
+     * Run bulk work in a stateless session and a transaction of its own,
+     * e.g. batched JDBC writes. Nothing is cached, and no events or audit
+     * entries are produced.
+     */
+    protected <R> R inStatelessTransaction(Function<StatelessSession, R> work) {
+        Transaction tx = null;
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            tx = session.beginTransaction();
+            R result = work.apply(session);
+            tx.commit();
+            return result;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public T save(T entity) {
+        long start = System.nanoTime();
+        try {
+            Change<T> change = inTransaction(session -> {
+                session.persist(entity);
+                Object id = session.getIdentifier(entity);
+                return new Change<>(entity, id, audit(session, AuditEntry.Action.CREATE, id, entity));
+            });
             logger.debug("Saved entity: {}", entityClass.getSimpleName());
+            publish(EntityEvent.Type.CREATED, change.id(), entity);
+            wakeAuditWriter(change.audited());
             return entity;
         } catch (Exception e) {
-            if (tx != null) tx.rollback();
             logger.error("Failed to save entity", e);
             throw e;
+        } finally {
+            saveTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
     @Override
     public T update(T entity) {
-        Transaction tx = null;
-        try (Session session = getSession()) {
-            tx = session.beginTransaction();
-            T merged = session.merge(entity);
-            tx.commit();
+        long start = System.nanoTime();
+        try {
+            Change<T> change = inTransaction(session -> {
+                T merged = session.merge(entity);
+                Object id = session.getIdentifier(merged);
+                return new Change<>(merged, id, audit(session, AuditEntry.Action.UPDATE, id, merged));
+            });
             logger.debug("Updated entity: {}", entityClass.getSimpleName());
-            return merged;
+            publish(EntityEvent.Type.UPDATED, change.id(), change.entity());
+            wakeAuditWriter(change.audited());
+            return change.entity();
         } catch (Exception e) {
-            if (tx != null) tx.rollback();
             logger.error("Failed to update entity", e);
             throw e;
+        } finally {
+            updateTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
     @Override
     public void delete(T entity) {
-        Transaction tx = null;
-        try (Session session = getSession()) {
-            tx = session.beginTransaction();
-            session.remove(session.merge(entity));
-            tx.commit();
+        long start = System.nanoTime();
+        try {
+            Change<T> change = inTransaction(session -> {
+                T managed = session.merge(entity);
+                Object id = session.getIdentifier(managed);
+                boolean audited = audit(session, AuditEntry.Action.DELETE, id, managed);
+                session.remove(managed);
+                return new Change<>(managed, id, audited);
+            });
             logger.debug("Deleted entity: {}", entityClass.getSimpleName());
+            publish(EntityEvent.Type.DELETED, change.id(), entity);
+            wakeAuditWriter(change.audited());
         } catch (Exception e) {
-            if (tx != null) tx.rollback();
             logger.error("Failed to delete entity", e);
             throw e;
+        } finally {
+            deleteTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
@@ -79,40 +335,135 @@ public abstract class AbstractDao<T, ID> implements GenericDao<T, ID> {
 
     @Override
     public Optional<T> findById(ID id) {
-        try (Session session = getSession()) {
-            T entity = session.get(entityClass, id);
-            return Optional.ofNullable(entity);
+        long start = System.nanoTime();
+        try {
+            return Optional.ofNullable(withSession(session -> session.get(entityClass, id)));
+        } finally {
+            findByIdTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
     @Override
     public List<T> findAll() {
-        try (Session session = getSession()) {
-            return session.createQuery("FROM " + entityClass.getSimpleName(), entityClass)
-                    .getResultList();
+        long start = System.nanoTime();
+        try {
+            List<T> results = withSession(session ->
+                    session.createQuery("FROM " + entityClass.getSimpleName(), entityClass).getResultList());
+            recordRows(results.size());
+            return results;
+        } finally {
+            findAllTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
     @Override
     public long count() {
-        try (Session session = getSession()) {
-            return session.createQuery("SELECT COUNT(*) FROM " + entityClass.getSimpleName(), Long.class)
-                    .getSingleResult();
+        long start = System.nanoTime();
+        try {
+            return withSession(session ->
+                    session.createQuery("SELECT COUNT(*) FROM " + entityClass.getSimpleName(), Long.class)
+                            .getSingleResult());
+        } finally {
+            countTimer.recordNanos(System.nanoTime() - start);
         }
     }
 
     protected List<T> executeQuery(String hql, Object... params) {
-        try (Session session = getSession()) {
-            var query = session.createQuery(hql, entityClass);
-            for (int i = 0; i < params.length; i += 2) {
-                query.setParameter((String) params[i], params[i + 1]);
-            }
-            return query.getResultList();
+        long start = System.nanoTime();
+        SlowQueryLog.enterQuery(hql, params);
+        try {
+            List<T> results = withSession(session -> {
+                var query = session.createQuery(hql, entityClass);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                return query.getResultList();
+            });
+            recordRows(results.size());
+            return results;
+        } finally {
+            SlowQueryLog.exitQuery();
+            queryTimer(hql).recordNanos(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Every row of the table, one at a time; see {@link #scan}.
+     *
+     * @return the number of rows
+     */
+    public long scanAll(Consumer<? super T> action) {
+        return scan("FROM " + entityClass.getSimpleName(), entityClass, action);
+    }
+
+    /**
+     * Read a query's results through a forward-only cursor in a stateless
+     * session, handing each row to the action as it arrives. Nothing is
+     * kept in a persistence context and rows are fetched db.scan.fetch.size
+     * at a time, so heap use does not grow with the table. For reports,
+     * exports and recomputation over whole tables.
+     *
+     * Entities are detached and their lazy associations cannot be loaded:
+     * join fetch what the action needs or select it as a projection. The
+     * action runs with the cursor open, so it should not wait on anything.
+     *
+     * @return the number of rows
+     */
+    protected <R> long scan(String hql, Class<R> resultType, Consumer<? super R> action, Object... params) {
+        long start = System.nanoTime();
+        SlowQueryLog.enterQuery(hql, params);
+        try {
+            long rows = inStatelessTransaction(session -> {
+                var query = session.createQuery(hql, resultType).setFetchSize(SCAN_FETCH_SIZE);
+                for (int i = 0; i < params.length; i += 2) {
+                    query.setParameter((String) params[i], params[i + 1]);
+                }
+                long count = 0;
+                try (ScrollableResults<R> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (results.next()) {
+                        action.accept(results.get());
+                        count++;
+                    }
+                }
+                return count;
+            });
+            recordRows(rows);
+            return rows;
+        } finally {
+            SlowQueryLog.exitQuery();
+            scanTimer.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The timer for an executeQuery HQL string, named after the DAO method
+     * that first ran it (dao.Entity.query.method) so each query is timed
+     * apart. The caller is looked up once per distinct HQL.
+     */
+    private Timer queryTimer(String hql) {
+        Timer timer = queryTimers.get(hql);
+        if (timer == null) {
+            String caller = STACK_WALKER.walk(frames -> frames
+                    .filter(f -> AbstractDao.class.isAssignableFrom(f.getDeclaringClass())
+                            && f.getDeclaringClass() != AbstractDao.class)
+                    .findFirst()
+                    .map(StackWalker.StackFrame::getMethodName)
+                    .orElse("other"));
+            timer = queryTimers.computeIfAbsent(hql,
+                    k -> MetricsRegistry.getInstance().timer(metricsPrefix + "query." + caller));
+        }
+        return timer;
+    }
+
     protected Optional<T> executeSingleQuery(String hql, Object... params) {
         List<T> results = executeQuery(hql, params);
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
+
+    /**
+     * Result of a write: the managed entity, its id and whether an audit
+     * entry was written with it.
+     */
+    private record Change<E>(E entity, Object id, boolean audited) {
+    }
 }
@@ -0,0 +1,99 @@
+package com.bbms.dao;
+
+import com.bbms.model.AuditChainHead;
+import com.bbms.model.AuditEntry;
+import com.bbms.model.PendingAuditEntry;
+import jakarta.persistence.LockModeType;
+
+import java.util.List;
+import java.util.Optional;
+
+public class AuditEntryDao extends AbstractDao<AuditEntry, Long> {
+
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    /**
+     * The chain head, locked until the current transaction ends. Created on
+     * first use against an empty database.
+     */
+    public AuditChainHead lockChainHead() {
+        return inTransaction(session -> {
+            AuditChainHead head = session.find(AuditChainHead.class, AuditChainHead.SINGLETON_ID,
+                    LockModeType.PESSIMISTIC_WRITE);
+            if (head == null) {
+                head = new AuditChainHead(AuditChainHead.SINGLETON_ID);
+                session.persist(head);
+            }
+            return head;
+        });
+    }
+
+    public Optional<AuditChainHead> findChainHead() {
+        return Optional.ofNullable(withSession(session ->
+                session.get(AuditChainHead.class, AuditChainHead.SINGLETON_ID)));
+    }
+
+    /**
+     * Insert entries whose ids and hashes are already assigned. Written
+     * through the session directly so the audit log is not itself audited.
+     */
+    public void append(List<AuditEntry> entries) {
+        inTransaction(session -> {
+            entries.forEach(session::persist);
+            return null;
+        });
+    }
+
+    public boolean hasPending() {
+        return !withSession(session -> session.createQuery("SELECT id FROM PendingAuditEntry", Long.class)
+                .setMaxResults(1)
+                .getResultList()).isEmpty();
+    }
+
+    /**
+     * The oldest pending entries, up to limit, in the order their changes
+     * committed them.
+     */
+    public List<PendingAuditEntry> findPending(int limit) {
+        return withSession(session -> session.createQuery(
+                "FROM PendingAuditEntry ORDER BY id", PendingAuditEntry.class)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    /**
+     * Remove pending entries once they are chained, in the caller's
+     * transaction.
+     */
+    public int deletePending(List<Long> ids) {
+        return inTransaction(session -> session.createMutationQuery(
+                "DELETE FROM PendingAuditEntry WHERE id IN (:ids)")
+                .setParameterList("ids", ids)
+                .executeUpdate());
+    }
+
+    /**
+     * History of one entity, oldest first (served by idx_audit_entity).
+     */
+    public List<AuditEntry> findByEntity(String entityType, String entityId) {
+        return executeQuery(
+                "FROM AuditEntry WHERE entityType = :type AND entityId = :id ORDER BY id",
+                "type", entityType,
+                "id", entityId
+        );
+    }
+
+    /**
+     * Up to limit entries after the given chain position, for verification.
+     */
+    public List<AuditEntry> findAfter(long afterId, int limit) {
+        return withSession(session -> session.createQuery(
+                "FROM AuditEntry WHERE id > :afterId ORDER BY id", AuditEntry.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+}
@@ -1,7 +1,10 @@
 package com.bbms.dao;
 
 import com.bbms.model.BloodRequest;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class BloodRequestDao extends AbstractDao<BloodRequest, Long> {
 
@@ -18,6 +21,29 @@ public class BloodRequestDao extends AbstractDao<BloodRequest, Long> {
         );
     }
 
+    public long countSince(LocalDate startDate) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM BloodRequest WHERE requestDate >= :startDate", Long.class)
+                .setParameter("startDate", startDate)
+                .getSingleResult());
+    }
+
+    public long scanByDateRange(LocalDate startDate, LocalDate endDate, Consumer<? super BloodRequest> action) {
+        return scan("FROM BloodRequest WHERE requestDate BETWEEN :startDate AND :endDate", BloodRequest.class,
+                action,
+                "startDate", startDate,
+                "endDate", endDate);
+    }
+
+    /**
+     * Requests that still need units, including partly fulfilled ones.
+     */
+    public List<BloodRequest> findOpen() {
+        return executeQuery(
+                "FROM BloodRequest WHERE status IN ('PENDING', 'APPROVED', 'PARTIALLY_FULFILLED')"
+        );
+    }
+
     public List<BloodRequest> findByStatus(BloodRequest.RequestStatus status) {
         return executeQuery(
                 "FROM BloodRequest WHERE status = :status ORDER BY requestDate DESC",
@@ -37,4 +63,19 @@ public class BloodRequestDao extends AbstractDao<BloodRequest, Long> {
                 "bloodGroup", bloodGroup
         );
     }
+
+    /**
+     * Units requested per day, blood group and component in [from, to],
+     * as (date, group, component, units) rows. Cancelled requests excluded.
+     */
+    public List<Object[]> sumUnitsByDay(LocalDate from, LocalDate to) {
+        return withSession(session -> session.createQuery(
+                "SELECT requestDate, bloodGroup, componentType, SUM(unitsRequested) FROM BloodRequest"
+                        + " WHERE requestDate BETWEEN :from AND :to AND status <> 'CANCELLED'"
+                        + " GROUP BY requestDate, bloodGroup, componentType",
+                Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList());
+    }
 }
@@ -2,7 +2,7 @@ package com.bbms.dao;
 
 import com.bbms.config.HibernateUtil;
 import com.bbms.model.BloodStock;
-import org.hibernate.Session;
+import jakarta.persistence.LockModeType;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +16,27 @@ public class BloodStockDao extends AbstractDao<BloodStock, Long> {
         );
     }
 
+    /**
+     * Lots of any status for the stock table; a null group or component
+     * matches all.
+     */
+    public List<BloodStock> findFiltered(String bloodGroup, BloodStock.ComponentType componentType) {
+        if (bloodGroup == null && componentType == null) {
+            return findAll();
+        }
+        if (componentType == null) {
+            return executeQuery("FROM BloodStock WHERE bloodGroup = :bloodGroup", "bloodGroup", bloodGroup);
+        }
+        if (bloodGroup == null) {
+            return executeQuery("FROM BloodStock WHERE componentType = :componentType", "componentType", componentType);
+        }
+        return executeQuery(
+                "FROM BloodStock WHERE bloodGroup = :bloodGroup AND componentType = :componentType",
+                "bloodGroup", bloodGroup,
+                "componentType", componentType
+        );
+    }
+
     public List<BloodStock> findAvailable() {
         return executeQuery("FROM BloodStock WHERE status = 'AVAILABLE' AND unitsAvailable > 0");
     }
@@ -41,6 +62,15 @@ public class BloodStockDao extends AbstractDao<BloodStock, Long> {
         );
     }
 
+    /**
+     * Lots of any status past their expiry date.
+     */
+    public long countExpired() {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM BloodStock WHERE expiryDate < CURRENT_DATE", Long.class)
+                .getSingleResult());
+    }
+
     public List<BloodStock> findLowStock(int threshold) {
         return executeQuery(
                 "FROM BloodStock WHERE unitsAvailable < :threshold AND status = 'AVAILABLE'",
@@ -49,22 +79,39 @@ public class BloodStockDao extends AbstractDao<BloodStock, Long> {
     }
 
     public int getTotalUnitsByBloodGroup(String bloodGroup) {
-        try (Session session = getSession()) {
-            Long result = session.createQuery(
-                    "SELECT COALESCE(SUM(unitsAvailable), 0) FROM BloodStock WHERE bloodGroup = :bloodGroup AND status = 'AVAILABLE'",
-                    Long.class)
-                    .setParameter("bloodGroup", bloodGroup)
-                    .getSingleResult();
-            return result != null ? result.intValue() : 0;
-        }
+        Long result = withSession(session -> session.createQuery(
+                "SELECT COALESCE(SUM(unitsAvailable), 0) FROM BloodStock WHERE bloodGroup = :bloodGroup AND status = 'AVAILABLE'",
+                Long.class)
+                .setParameter("bloodGroup", bloodGroup)
+                .getSingleResult());
+        return result != null ? result.intValue() : 0;
     }
 
     public List<Object[]> getStockSummaryByBloodGroup() {
-        try (Session session = getSession()) {
-            return session.createQuery(
-                    "SELECT bloodGroup, SUM(unitsAvailable) FROM BloodStock WHERE status = 'AVAILABLE' GROUP BY bloodGroup ORDER BY bloodGroup",
-                    Object[].class)
-                    .getResultList();
-        }
+        return withSession(session -> session.createQuery(
+                "SELECT bloodGroup, SUM(unitsAvailable) FROM BloodStock WHERE status = 'AVAILABLE' GROUP BY bloodGroup ORDER BY bloodGroup",
+                Object[].class)
+                .getResultList());
+    }
+
+    /**
+     * Unexpired available units per blood group and component, as
+     * (group, component, units) rows.
+     */
+    public List<Object[]> sumAvailableByGroupAndComponent() {
+        return withSession(session -> session.createQuery(
+                "SELECT bloodGroup, componentType, SUM(unitsAvailable) FROM BloodStock"
+                        + " WHERE status = 'AVAILABLE' AND expiryDate >= CURRENT_DATE"
+                        + " GROUP BY bloodGroup, componentType",
+                Object[].class)
+                .getResultList());
+    }
+
+    /**
+     * The lot row locked until the current transaction ends.
+     */
+    public Optional<BloodStock> lock(Long id) {
+        return Optional.ofNullable(withSession(session ->
+                session.find(BloodStock.class, id, LockModeType.PESSIMISTIC_WRITE)));
     }
 }
@@ -0,0 +1,112 @@
+package com.bbms.dao;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.BloodUnit;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class BloodUnitDao extends AbstractDao<BloodUnit, Long> {
+
+    // Bag status changes are recorded as stock movements
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    /**
+     * Up to limit unexpired in-stock bags, earliest expiry first, locked for
+     * this transaction. Bags locked by another workstation are skipped
+     * rather than waited for. Pass a lot id to issue from that lot only.
+     *
+     * Oracle cannot combine a row limit with FOR UPDATE, but SKIP LOCKED
+     * locks rows as they are fetched, so the limit is applied by fetching
+     * only that many rows.
+     */
+    public List<BloodUnit> lockIssuable(String bloodGroup, BloodStock.ComponentType componentType,
+                                        Long lotId, int limit) {
+        return withSession(session -> {
+            var query = session.createQuery(
+                    "FROM BloodUnit WHERE bloodGroup = :group AND componentType = :type"
+                            + " AND status = :status AND expiryDate >= :today"
+                            + (lotId != null ? " AND lot.id = :lotId" : "")
+                            + " ORDER BY expiryDate, id", BloodUnit.class)
+                    .setParameter("group", bloodGroup)
+                    .setParameter("type", componentType)
+                    .setParameter("status", BloodUnit.Status.IN_STOCK)
+                    .setParameter("today", LocalDate.now());
+            if (lotId != null) {
+                query.setParameter("lotId", lotId);
+            }
+            List<BloodUnit> units = new ArrayList<>(limit);
+            try (ScrollableResults<BloodUnit> rows = query.setFetchSize(limit)
+                    .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (units.size() < limit && rows.next()) {
+                    units.add(rows.get());
+                }
+            }
+            return units;
+        });
+    }
+
+    /**
+     * The in-stock bags of a lot, earliest expiry first, locked for this
+     * transaction.
+     */
+    public List<BloodUnit> lockInStock(Long lotId) {
+        return withSession(session -> session.createQuery(
+                "FROM BloodUnit WHERE lot.id = :lotId AND status = :status ORDER BY expiryDate, id", BloodUnit.class)
+                .setParameter("lotId", lotId)
+                .setParameter("status", BloodUnit.Status.IN_STOCK)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList());
+    }
+
+    /**
+     * The bags of a lot reserved for a request, earliest expiry first,
+     * locked for this transaction.
+     */
+    public List<BloodUnit> lockReserved(Long lotId, Long requestId) {
+        return withSession(session -> session.createQuery(
+                "FROM BloodUnit WHERE lot.id = :lotId AND reservedFor = :requestId AND status = :status"
+                        + " ORDER BY expiryDate, id", BloodUnit.class)
+                .setParameter("lotId", lotId)
+                .setParameter("requestId", requestId)
+                .setParameter("status", BloodUnit.Status.RESERVED)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList());
+    }
+
+    public Optional<BloodUnit> lock(Long id) {
+        return Optional.ofNullable(withSession(session ->
+                session.find(BloodUnit.class, id, LockModeType.PESSIMISTIC_WRITE)));
+    }
+
+    public Optional<BloodUnit> findByBarcode(String barcode) {
+        return executeSingleQuery(
+                "FROM BloodUnit WHERE barcode = :barcode",
+                "barcode", barcode
+        );
+    }
+
+    public List<BloodUnit> findByLot(Long lotId) {
+        return executeQuery(
+                "FROM BloodUnit WHERE lot.id = :lotId ORDER BY id",
+                "lotId", lotId
+        );
+    }
+
+    public long countByLot(Long lotId) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM BloodUnit WHERE lot.id = :lotId", Long.class)
+                .setParameter("lotId", lotId)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bbms.dao;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.DemandModel;
+import com.bbms.util.BloodCompatibility;
+import jakarta.persistence.LockModeType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DemandModelDao extends AbstractDao<DemandModel, Long> {
+
+    // Model state is rewritten every night; it is derived data, not a record
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    /**
+     * Every group and component model, locked until the current
+     * transaction ends so only one client trains at a time. Missing
+     * models are created empty.
+     */
+    public List<DemandModel> lockAll() {
+        return inTransaction(session -> {
+            List<DemandModel> models = new ArrayList<>(session.createQuery(
+                    "FROM DemandModel ORDER BY id", DemandModel.class)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList());
+            Set<String> present = new HashSet<>();
+            models.forEach(model -> present.add(model.getBloodGroup() + "|" + model.getComponentType()));
+            for (String bloodGroup : BloodCompatibility.ALL_BLOOD_GROUPS) {
+                for (BloodStock.ComponentType componentType : BloodStock.ComponentType.values()) {
+                    if (!present.contains(bloodGroup + "|" + componentType)) {
+                        DemandModel model = new DemandModel(bloodGroup, componentType);
+                        session.persist(model);
+                        models.add(model);
+                    }
+                }
+            }
+            return models;
+        });
+    }
+}
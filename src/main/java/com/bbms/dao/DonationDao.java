@@ -1,8 +1,11 @@
 package com.bbms.dao;
 
 import com.bbms.model.Donation;
+import com.bbms.model.Donor;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class DonationDao extends AbstractDao<Donation, Long> {
 
@@ -21,6 +24,32 @@ public class DonationDao extends AbstractDao<Donation, Long> {
         );
     }
 
+    public long countSince(LocalDate startDate) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM Donation WHERE donationDate >= :startDate", Long.class)
+                .setParameter("startDate", startDate)
+                .getSingleResult());
+    }
+
+    public long scanByDateRange(LocalDate startDate, LocalDate endDate, Consumer<? super Donation> action) {
+        return scan("FROM Donation WHERE donationDate BETWEEN :startDate AND :endDate", Donation.class, action,
+                "startDate", startDate,
+                "endDate", endDate);
+    }
+
+    /**
+     * Distinct donors with a completed donation in the range.
+     */
+    public long countDonorsBetween(LocalDate startDate, LocalDate endDate) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(DISTINCT donor.id) FROM Donation"
+                        + " WHERE donationDate BETWEEN :startDate AND :endDate AND status = :status", Long.class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .setParameter("status", Donation.DonationStatus.COMPLETED)
+                .getSingleResult());
+    }
+
     public List<Donation> findByBloodGroup(String bloodGroup) {
         return executeQuery(
                 "FROM Donation WHERE bloodGroup = :bloodGroup ORDER BY donationDate DESC",
@@ -40,4 +69,28 @@ public class DonationDao extends AbstractDao<Donation, Long> {
                 "status", status
         );
     }
+
+    /**
+     * Move every donation of one donor to another, e.g. when merging
+     * duplicate records, with an audit entry per donation moved. Returns
+     * the number moved.
+     */
+    public int reassignDonor(Long fromDonorId, Long toDonorId) {
+        List<Long> moved = inTransaction(session -> {
+            List<Long> ids = session.createQuery("SELECT id FROM Donation WHERE donor.id = :from", Long.class)
+                    .setParameter("from", fromDonorId)
+                    .getResultList();
+            if (!ids.isEmpty()) {
+                session.createMutationQuery("UPDATE Donation SET donor = :to WHERE id IN (:ids)")
+                        .setParameter("to", session.getReference(Donor.class, toDonorId))
+                        .setParameterList("ids", ids)
+                        .executeUpdate();
+                auditBulkUpdate(session, ids, Map.of("donor", String.valueOf(fromDonorId)),
+                        Map.of("donor", String.valueOf(toDonorId)));
+            }
+            return ids;
+        });
+        wakeAuditWriter(!moved.isEmpty());
+        return moved.size();
+    }
 }
@@ -1,10 +1,55 @@
 package com.bbms.dao;
 
+import com.bbms.audit.AuditTrail;
+import com.bbms.audit.FieldDiff;
+import com.bbms.event.EntityEvent;
+import com.bbms.event.EventBus;
+import com.bbms.model.AuditEntry;
+import com.bbms.model.Donation;
 import com.bbms.model.Donor;
+import com.bbms.model.OutboxEvent;
+import com.bbms.model.PendingAuditEntry;
+import com.bbms.outbox.Outbox;
+import com.bbms.outbox.OutboxDispatcher;
+import org.hibernate.StatelessSession;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class DonorDao extends AbstractDao<Donor, Long> {
 
+    private static final String INSERT_DONOR =
+            "INSERT INTO donors (id, full_name, blood_group, phone, email, address, date_of_birth, gender,"
+                    + " weight_kg, last_donation_date, total_donations, is_eligible, medical_notes)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DONATION =
+            "INSERT INTO donations (id, donor_id, donation_date, blood_group, component_type, volume_ml,"
+                    + " hemoglobin_level, blood_pressure, pulse_rate, temperature_c, status, notes, collected_by)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ADD_DONATIONS =
+            "UPDATE donors SET total_donations = NVL(total_donations, 0) + ?,"
+                    + " last_donation_date = GREATEST(NVL(last_donation_date, ?), ?) WHERE id = ?";
+    private static final String LOCK_TOTALS =
+            "SELECT last_donation_date, NVL(total_donations, 0) FROM donors WHERE id = ? FOR UPDATE";
+
     public List<Donor> findByBloodGroup(String bloodGroup) {
         return executeQuery(
                 "FROM Donor WHERE bloodGroup = :bloodGroup",
@@ -23,6 +68,22 @@ public class DonorDao extends AbstractDao<Donor, Long> {
         );
     }
 
+    /**
+     * Eligible donors of the given groups who last donated before the
+     * cutoff, or never.
+     */
+    public List<Donor> findReadyByBloodGroups(Collection<String> bloodGroups, LocalDate lastDonationBefore) {
+        if (bloodGroups.isEmpty()) {
+            return List.of();
+        }
+        return executeQuery(
+                "FROM Donor WHERE bloodGroup IN (:bloodGroups) AND isEligible = true"
+                        + " AND (lastDonationDate IS NULL OR lastDonationDate < :cutoff)",
+                "bloodGroups", bloodGroups,
+                "cutoff", lastDonationBefore
+        );
+    }
+
     public List<Donor> findByPhone(String phone) {
         return executeQuery(
                 "FROM Donor WHERE phone = :phone",
@@ -37,10 +98,397 @@ public class DonorDao extends AbstractDao<Donor, Long> {
         );
     }
 
+    /**
+     * One page of donors in (fullName, id) order, starting after the given
+     * donor, or from the first when it is null. Keyword and blood group
+     * filter as in {@link #search} and {@link #findByBloodGroup} when not
+     * null. Served from the (full_name, id) indexes, so every page costs the
+     * same however deep it is.
+     */
+    public List<Donor> findPageAfter(String keyword, String bloodGroup, Donor after, int limit) {
+        return findPage(keyword, bloodGroup, after, true, limit);
+    }
+
+    /**
+     * The page that ends just before the given donor, or the last page when
+     * it is null, in ascending order.
+     */
+    public List<Donor> findPageBefore(String keyword, String bloodGroup, Donor before, int limit) {
+        List<Donor> page = new ArrayList<>(findPage(keyword, bloodGroup, before, false, limit));
+        Collections.reverse(page);
+        return page;
+    }
+
+    private List<Donor> findPage(String keyword, String bloodGroup, Donor key, boolean forward, int limit) {
+        String direction = forward ? ">" : "<";
+        String order = forward ? "ASC" : "DESC";
+        StringBuilder hql = new StringBuilder("FROM Donor WHERE 1 = 1");
+        if (keyword != null) {
+            hql.append(" AND (LOWER(fullName) LIKE :keyword OR phone LIKE :keyword)");
+        }
+        if (bloodGroup != null) {
+            hql.append(" AND bloodGroup = :bloodGroup");
+        }
+        if (key != null) {
+            hql.append(" AND (fullName ").append(direction).append(" :name OR (fullName = :name AND id ")
+                    .append(direction).append(" :id))");
+        }
+        hql.append(" ORDER BY fullName ").append(order).append(", id ").append(order);
+        return withSession(session -> {
+            var query = session.createQuery(hql.toString(), Donor.class).setMaxResults(limit);
+            if (keyword != null) {
+                query.setParameter("keyword", "%" + keyword.toLowerCase() + "%");
+            }
+            if (bloodGroup != null) {
+                query.setParameter("bloodGroup", bloodGroup);
+            }
+            if (key != null) {
+                query.setParameter("name", key.getFullName());
+                query.setParameter("id", key.getId());
+            }
+            return query.getResultList();
+        });
+    }
+
     public List<Donor> findReadyToDonate() {
         return executeQuery(
                 "FROM Donor d WHERE d.isEligible = true AND " +
                 "(d.lastDonationDate IS NULL OR d.lastDonationDate < CURRENT_DATE - 90)"
         );
     }
+
+    /**
+     * Donors sharing a duplicate-detection block with the given keys: the
+     * same phone key, or the same date of birth and blood group.
+     */
+    public List<Donor> findBlockCandidates(String phoneKey, LocalDate dateOfBirth, String bloodGroup) {
+        return executeQuery(
+                "FROM Donor WHERE phoneKey = :phoneKey OR (dateOfBirth = :dateOfBirth AND bloodGroup = :bloodGroup)",
+                "phoneKey", phoneKey,
+                "dateOfBirth", dateOfBirth,
+                "bloodGroup", bloodGroup
+        );
+    }
+
+    /**
+     * The columns duplicate detection compares, for every donor, as (id,
+     * fullName, phone, dateOfBirth, bloodGroup, email) rows, streamed.
+     */
+    public long scanMatchingFields(Consumer<? super Object[]> action) {
+        return scan("SELECT id, fullName, phone, dateOfBirth, bloodGroup, email FROM Donor", Object[].class, action);
+    }
+
+    /**
+     * Donors whose phone key is one of the given keys (at most 1000).
+     */
+    public List<Donor> findByPhoneKeys(Collection<String> phoneKeys) {
+        if (phoneKeys.isEmpty()) {
+            return List.of();
+        }
+        return executeQuery(
+                "FROM Donor WHERE phoneKey IN (:phoneKeys)",
+                "phoneKeys", phoneKeys
+        );
+    }
+
+    /**
+     * Write one batch of an import in a single stateless transaction, as
+     * batched JDBC statements. New donors and donations get their ids here
+     * from one sequence query each; new donors' totals must already include
+     * their donations. Donations of donors saved before are added to those
+     * donors' totals. The donor_stats rows of every donor with donations are
+     * rebuilt.
+     *
+     * The statements bypass save/update, so the batch writes its own audit
+     * entries (one per donor created or updated and per donation) and one
+     * {@link Outbox#DONORS_IMPORTED} event in the same transaction, and
+     * publishes the entity events once it commits.
+     */
+    public void importDonors(List<Donor> newDonors, List<Donation> donations) {
+        Map<Donor, Map<String, String>> updatedBefore = new IdentityHashMap<>();
+        inStatelessTransaction(session -> {
+            session.doWork(connection -> {
+                insertDonors(connection, newDonors);
+                insertDonations(connection, donations);
+                updatedBefore.putAll(addDonations(connection, newDonors, donations));
+                rebuildStats(connection, donations);
+            });
+            auditImport(session, newDonors, donations, updatedBefore);
+            OutboxEvent event = importEvent(newDonors, donations);
+            if (event != null) {
+                session.insert(event);
+            }
+            return null;
+        });
+
+        EventBus events = EventBus.getInstance();
+        newDonors.forEach(donor -> events.publish(
+                new EntityEvent<>(EntityEvent.Type.CREATED, Donor.class, donor.getId(), donor)));
+        updatedBefore.keySet().forEach(donor -> events.publish(
+                new EntityEvent<>(EntityEvent.Type.UPDATED, Donor.class, donor.getId(), donor)));
+        donations.forEach(donation -> events.publish(
+                new EntityEvent<>(EntityEvent.Type.CREATED, Donation.class, donation.getId(), donation)));
+        wakeAuditWriter(!newDonors.isEmpty() || !donations.isEmpty());
+        OutboxDispatcher.getInstance().wakeUp();
+    }
+
+    private static void auditImport(StatelessSession session, List<Donor> newDonors, List<Donation> donations,
+                                    Map<Donor, Map<String, String>> updatedBefore) {
+        AuditTrail audit = AuditTrail.getInstance();
+        List<PendingAuditEntry> entries = new ArrayList<>();
+        for (Donor donor : newDonors) {
+            entries.add(audit.pending(AuditEntry.Action.CREATE, "Donor", String.valueOf(donor.getId()),
+                    FieldDiff.describe(Map.of(), stateOf(donor))));
+        }
+        updatedBefore.forEach((donor, before) -> {
+            Map<String, String> after = new LinkedHashMap<>();
+            after.put("lastDonationDate", String.valueOf(donor.getLastDonationDate()));
+            after.put("totalDonations", String.valueOf(donor.getTotalDonations()));
+            entries.add(audit.pending(AuditEntry.Action.UPDATE, "Donor", String.valueOf(donor.getId()),
+                    FieldDiff.describe(before, after)));
+        });
+        for (Donation donation : donations) {
+            entries.add(audit.pending(AuditEntry.Action.CREATE, "Donation", String.valueOf(donation.getId()),
+                    FieldDiff.describe(Map.of(), stateOf(donation))));
+        }
+        for (PendingAuditEntry entry : entries) {
+            if (entry != null && entry.getChanges() != null) {
+                session.insert(entry);
+            }
+        }
+    }
+
+    /**
+     * One event for the whole batch, keyed by its first donor, with the
+     * donation count per blood group; null for an empty batch.
+     */
+    private static OutboxEvent importEvent(List<Donor> newDonors, List<Donation> donations) {
+        Long firstDonorId = Stream.concat(newDonors.stream(), donations.stream().map(Donation::getDonor))
+                .map(Donor::getId)
+                .min(Long::compare)
+                .orElse(null);
+        if (firstDonorId == null) {
+            return null;
+        }
+        Map<String, String> payload = new LinkedHashMap<>();
+        payload.put("donorsCreated", String.valueOf(newDonors.size()));
+        payload.put("donations", String.valueOf(donations.size()));
+        Map<String, Integer> byGroup = new TreeMap<>();
+        donations.forEach(donation -> byGroup.merge(donation.getBloodGroup(), 1, Integer::sum));
+        byGroup.forEach((group, count) -> payload.put("donations." + group, String.valueOf(count)));
+        return new OutboxEvent("DonorImport", firstDonorId, Outbox.DONORS_IMPORTED, payload);
+    }
+
+    /**
+     * Audited fields of an imported donor, named and formatted as
+     * AbstractDao records them.
+     */
+    private static Map<String, String> stateOf(Donor donor) {
+        Map<String, String> state = new LinkedHashMap<>();
+        put(state, "address", donor.getAddress());
+        put(state, "bloodGroup", donor.getBloodGroup());
+        put(state, "dateOfBirth", donor.getDateOfBirth());
+        put(state, "email", donor.getEmail());
+        put(state, "fullName", donor.getFullName());
+        put(state, "gender", donor.getGender());
+        put(state, "isEligible", !Boolean.FALSE.equals(donor.getIsEligible()));
+        put(state, "lastDonationDate", donor.getLastDonationDate());
+        put(state, "medicalNotes", donor.getMedicalNotes());
+        put(state, "phone", donor.getPhone());
+        put(state, "totalDonations", donor.getTotalDonations() == null ? 0 : donor.getTotalDonations());
+        put(state, "weightKg", donor.getWeightKg());
+        return state;
+    }
+
+    private static Map<String, String> stateOf(Donation donation) {
+        Map<String, String> state = new LinkedHashMap<>();
+        put(state, "bloodGroup", donation.getBloodGroup());
+        put(state, "bloodPressure", donation.getBloodPressure());
+        put(state, "collectedBy", donation.getCollectedBy());
+        put(state, "componentType", donation.getComponentType());
+        put(state, "donationDate", donation.getDonationDate());
+        put(state, "donor", donation.getDonor().getId());
+        put(state, "hemoglobinLevel", donation.getHemoglobinLevel());
+        put(state, "notes", donation.getNotes());
+        put(state, "pulseRate", donation.getPulseRate());
+        put(state, "status", donation.getStatus());
+        put(state, "temperatureC", donation.getTemperatureC());
+        put(state, "volumeMl", donation.getVolumeMl());
+        return state;
+    }
+
+    private static void put(Map<String, String> state, String field, Object value) {
+        state.put(field, value == null ? null : String.valueOf(value));
+    }
+
+    private static void insertDonors(Connection connection, List<Donor> donors) throws SQLException {
+        if (donors.isEmpty()) {
+            return;
+        }
+        long[] ids = nextIds(connection, "donors_seq", donors.size());
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_DONOR)) {
+            for (int i = 0; i < donors.size(); i++) {
+                Donor donor = donors.get(i);
+                insert.setLong(1, ids[i]);
+                insert.setString(2, donor.getFullName());
+                insert.setString(3, donor.getBloodGroup());
+                insert.setString(4, donor.getPhone());
+                insert.setString(5, donor.getEmail());
+                insert.setString(6, donor.getAddress());
+                setDate(insert, 7, donor.getDateOfBirth());
+                insert.setString(8, donor.getGender() == null ? null : donor.getGender().name());
+                setDouble(insert, 9, donor.getWeightKg());
+                setDate(insert, 10, donor.getLastDonationDate());
+                insert.setInt(11, donor.getTotalDonations() == null ? 0 : donor.getTotalDonations());
+                insert.setInt(12, Boolean.FALSE.equals(donor.getIsEligible()) ? 0 : 1);
+                insert.setString(13, donor.getMedicalNotes());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        for (int i = 0; i < donors.size(); i++) {
+            donors.get(i).setId(ids[i]);
+        }
+    }
+
+    private static void insertDonations(Connection connection, List<Donation> donations) throws SQLException {
+        if (donations.isEmpty()) {
+            return;
+        }
+        long[] ids = nextIds(connection, "donations_seq", donations.size());
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_DONATION)) {
+            for (int i = 0; i < donations.size(); i++) {
+                Donation donation = donations.get(i);
+                insert.setLong(1, ids[i]);
+                insert.setLong(2, donation.getDonor().getId());
+                setDate(insert, 3, donation.getDonationDate());
+                insert.setString(4, donation.getBloodGroup());
+                insert.setString(5, donation.getComponentType() == null ? null : donation.getComponentType().name());
+                setInteger(insert, 6, donation.getVolumeMl());
+                setDouble(insert, 7, donation.getHemoglobinLevel());
+                insert.setString(8, donation.getBloodPressure());
+                setInteger(insert, 9, donation.getPulseRate());
+                setDouble(insert, 10, donation.getTemperatureC());
+                insert.setString(11, donation.getStatus() == null ? null : donation.getStatus().name());
+                insert.setString(12, donation.getNotes());
+                insert.setString(13, donation.getCollectedBy());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        for (int i = 0; i < donations.size(); i++) {
+            donations.get(i).setId(ids[i]);
+        }
+    }
+
+    private static void rebuildStats(Connection connection, List<Donation> donations) throws SQLException {
+        Set<Long> donorIds = new HashSet<>();
+        for (Donation donation : donations) {
+            donorIds.add(donation.getDonor().getId());
+        }
+        if (donorIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement rebuild = connection.prepareStatement(DonorStatsDao.REBUILD_ONE)) {
+            for (Long donorId : donorIds) {
+                rebuild.setLong(1, donorId);
+                rebuild.addBatch();
+            }
+            rebuild.executeBatch();
+        }
+    }
+
+    /**
+     * Add imported donations to the totals of donors saved before. Returns
+     * each such donor's total and last donation date as they were, read
+     * under a row lock, for the audit trail.
+     */
+    private static Map<Donor, Map<String, String>> addDonations(Connection connection, List<Donor> newDonors,
+                                                               List<Donation> donations) throws SQLException {
+        Set<Donor> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+        inserted.addAll(newDonors);
+        Map<Long, Donor> donors = new HashMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        Map<Long, LocalDate> latest = new HashMap<>();
+        for (Donation donation : donations) {
+            if (inserted.contains(donation.getDonor())) {
+                continue;
+            }
+            Long donorId = donation.getDonor().getId();
+            donors.put(donorId, donation.getDonor());
+            counts.merge(donorId, 1, Integer::sum);
+            latest.merge(donorId, donation.getDonationDate(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        Map<Donor, Map<String, String>> before = new IdentityHashMap<>();
+        if (counts.isEmpty()) {
+            return before;
+        }
+        try (PreparedStatement lock = connection.prepareStatement(LOCK_TOTALS)) {
+            for (Long donorId : counts.keySet()) {
+                lock.setLong(1, donorId);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (rs.next()) {
+                        Date last = rs.getDate(1);
+                        Map<String, String> state = new LinkedHashMap<>();
+                        state.put("lastDonationDate", last == null ? null : String.valueOf(last.toLocalDate()));
+                        state.put("totalDonations", String.valueOf(rs.getInt(2)));
+                        before.put(donors.get(donorId), state);
+                    }
+                }
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(ADD_DONATIONS)) {
+            for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+                Date last = Date.valueOf(latest.get(entry.getKey()));
+                update.setInt(1, entry.getValue());
+                update.setDate(2, last);
+                update.setDate(3, last);
+                update.setLong(4, entry.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        return before;
+    }
+
+    /**
+     * Reserve n ids from a sequence in one round trip.
+     */
+    private static long[] nextIds(Connection connection, String sequence, int n) throws SQLException {
+        long[] ids = new long[n];
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT " + sequence + ".NEXTVAL FROM dual CONNECT BY LEVEL <= ?")) {
+            select.setInt(1, n);
+            try (ResultSet rs = select.executeQuery()) {
+                for (int i = 0; i < n && rs.next(); i++) {
+                    ids[i] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void setDate(PreparedStatement statement, int index, LocalDate value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.DATE);
+        } else {
+            statement.setDate(index, Date.valueOf(value));
+        }
+    }
+
+    private static void setDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NUMERIC);
+        } else {
+            statement.setDouble(index, value);
+        }
+    }
+
+    private static void setInteger(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NUMERIC);
+        } else {
+            statement.setInt(index, value);
+        }
+    }
 }
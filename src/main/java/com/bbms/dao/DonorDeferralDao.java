@@ -0,0 +1,58 @@
+package com.bbms.dao;
+
+import com.bbms.model.DonorDeferral;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class DonorDeferralDao extends AbstractDao<DonorDeferral, Long> {
+
+    public List<DonorDeferral> findActive() {
+        return executeQuery("FROM DonorDeferral WHERE status = 'ACTIVE' ORDER BY id");
+    }
+
+    public List<DonorDeferral> findByDonor(Long donorId) {
+        return executeQuery(
+                "FROM DonorDeferral WHERE donorId = :donorId ORDER BY startDate DESC, id DESC",
+                "donorId", donorId
+        );
+    }
+
+    /**
+     * Release every active deferral that ended on or before today in one
+     * statement.
+     */
+    public int releaseExpired(LocalDate today, LocalDateTime now) {
+        return inTransaction(session -> session.createMutationQuery(
+                "UPDATE DonorDeferral SET status = 'RELEASED', releasedAt = :now"
+                        + " WHERE status = 'ACTIVE' AND endDate IS NOT NULL AND endDate <= :today")
+                .setParameter("now", now)
+                .setParameter("today", today)
+                .executeUpdate());
+    }
+
+    /**
+     * Move every deferral of one donor to another, with an audit entry per
+     * deferral moved. Returns the number moved.
+     */
+    public int reassignDonor(Long fromDonorId, Long toDonorId) {
+        List<Long> moved = inTransaction(session -> {
+            List<Long> ids = session.createQuery("SELECT id FROM DonorDeferral WHERE donorId = :from", Long.class)
+                    .setParameter("from", fromDonorId)
+                    .getResultList();
+            if (!ids.isEmpty()) {
+                session.createMutationQuery("UPDATE DonorDeferral SET donorId = :to WHERE id IN (:ids)")
+                        .setParameter("to", toDonorId)
+                        .setParameterList("ids", ids)
+                        .executeUpdate();
+                auditBulkUpdate(session, ids, Map.of("donorId", String.valueOf(fromDonorId)),
+                        Map.of("donorId", String.valueOf(toDonorId)));
+            }
+            return ids;
+        });
+        wakeAuditWriter(!moved.isEmpty());
+        return moved.size();
+    }
+}
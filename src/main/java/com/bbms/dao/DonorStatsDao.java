@@ -0,0 +1,158 @@
+package com.bbms.dao;
+
+import com.bbms.model.DonorStats;
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class DonorStatsDao extends AbstractDao<DonorStats, Long> {
+
+    /**
+     * Recompute donor_stats rows from donations and deferrals, inserting
+     * rows for donors that have none. Completed donations only, as in
+     * {@link DonorStats#addDonation}; %s is the donor filter.
+     */
+    private static final String REBUILD =
+            "MERGE INTO donor_stats s USING ("
+                    + " SELECT d.id donor_id, NVL(x.donations, 0) donations, NVL(x.volume_ml, 0) volume_ml,"
+                    + " NVL(x.whole_blood, 0) whole_blood, NVL(x.plasma, 0) plasma,"
+                    + " NVL(x.platelets, 0) platelets, NVL(x.rbc, 0) rbc, NVL(x.wbc, 0) wbc,"
+                    + " x.first_donation_date, x.last_donation_date, x.last_hemoglobin, x.last_hemoglobin_date,"
+                    + " NVL(f.deferrals, 0) deferrals"
+                    + " FROM donors d"
+                    + " LEFT JOIN (SELECT donor_id, COUNT(*) donations, SUM(NVL(volume_ml, 0)) volume_ml,"
+                    + " COUNT(CASE WHEN NVL(component_type, 'WHOLE_BLOOD') = 'WHOLE_BLOOD' THEN 1 END) whole_blood,"
+                    + " COUNT(CASE WHEN component_type = 'PLASMA' THEN 1 END) plasma,"
+                    + " COUNT(CASE WHEN component_type = 'PLATELETS' THEN 1 END) platelets,"
+                    + " COUNT(CASE WHEN component_type = 'RBC' THEN 1 END) rbc,"
+                    + " COUNT(CASE WHEN component_type = 'WBC' THEN 1 END) wbc,"
+                    + " MIN(donation_date) first_donation_date, MAX(donation_date) last_donation_date,"
+                    + " MAX(hemoglobin_level) KEEP (DENSE_RANK LAST ORDER BY"
+                    + " NVL2(hemoglobin_level, 1, 0), donation_date, id) last_hemoglobin,"
+                    + " MAX(CASE WHEN hemoglobin_level IS NOT NULL THEN donation_date END) last_hemoglobin_date"
+                    + " FROM donations WHERE status = 'COMPLETED' GROUP BY donor_id) x ON x.donor_id = d.id"
+                    + " LEFT JOIN (SELECT donor_id, COUNT(*) deferrals FROM donor_deferrals"
+                    + " WHERE status <> 'REVOKED' GROUP BY donor_id) f ON f.donor_id = d.id"
+                    + " %s) r ON (s.donor_id = r.donor_id)"
+                    + " WHEN MATCHED THEN UPDATE SET s.donations = r.donations, s.volume_ml = r.volume_ml,"
+                    + " s.whole_blood = r.whole_blood, s.plasma = r.plasma, s.platelets = r.platelets,"
+                    + " s.rbc = r.rbc, s.wbc = r.wbc, s.first_donation_date = r.first_donation_date,"
+                    + " s.last_donation_date = r.last_donation_date, s.last_hemoglobin = r.last_hemoglobin,"
+                    + " s.last_hemoglobin_date = r.last_hemoglobin_date, s.deferrals = r.deferrals,"
+                    + " s.updated_at = SYSTIMESTAMP"
+                    + " WHEN NOT MATCHED THEN INSERT (donor_id, donations, volume_ml, whole_blood, plasma,"
+                    + " platelets, rbc, wbc, first_donation_date, last_donation_date, last_hemoglobin,"
+                    + " last_hemoglobin_date, deferrals, updated_at)"
+                    + " VALUES (r.donor_id, r.donations, r.volume_ml, r.whole_blood, r.plasma, r.platelets,"
+                    + " r.rbc, r.wbc, r.first_donation_date, r.last_donation_date, r.last_hemoglobin,"
+                    + " r.last_hemoglobin_date, r.deferrals, SYSTIMESTAMP)";
+
+    /**
+     * Rebuild statement for one donor, with the donor id as its only JDBC
+     * parameter; used by the bulk import.
+     */
+    static final String REBUILD_ONE = String.format(REBUILD, "WHERE d.id = ?");
+
+    private static final String REBUILD_DONOR = String.format(REBUILD, "WHERE d.id = :donorId");
+    private static final String REBUILD_ALL = String.format(REBUILD, "");
+
+    /**
+     * Insert an empty row unless the donor has one. A concurrent insert of
+     * the same row waits for the other transaction and is then skipped
+     * instead of failing on the primary key.
+     */
+    private static final String INSERT_IF_ABSENT =
+            "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(donor_stats (donor_id)) */"
+                    + " INTO donor_stats (donor_id, updated_at) VALUES (:donorId, SYSTIMESTAMP)";
+
+    /**
+     * The donor's row locked until the current transaction ends, created
+     * if the donor has none yet. Two first donations or deferrals of the
+     * same donor both insert-if-absent and then queue on the one row lock.
+     */
+    public DonorStats lock(Long donorId) {
+        return inTransaction(session -> {
+            DonorStats stats = session.find(DonorStats.class, donorId, LockModeType.PESSIMISTIC_WRITE);
+            if (stats == null) {
+                session.createNativeMutationQuery(INSERT_IF_ABSENT)
+                        .setParameter("donorId", donorId)
+                        .executeUpdate();
+                stats = session.find(DonorStats.class, donorId, LockModeType.PESSIMISTIC_WRITE);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Recompute one donor's row, in the caller's transaction if there is
+     * one, e.g. after merging donor records.
+     */
+    public void rebuild(Long donorId) {
+        inTransaction(session -> session.createNativeMutationQuery(REBUILD_DONOR)
+                .setParameter("donorId", donorId)
+                .executeUpdate());
+    }
+
+    /**
+     * Recompute every donor's row in one statement.
+     */
+    public void rebuildAll() {
+        inTransaction(session -> session.createNativeMutationQuery(REBUILD_ALL).executeUpdate());
+    }
+
+    /**
+     * Donors with the most completed donations.
+     */
+    public List<TopDonor> findTopDonors(int limit) {
+        return withSession(session -> session.createQuery(
+                "SELECT s.donorId, d.fullName, d.bloodGroup, s.donations, s.volumeMl"
+                        + " FROM DonorStats s JOIN Donor d ON d.id = s.donorId"
+                        + " WHERE s.donations > 0 ORDER BY s.donations DESC, s.volumeMl DESC", Object[].class)
+                .setMaxResults(limit)
+                .getResultList()).stream()
+                .map(row -> new TopDonor((Long) row[0], (String) row[1], (String) row[2],
+                        (Integer) row[3], (Long) row[4]))
+                .toList();
+    }
+
+    /**
+     * Totals over every donor's row.
+     */
+    public Totals totals() {
+        Object[] row = withSession(session -> session.createQuery(
+                "SELECT COUNT(CASE WHEN donations > 0 THEN 1 END), SUM(donations), SUM(volumeMl),"
+                        + " SUM(wholeBlood), SUM(plasma), SUM(platelets), SUM(rbc), SUM(wbc), SUM(deferrals)"
+                        + " FROM DonorStats", Object[].class)
+                .getSingleResult());
+        long[] values = new long[row.length];
+        for (int i = 0; i < row.length; i++) {
+            values[i] = row[i] == null ? 0 : ((Number) row[i]).longValue();
+        }
+        return new Totals(values[0], values[1], values[2], values[3], values[4], values[5], values[6],
+                values[7], values[8]);
+    }
+
+    /**
+     * Donors whose first donation falls in the range.
+     */
+    public long countFirstDonationsBetween(LocalDate from, LocalDate to) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM DonorStats WHERE firstDonationDate BETWEEN :from AND :to", Long.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getSingleResult());
+    }
+
+    public record TopDonor(Long donorId, String fullName, String bloodGroup, int donations, long volumeMl) {
+    }
+
+    /**
+     * Sums of the donor_stats rows.
+     *
+     * @param donors donors with at least one completed donation
+     */
+    public record Totals(long donors, long donations, long volumeMl, long wholeBlood, long plasma,
+                         long platelets, long rbc, long wbc, long deferrals) {
+    }
+}
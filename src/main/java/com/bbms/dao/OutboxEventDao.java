@@ -0,0 +1,139 @@
+package com.bbms.dao;
+
+import com.bbms.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.hibernate.LockOptions;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class OutboxEventDao extends AbstractDao<OutboxEvent, Long> {
+
+    private static final String CLAIMABLE =
+            "status = :pending OR (status = :inFlight AND claimedUntil <= :now)";
+
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    /**
+     * Up to limit claimable events, oldest first, locked for this
+     * transaction: pending ones and in-flight ones whose claim has lapsed.
+     * Fails fast with a lock exception if another dispatcher is claiming,
+     * which keeps delivery for each aggregate in order across workstations.
+     *
+     * Oracle cannot combine a row limit with FOR UPDATE and locks every row
+     * of the result when the cursor opens, so the batch ids are read first
+     * and only those rows are locked. The condition is checked again under
+     * the lock in case a row was claimed in between.
+     */
+    public List<OutboxEvent> lockClaimable(int limit, LocalDateTime now) {
+        return withSession(session -> {
+            List<Long> ids = session.createQuery("SELECT id FROM OutboxEvent WHERE " + CLAIMABLE + " ORDER BY id", Long.class)
+                    .setParameter("pending", OutboxEvent.Status.PENDING)
+                    .setParameter("inFlight", OutboxEvent.Status.IN_FLIGHT)
+                    .setParameter("now", now)
+                    .setMaxResults(limit)
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            return session.createQuery(
+                    "FROM OutboxEvent WHERE id IN (:ids) AND (" + CLAIMABLE + ") ORDER BY id", OutboxEvent.class)
+                    .setParameterList("ids", ids)
+                    .setParameter("pending", OutboxEvent.Status.PENDING)
+                    .setParameter("inFlight", OutboxEvent.Status.IN_FLIGHT)
+                    .setParameter("now", now)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint("jakarta.persistence.lock.timeout", LockOptions.NO_WAIT)
+                    .getResultList();
+        });
+    }
+
+    /**
+     * Delete up to limit delivered events processed before the cutoff, in
+     * the caller's transaction. Returns the number deleted.
+     */
+    public int deleteDone(LocalDateTime before, int limit) {
+        return inTransaction(session -> {
+            List<Long> ids = session.createQuery(
+                    "SELECT id FROM OutboxEvent WHERE status = :done AND processedAt < :before ORDER BY id", Long.class)
+                    .setParameter("done", OutboxEvent.Status.DONE)
+                    .setParameter("before", before)
+                    .setMaxResults(limit)
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            return session.createMutationQuery("DELETE FROM OutboxEvent WHERE id IN (:ids)")
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+        });
+    }
+
+    /**
+     * Aggregate keys with an event claimed by a dispatcher right now.
+     */
+    public Set<String> findClaimedAggregates(LocalDateTime now) {
+        List<Object[]> rows = withSession(session -> session.createQuery(
+                "SELECT DISTINCT aggregateType, aggregateId FROM OutboxEvent"
+                        + " WHERE status = :inFlight AND claimedUntil > :now", Object[].class)
+                .setParameter("inFlight", OutboxEvent.Status.IN_FLIGHT)
+                .setParameter("now", now)
+                .getResultList());
+        Set<String> keys = new HashSet<>();
+        for (Object[] row : rows) {
+            keys.add(OutboxEvent.aggregateKey((String) row[0], (Long) row[1]));
+        }
+        return keys;
+    }
+
+    /**
+     * Record the consumers that have handled an event, in the caller's
+     * transaction.
+     */
+    public void markDelivered(Long id, String deliveredTo) {
+        inTransaction(session -> session.createMutationQuery(
+                "UPDATE OutboxEvent SET deliveredTo = :deliveredTo WHERE id = :id")
+                .setParameter("deliveredTo", deliveredTo)
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    /**
+     * Write the dispatch outcome of a claimed event: its status, retry
+     * schedule and the consumers that have handled it.
+     */
+    public void saveOutcome(OutboxEvent event) {
+        inTransaction(session -> session.createMutationQuery(
+                "UPDATE OutboxEvent SET status = :status, attempts = :attempts, nextAttemptAt = :nextAttemptAt,"
+                        + " lastError = :lastError, claimedUntil = :claimedUntil, deliveredTo = :deliveredTo,"
+                        + " processedAt = :processedAt WHERE id = :id")
+                .setParameter("status", event.getStatus())
+                .setParameter("attempts", event.getAttempts())
+                .setParameter("nextAttemptAt", event.getNextAttemptAt())
+                .setParameter("lastError", event.getLastError())
+                .setParameter("claimedUntil", event.getClaimedUntil())
+                .setParameter("deliveredTo", event.getDeliveredTo())
+                .setParameter("processedAt", event.getProcessedAt())
+                .setParameter("id", event.getId())
+                .executeUpdate());
+    }
+
+    public List<OutboxEvent> findByStatus(OutboxEvent.Status status) {
+        return executeQuery(
+                "FROM OutboxEvent WHERE status = :status ORDER BY id",
+                "status", status
+        );
+    }
+
+    public long countByStatus(OutboxEvent.Status status) {
+        return withSession(session -> session.createQuery(
+                "SELECT COUNT(*) FROM OutboxEvent WHERE status = :status", Long.class)
+                .setParameter("status", status)
+                .getSingleResult());
+    }
+}
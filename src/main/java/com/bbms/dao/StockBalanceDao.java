@@ -0,0 +1,66 @@
+package com.bbms.dao;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.StockBalance;
+import jakarta.persistence.LockModeType;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+public class StockBalanceDao extends AbstractDao<StockBalance, Long> {
+
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    /**
+     * Single-row read of the current balance.
+     */
+    public Optional<StockBalance> find(String bloodGroup, BloodStock.ComponentType componentType) {
+        return executeSingleQuery(
+                "FROM StockBalance WHERE bloodGroup = :group AND componentType = :type",
+                "group", bloodGroup,
+                "type", componentType
+        );
+    }
+
+    /**
+     * Insert an empty balance unless the group and component has one. A
+     * concurrent insert of the same row waits for the other transaction and
+     * is then skipped instead of failing on the unique key.
+     */
+    private static final String INSERT_IF_ABSENT =
+            "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(stock_balances (blood_group, component_type)) */"
+                    + " INTO stock_balances (id, blood_group, component_type, on_hand, reserved, updated_at)"
+                    + " VALUES (stock_balances_seq.NEXTVAL, :group, :type, 0, 0, SYSTIMESTAMP)";
+
+    /**
+     * The balance row locked until the current transaction ends, created
+     * if this group and component has never had stock. Two first receipts
+     * of the same group and component both insert-if-absent and then queue
+     * on the one row lock.
+     */
+    public StockBalance lock(String bloodGroup, BloodStock.ComponentType componentType) {
+        return inTransaction(session -> {
+            StockBalance balance = lockRow(session, bloodGroup, componentType);
+            if (balance == null) {
+                session.createNativeMutationQuery(INSERT_IF_ABSENT)
+                        .setParameter("group", bloodGroup)
+                        .setParameter("type", componentType.name())
+                        .executeUpdate();
+                balance = lockRow(session, bloodGroup, componentType);
+            }
+            return balance;
+        });
+    }
+
+    private static StockBalance lockRow(Session session, String bloodGroup, BloodStock.ComponentType componentType) {
+        return session.createQuery(
+                "FROM StockBalance WHERE bloodGroup = :group AND componentType = :type", StockBalance.class)
+                .setParameter("group", bloodGroup)
+                .setParameter("type", componentType)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .uniqueResult();
+    }
+}
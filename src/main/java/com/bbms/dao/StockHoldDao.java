@@ -0,0 +1,75 @@
+package com.bbms.dao;
+
+import com.bbms.model.StockHold;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StockHoldDao extends AbstractDao<StockHold, Long> {
+
+    // Holds are short-lived and recreated on every crossmatch
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    public List<StockHold> findLive(LocalDateTime now) {
+        return executeQuery(
+                "FROM StockHold WHERE expiresAt > :now ORDER BY id",
+                "now", now
+        );
+    }
+
+    /**
+     * Units of a lot held by requests other than excludeRequestId.
+     */
+    public int sumHeld(Long stockId, Long excludeRequestId, LocalDateTime now) {
+        return withSession(session -> session.createQuery(
+                "SELECT COALESCE(SUM(units), 0) FROM StockHold"
+                        + " WHERE stockId = :stockId AND requestId <> :requestId AND expiresAt > :now", Long.class)
+                .setParameter("stockId", stockId)
+                .setParameter("requestId", excludeRequestId == null ? -1L : excludeRequestId)
+                .setParameter("now", now)
+                .getSingleResult()).intValue();
+    }
+
+    public int deleteHold(Long id) {
+        return inTransaction(session -> session.createMutationQuery(
+                "DELETE FROM StockHold WHERE id = :id")
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    public int deleteByRequest(Long requestId, Long stockId) {
+        return inTransaction(session -> session.createMutationQuery(
+                "DELETE FROM StockHold WHERE requestId = :requestId AND stockId = :stockId")
+                .setParameter("requestId", requestId)
+                .setParameter("stockId", stockId)
+                .executeUpdate());
+    }
+
+    public List<StockHold> findByRequest(Long requestId) {
+        return executeQuery(
+                "FROM StockHold WHERE requestId = :requestId ORDER BY id",
+                "requestId", requestId
+        );
+    }
+
+    public List<StockHold> findLapsed(Long stockId, LocalDateTime now) {
+        return executeQuery(
+                "FROM StockHold WHERE stockId = :stockId AND expiresAt <= :now ORDER BY id",
+                "stockId", stockId,
+                "now", now
+        );
+    }
+
+    /**
+     * Lots with at least one lapsed hold.
+     */
+    public List<Long> findLapsedLots(LocalDateTime now) {
+        return withSession(session -> session.createQuery(
+                "SELECT DISTINCT stockId FROM StockHold WHERE expiresAt <= :now", Long.class)
+                .setParameter("now", now)
+                .getResultList());
+    }
+}
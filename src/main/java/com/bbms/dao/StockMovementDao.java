@@ -0,0 +1,35 @@
+package com.bbms.dao;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.StockMovement;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StockMovementDao extends AbstractDao<StockMovement, Long> {
+
+    // The movement log is its own audit record (actor, time, reference)
+    @Override
+    protected boolean isAudited() {
+        return false;
+    }
+
+    public List<StockMovement> findByUnit(Long unitId) {
+        return executeQuery(
+                "FROM StockMovement WHERE unit.id = :unitId ORDER BY id",
+                "unitId", unitId
+        );
+    }
+
+    /**
+     * Movements of one group and component, oldest first, for replaying
+     * the balance. Returns the number read.
+     */
+    public long scanHistory(String bloodGroup, BloodStock.ComponentType componentType,
+                            Consumer<? super StockMovement> action) {
+        return scan("FROM StockMovement WHERE bloodGroup = :group AND componentType = :type ORDER BY id",
+                StockMovement.class, action,
+                "group", bloodGroup,
+                "type", componentType);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bbms.dao;
+
+import com.bbms.config.HibernateUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs several DAO calls in one database transaction.
+ *
+ * Inside {@link #inTransaction(Supplier)} every AbstractDao method on the
+ * same thread shares one session and transaction, so the work commits or
+ * rolls back as a whole. Nested calls join the outer transaction. Callbacks
+ * registered with {@link #afterCommit(Runnable)} run only once it commits.
+ */
+public final class Transactions {
+
+    private static final Logger logger = LogManager.getLogger(Transactions.class);
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private Transactions() {
+    }
+
+    public static <R> R inTransaction(Supplier<R> work) {
+        if (current.get() != null) {
+            return work.get();
+        }
+
+        Scope scope = new Scope(HibernateUtil.getSessionFactory().openSession());
+        current.set(scope);
+        R result;
+        Transaction tx = null;
+        try {
+            tx = scope.session.beginTransaction();
+            result = work.get();
+            tx.commit();
+        } catch (RuntimeException e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw e;
+        } finally {
+            current.remove();
+            scope.session.close();
+        }
+
+        for (Runnable callback : scope.afterCommit) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                logger.warn("After-commit callback failed", e);
+            }
+        }
+        return result;
+    }
+
+    public static void inTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Session of the transaction running on this thread, or null.
+     */
+    public static Session currentSession() {
+        Scope scope = current.get();
+        return scope == null ? null : scope.session;
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Run once the current transaction commits (dropped on rollback), or
+     * immediately when there is no transaction on this thread.
+     */
+    public static void afterCommit(Runnable callback) {
+        Scope scope = current.get();
+        if (scope == null) {
+            callback.run();
+        } else {
+            scope.afterCommit.add(callback);
+        }
+    }
+
+    private static final class Scope {
+        private final Session session;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        private Scope(Session session) {
+            this.session = session;
+        }
+    }
+}
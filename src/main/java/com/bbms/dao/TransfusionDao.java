@@ -32,4 +32,20 @@ public class TransfusionDao extends AbstractDao<Transfusion, Long> {
                 "FROM Transfusion ORDER BY transfusionDate DESC"
         ).stream().limit(limit).toList();
     }
+
+    /**
+     * Units transfused per day, blood group and component in [from, to]
+     * without a blood request behind them, as (date, group, component,
+     * units) rows.
+     */
+    public List<Object[]> sumUnrequestedUnitsByDay(LocalDate from, LocalDate to) {
+        return withSession(session -> session.createQuery(
+                "SELECT transfusionDate, bloodGroup, componentType, SUM(unitsTransfused) FROM Transfusion"
+                        + " WHERE bloodRequest IS NULL AND transfusionDate BETWEEN :from AND :to"
+                        + " GROUP BY transfusionDate, bloodGroup, componentType",
+                Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList());
+    }
 }
@@ -1,6 +1,9 @@
 package com.bbms.dao;
 
 import com.bbms.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 
 public class UserDao extends AbstractDao<User, Long> {
@@ -22,4 +25,29 @@ public class UserDao extends AbstractDao<User, Long> {
     public boolean existsByUsername(String username) {
         return findByUsername(username).isPresent();
     }
+
+    /**
+     * Stamp lastLogin for several users in one transaction without loading them.
+     */
+    public void updateLastLogins(Map<Long, LocalDateTime> lastLogins) {
+        inTransaction(session -> {
+            var update = session.createMutationQuery("UPDATE User SET lastLogin = :lastLogin WHERE id = :id");
+            for (Map.Entry<Long, LocalDateTime> entry : lastLogins.entrySet()) {
+                update.setParameter("lastLogin", entry.getValue())
+                        .setParameter("id", entry.getKey())
+                        .executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Replace a user's password hash without touching other columns.
+     */
+    public void updatePasswordHash(Long userId, String passwordHash) {
+        inTransaction(session -> session.createMutationQuery("UPDATE User SET passwordHash = :hash WHERE id = :id")
+                .setParameter("hash", passwordHash)
+                .setParameter("id", userId)
+                .executeUpdate());
+    }
 }
@@ -0,0 +1,92 @@
+package com.bbms.dedup;
+
+import com.bbms.model.Donor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The fields duplicate detection compares, normalized once per donor.
+ *
+ * @param birthDay epoch day of the date of birth, or Long.MIN_VALUE
+ */
+public record DonorProfile(long id,
+                           String name,
+                           String sortedName,
+                           String phoneKey,
+                           long birthDay,
+                           String bloodGroup,
+                           String email) {
+
+    static final long UNKNOWN_DAY = Long.MIN_VALUE;
+
+    /** Numbers shorter than this are too likely to be shared placeholders. */
+    private static final int MIN_PHONE_DIGITS = 7;
+    private static final int PHONE_KEY_DIGITS = 10;
+
+    public static DonorProfile of(Donor donor) {
+        return of(donor.getId(), donor.getFullName(), donor.getPhone(), donor.getDateOfBirth(),
+                donor.getBloodGroup(), donor.getEmail());
+    }
+
+    /**
+     * From the columns of a projection query; a null id (unsaved donor)
+     * becomes 0.
+     */
+    public static DonorProfile of(Long id, String fullName, String phone, LocalDate dateOfBirth,
+                                  String bloodGroup, String email) {
+        String name = NameSimilarity.normalize(fullName);
+        return new DonorProfile(
+                id == null ? 0 : id,
+                name,
+                NameSimilarity.sortWords(name),
+                phoneKey(phone),
+                dateOfBirth == null ? UNKNOWN_DAY : dateOfBirth.toEpochDay(),
+                bloodGroup,
+                email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * The last ten digits of a phone number, so "+1 (555) 010-0123" and
+     * "555.010.0123" share a key; null when there are too few digits. The
+     * donors_phone_key_trg trigger stores the same key in donors.phone_key.
+     */
+    public static String phoneKey(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() < MIN_PHONE_DIGITS) {
+            return null;
+        }
+        return digits.length() > PHONE_KEY_DIGITS ? digits.substring(digits.length() - PHONE_KEY_DIGITS)
+                : digits.toString();
+    }
+
+    public LocalDate dateOfBirth() {
+        return birthDay == UNKNOWN_DAY ? null : LocalDate.ofEpochDay(birthDay);
+    }
+
+    /**
+     * The blocks this donor is compared within: same phone, or same date of
+     * birth and blood group. Donors sharing no block are never compared.
+     */
+    List<String> blockingKeys() {
+        List<String> keys = new ArrayList<>(2);
+        if (phoneKey != null) {
+            keys.add("p:" + phoneKey);
+        }
+        if (birthDay != UNKNOWN_DAY && bloodGroup != null) {
+            keys.add("d:" + birthDay + ":" + bloodGroup);
+        }
+        return keys;
+    }
+}
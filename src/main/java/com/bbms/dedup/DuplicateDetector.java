@@ -0,0 +1,163 @@
+package com.bbms.dedup;
+
+import com.bbms.config.AppConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds donor records that describe the same person.
+ *
+ * Donors are only compared within a block sharing a normalized phone
+ * number or a date of birth and blood group, which keeps a full scan close
+ * to linear. A pair matches when it shares at least one identifier (phone,
+ * date of birth, e-mail) and the names are close: dedup.name.threshold for
+ * one shared identifier, the lower dedup.name.threshold.corroborated for
+ * two or more. A different blood group, or a different known date of
+ * birth, rules a pair out.
+ */
+public final class DuplicateDetector {
+
+    private static class Holder {
+        private static final DuplicateDetector INSTANCE = fromConfig(AppConfig.getInstance());
+    }
+
+    private final double nameThreshold;
+    private final double corroboratedThreshold;
+    private final int maxBlockSize;
+
+    public DuplicateDetector(double nameThreshold, double corroboratedThreshold, int maxBlockSize) {
+        this.nameThreshold = nameThreshold;
+        this.corroboratedThreshold = Math.min(nameThreshold, corroboratedThreshold);
+        this.maxBlockSize = Math.max(2, maxBlockSize);
+    }
+
+    /**
+     * The detector for the dedup.* settings in application.properties.
+     */
+    public static DuplicateDetector configured() {
+        return Holder.INSTANCE;
+    }
+
+    static DuplicateDetector fromConfig(AppConfig config) {
+        return new DuplicateDetector(
+                config.getDouble("dedup.name.threshold", 0.90),
+                config.getDouble("dedup.name.threshold.corroborated", 0.80),
+                config.getInt("dedup.max.block.size", 50));
+    }
+
+    /**
+     * The match of a with b, or null when they are not duplicates.
+     */
+    public DuplicateMatch match(DonorProfile a, DonorProfile b) {
+        if (a.id() == b.id() && a.id() != 0) {
+            return null;
+        }
+        if (a.bloodGroup() != null && b.bloodGroup() != null && !a.bloodGroup().equals(b.bloodGroup())) {
+            return null;
+        }
+        EnumSet<DuplicateMatch.Evidence> evidence = EnumSet.noneOf(DuplicateMatch.Evidence.class);
+        if (a.birthDay() != DonorProfile.UNKNOWN_DAY && b.birthDay() != DonorProfile.UNKNOWN_DAY) {
+            if (a.birthDay() != b.birthDay()) {
+                return null;
+            }
+            evidence.add(DuplicateMatch.Evidence.DATE_OF_BIRTH);
+        }
+        if (a.phoneKey() != null && a.phoneKey().equals(b.phoneKey())) {
+            evidence.add(DuplicateMatch.Evidence.PHONE);
+        }
+        if (a.email() != null && a.email().equals(b.email())) {
+            evidence.add(DuplicateMatch.Evidence.EMAIL);
+        }
+        if (evidence.isEmpty()) {
+            return null;
+        }
+
+        double threshold = evidence.size() > 1 ? corroboratedThreshold : nameThreshold;
+        double similarity = NameSimilarity.jaroWinkler(a.name(), b.name());
+        if (similarity < threshold) {
+            similarity = Math.max(similarity, NameSimilarity.jaroWinkler(a.sortedName(), b.sortedName()));
+        }
+        if (similarity < threshold) {
+            return null;
+        }
+        return new DuplicateMatch(a.id(), b.id(), similarity, evidence);
+    }
+
+    /**
+     * Matches for one donor among candidates, e.g. the rows sharing a block
+     * with a donor being saved. Strongest first.
+     */
+    public List<DuplicateMatch> matchesFor(DonorProfile profile, Collection<DonorProfile> candidates) {
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (DonorProfile candidate : candidates) {
+            DuplicateMatch match = match(profile, candidate);
+            if (match != null) {
+                matches.add(match);
+            }
+        }
+        matches.sort(DuplicateMatch.STRONGEST_FIRST);
+        return matches;
+    }
+
+    /**
+     * Compare every pair of donors sharing a block, block by block in
+     * parallel. Blocks above dedup.max.block.size (typically a placeholder
+     * phone number) are skipped and counted.
+     */
+    public Scan scan(List<DonorProfile> profiles) {
+        Map<String, List<DonorProfile>> blocks = profiles.parallelStream()
+                .flatMap(p -> p.blockingKeys().stream().map(key -> Map.entry(key, p)))
+                .collect(Collectors.groupingByConcurrent(Map.Entry::getKey,
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+
+        AtomicInteger skipped = new AtomicInteger();
+        LongAdder comparisons = new LongAdder();
+        List<DuplicateMatch> matches = blocks.values().parallelStream()
+                .filter(block -> block.size() > 1)
+                .filter(block -> {
+                    if (block.size() > maxBlockSize) {
+                        skipped.incrementAndGet();
+                        return false;
+                    }
+                    return true;
+                })
+                .flatMap(block -> {
+                    comparisons.add((long) block.size() * (block.size() - 1) / 2);
+                    return compareBlock(block);
+                })
+                .distinct()
+                .sorted(DuplicateMatch.STRONGEST_FIRST)
+                .toList();
+        return new Scan(matches, profiles.size(), comparisons.sum(), skipped.get());
+    }
+
+    private Stream<DuplicateMatch> compareBlock(List<DonorProfile> block) {
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (int i = 0; i < block.size(); i++) {
+            for (int j = i + 1; j < block.size(); j++) {
+                DuplicateMatch match = match(block.get(i), block.get(j));
+                if (match != null) {
+                    matches.add(match.donorId() <= match.otherId() ? match : match.swapped());
+                }
+            }
+        }
+        return matches.stream();
+    }
+
+    /**
+     * Result of a full scan.
+     *
+     * @param comparisons   pairs scored
+     * @param skippedBlocks blocks too large to compare
+     */
+    public record Scan(List<DuplicateMatch> matches, int donors, long comparisons, int skippedBlocks) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.bbms.dedup;
+
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Two donor records that probably describe the same person. In a scan,
+ * donorId is the lower id of the pair.
+ *
+ * @param nameSimilarity Jaro-Winkler similarity of the names
+ * @param evidence       identifiers both records share
+ */
+public record DuplicateMatch(long donorId, long otherId, double nameSimilarity, Set<Evidence> evidence) {
+
+    /** Most evidence first, then the closest names. */
+    public static final Comparator<DuplicateMatch> STRONGEST_FIRST =
+            Comparator.comparingInt((DuplicateMatch m) -> m.evidence().size()).reversed()
+                    .thenComparing(Comparator.comparingDouble(DuplicateMatch::nameSimilarity).reversed())
+                    .thenComparingLong(DuplicateMatch::donorId)
+                    .thenComparingLong(DuplicateMatch::otherId);
+
+    public DuplicateMatch {
+        evidence = Set.copyOf(evidence);
+    }
+
+    public DuplicateMatch swapped() {
+        return new DuplicateMatch(otherId, donorId, nameSimilarity, evidence);
+    }
+
+    public enum Evidence {
+        PHONE, DATE_OF_BIRTH, EMAIL
+    }
+}
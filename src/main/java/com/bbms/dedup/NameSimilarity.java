@@ -0,0 +1,115 @@
+package com.bbms.dedup;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Jaro-Winkler similarity of person names.
+ *
+ * Names are compared after normalization (accents and punctuation removed,
+ * lower case) both as written and with their words sorted, so "Mary Ann
+ * Smith" and "Smith, Mary-Ann" score as the same name.
+ */
+public final class NameSimilarity {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{L}]+");
+    private static final double PREFIX_SCALE = 0.1;
+    private static final int MAX_PREFIX = 4;
+
+    private NameSimilarity() {
+    }
+
+    /**
+     * Lower-case letters only, single spaces between words.
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return NON_LETTERS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * A normalized name with its words in alphabetical order.
+     */
+    public static String sortWords(String normalized) {
+        if (normalized.indexOf(' ') < 0) {
+            return normalized;
+        }
+        String[] words = normalized.split(" ");
+        Arrays.sort(words);
+        return String.join(" ", words);
+    }
+
+    /**
+     * Similarity of two raw names in [0, 1].
+     */
+    public static double similarity(String a, String b) {
+        String left = normalize(a);
+        String right = normalize(b);
+        return Math.max(jaroWinkler(left, right), jaroWinkler(sortWords(left), sortWords(right)));
+    }
+
+    /**
+     * Jaro-Winkler similarity in [0, 1]; 1 for equal strings, 0 when either
+     * is empty.
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return a.isEmpty() ? 0 : 1;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        double jaro = jaro(a, b);
+        int prefix = 0;
+        int limit = Math.min(MAX_PREFIX, Math.min(a.length(), b.length()));
+        while (prefix < limit && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * PREFIX_SCALE * (1 - jaro);
+    }
+
+    private static double jaro(String a, String b) {
+        if (a.length() > b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int window = Math.max(0, b.length() / 2 - 1);
+        boolean[] matchedB = new boolean[b.length()];
+        char[] matchesA = new char[a.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            char c = a.charAt(i);
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matchedB[j] && b.charAt(j) == c) {
+                    matchedB[j] = true;
+                    matchesA[matches++] = c;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        int k = 0;
+        for (int j = 0; j < b.length(); j++) {
+            if (matchedB[j]) {
+                if (b.charAt(j) != matchesA[k]) {
+                    transpositions++;
+                }
+                k++;
+            }
+        }
+        double m = matches;
+        return (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+    }
+}
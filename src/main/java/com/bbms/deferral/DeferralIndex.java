@@ -0,0 +1,176 @@
+package com.bbms.deferral;
+
+import com.bbms.model.DonorDeferral;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of active deferrals.
+ *
+ * Each donor's deferrals are merged into disjoint day intervals sorted by
+ * start, so "is this donor deferred on day X" is a hash lookup and a
+ * binary search. Temporary deferrals are also keyed by end day, which lets
+ * the nightly release take everything that has run out without scanning
+ * every donor. Reads go to immutable per-donor snapshots without locking;
+ * writes are serialized.
+ */
+public final class DeferralIndex {
+
+    private static final long PERMANENT = Long.MAX_VALUE;
+
+    private final Map<Long, Intervals> byDonor = new ConcurrentHashMap<>();
+    private final Map<Long, DonorDeferral> byId = new HashMap<>();
+    private final TreeMap<Long, Set<Long>> byEnd = new TreeMap<>();
+
+    /**
+     * Add or replace a deferral. One that is no longer active is removed.
+     */
+    public synchronized void put(DonorDeferral deferral) {
+        remove(deferral.getId());
+        if (deferral.getStatus() != DonorDeferral.DeferralStatus.ACTIVE) {
+            return;
+        }
+        byId.put(deferral.getId(), deferral);
+        if (deferral.getEndDate() != null) {
+            byEnd.computeIfAbsent(deferral.getEndDate().toEpochDay(), k -> new HashSet<>()).add(deferral.getId());
+        }
+        Intervals current = byDonor.get(deferral.getDonorId());
+        List<DonorDeferral> entries = current == null ? new ArrayList<>() : new ArrayList<>(current.entries);
+        entries.add(deferral);
+        byDonor.put(deferral.getDonorId(), Intervals.of(entries));
+    }
+
+    public synchronized boolean remove(Long deferralId) {
+        DonorDeferral removed = byId.remove(deferralId);
+        if (removed == null) {
+            return false;
+        }
+        if (removed.getEndDate() != null) {
+            long end = removed.getEndDate().toEpochDay();
+            Set<Long> ids = byEnd.get(end);
+            ids.remove(deferralId);
+            if (ids.isEmpty()) {
+                byEnd.remove(end);
+            }
+        }
+        Intervals current = byDonor.get(removed.getDonorId());
+        List<DonorDeferral> entries = new ArrayList<>(current.entries);
+        entries.removeIf(d -> d.getId().equals(deferralId));
+        if (entries.isEmpty()) {
+            byDonor.remove(removed.getDonorId());
+        } else {
+            byDonor.put(removed.getDonorId(), Intervals.of(entries));
+        }
+        return true;
+    }
+
+    /**
+     * Replace the whole index, e.g. with a fresh read of the table.
+     */
+    public synchronized void replaceAll(Collection<DonorDeferral> deferrals) {
+        byDonor.clear();
+        byId.clear();
+        byEnd.clear();
+        for (DonorDeferral deferral : deferrals) {
+            put(deferral);
+        }
+    }
+
+    /**
+     * Remove every temporary deferral that ended on or before today.
+     */
+    public synchronized List<DonorDeferral> releaseExpired(LocalDate today) {
+        List<DonorDeferral> released = new ArrayList<>();
+        SortedMap<Long, Set<Long>> expired = byEnd.headMap(today.toEpochDay(), true);
+        for (Set<Long> ids : List.copyOf(expired.values())) {
+            for (Long id : List.copyOf(ids)) {
+                released.add(byId.get(id));
+                remove(id);
+            }
+        }
+        return released;
+    }
+
+    public boolean isDeferred(long donorId, LocalDate day) {
+        return deferredUntil(donorId, day) != null;
+    }
+
+    /**
+     * The first day after the deferral covering the given day, LocalDate.MAX
+     * for a permanent deferral, or null when the donor is not deferred then.
+     * Back-to-back and overlapping deferrals count as one.
+     */
+    public LocalDate deferredUntil(long donorId, LocalDate day) {
+        Intervals intervals = byDonor.get(donorId);
+        if (intervals == null) {
+            return null;
+        }
+        long end = intervals.endCovering(day.toEpochDay());
+        if (end == Long.MIN_VALUE) {
+            return null;
+        }
+        return end == PERMANENT ? LocalDate.MAX : LocalDate.ofEpochDay(end);
+    }
+
+    /**
+     * The donor's active deferrals, earliest first.
+     */
+    public List<DonorDeferral> getDeferrals(long donorId) {
+        Intervals intervals = byDonor.get(donorId);
+        return intervals == null ? List.of() : intervals.entries;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * One donor's deferrals and their merged intervals: day starts[i] up to
+     * but not including ends[i].
+     */
+    private static final class Intervals {
+
+        private final List<DonorDeferral> entries;
+        private final long[] starts;
+        private final long[] ends;
+
+        private Intervals(List<DonorDeferral> entries, long[] starts, long[] ends) {
+            this.entries = entries;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        static Intervals of(List<DonorDeferral> entries) {
+            List<DonorDeferral> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparing(DonorDeferral::getStartDate).thenComparing(DonorDeferral::getId));
+            long[] starts = new long[sorted.size()];
+            long[] ends = new long[sorted.size()];
+            int n = 0;
+            for (DonorDeferral deferral : sorted) {
+                long start = deferral.getStartDate().toEpochDay();
+                long end = deferral.getEndDate() == null ? PERMANENT : deferral.getEndDate().toEpochDay();
+                if (n > 0 && start <= ends[n - 1]) {
+                    ends[n - 1] = Math.max(ends[n - 1], end);
+                } else {
+                    starts[n] = start;
+                    ends[n] = end;
+                    n++;
+                }
+            }
+            return new Intervals(List.copyOf(sorted), Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+        }
+
+        /**
+         * End of the interval covering day, or Long.MIN_VALUE.
+         */
+        long endCovering(long day) {
+            int i = Arrays.binarySearch(starts, day);
+            if (i < 0) {
+                i = -i - 2; // last start before day
+            }
+            return i >= 0 && day < ends[i] ? ends[i] : Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.bbms.deferral;
+
+import com.bbms.audit.AuditTrail;
+import com.bbms.config.AppConfig;
+import com.bbms.dao.DonorDeferralDao;
+import com.bbms.dao.Transactions;
+import com.bbms.eligibility.EligibilityPipeline;
+import com.bbms.eligibility.EligibilityPolicy;
+import com.bbms.event.EntityEvent;
+import com.bbms.event.EventBus;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.DonorDeferral;
+import com.bbms.stats.DonorStatsService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Records donor deferrals and answers "is this donor deferred on day X"
+ * from a {@link DeferralIndex} of the active ones.
+ *
+ * The index is loaded on first use and kept current from DonorDeferral
+ * events, with a full reload every deferral.reload.interval.minutes to
+ * pick up deferrals recorded on other workstations. Each night at
+ * deferral.release.hour, deferrals that have run out are released with a
+ * single update statement.
+ */
+public class DeferralService {
+
+    private static final Logger logger = LogManager.getLogger(DeferralService.class);
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer DEFER_TIMER = timer("defer");
+    private static final Timer GET_HISTORY_TIMER = timer("getHistory");
+    private static final Timer RELEASE_EXPIRED_TIMER = timer("releaseExpired");
+    private static final Timer RELOAD_TIMER = timer("reload");
+    private static final Timer REVOKE_TIMER = timer("revoke");
+
+    private static class Holder {
+        private static final DeferralService INSTANCE = new DeferralService();
+    }
+
+    private final DonorDeferralDao deferralDao;
+    private final DeferralIndex index = new DeferralIndex();
+    private final EligibilityPolicy policy;
+    private final DonorStatsService statsService;
+
+    private volatile boolean loaded;
+    private ScheduledExecutorService scheduler;
+
+    private DeferralService() {
+        this(new DonorDeferralDao(), DonorStatsService.getInstance(), EligibilityPipeline.configured().getPolicy());
+        MetricsRegistry.getInstance().gauge("deferrals.active", index::size);
+    }
+
+    /**
+     * A service with its own index, for tests; the application shares
+     * {@link #getInstance()}.
+     */
+    public DeferralService(DonorDeferralDao deferralDao, DonorStatsService statsService, EligibilityPolicy policy) {
+        this.deferralDao = deferralDao;
+        this.statsService = statsService;
+        this.policy = policy;
+        EventBus.getInstance().subscribe(DonorDeferral.class, this::onDeferralChanged);
+    }
+
+    public static DeferralService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Load the index now, release expired deferrals every night and reload
+     * periodically.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        AppConfig config = AppConfig.getInstance();
+        int hour = Math.floorMod(config.getInt("deferral.release.hour", 1), 24);
+        long reloadMinutes = Math.max(1, config.getLong("deferral.reload.interval.minutes", 10));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(hour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "deferral-release");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::reloadQuietly, 0, reloadMinutes, TimeUnit.MINUTES);
+        scheduler.scheduleAtFixedRate(this::releaseQuietly, Duration.between(now, next).toMinutes(),
+                TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        logger.info("Expired deferrals are released nightly at {}:00", hour);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Defer a donor for a condition from the eligibility policy, from start
+     * for the condition's deferral period, or permanently.
+     */
+    public DonorDeferral defer(Long donorId, String condition, LocalDate start, String notes) {
+        String code = EligibilityPolicy.normalizeCondition(condition);
+        if (policy.permanentDeferrals().contains(code)) {
+            return defer(donorId, code, start, null, notes);
+        }
+        Integer days = policy.temporaryDeferrals().get(code);
+        if (days == null) {
+            throw new IllegalArgumentException("Unknown deferral condition: " + condition);
+        }
+        return defer(donorId, code, start, start.plusDays(days), notes);
+    }
+
+    /**
+     * Condition codes the eligibility policy defers donors for, sorted, for
+     * screening forms.
+     */
+    public List<String> getDeferralConditions() {
+        return Stream.concat(policy.temporaryDeferrals().keySet().stream(), policy.permanentDeferrals().stream())
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Defer a donor from start up to but not including end; a null end
+     * defers permanently.
+     */
+    public DonorDeferral defer(Long donorId, String condition, LocalDate start, LocalDate end, String notes) {
+        if (end != null && !end.isAfter(start)) {
+            throw new IllegalArgumentException("Deferral must end after it starts");
+        }
+        return DEFER_TIMER.record(() -> {
+            DonorDeferral deferral = new DonorDeferral(donorId, EligibilityPolicy.normalizeCondition(condition),
+                    start, end, AuditTrail.getInstance().currentActor());
+            deferral.setNotes(notes);
+            DonorDeferral saved = Transactions.inTransaction(() -> {
+                DonorDeferral recorded = deferralDao.save(deferral);
+                statsService.recordDeferral(donorId, 1);
+                return recorded;
+            });
+            logger.info("Deferred donor {} for {} from {} {}", donorId, saved.getCondition(), start,
+                    end == null ? "permanently" : "until " + end);
+            return saved;
+        });
+    }
+
+    /**
+     * Lift a deferral recorded in error.
+     */
+    public void revoke(Long deferralId) {
+        REVOKE_TIMER.run(() -> deferralDao.findById(deferralId)
+                .filter(deferral -> deferral.getStatus() != DonorDeferral.DeferralStatus.REVOKED)
+                .ifPresent(deferral -> Transactions.inTransaction(() -> {
+                    deferral.setStatus(DonorDeferral.DeferralStatus.REVOKED);
+                    deferral.setReleasedAt(LocalDateTime.now());
+                    deferralDao.update(deferral);
+                    statsService.recordDeferral(deferral.getDonorId(), -1);
+                })));
+    }
+
+    /**
+     * Move a donor's deferrals to another donor record, joining the
+     * caller's transaction. The index is rebuilt once that commits.
+     */
+    public int transferDeferrals(Long fromDonorId, Long toDonorId) {
+        int moved = deferralDao.reassignDonor(fromDonorId, toDonorId);
+        Transactions.afterCommit(this::reloadQuietly);
+        return moved;
+    }
+
+    public boolean isDeferred(Long donorId, LocalDate day) {
+        return deferredUntil(donorId, day) != null;
+    }
+
+    /**
+     * See {@link DeferralIndex#deferredUntil}.
+     */
+    public LocalDate deferredUntil(Long donorId, LocalDate day) {
+        if (donorId == null) {
+            return null;
+        }
+        ensureLoaded();
+        return index.deferredUntil(donorId, day);
+    }
+
+    public List<DonorDeferral> getActiveDeferrals(Long donorId) {
+        ensureLoaded();
+        return index.getDeferrals(donorId);
+    }
+
+    /**
+     * Every deferral ever recorded for the donor, latest first.
+     */
+    public List<DonorDeferral> getHistory(Long donorId) {
+        return GET_HISTORY_TIMER.record(() -> deferralDao.findByDonor(donorId));
+    }
+
+    /**
+     * Release every deferral that has run out. Returns the number released.
+     */
+    public int releaseExpired() {
+        return RELEASE_EXPIRED_TIMER.record(() -> {
+            LocalDate today = LocalDate.now();
+            int released = deferralDao.releaseExpired(today, LocalDateTime.now());
+            index.releaseExpired(today);
+            if (released > 0) {
+                logger.info("Released {} expired deferral(s)", released);
+            }
+            return released;
+        });
+    }
+
+    /**
+     * Rebuild the index from the active rows.
+     */
+    public void reload() {
+        RELOAD_TIMER.run(() -> {
+            index.replaceAll(deferralDao.findActive());
+            loaded = true;
+        });
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void onDeferralChanged(EntityEvent<DonorDeferral> event) {
+        if (event.type() == EntityEvent.Type.DELETED) {
+            index.remove((Long) event.id());
+        } else if (event.entity() != null) {
+            index.put(event.entity());
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.warn("Deferral reload failed", e);
+        }
+    }
+
+    private void releaseQuietly() {
+        try {
+            releaseExpired();
+        } catch (Exception e) {
+            logger.warn("Deferral release failed", e);
+        }
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.DeferralService." + method);
+    }
+}
@@ -0,0 +1,108 @@
+package com.bbms.eligibility;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.Donor;
+
+import java.time.LocalDate;
+
+/**
+ * The facts one eligibility check reads, held as primitives so a single
+ * instance can be refilled for every donor in a batch. Unknown values
+ * (no birth date, weight or hemoglobin reading) are not checked.
+ */
+public final class Candidate {
+
+    static final long UNKNOWN_DAY = Long.MIN_VALUE;
+    static final long PERMANENT_DAY = LocalDate.MAX.toEpochDay();
+
+    long birthDay = UNKNOWN_DAY;
+    double weightKg = Double.NaN;
+    boolean female;
+    double hemoglobin = Double.NaN;
+    long lastDonationDay = UNKNOWN_DAY;
+    BloodStock.ComponentType donationType = BloodStock.ComponentType.WHOLE_BLOOD;
+    long conditions;
+    long deferredUntilDay = UNKNOWN_DAY;
+    boolean flaggedIneligible;
+
+    /**
+     * Clear every fact, ready for the next candidate.
+     */
+    public Candidate reset() {
+        birthDay = UNKNOWN_DAY;
+        weightKg = Double.NaN;
+        female = false;
+        hemoglobin = Double.NaN;
+        lastDonationDay = UNKNOWN_DAY;
+        donationType = BloodStock.ComponentType.WHOLE_BLOOD;
+        conditions = 0;
+        deferredUntilDay = UNKNOWN_DAY;
+        flaggedIneligible = false;
+        return this;
+    }
+
+    /**
+     * Refill from a donor record for a whole blood donation.
+     */
+    public Candidate load(Donor donor) {
+        reset();
+        birthDate(donor.getDateOfBirth());
+        weightKg(donor.getWeightKg());
+        female = donor.getGender() == Donor.Gender.FEMALE;
+        lastDonation(donor.getLastDonationDate());
+        flaggedIneligible = Boolean.FALSE.equals(donor.getIsEligible());
+        return this;
+    }
+
+    public Candidate birthDate(LocalDate birthDate) {
+        this.birthDay = birthDate == null ? UNKNOWN_DAY : birthDate.toEpochDay();
+        return this;
+    }
+
+    public Candidate weightKg(Double weightKg) {
+        this.weightKg = weightKg == null ? Double.NaN : weightKg;
+        return this;
+    }
+
+    public Candidate female(boolean female) {
+        this.female = female;
+        return this;
+    }
+
+    public Candidate hemoglobin(Double hemoglobin) {
+        this.hemoglobin = hemoglobin == null ? Double.NaN : hemoglobin;
+        return this;
+    }
+
+    public Candidate lastDonation(LocalDate lastDonation) {
+        this.lastDonationDay = lastDonation == null ? UNKNOWN_DAY : lastDonation.toEpochDay();
+        return this;
+    }
+
+    public Candidate donationType(BloodStock.ComponentType donationType) {
+        this.donationType = donationType == null ? BloodStock.ComponentType.WHOLE_BLOOD : donationType;
+        return this;
+    }
+
+    /**
+     * Current conditions, as returned by {@link EligibilityPipeline#conditionMask}.
+     */
+    public Candidate conditions(long conditionMask) {
+        this.conditions = conditionMask;
+        return this;
+    }
+
+    /**
+     * End of a recorded deferral covering today, as returned by
+     * DeferralService.deferredUntil; LocalDate.MAX when permanent.
+     */
+    public Candidate deferredUntil(LocalDate deferredUntil) {
+        this.deferredUntilDay = deferredUntil == null ? UNKNOWN_DAY : deferredUntil.toEpochDay();
+        return this;
+    }
+
+    public Candidate flaggedIneligible(boolean flaggedIneligible) {
+        this.flaggedIneligible = flaggedIneligible;
+        return this;
+    }
+}
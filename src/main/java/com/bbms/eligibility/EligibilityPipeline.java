@@ -0,0 +1,324 @@
+package com.bbms.eligibility;
+
+import com.bbms.config.AppConfig;
+import com.bbms.model.BloodStock;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Donor eligibility rules compiled from an {@link EligibilityPolicy} into
+ * a flat array of checks.
+ *
+ * Conditions are resolved to bits once, so deferral checks are mask tests
+ * rather than map lookups. The checks for a given day are bound into a
+ * {@link Screen}: age, interval and deferral limits become epoch-day
+ * cutoffs, and {@link Screen#isEligible} runs them without allocating.
+ * Checks that defer permanently run first, then the temporary ones, so the
+ * fast path fails early for the donors it can never accept. Reasons are
+ * only built by {@link Screen#evaluate}.
+ */
+public final class EligibilityPipeline {
+
+    private static class Holder {
+        private static final EligibilityPipeline INSTANCE =
+                compile(EligibilityPolicy.fromConfig(AppConfig.getInstance()));
+    }
+
+    private final EligibilityPolicy policy;
+    private final Map<String, Integer> conditionBits = new HashMap<>();
+    private final String[] conditionNames;
+    private final int[] deferralDays;
+    private final long temporaryMask;
+    private final long permanentMask;
+    private final int[] intervalDays = new int[BloodStock.ComponentType.values().length];
+
+    private volatile Screen screen;
+
+    private EligibilityPipeline(EligibilityPolicy policy) {
+        this.policy = policy;
+        List<String> names = new ArrayList<>();
+        List<Integer> days = new ArrayList<>();
+        long temporary = 0;
+        long permanent = 0;
+        for (String condition : policy.permanentDeferrals()) {
+            String normalized = EligibilityPolicy.normalizeCondition(condition);
+            if (!conditionBits.containsKey(normalized)) {
+                permanent |= 1L << bit(normalized, names, days, 0);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : policy.temporaryDeferrals().entrySet()) {
+            String condition = EligibilityPolicy.normalizeCondition(entry.getKey());
+            if (!conditionBits.containsKey(condition) && entry.getValue() > 0) {
+                temporary |= 1L << bit(condition, names, days, entry.getValue());
+            }
+        }
+        this.conditionNames = names.toArray(new String[0]);
+        this.deferralDays = days.stream().mapToInt(Integer::intValue).toArray();
+        this.temporaryMask = temporary;
+        this.permanentMask = permanent;
+
+        for (BloodStock.ComponentType type : BloodStock.ComponentType.values()) {
+            intervalDays[type.ordinal()] = Math.max(0, switch (type) {
+                case PLATELETS -> policy.plateletIntervalDays();
+                case PLASMA -> policy.plasmaIntervalDays();
+                default -> policy.wholeBloodIntervalDays();
+            });
+        }
+    }
+
+    public static EligibilityPipeline compile(EligibilityPolicy policy) {
+        return new EligibilityPipeline(policy);
+    }
+
+    /**
+     * The pipeline for the donor.* settings in application.properties.
+     */
+    public static EligibilityPipeline configured() {
+        return Holder.INSTANCE;
+    }
+
+    public EligibilityPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Resolve condition names to the mask a {@link Candidate} carries.
+     * Conditions that defer no one are ignored.
+     */
+    public long conditionMask(Collection<String> conditions) {
+        long mask = 0;
+        if (conditions != null) {
+            for (String condition : conditions) {
+                Integer bit = conditionBits.get(EligibilityPolicy.normalizeCondition(condition));
+                if (bit != null) {
+                    mask |= 1L << bit;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * The checks bound to a day. The last screen is reused while the day
+     * stays the same.
+     */
+    public Screen on(LocalDate today) {
+        Screen current = screen;
+        if (current == null || current.todayDay != today.toEpochDay()) {
+            screen = current = new Screen(today);
+        }
+        return current;
+    }
+
+    private int bit(String condition, List<String> names, List<Integer> days, int deferral) {
+        int bit = names.size();
+        if (bit == Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " deferral conditions are supported");
+        }
+        names.add(condition);
+        days.add(deferral);
+        conditionBits.put(condition, bit);
+        return bit;
+    }
+
+    @FunctionalInterface
+    private interface Test {
+        boolean passes(Candidate c);
+    }
+
+    @FunctionalInterface
+    private interface Explain {
+        /**
+         * Add the reasons the candidate fails and return the first day the
+         * failure no longer applies, or null when there is none.
+         */
+        LocalDate explain(Candidate c, List<String> reasons);
+    }
+
+    /**
+     * Eligibility checks for one day. Immutable and safe to share; use one
+     * {@link Candidate} per thread.
+     */
+    public final class Screen {
+
+        private final LocalDate today;
+        private final long todayDay;
+        private final Test[] tests;
+        private final Explain[] explanations;
+        private final int permanentChecks;
+
+        private Screen(LocalDate today) {
+            this.today = today;
+            this.todayDay = today.toEpochDay();
+            List<Test> tests = new ArrayList<>();
+            List<Explain> explanations = new ArrayList<>();
+
+            // Permanent
+            tests.add(c -> !c.flaggedIneligible);
+            explanations.add((c, reasons) -> {
+                reasons.add("Donor is marked as ineligible");
+                return null;
+            });
+            tests.add(c -> c.deferredUntilDay != Candidate.PERMANENT_DAY);
+            explanations.add((c, reasons) -> {
+                reasons.add("Permanently deferred (see deferral history)");
+                return null;
+            });
+            if (policy.maxAge() > 0) {
+                long oldestBirthDay = today.minusYears(policy.maxAge() + 1L).toEpochDay();
+                tests.add(c -> c.birthDay == Candidate.UNKNOWN_DAY || c.birthDay > oldestBirthDay);
+                explanations.add((c, reasons) -> {
+                    reasons.add("Maximum donation age is " + policy.maxAge() + " years (current age: " + age(c) + ")");
+                    return null;
+                });
+            }
+            if (permanentMask != 0) {
+                tests.add(c -> (c.conditions & permanentMask) == 0);
+                explanations.add((c, reasons) -> {
+                    int bit = Long.numberOfTrailingZeros(c.conditions & permanentMask);
+                    reasons.add("Permanent deferral due to: " + conditionNames[bit]);
+                    return null;
+                });
+            }
+            this.permanentChecks = tests.size();
+
+            // Temporary
+            if (policy.minAge() > 0) {
+                long youngestBirthDay = today.minusYears(policy.minAge()).toEpochDay();
+                tests.add(c -> c.birthDay == Candidate.UNKNOWN_DAY || c.birthDay <= youngestBirthDay);
+                explanations.add((c, reasons) -> {
+                    reasons.add("Must be at least " + policy.minAge() + " years old (current age: " + age(c) + ")");
+                    return LocalDate.ofEpochDay(c.birthDay).plusYears(policy.minAge());
+                });
+            }
+            long[] latestDonationDay = new long[intervalDays.length];
+            for (int i = 0; i < intervalDays.length; i++) {
+                latestDonationDay[i] = todayDay - intervalDays[i];
+            }
+            tests.add(c -> c.lastDonationDay == Candidate.UNKNOWN_DAY
+                    || c.lastDonationDay <= latestDonationDay[c.donationType.ordinal()]);
+            explanations.add((c, reasons) -> {
+                long wait = c.lastDonationDay + intervalDays[c.donationType.ordinal()] - todayDay;
+                reasons.add("Must wait " + wait + " more days since last "
+                        + c.donationType.name().toLowerCase(Locale.ROOT) + " donation");
+                return today.plusDays(wait);
+            });
+            tests.add(c -> c.deferredUntilDay <= todayDay);
+            explanations.add((c, reasons) -> {
+                LocalDate until = LocalDate.ofEpochDay(c.deferredUntilDay);
+                reasons.add("Deferred until " + until);
+                return until;
+            });
+            if (temporaryMask != 0) {
+                tests.add(c -> (c.conditions & temporaryMask) == 0);
+                explanations.add((c, reasons) -> {
+                    int longest = 0;
+                    for (long bits = c.conditions & temporaryMask; bits != 0; bits &= bits - 1) {
+                        int bit = Long.numberOfTrailingZeros(bits);
+                        reasons.add("Temporary deferral (" + deferralDays[bit] + " days) due to: " + conditionNames[bit]);
+                        longest = Math.max(longest, deferralDays[bit]);
+                    }
+                    return today.plusDays(longest);
+                });
+            }
+            if (policy.minWeightKg() > 0) {
+                double minWeight = policy.minWeightKg();
+                tests.add(c -> !(c.weightKg < minWeight));
+                explanations.add((c, reasons) -> {
+                    reasons.add(String.format("Minimum weight is %.1f kg (current: %.1f kg)", minWeight, c.weightKg));
+                    return null;
+                });
+            }
+            if (policy.minHemoglobinMale() > 0 || policy.minHemoglobinFemale() > 0) {
+                double male = policy.minHemoglobinMale();
+                double female = policy.minHemoglobinFemale();
+                tests.add(c -> !(c.hemoglobin < (c.female ? female : male)));
+                explanations.add((c, reasons) -> {
+                    reasons.add(String.format("Hemoglobin too low: %.1f g/dL (minimum: %.1f g/dL)",
+                            c.hemoglobin, c.female ? female : male));
+                    return null;
+                });
+            }
+
+            this.tests = tests.toArray(new Test[0]);
+            this.explanations = explanations.toArray(new Explain[0]);
+        }
+
+        public LocalDate getDay() {
+            return today;
+        }
+
+        /**
+         * Whether the candidate may donate today. Allocation-free.
+         */
+        public boolean isEligible(Candidate c) {
+            for (Test test : tests) {
+                if (!test.passes(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The full verdict with reasons. A permanent deferral is reported on
+         * its own, with no next eligible date.
+         */
+        public Verdict evaluate(Candidate c) {
+            List<String> reasons = new ArrayList<>();
+            LocalDate next = null;
+            for (int i = 0; i < tests.length; i++) {
+                if (tests[i].passes(c)) {
+                    continue;
+                }
+                LocalDate until = explanations[i].explain(c, reasons);
+                if (i < permanentChecks) {
+                    return new Verdict(false, List.copyOf(reasons), null);
+                }
+                if (until != null && (next == null || until.isAfter(next))) {
+                    next = until;
+                }
+            }
+            return reasons.isEmpty() ? Verdict.ELIGIBLE : new Verdict(false, List.copyOf(reasons), next);
+        }
+
+        /**
+         * Screen a batch, refilling one candidate per item. Bit i of the
+         * result is set when items[i] is eligible.
+         */
+        public <T> BitSet eligible(List<T> items, BiConsumer<? super T, Candidate> loader) {
+            BitSet eligible = new BitSet(items.size());
+            Candidate candidate = new Candidate();
+            int i = 0;
+            for (T item : items) {
+                loader.accept(item, candidate.reset());
+                if (isEligible(candidate)) {
+                    eligible.set(i);
+                }
+                i++;
+            }
+            return eligible;
+        }
+
+        private int age(Candidate c) {
+            return Period.between(LocalDate.ofEpochDay(c.birthDay), today).getYears();
+        }
+    }
+
+    /**
+     * nextEligibleDate is null when the candidate is eligible, deferred
+     * permanently, or only fails a measurement such as weight.
+     */
+    public record Verdict(boolean eligible, List<String> reasons, LocalDate nextEligibleDate) {
+        static final Verdict ELIGIBLE = new Verdict(true, List.of(), null);
+    }
+}
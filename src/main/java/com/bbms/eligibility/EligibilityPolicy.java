@@ -0,0 +1,114 @@
+package com.bbms.eligibility;
+
+import com.bbms.config.AppConfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The limits an {@link EligibilityPipeline} is compiled from. A limit of
+ * zero or less turns its rule off.
+ */
+public record EligibilityPolicy(int minAge,
+                                int maxAge,
+                                double minWeightKg,
+                                double minHemoglobinMale,
+                                double minHemoglobinFemale,
+                                int wholeBloodIntervalDays,
+                                int plateletIntervalDays,
+                                int plasmaIntervalDays,
+                                Map<String, Integer> temporaryDeferrals,
+                                Set<String> permanentDeferrals) {
+
+    /** Temporary deferral conditions and their deferral in days. */
+    public static final Map<String, Integer> DEFAULT_TEMPORARY_DEFERRALS;
+    static {
+        Map<String, Integer> deferrals = new LinkedHashMap<>();
+        deferrals.put("cold_flu", 7);
+        deferrals.put("fever", 14);
+        deferrals.put("antibiotics", 14);
+        deferrals.put("dental_procedure", 3);
+        deferrals.put("tattoo_piercing", 90);
+        deferrals.put("vaccination", 14);
+        deferrals.put("minor_surgery", 90);
+        deferrals.put("major_surgery", 180);
+        deferrals.put("pregnancy", 180);
+        deferrals.put("blood_transfusion", 365);
+        DEFAULT_TEMPORARY_DEFERRALS = Collections.unmodifiableMap(deferrals);
+    }
+
+    /** Conditions that defer a donor permanently. */
+    public static final Set<String> DEFAULT_PERMANENT_DEFERRALS = Set.of(
+            "hiv_positive",
+            "hepatitis_b",
+            "hepatitis_c",
+            "heart_disease",
+            "cancer_active",
+            "bleeding_disorder",
+            "organ_transplant"
+    );
+
+    public EligibilityPolicy {
+        temporaryDeferrals = Collections.unmodifiableMap(new LinkedHashMap<>(temporaryDeferrals));
+        permanentDeferrals = Collections.unmodifiableSet(new LinkedHashSet<>(permanentDeferrals));
+    }
+
+    /**
+     * The policy configured under donor.* in application.properties.
+     * Deferral lists are donor.deferrals.temporary (condition:days pairs)
+     * and donor.deferrals.permanent, both comma separated.
+     */
+    public static EligibilityPolicy fromConfig(AppConfig config) {
+        String temporary = config.getString("donor.deferrals.temporary", null);
+        String permanent = config.getString("donor.deferrals.permanent", null);
+        return new EligibilityPolicy(
+                config.getInt("donor.min.age", 18),
+                config.getInt("donor.max.age", 65),
+                config.getDouble("donor.min.weight.kg", 50.0),
+                config.getDouble("donor.min.hemoglobin.male", 13.0),
+                config.getDouble("donor.min.hemoglobin.female", 12.5),
+                config.getInt("donor.donation.interval.days", 90),
+                config.getInt("donor.platelet.interval.days", 7),
+                config.getInt("donor.plasma.interval.days", 28),
+                temporary == null ? DEFAULT_TEMPORARY_DEFERRALS : parseTemporary(temporary),
+                permanent == null ? DEFAULT_PERMANENT_DEFERRALS : parsePermanent(permanent));
+    }
+
+    /**
+     * Condition names are matched case-insensitively with spaces read as
+     * underscores.
+     */
+    public static String normalizeCondition(String condition) {
+        return condition.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    private static Map<String, Integer> parseTemporary(String value) {
+        Map<String, Integer> deferrals = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected condition:days in donor.deferrals.temporary, got " + entry);
+            }
+            deferrals.put(normalizeCondition(entry.substring(0, colon)),
+                    Integer.parseInt(entry.substring(colon + 1).trim()));
+        }
+        return deferrals;
+    }
+
+    private static Set<String> parsePermanent(String value) {
+        Set<String> deferrals = new LinkedHashSet<>();
+        for (String entry : value.split(",")) {
+            if (!entry.isBlank()) {
+                deferrals.add(normalizeCondition(entry));
+            }
+        }
+        return deferrals;
+    }
+}
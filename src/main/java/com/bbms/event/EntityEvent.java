@@ -0,0 +1,10 @@
+package com.bbms.event;
+
+/**
+ * An entity was created, updated or deleted. Published after the
+ * transaction commits, so subscribers only ever see durable changes.
+ */
+public record EntityEvent<T>(Type type, Class<T> entityType, Object id, T entity) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+}
@@ -0,0 +1,63 @@
+package com.bbms.event;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe for entity changes.
+ *
+ * Subscribers run synchronously on the publishing thread, so they must be
+ * quick; UI subscribers hand off to the FX thread. A failing subscriber is
+ * logged and does not affect the publisher or other subscribers.
+ */
+public class EventBus {
+
+    private static final Logger logger = LogManager.getLogger(EventBus.class);
+    private static final EventBus INSTANCE = new EventBus();
+
+    private final ConcurrentMap<Class<?>, List<Consumer<? super EntityEvent<?>>>> subscribers =
+            new ConcurrentHashMap<>();
+
+    public static EventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Receive every event for entityType. Close the returned subscription
+     * when the subscriber goes away.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Subscription subscribe(Class<T> entityType, Consumer<EntityEvent<T>> subscriber) {
+        Consumer<? super EntityEvent<?>> erased = event -> subscriber.accept((EntityEvent<T>) event);
+        List<Consumer<? super EntityEvent<?>>> list =
+                subscribers.computeIfAbsent(entityType, k -> new CopyOnWriteArrayList<>());
+        list.add(erased);
+        return () -> list.remove(erased);
+    }
+
+    public <T> void publish(EntityEvent<T> event) {
+        List<Consumer<? super EntityEvent<?>>> list = subscribers.get(event.entityType());
+        if (list == null) {
+            return;
+        }
+        for (Consumer<? super EntityEvent<?>> subscriber : list) {
+            try {
+                subscriber.accept(event);
+            } catch (Exception e) {
+                logger.warn("Event subscriber failed for {} {}", event.type(), event.entityType().getSimpleName(), e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
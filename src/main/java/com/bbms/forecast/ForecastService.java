@@ -0,0 +1,275 @@
+package com.bbms.forecast;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.BloodRequestDao;
+import com.bbms.dao.DemandModelDao;
+import com.bbms.dao.Transactions;
+import com.bbms.dao.TransfusionDao;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.BloodStock;
+import com.bbms.model.DemandModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily demand forecasts per blood group and component, and the low-stock
+ * thresholds derived from them.
+ *
+ * Demand is the units requested each day (cancelled requests excluded)
+ * plus units transfused without a request. Each series has a
+ * {@link SeasonalSmoother} whose state is stored in demand_models, so
+ * training only reads the days since the last run: one grouped query per
+ * source over that range, then a few arithmetic steps per day and series.
+ * The first run reaches back forecast.history.days.
+ *
+ * A series' low-stock threshold is the forecast demand over the resupply
+ * lead time plus a safety margin of forecast.service.z standard errors.
+ * Until a series has forecast.min.history.days of history the configured
+ * stock.low.threshold.default is used instead.
+ */
+public class ForecastService {
+
+    private static final Logger logger = LogManager.getLogger(ForecastService.class);
+
+    // Resolved once so calls do no registry lookups
+    private static final Timer TRAIN_TIMER = timer("train");
+
+    private static class Holder {
+        private static final ForecastService INSTANCE = new ForecastService();
+    }
+
+    private final DemandModelDao demandModelDao;
+    private final BloodRequestDao bloodRequestDao;
+    private final TransfusionDao transfusionDao;
+
+    private final double alpha;
+    private final double gamma;
+    private final double beta;
+    private final int horizonDays;
+    private final int historyDays;
+    private final int minHistoryDays;
+    private final int leadTimeDays;
+    private final double serviceZ;
+    private final int defaultThreshold;
+
+    private volatile Map<String, SeasonalSmoother> models;
+    private ScheduledExecutorService scheduler;
+
+    private ForecastService() {
+        this(new DemandModelDao(), new BloodRequestDao(), new TransfusionDao());
+    }
+
+    /**
+     * A service with its own models, for tests and benchmarks; the
+     * application shares {@link #getInstance()}.
+     */
+    public ForecastService(DemandModelDao demandModelDao, BloodRequestDao bloodRequestDao,
+                           TransfusionDao transfusionDao) {
+        AppConfig config = AppConfig.getInstance();
+        this.demandModelDao = demandModelDao;
+        this.bloodRequestDao = bloodRequestDao;
+        this.transfusionDao = transfusionDao;
+        this.alpha = config.getDouble("forecast.alpha", 0.2);
+        this.gamma = config.getDouble("forecast.gamma", 0.1);
+        this.beta = config.getDouble("forecast.error.beta", 0.1);
+        this.horizonDays = Math.max(1, config.getInt("forecast.horizon.days", 14));
+        this.historyDays = Math.max(7, config.getInt("forecast.history.days", 365));
+        this.minHistoryDays = Math.max(7, config.getInt("forecast.min.history.days", 28));
+        this.leadTimeDays = Math.max(1, config.getInt("forecast.lead.time.days", 3));
+        this.serviceZ = config.getDouble("forecast.service.z", 1.65);
+        this.defaultThreshold = Math.max(1, config.getInt("stock.low.threshold.default", 5));
+    }
+
+    public static ForecastService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Catch up on missed days now, then train every night at
+     * forecast.train.hour.
+     */
+    public synchronized void start() {
+        AppConfig config = AppConfig.getInstance();
+        if (scheduler != null || !config.getBoolean("forecast.enabled", true)) {
+            return;
+        }
+        int hour = Math.floorMod(config.getInt("forecast.train.hour", 2), 24);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(hour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "forecast-trainer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(this::trainQuietly);
+        scheduler.scheduleAtFixedRate(this::trainQuietly, Duration.between(now, next).toMinutes(),
+                TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        logger.info("Demand forecasts train nightly at {}:00", hour);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Fold every complete day since the last run into the models. Returns
+     * the number of days applied across all series.
+     */
+    public int train() {
+        return TRAIN_TIMER.record(this::doTrain);
+    }
+
+    private int doTrain() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Map<String, SeasonalSmoother> trained = new HashMap<>();
+        int applied = Transactions.inTransaction(() -> {
+            List<DemandModel> stored = demandModelDao.lockAll();
+            LocalDate from = yesterday;
+            for (DemandModel model : stored) {
+                LocalDate start = model.getLastDate() == null
+                        ? yesterday.minusDays(historyDays - 1) : model.getLastDate().plusDays(1);
+                if (start.isBefore(from)) {
+                    from = start;
+                }
+            }
+
+            Map<String, Map<LocalDate, Double>> demand = new HashMap<>();
+            if (!from.isAfter(yesterday)) {
+                addDemand(demand, bloodRequestDao.sumUnitsByDay(from, yesterday));
+                addDemand(demand, transfusionDao.sumUnrequestedUnitsByDay(from, yesterday));
+            }
+
+            int days = 0;
+            for (DemandModel model : stored) {
+                String key = key(model.getBloodGroup(), model.getComponentType());
+                SeasonalSmoother smoother = restore(model);
+                Map<LocalDate, Double> series = demand.getOrDefault(key, Map.of());
+                LocalDate day = model.getLastDate() == null
+                        ? yesterday.minusDays(historyDays - 1) : model.getLastDate().plusDays(1);
+                for (; !day.isAfter(yesterday); day = day.plusDays(1)) {
+                    smoother.update(day, series.getOrDefault(day, 0.0));
+                    days++;
+                }
+                store(model, smoother);
+                trained.put(key, smoother);
+            }
+            return days;
+        });
+        models = trained;
+        if (applied > 0) {
+            logger.info("Trained {} demand model(s) on {} new series-day(s) up to {}", trained.size(), applied, yesterday);
+        }
+        return applied;
+    }
+
+    /**
+     * Expected daily demand for the next forecast.horizon.days days,
+     * starting tomorrow.
+     */
+    public double[] forecast(String bloodGroup, BloodStock.ComponentType componentType) {
+        SeasonalSmoother smoother = models().get(key(bloodGroup, componentType));
+        double[] daily = new double[horizonDays];
+        if (smoother != null) {
+            LocalDate tomorrow = LocalDate.now().plusDays(1);
+            for (int i = 0; i < horizonDays; i++) {
+                daily[i] = smoother.forecast(tomorrow.plusDays(i));
+            }
+        }
+        return daily;
+    }
+
+    /**
+     * Units below which a group and component counts as low stock.
+     */
+    public int getLowStockThreshold(String bloodGroup, BloodStock.ComponentType componentType) {
+        if (!isTrained(bloodGroup, componentType)) {
+            return defaultThreshold;
+        }
+        SeasonalSmoother smoother = models().get(key(bloodGroup, componentType));
+        // Demand from today through the end of the lead time
+        LocalDate today = LocalDate.now();
+        double expected = 0;
+        for (int i = 0; i <= leadTimeDays; i++) {
+            expected += smoother.forecast(today.plusDays(i));
+        }
+        double safety = serviceZ * smoother.sigma() * Math.sqrt(leadTimeDays + 1);
+        // A series with no demand left gets no threshold rather than 1
+        return (int) Math.ceil(Math.max(0, expected + safety - 1e-6));
+    }
+
+    /**
+     * True once the series has enough history for its own threshold.
+     */
+    public boolean isTrained(String bloodGroup, BloodStock.ComponentType componentType) {
+        SeasonalSmoother smoother = models().get(key(bloodGroup, componentType));
+        return smoother != null && smoother.getObservations() >= minHistoryDays;
+    }
+
+    private Map<String, SeasonalSmoother> models() {
+        Map<String, SeasonalSmoother> current = models;
+        if (current == null) {
+            Map<String, SeasonalSmoother> loaded = new HashMap<>();
+            for (DemandModel model : demandModelDao.findAll()) {
+                loaded.put(key(model.getBloodGroup(), model.getComponentType()), restore(model));
+            }
+            models = current = loaded;
+        }
+        return current;
+    }
+
+    private void trainQuietly() {
+        try {
+            train();
+        } catch (Exception e) {
+            logger.warn("Demand forecast training failed", e);
+        }
+    }
+
+    private SeasonalSmoother restore(DemandModel model) {
+        return SeasonalSmoother.restore(alpha, gamma, beta, model.getLevel(), model.getSeason(),
+                model.getMse(), model.getObservations(), model.getLastDate());
+    }
+
+    private static void store(DemandModel model, SeasonalSmoother smoother) {
+        model.setLevel(smoother.getLevel());
+        model.setSeason(smoother.getSeason());
+        model.setMse(smoother.getMse());
+        model.setObservations(smoother.getObservations());
+        model.setLastDate(smoother.getLastDate());
+        model.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private static void addDemand(Map<String, Map<LocalDate, Double>> demand, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            String key = key((String) row[1], (BloodStock.ComponentType) row[2]);
+            double units = ((Number) row[3]).doubleValue();
+            demand.computeIfAbsent(key, k -> new HashMap<>()).merge((LocalDate) row[0], units, Double::sum);
+        }
+    }
+
+    private static String key(String bloodGroup, BloodStock.ComponentType componentType) {
+        return bloodGroup + "|" + componentType;
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.ForecastService." + method);
+    }
+}
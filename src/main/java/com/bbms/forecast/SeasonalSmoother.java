@@ -0,0 +1,116 @@
+package com.bbms.forecast;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Exponential smoothing with additive weekday seasonality for one daily
+ * demand series.
+ *
+ * The state is a level, seven weekday offsets and a smoothed squared
+ * error, so a model is trained one day at a time and can be stored and
+ * resumed without rereading history. Early on the smoothing weights fall
+ * back to running averages (1/n), which gives a sensible start without a
+ * separate initialisation pass.
+ */
+public final class SeasonalSmoother {
+
+    private final double alpha;
+    private final double gamma;
+    private final double beta;
+
+    private double level;
+    private final double[] season;
+    private double mse;
+    private long observations;
+    private LocalDate lastDate;
+
+    public SeasonalSmoother(double alpha, double gamma, double beta) {
+        this(alpha, gamma, beta, 0, new double[7], 0, 0, null);
+    }
+
+    private SeasonalSmoother(double alpha, double gamma, double beta, double level, double[] season,
+                             double mse, long observations, LocalDate lastDate) {
+        if (season.length != 7) {
+            throw new IllegalArgumentException("Expected 7 weekday factors, got " + season.length);
+        }
+        this.alpha = alpha;
+        this.gamma = gamma;
+        this.beta = beta;
+        this.level = level;
+        this.season = season.clone();
+        this.mse = mse;
+        this.observations = observations;
+        this.lastDate = lastDate;
+    }
+
+    /**
+     * Resume a model from stored state.
+     */
+    public static SeasonalSmoother restore(double alpha, double gamma, double beta, double level, double[] season,
+                                           double mse, long observations, LocalDate lastDate) {
+        return new SeasonalSmoother(alpha, gamma, beta, level, season, mse, observations, lastDate);
+    }
+
+    /**
+     * Fold in the demand of the day after the last one seen.
+     */
+    public void update(LocalDate day, double demand) {
+        if (lastDate != null && !day.isAfter(lastDate)) {
+            throw new IllegalArgumentException("Day " + day + " is not after " + lastDate);
+        }
+        int d = weekday(day);
+        if (observations == 0) {
+            level = demand;
+        } else {
+            double error = demand - (level + season[d]);
+            double b = Math.max(beta, 1.0 / observations);
+            mse = b * error * error + (1 - b) * mse;
+
+            double a = Math.max(alpha, 1.0 / (observations + 1));
+            double g = Math.max(gamma, 1.0 / (observations / 7 + 1));
+            double newLevel = a * (demand - season[d]) + (1 - a) * level;
+            season[d] = g * (demand - newLevel) + (1 - g) * season[d];
+            level = newLevel;
+        }
+        observations++;
+        lastDate = day;
+    }
+
+    /**
+     * Expected demand on a day after the last one seen. There is no trend
+     * term, so only the weekday of the day matters.
+     */
+    public double forecast(LocalDate day) {
+        if (lastDate == null) {
+            return 0;
+        }
+        return Math.max(0, level + season[weekday(day)]);
+    }
+
+    /**
+     * Standard deviation of the one-day-ahead forecast error.
+     */
+    public double sigma() {
+        return Math.sqrt(mse);
+    }
+
+    public double getLevel() { return level; }
+
+    public double[] getSeason() { return season.clone(); }
+
+    public double getMse() { return mse; }
+
+    public long getObservations() { return observations; }
+
+    public LocalDate getLastDate() { return lastDate; }
+
+    private static int weekday(LocalDate day) {
+        return day.getDayOfWeek().getValue() - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("level=%.2f season=%s sigma=%.2f n=%d", level, Arrays.toString(season), sigma(), observations);
+    }
+}
@@ -0,0 +1,231 @@
+package com.bbms.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 reader: comma separated, fields optionally quoted,
+ * "" for a quote inside a quoted field, which may also span lines.
+ *
+ * Input is read in blocks and each record is unescaped into one reused
+ * buffer. {@link #field} returns views over that buffer, so reading a row
+ * allocates nothing; only the values kept are turned into strings. Views
+ * are valid until the next call to {@link #next}.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] block = new char[BLOCK_SIZE];
+    private int blockPos;
+    private int blockLen;
+
+    private char[] record = new char[1024];
+    private int recordLen;
+    private int[] ends = new int[32];
+    private int fields;
+    private Field[] views = new Field[0];
+
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the next record, skipping blank lines. False at end of input.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            recordLen = 0;
+            fields = 0;
+            recordLine = line;
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            if (c == '\n' || c == '\r') {
+                skipLineEnd(c);
+                continue;
+            }
+            readRecord(c);
+            return true;
+        }
+    }
+
+    /**
+     * Number of fields in the current record.
+     */
+    public int size() {
+        return fields;
+    }
+
+    /**
+     * Line number the current record starts on, counting from 1.
+     */
+    public long line() {
+        return recordLine;
+    }
+
+    /**
+     * The field as a view over the record buffer, or an empty sequence when
+     * the record has fewer fields.
+     */
+    public CharSequence field(int index) {
+        if (index >= views.length) {
+            Field[] grown = Arrays.copyOf(views, Math.max(ends.length, index + 1));
+            for (int i = views.length; i < grown.length; i++) {
+                grown[i] = new Field(i);
+            }
+            views = grown;
+        }
+        return views[index];
+    }
+
+    /**
+     * The field with surrounding whitespace removed, or null when it is
+     * missing or blank.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= fields) {
+            return null;
+        }
+        int start = start(index);
+        int end = ends[index];
+        while (start < end && Character.isWhitespace(record[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(record[end - 1])) {
+            end--;
+        }
+        return start == end ? null : new String(record, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readRecord(int c) throws IOException {
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int peek = read();
+                    if (peek == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        c = peek;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                endField();
+                if (c >= 0) {
+                    skipLineEnd(c);
+                }
+                return;
+            } else if (c == ',') {
+                endField();
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else {
+                append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    private void skipLineEnd(int c) throws IOException {
+        line++;
+        if (c == '\r') {
+            int peek = read();
+            if (peek != '\n' && peek >= 0) {
+                blockPos--;
+            }
+        }
+    }
+
+    private void append(char c) {
+        if (recordLen == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLen++] = c;
+    }
+
+    private void endField() {
+        if (fields == ends.length) {
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        ends[fields++] = recordLen;
+    }
+
+    private int start(int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    private int read() throws IOException {
+        if (blockPos == blockLen) {
+            blockLen = in.read(block, 0, block.length);
+            blockPos = 0;
+            if (blockLen <= 0) {
+                blockLen = 0;
+                return -1;
+            }
+        }
+        return block[blockPos++];
+    }
+
+    /**
+     * One field of the current record.
+     */
+    private final class Field implements CharSequence {
+
+        private final int index;
+
+        private Field(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return index < fields ? ends[index] - start(index) : 0;
+        }
+
+        @Override
+        public char charAt(int i) {
+            if (i < 0 || i >= length()) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return record[start(index) + i];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(record, start(index), length());
+        }
+    }
+}
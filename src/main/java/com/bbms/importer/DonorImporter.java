@@ -0,0 +1,456 @@
+package com.bbms.importer;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.DonorDao;
+import com.bbms.dedup.DonorProfile;
+import com.bbms.dedup.DuplicateDetector;
+import com.bbms.deferral.DeferralService;
+import com.bbms.eligibility.Candidate;
+import com.bbms.eligibility.EligibilityPipeline;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.model.BloodStock;
+import com.bbms.model.Donation;
+import com.bbms.model.Donor;
+import com.bbms.service.AuthService;
+import com.bbms.service.DonorService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports donors, and the donations collected from them, from a blood
+ * drive spreadsheet saved as CSV with a header row.
+ *
+ * One row is one donor, plus one donation when donation_date is filled in.
+ * Only full_name and blood_group are required; see {@link Column} for the
+ * other headers. The file is streamed in batches of import.batch.size rows:
+ * each batch is parsed and validated in parallel, matched to donors on file
+ * by phone number and name, checked against the eligibility rules on the
+ * donation date in file order, and written in one transaction of batched
+ * inserts. Rejected rows are reported by line and nothing of theirs is
+ * written.
+ */
+public class DonorImporter {
+
+    private static final Logger logger = LogManager.getLogger(DonorImporter.class);
+
+    /**
+     * Recognized headers, matched case-insensitively with spaces or hyphens
+     * read as underscores.
+     */
+    enum Column {
+        FULL_NAME("full_name", "name"),
+        BLOOD_GROUP("blood_group"),
+        PHONE("phone"),
+        EMAIL("email"),
+        ADDRESS("address"),
+        DATE_OF_BIRTH("date_of_birth", "dob"),
+        GENDER("gender"),
+        WEIGHT_KG("weight_kg", "weight"),
+        MEDICAL_NOTES("medical_notes"),
+        DONATION_DATE("donation_date"),
+        COMPONENT_TYPE("component_type"),
+        VOLUME_ML("volume_ml"),
+        HEMOGLOBIN("hemoglobin", "hemoglobin_level"),
+        BLOOD_PRESSURE("blood_pressure"),
+        PULSE_RATE("pulse_rate"),
+        TEMPERATURE_C("temperature_c"),
+        COLLECTED_BY("collected_by"),
+        NOTES("notes");
+
+        private final String[] headers;
+
+        Column(String... headers) {
+            this.headers = headers;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final DonorDao donorDao;
+    private final DonorService donorService;
+    private final DeferralService deferralService;
+    private final DuplicateDetector duplicateDetector;
+    private final EligibilityPipeline eligibility;
+    private final int batchSize;
+    private final DateTimeFormatter dateFormat;
+
+    public DonorImporter() {
+        this.donorDao = new DonorDao();
+        this.donorService = new DonorService();
+        this.deferralService = DeferralService.getInstance();
+        this.duplicateDetector = DuplicateDetector.configured();
+        this.eligibility = EligibilityPipeline.configured();
+        AppConfig config = AppConfig.getInstance();
+        // Phone keys of a batch are looked up with one IN list, which Oracle caps at 1000
+        this.batchSize = Math.max(1, Math.min(1000, config.getInt("import.batch.size", 500)));
+        this.dateFormat = DateTimeFormatter.ofPattern(config.getString("import.date.format", "yyyy-MM-dd"));
+    }
+
+    public ImportReport importCsv(Reader input) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run(AuthService.getInstance().getCurrentUsername());
+        try (CsvReader csv = new CsvReader(input)) {
+            if (!csv.next()) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            int[] columns = mapHeader(csv);
+            List<RawRow> batch = new ArrayList<>(batchSize);
+            while (csv.next()) {
+                batch.add(RawRow.read(csv, columns));
+                if (batch.size() == batchSize) {
+                    importBatch(batch, run);
+                    batch.clear();
+                }
+            }
+            importBatch(batch, run);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        MetricsRegistry.getInstance().timer("service.DonorImporter.importCsv").recordNanos(elapsed.toNanos());
+        ImportReport report = new ImportReport(run.rows, run.donorsCreated, run.donorsMatched,
+                run.donationsRecorded, run.errors, elapsed);
+        logger.info("Donor import: {}", report.summary());
+        return report;
+    }
+
+    private int[] mapHeader(CsvReader csv) {
+        Map<String, Column> byHeader = new HashMap<>();
+        for (Column column : COLUMNS) {
+            for (String header : column.headers) {
+                byHeader.put(header, column);
+            }
+        }
+        int[] columns = new int[COLUMNS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < csv.size(); i++) {
+            String header = csv.get(i);
+            Column column = header == null ? null
+                    : byHeader.get(header.toLowerCase(Locale.ROOT).replace(' ', '_').replace('-', '_'));
+            if (column != null && columns[column.ordinal()] < 0) {
+                columns[column.ordinal()] = i;
+            } else if (header != null) {
+                logger.debug("Ignoring import column '{}'", header);
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (Column required : List.of(Column.FULL_NAME, Column.BLOOD_GROUP)) {
+            if (columns[required.ordinal()] < 0) {
+                missing.add(required.headers[0]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing column(s): " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private void importBatch(List<RawRow> batch, Run run) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        run.rows += batch.size();
+        List<ParsedRow> rows = batch.parallelStream().map(row -> parse(row, run.user)).toList();
+        loadDonorsOnFile(rows, run);
+
+        List<Donor> newDonors = new ArrayList<>();
+        List<Donation> donations = new ArrayList<>();
+        List<ParsedRow> accepted = new ArrayList<>();
+        // Known donors as they were before this batch, restored if it is not saved
+        Map<Donor, Tally> touched = new IdentityHashMap<>();
+        int matched = 0;
+        for (ParsedRow row : rows) {
+            if (row.error() != null) {
+                run.errors.add(new ImportReport.RowError(row.line(), row.error()));
+                continue;
+            }
+            Known known = findKnown(row.profile(), run);
+            Donor donor = known == null ? row.donor() : known.donor();
+            Donation donation = row.donation();
+            if (donation != null) {
+                String refusal = checkEligibility(donor, donation);
+                if (refusal != null) {
+                    run.errors.add(new ImportReport.RowError(row.line(), refusal));
+                    continue;
+                }
+                if (known != null) {
+                    touched.computeIfAbsent(donor, Tally::of);
+                }
+                donation.setDonor(donor);
+                donation.setBloodGroup(donor.getBloodGroup());
+                LocalDate last = donor.getLastDonationDate();
+                if (last == null || donation.getDonationDate().isAfter(last)) {
+                    donor.setLastDonationDate(donation.getDonationDate());
+                }
+                donor.setTotalDonations((donor.getTotalDonations() == null ? 0 : donor.getTotalDonations()) + 1);
+                donations.add(donation);
+            }
+            if (known == null) {
+                newDonors.add(donor);
+                run.remember(new Known(donor, row.profile(), false));
+            } else if (known.onFile()) {
+                matched++;
+            }
+            accepted.add(row);
+        }
+
+        try {
+            donorDao.importDonors(newDonors, donations);
+        } catch (RuntimeException e) {
+            logger.error("Import batch ending on line {} failed", batch.get(batch.size() - 1).line(), e);
+            for (Donor donor : newDonors) {
+                donor.setId(null);
+            }
+            run.forget(newDonors);
+            touched.forEach((donor, tally) -> tally.restore(donor));
+            for (ParsedRow row : accepted) {
+                run.errors.add(new ImportReport.RowError(row.line(), "Not saved: " + e.getMessage()));
+            }
+            return;
+        }
+        run.donorsCreated += newDonors.size();
+        run.donorsMatched += matched;
+        run.donationsRecorded += donations.size();
+    }
+
+    /**
+     * Fetch the donors on file sharing a phone key with the batch, once per
+     * key for the whole import.
+     */
+    private void loadDonorsOnFile(List<ParsedRow> rows, Run run) {
+        Set<String> keys = new HashSet<>();
+        for (ParsedRow row : rows) {
+            String key = row.error() == null ? row.profile().phoneKey() : null;
+            if (key != null && run.queriedKeys.add(key)) {
+                keys.add(key);
+            }
+        }
+        for (Donor donor : donorDao.findByPhoneKeys(keys)) {
+            run.remember(new Known(donor, DonorProfile.of(donor), true));
+        }
+    }
+
+    /**
+     * The donor on file, or created earlier in this import, that the row
+     * describes: same phone and a matching name.
+     */
+    private Known findKnown(DonorProfile profile, Run run) {
+        if (profile.phoneKey() == null) {
+            return null;
+        }
+        Known best = null;
+        double bestSimilarity = 0;
+        for (Known known : run.byPhoneKey.getOrDefault(profile.phoneKey(), List.of())) {
+            var match = duplicateDetector.match(profile, known.profile());
+            if (match != null && match.nameSimilarity() > bestSimilarity) {
+                best = known;
+                bestSimilarity = match.nameSimilarity();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Null when the donor could give this donation on its date, otherwise
+     * the reason why not.
+     */
+    private String checkEligibility(Donor donor, Donation donation) {
+        LocalDate day = donation.getDonationDate();
+        Candidate candidate = new Candidate().load(donor)
+                .hemoglobin(donation.getHemoglobinLevel())
+                .donationType(donation.getComponentType());
+        if (donor.getId() != null) {
+            candidate.deferredUntil(deferralService.deferredUntil(donor.getId(), day));
+        }
+        EligibilityPipeline.Verdict verdict = eligibility.on(day).evaluate(candidate);
+        return verdict.eligible() ? null
+                : "Not eligible to donate on " + day + ": " + String.join("; ", verdict.reasons());
+    }
+
+    private ParsedRow parse(RawRow raw, String user) {
+        try {
+            Donor donor = new Donor(raw.get(Column.FULL_NAME), upper(raw.get(Column.BLOOD_GROUP)),
+                    raw.get(Column.PHONE));
+            donor.setEmail(raw.get(Column.EMAIL));
+            donor.setAddress(raw.get(Column.ADDRESS));
+            donor.setDateOfBirth(date(raw, Column.DATE_OF_BIRTH));
+            donor.setGender(gender(raw.get(Column.GENDER)));
+            donor.setWeightKg(decimal(raw, Column.WEIGHT_KG));
+            donor.setMedicalNotes(raw.get(Column.MEDICAL_NOTES));
+            donorService.validateDonor(donor);
+
+            Donation donation = null;
+            LocalDate donationDate = date(raw, Column.DONATION_DATE);
+            if (donationDate != null) {
+                donation = new Donation(null, donationDate, donor.getBloodGroup());
+                String component = raw.get(Column.COMPONENT_TYPE);
+                if (component != null) {
+                    donation.setComponentType(
+                            enumValue(BloodStock.ComponentType.class, Column.COMPONENT_TYPE, component));
+                }
+                Integer volume = integer(raw, Column.VOLUME_ML);
+                if (volume != null) {
+                    donation.setVolumeMl(volume);
+                }
+                donation.setHemoglobinLevel(decimal(raw, Column.HEMOGLOBIN));
+                donation.setBloodPressure(raw.get(Column.BLOOD_PRESSURE));
+                donation.setPulseRate(integer(raw, Column.PULSE_RATE));
+                donation.setTemperatureC(decimal(raw, Column.TEMPERATURE_C));
+                String collectedBy = raw.get(Column.COLLECTED_BY);
+                donation.setCollectedBy(collectedBy != null ? collectedBy : user);
+                donation.setNotes(raw.get(Column.NOTES));
+                donation.setStatus(Donation.DonationStatus.COMPLETED);
+            }
+            return new ParsedRow(raw.line(), donor, donation, DonorProfile.of(donor), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow(raw.line(), null, null, null, e.getMessage());
+        }
+    }
+
+    private LocalDate date(RawRow raw, Column column) {
+        String value = raw.get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value, dateFormat);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(invalid(column, value) + " (expected " + dateFormat + ")");
+        }
+    }
+
+    private static Double decimal(RawRow raw, Column column) {
+        String value = raw.get(column);
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(invalid(column, value));
+        }
+    }
+
+    private static Integer integer(RawRow raw, Column column) {
+        String value = raw.get(column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(invalid(column, value));
+        }
+    }
+
+    private static Donor.Gender gender(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "M", "MALE" -> Donor.Gender.MALE;
+            case "F", "FEMALE" -> Donor.Gender.FEMALE;
+            case "O", "OTHER" -> Donor.Gender.OTHER;
+            default -> throw new IllegalArgumentException(invalid(Column.GENDER, value));
+        };
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, Column column, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(invalid(column, value));
+        }
+    }
+
+    private static String upper(String value) {
+        return value == null ? null : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static String invalid(Column column, String value) {
+        return "Invalid " + column.headers[0] + " '" + value + "'";
+    }
+
+    /**
+     * The mapped fields of one CSV record, copied out of the reader's buffer.
+     */
+    private record RawRow(long line, String[] values) {
+
+        static RawRow read(CsvReader csv, int[] columns) {
+            String[] values = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = csv.get(columns[i]);
+            }
+            return new RawRow(csv.line(), values);
+        }
+
+        String get(Column column) {
+            return values[column.ordinal()];
+        }
+    }
+
+    /**
+     * The donation fields of a known donor that a batch changes in memory.
+     */
+    private record Tally(LocalDate lastDonationDate, Integer totalDonations) {
+
+        static Tally of(Donor donor) {
+            return new Tally(donor.getLastDonationDate(), donor.getTotalDonations());
+        }
+
+        void restore(Donor donor) {
+            donor.setLastDonationDate(lastDonationDate);
+            donor.setTotalDonations(totalDonations);
+        }
+    }
+
+    private record ParsedRow(long line, Donor donor, Donation donation, DonorProfile profile, String error) {
+    }
+
+    /**
+     * A donor rows can be matched to: one on file, or one created earlier in
+     * the import.
+     */
+    private record Known(Donor donor, DonorProfile profile, boolean onFile) {
+    }
+
+    /**
+     * State of one import.
+     */
+    private static final class Run {
+        private final String user;
+        private final Map<String, List<Known>> byPhoneKey = new HashMap<>();
+        private final Set<String> queriedKeys = new HashSet<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rows;
+        private int donorsCreated;
+        private int donorsMatched;
+        private int donationsRecorded;
+
+        private Run(String user) {
+            this.user = user;
+        }
+
+        void remember(Known known) {
+            if (known.profile().phoneKey() != null) {
+                byPhoneKey.computeIfAbsent(known.profile().phoneKey(), k -> new ArrayList<>()).add(known);
+            }
+        }
+
+        void forget(List<Donor> donors) {
+            Set<Donor> forgotten = Collections.newSetFromMap(new IdentityHashMap<>());
+            forgotten.addAll(donors);
+            byPhoneKey.values().forEach(list -> list.removeIf(known -> forgotten.contains(known.donor())));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bbms.importer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of an import. Rows listed in errors were not written.
+ *
+ * @param rows          data rows read, excluding the header
+ * @param donorsMatched rows matched to a donor already on file
+ */
+public record ImportReport(long rows,
+                           int donorsCreated,
+                           int donorsMatched,
+                           int donationsRecorded,
+                           List<RowError> errors,
+                           Duration elapsed) {
+
+    public ImportReport {
+        errors = List.copyOf(errors);
+    }
+
+    public long rowsImported() {
+        return rows - errors.size();
+    }
+
+    /**
+     * Write the errors as CSV (line, error), for the clerk to fix and
+     * re-import the rejected rows.
+     */
+    public void writeErrors(Writer out) throws IOException {
+        out.write("line,error\n");
+        for (RowError error : errors) {
+            out.write(Long.toString(error.line()));
+            out.write(",\"");
+            out.write(error.message().replace("\"", "\"\""));
+            out.write("\"\n");
+        }
+        out.flush();
+    }
+
+    public String summary() {
+        return String.format(
+                "%d of %d row(s) imported in %.1f s: %d new donor(s), %d matched, %d donation(s); %d error(s)",
+                rowsImported(), rows, elapsed.toMillis() / 1000.0, donorsCreated, donorsMatched,
+                donationsRecorded, errors.size());
+    }
+
+    /**
+     * A rejected row, by the line it starts on in the file.
+     */
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.bbms.metrics;
+
+import com.bbms.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the exporters configured under metrics.* in application.properties.
+ */
+public class MetricsExport {
+
+    private static final Logger logger = LogManager.getLogger(MetricsExport.class);
+    private static ScheduledExecutorService scheduler;
+
+    public static synchronized void start() {
+        AppConfig config = AppConfig.getInstance();
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+
+        if (config.getBoolean("metrics.jmx.enabled", true)) {
+            try {
+                new JmxExporter(registry).register();
+                logger.info("Metrics registered in JMX as {}", JmxExporter.OBJECT_NAME);
+            } catch (Exception e) {
+                logger.warn("Failed to register metrics MBean", e);
+            }
+        }
+
+        String file = config.getString("metrics.prometheus.file", null);
+        if (file != null && scheduler == null) {
+            long interval = Math.max(1, config.getLong("metrics.export.interval.seconds", 60));
+            PrometheusExporter exporter = new PrometheusExporter(registry);
+            Path target = Path.of(file);
+
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-export");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    exporter.writeTo(target);
+                } catch (Exception e) {
+                    logger.warn("Failed to write metrics to {}", target, e);
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+            logger.info("Writing Prometheus metrics to {} every {}s", target, interval);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
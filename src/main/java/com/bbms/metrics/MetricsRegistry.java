@@ -0,0 +1,84 @@
+package com.bbms.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight in-process metrics registry holding gauges, counters and timers.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a gauge whose value is read on every snapshot.
+     */
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /**
+     * Point-in-time view of every metric, sorted by name.
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> values = new TreeMap<>();
+        gauges.forEach((name, supplier) -> {
+            Number value = supplier.get();
+            if (value != null) values.put(name, value);
+        });
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        timers.forEach((name, timer) -> {
+            values.put(name + ".count", timer.getCount());
+            values.put(name + ".mean_ms", timer.getMeanMillis());
+            values.put(name + ".max_ms", timer.getMaxMillis());
+            values.put(name + ".p50_ms", timer.getPercentileMillis(50));
+            values.put(name + ".p95_ms", timer.getPercentileMillis(95));
+            values.put(name + ".p99_ms", timer.getPercentileMillis(99));
+        });
+        return values;
+    }
+
+    Map<String, Supplier<? extends Number>> gauges() {
+        return new TreeMap<>(gauges);
+    }
+
+    Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    Map<String, Timer> timers() {
+        return new TreeMap<>(timers);
+    }
+
+    public void clear() {
+        gauges.clear();
+        counters.clear();
+        timers.clear();
+    }
+}
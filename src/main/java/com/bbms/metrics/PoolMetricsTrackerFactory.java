@@ -0,0 +1,52 @@
+package com.bbms.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes HikariCP pool statistics into the {@link MetricsRegistry}.
+ * Registered by class name through hibernate.hikari.metricsTrackerFactory.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        String prefix = "pool." + poolName + ".";
+
+        registry.gauge(prefix + "active", poolStats::getActiveConnections);
+        registry.gauge(prefix + "idle", poolStats::getIdleConnections);
+        registry.gauge(prefix + "pending", poolStats::getPendingThreads);
+        registry.gauge(prefix + "total", poolStats::getTotalConnections);
+        registry.gauge(prefix + "max", poolStats::getMaxConnections);
+
+        Timer acquire = registry.timer(prefix + "acquire");
+        Timer usage = registry.timer(prefix + "usage");
+        Timer creation = registry.timer(prefix + "creation");
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.recordNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creation.record(connectionCreatedMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                registry.increment(prefix + "timeouts");
+            }
+        };
+    }
+}
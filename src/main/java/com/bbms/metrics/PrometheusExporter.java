@@ -0,0 +1,79 @@
+package com.bbms.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Renders the registry in the Prometheus text exposition format, suitable for
+ * the node_exporter textfile collector.
+ */
+public class PrometheusExporter {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final MetricsRegistry registry;
+
+    public PrometheusExporter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+
+        for (var entry : registry.gauges().entrySet()) {
+            Supplier<? extends Number> supplier = entry.getValue();
+            Number value = supplier.get();
+            if (value == null) continue;
+            String name = sanitize(entry.getKey());
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(value).append('\n');
+        }
+
+        for (var entry : registry.counters().entrySet()) {
+            String name = sanitize(entry.getKey()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(entry.getValue()).append('\n');
+        }
+
+        for (var entry : registry.timers().entrySet()) {
+            Timer timer = entry.getValue();
+            String name = sanitize(entry.getKey()) + "_seconds";
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(q).append("\"} ")
+                        .append(seconds(timer.getPercentileMillis(q * 100))).append('\n');
+            }
+            out.append(name).append("_count ").append(timer.getCount()).append('\n');
+            out.append(name).append("_sum ")
+                    .append(seconds(timer.getMeanMillis() * timer.getCount())).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Write atomically so a scraper never reads a half-written file.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, format(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String seconds(double millis) {
+        return String.format(Locale.ROOT, "%.6f", millis / 1000.0);
+    }
+
+    static String sanitize(String name) {
+        return "bbms_" + name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+}
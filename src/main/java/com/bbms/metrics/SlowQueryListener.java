@@ -0,0 +1,22 @@
+package com.bbms.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Times each JDBC statement execution and hands it to the slow-query log.
+ * Hibernate creates one instance per session (hibernate.session.events.auto).
+ */
+public class SlowQueryListener implements SessionEventListener {
+
+    private long statementStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SlowQueryLog.statementExecuted(System.nanoTime() - statementStart);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bbms.metrics;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.AbstractDao;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects SQL statements that exceed db.slow.query.threshold.ms.
+ *
+ * The statement text comes from {@link SqlStatementInspector}, timing from
+ * {@link SlowQueryListener}, and the HQL plus bound parameters from
+ * AbstractDao. Only slow statements pay for resolving the calling DAO method
+ * and formatting parameters. The slowest statements are kept in a bounded
+ * table for the diagnostics screen.
+ */
+public class SlowQueryLog {
+
+    private static final Logger logger = LogManager.getLogger(SlowQueryLog.class);
+    private static final StackWalker STACK_WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final ThreadLocal<String> currentSql = new ThreadLocal<>();
+    private static final ThreadLocal<Object[]> currentContext = new ThreadLocal<>();
+
+    private static final long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+            AppConfig.getInstance().getLong("db.slow.query.threshold.ms", 200));
+    private static final int capacity = Math.max(1, AppConfig.getInstance().getInt("db.slow.query.top.n", 50));
+
+    private static final ConcurrentMap<String, SlowQuery> slowQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Called by AbstractDao before running HQL; cleared when the query ends.
+     * Parameters are kept as the raw name/value array and only formatted if slow.
+     */
+    public static void enterQuery(String hql, Object[] params) {
+        currentContext.set(new Object[]{hql, params});
+    }
+
+    public static void exitQuery() {
+        currentContext.remove();
+    }
+
+    static void statementPrepared(String sql) {
+        currentSql.set(sql);
+    }
+
+    static void statementExecuted(long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        String sql = currentSql.get();
+        if (sql == null) {
+            return;
+        }
+
+        Object[] context = currentContext.get();
+        String hql = context != null ? (String) context[0] : null;
+        String params = context != null ? formatParams((Object[]) context[1]) : "";
+        String caller = findCallingDaoMethod();
+        double millis = elapsedNanos / 1_000_000.0;
+
+        logger.warn("Slow query ({} ms) in {}: {} params=[{}]", String.format("%.1f", millis), caller,
+                hql != null ? hql : sql, params);
+
+        slowQueries.compute(sql, (key, existing) -> existing == null
+                ? new SlowQuery(sql, hql, caller, params, millis)
+                : existing.merge(caller, params, millis));
+        trim();
+    }
+
+    /**
+     * Slowest statements first, ordered by their worst execution time.
+     */
+    public static List<SlowQuery> getTopQueries() {
+        return slowQueries.values().stream()
+                .sorted(Comparator.comparingDouble(SlowQuery::maxMillis).reversed())
+                .limit(capacity)
+                .toList();
+    }
+
+    public static long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public static void clear() {
+        slowQueries.clear();
+    }
+
+    private static void trim() {
+        if (slowQueries.size() <= capacity) {
+            return;
+        }
+        slowQueries.values().stream()
+                .min(Comparator.comparingDouble(SlowQuery::maxMillis))
+                .ifPresent(fastest -> slowQueries.remove(fastest.sql()));
+    }
+
+    private static String formatParams(Object[] params) {
+        if (params == null || params.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < params.length; i += 2) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(params[i]).append('=').append(params[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    private static String findCallingDaoMethod() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(f -> AbstractDao.class.isAssignableFrom(f.getDeclaringClass())
+                        && f.getDeclaringClass() != AbstractDao.class)
+                .findFirst()
+                .map(f -> f.getDeclaringClass().getSimpleName() + "." + f.getMethodName())
+                .orElse("AbstractDao"));
+    }
+
+    public record SlowQuery(String sql, String hql, String caller, String lastParams,
+                            long count, double maxMillis, double totalMillis, LocalDateTime lastSeen) {
+
+        SlowQuery(String sql, String hql, String caller, String params, double millis) {
+            this(sql, hql, caller, params, 1, millis, millis, LocalDateTime.now());
+        }
+
+        SlowQuery merge(String caller, String params, double millis) {
+            return new SlowQuery(sql, hql, caller, params, count + 1,
+                    Math.max(maxMillis, millis), totalMillis + millis, LocalDateTime.now());
+        }
+
+        public double meanMillis() {
+            return count == 0 ? 0 : totalMillis / count;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bbms.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Remembers the SQL about to be executed on this thread so the slow-query log
+ * can report it. The statement is passed through unchanged.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SlowQueryLog.statementPrepared(sql);
+        return sql;
+    }
+}
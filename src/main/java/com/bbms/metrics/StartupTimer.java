@@ -0,0 +1,49 @@
+package com.bbms.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each startup phase took, measured from JVM start.
+ * Phases are published as startup.&lt;phase&gt;.ms gauges.
+ */
+public class StartupTimer {
+
+    private static final Logger logger = LogManager.getLogger(StartupTimer.class);
+    private static final long INTERACTIVE_TARGET_MS = 2000;
+
+    private static final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * Mark the end of a phase. Safe to call from any thread.
+     */
+    public static synchronized void mark(String phase) {
+        long elapsed = System.currentTimeMillis() - jvmStartMillis;
+        phases.put(phase, elapsed);
+        MetricsRegistry.getInstance().gauge("startup." + phase + ".ms", () -> elapsed);
+        logger.info("Startup phase '{}' reached at {} ms", phase, elapsed);
+    }
+
+    /**
+     * Mark the point the user can interact with the app and log the summary.
+     */
+    public static synchronized void markInteractive(String phase) {
+        mark(phase);
+        long elapsed = phases.get(phase);
+        if (elapsed > INTERACTIVE_TARGET_MS) {
+            logger.warn("Startup took {} ms to '{}', target is {} ms: {}",
+                    elapsed, phase, INTERACTIVE_TARGET_MS, phases);
+        } else {
+            logger.info("Startup took {} ms to '{}': {}", elapsed, phase, phases);
+        }
+    }
+
+    public static synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+}
@@ -0,0 +1,39 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+
+/**
+ * The single row holding the end of the audit hash chain. Writers lock it
+ * while appending so workstations extend one chain instead of forking it.
+ */
+@Entity
+@Table(name = "audit_chain_head")
+public class AuditChainHead {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId = 0L;
+
+    @Column(name = "last_hash", length = 64)
+    private String lastHash;
+
+    public AuditChainHead() {}
+
+    public AuditChainHead(Long id) {
+        this.id = id;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getLastEntryId() { return lastEntryId; }
+    public void setLastEntryId(Long lastEntryId) { this.lastEntryId = lastEntryId; }
+
+    public String getLastHash() { return lastHash; }
+    public void setLastHash(String lastHash) { this.lastHash = lastHash; }
+}
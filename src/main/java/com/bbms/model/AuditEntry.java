@@ -0,0 +1,87 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One append-only audit record. Ids are positions in the hash chain and are
+ * assigned by the audit writer, not by a sequence; each entry's hash covers
+ * its own fields and the previous entry's hash.
+ */
+@Entity
+@Table(name = "audit_log")
+public class AuditEntry {
+
+    @Id
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false, length = 64)
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 10)
+    private Action action;
+
+    @Column(name = "actor", nullable = false, length = 50)
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Lob
+    @Column(name = "changes")
+    private String changes;
+
+    @Column(name = "prev_hash", length = 64)
+    private String prevHash;
+
+    @Column(name = "hash", nullable = false, length = 64)
+    private String hash;
+
+    public AuditEntry() {}
+
+    public AuditEntry(String entityType, String entityId, Action action, String actor,
+                      LocalDateTime occurredAt, String changes) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.action = action;
+        this.actor = actor;
+        this.occurredAt = occurredAt;
+        this.changes = changes;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+
+    public String getEntityId() { return entityId; }
+    public void setEntityId(String entityId) { this.entityId = entityId; }
+
+    public Action getAction() { return action; }
+    public void setAction(Action action) { this.action = action; }
+
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public String getChanges() { return changes; }
+    public void setChanges(String changes) { this.changes = changes; }
+
+    public String getPrevHash() { return prevHash; }
+    public void setPrevHash(String prevHash) { this.prevHash = prevHash; }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,119 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One physical bag. Identity columns are written once; only status moves,
+ * and every status change is recorded as a {@link StockMovement}, so the
+ * status can always be rebuilt from the movement history.
+ */
+@Entity
+@Table(name = "blood_units")
+public class BloodUnit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blood_units_seq")
+    @SequenceGenerator(name = "blood_units_seq", sequenceName = "blood_units_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "barcode", nullable = false, unique = true, length = 20, updatable = false)
+    private String barcode;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "stock_id", updatable = false)
+    private BloodStock lot;
+
+    @Column(name = "blood_group", nullable = false, length = 5, updatable = false)
+    private String bloodGroup;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "component_type", nullable = false, length = 30, updatable = false)
+    private BloodStock.ComponentType componentType;
+
+    @Column(name = "volume_ml", updatable = false)
+    private Integer volumeMl;
+
+    @Column(name = "collection_date", updatable = false)
+    private LocalDate collectionDate;
+
+    @Column(name = "expiry_date", nullable = false, updatable = false)
+    private LocalDate expiryDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.IN_STOCK;
+
+    // Blood request a RESERVED bag is held for
+    @Column(name = "reserved_for")
+    private Long reservedFor;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public BloodUnit() {}
+
+    /**
+     * The sequence-th bag of a lot, labelled with a barcode derived from the
+     * lot id so it is known before the row is inserted.
+     */
+    public static BloodUnit fromLot(BloodStock lot, int sequence) {
+        BloodUnit unit = new BloodUnit();
+        unit.barcode = barcodeFor(lot.getId(), sequence);
+        unit.lot = lot;
+        unit.bloodGroup = lot.getBloodGroup();
+        unit.componentType = lot.getComponentType();
+        unit.volumeMl = lot.getUnitVolumeMl();
+        unit.collectionDate = lot.getCollectionDate();
+        unit.expiryDate = lot.getExpiryDate();
+        unit.createdAt = LocalDateTime.now();
+        return unit;
+    }
+
+    public static String barcodeFor(Long lotId, int sequence) {
+        return String.format("BB%010d-%03d", lotId, sequence);
+    }
+
+    public boolean isExpired() {
+        return expiryDate.isBefore(LocalDate.now());
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBarcode() { return barcode; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
+
+    public BloodStock getLot() { return lot; }
+    public void setLot(BloodStock lot) { this.lot = lot; }
+
+    public String getBloodGroup() { return bloodGroup; }
+    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
+
+    public BloodStock.ComponentType getComponentType() { return componentType; }
+    public void setComponentType(BloodStock.ComponentType componentType) { this.componentType = componentType; }
+
+    public Integer getVolumeMl() { return volumeMl; }
+    public void setVolumeMl(Integer volumeMl) { this.volumeMl = volumeMl; }
+
+    public LocalDate getCollectionDate() { return collectionDate; }
+    public void setCollectionDate(LocalDate collectionDate) { this.collectionDate = collectionDate; }
+
+    public LocalDate getExpiryDate() { return expiryDate; }
+    public void setExpiryDate(LocalDate expiryDate) { this.expiryDate = expiryDate; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Long getReservedFor() { return reservedFor; }
+    public void setReservedFor(Long reservedFor) { this.reservedFor = reservedFor; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public enum Status {
+        IN_STOCK, RESERVED, ISSUED, DISCARDED
+    }
+}
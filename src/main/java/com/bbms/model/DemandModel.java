@@ -0,0 +1,94 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Stored state of the demand forecast for one blood group and component,
+ * so the nightly training run only folds in the days since lastDate.
+ */
+@Entity
+@Table(name = "demand_models",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"blood_group", "component_type"}))
+public class DemandModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "demand_models_seq")
+    @SequenceGenerator(name = "demand_models_seq", sequenceName = "demand_models_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "blood_group", nullable = false, length = 5)
+    private String bloodGroup;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "component_type", nullable = false, length = 30)
+    private BloodStock.ComponentType componentType;
+
+    @Column(name = "level_value", nullable = false)
+    private Double level = 0.0;
+
+    // Monday..Sunday offsets, comma separated
+    @Column(name = "weekday_factors", nullable = false, length = 200)
+    private String weekdayFactors = "0,0,0,0,0,0,0";
+
+    @Column(name = "mse", nullable = false)
+    private Double mse = 0.0;
+
+    @Column(name = "observations", nullable = false)
+    private Long observations = 0L;
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public DemandModel() {}
+
+    public DemandModel(String bloodGroup, BloodStock.ComponentType componentType) {
+        this.bloodGroup = bloodGroup;
+        this.componentType = componentType;
+    }
+
+    public double[] getSeason() {
+        return Arrays.stream(weekdayFactors.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    public void setSeason(double[] season) {
+        this.weekdayFactors = Arrays.stream(season)
+                .mapToObj(v -> String.format(Locale.ROOT, "%.6f", v))
+                .collect(Collectors.joining(","));
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBloodGroup() { return bloodGroup; }
+    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
+
+    public BloodStock.ComponentType getComponentType() { return componentType; }
+    public void setComponentType(BloodStock.ComponentType componentType) { this.componentType = componentType; }
+
+    public Double getLevel() { return level; }
+    public void setLevel(Double level) { this.level = level; }
+
+    public String getWeekdayFactors() { return weekdayFactors; }
+    public void setWeekdayFactors(String weekdayFactors) { this.weekdayFactors = weekdayFactors; }
+
+    public Double getMse() { return mse; }
+    public void setMse(Double mse) { this.mse = mse; }
+
+    public Long getObservations() { return observations; }
+    public void setObservations(Long observations) { this.observations = observations; }
+
+    public LocalDate getLastDate() { return lastDate; }
+    public void setLastDate(LocalDate lastDate) { this.lastDate = lastDate; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -24,6 +24,10 @@ public class Donor {
     @Column(name = "phone", length = 20)
     private String phone;
 
+    // Maintained by the donors_phone_key_trg trigger
+    @Column(name = "phone_key", length = 10, insertable = false, updatable = false)
+    private String phoneKey;
+
     @Column(name = "email", length = 100)
     private String email;
 
@@ -95,6 +99,8 @@ public class Donor {
     public String getPhone() { return phone; }
     public void setPhone(String phone) { this.phone = phone; }
 
+    public String getPhoneKey() { return phoneKey; }
+
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
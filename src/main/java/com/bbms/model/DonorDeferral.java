@@ -0,0 +1,105 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A period during which a donor may not donate, from startDate up to but
+ * not including endDate. A null endDate defers the donor permanently.
+ * Rows are kept as history once released.
+ */
+@Entity
+@Table(name = "donor_deferrals")
+public class DonorDeferral {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "donor_deferrals_seq")
+    @SequenceGenerator(name = "donor_deferrals_seq", sequenceName = "donor_deferrals_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "donor_id", nullable = false, updatable = false)
+    private Long donorId;
+
+    @Column(name = "condition_code", nullable = false, length = 50, updatable = false)
+    private String condition;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private DeferralStatus status = DeferralStatus.ACTIVE;
+
+    @Column(name = "notes", length = 500)
+    private String notes;
+
+    @Column(name = "recorded_by", length = 50, updatable = false)
+    private String recordedBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+
+    public DonorDeferral() {}
+
+    public DonorDeferral(Long donorId, String condition, LocalDate startDate, LocalDate endDate, String recordedBy) {
+        this.donorId = donorId;
+        this.condition = condition;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.recordedBy = recordedBy;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public boolean isPermanent() {
+        return endDate == null;
+    }
+
+    /**
+     * True when the deferral covers the given day.
+     */
+    public boolean covers(LocalDate day) {
+        return !day.isBefore(startDate) && (endDate == null || day.isBefore(endDate));
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getDonorId() { return donorId; }
+    public void setDonorId(Long donorId) { this.donorId = donorId; }
+
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public DeferralStatus getStatus() { return status; }
+    public void setStatus(DeferralStatus status) { this.status = status; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public String getRecordedBy() { return recordedBy; }
+    public void setRecordedBy(String recordedBy) { this.recordedBy = recordedBy; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getReleasedAt() { return releasedAt; }
+    public void setReleasedAt(LocalDateTime releasedAt) { this.releasedAt = releasedAt; }
+
+    public enum DeferralStatus {
+        ACTIVE, RELEASED, REVOKED
+    }
+}
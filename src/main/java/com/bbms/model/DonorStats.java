@@ -0,0 +1,162 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime totals of one donor's completed donations and deferrals, updated
+ * in the same transaction as each change so reads need no aggregation over
+ * the donor's history. Donors who have never donated may have no row.
+ */
+@Entity
+@Table(name = "donor_stats")
+public class DonorStats {
+
+    @Id
+    @Column(name = "donor_id")
+    private Long donorId;
+
+    @Column(name = "donations", nullable = false)
+    private Integer donations = 0;
+
+    @Column(name = "volume_ml", nullable = false)
+    private Long volumeMl = 0L;
+
+    @Column(name = "whole_blood", nullable = false)
+    private Integer wholeBlood = 0;
+
+    @Column(name = "plasma", nullable = false)
+    private Integer plasma = 0;
+
+    @Column(name = "platelets", nullable = false)
+    private Integer platelets = 0;
+
+    @Column(name = "rbc", nullable = false)
+    private Integer rbc = 0;
+
+    @Column(name = "wbc", nullable = false)
+    private Integer wbc = 0;
+
+    @Column(name = "first_donation_date")
+    private LocalDate firstDonationDate;
+
+    @Column(name = "last_donation_date")
+    private LocalDate lastDonationDate;
+
+    @Column(name = "last_hemoglobin")
+    private Double lastHemoglobin;
+
+    @Column(name = "last_hemoglobin_date")
+    private LocalDate lastHemoglobinDate;
+
+    // Deferrals recorded, excluding those revoked as recorded in error
+    @Column(name = "deferrals", nullable = false)
+    private Integer deferrals = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public DonorStats() {}
+
+    public DonorStats(Long donorId) {
+        this.donorId = donorId;
+    }
+
+    /**
+     * Add a donation. Only completed donations count.
+     */
+    public void addDonation(Donation donation) {
+        if (donation.getStatus() != Donation.DonationStatus.COMPLETED) {
+            return;
+        }
+        donations++;
+        volumeMl += donation.getVolumeMl() == null ? 0 : donation.getVolumeMl();
+        switch (donation.getComponentType() == null
+                ? BloodStock.ComponentType.WHOLE_BLOOD : donation.getComponentType()) {
+            case WHOLE_BLOOD -> wholeBlood++;
+            case PLASMA -> plasma++;
+            case PLATELETS -> platelets++;
+            case RBC -> rbc++;
+            case WBC -> wbc++;
+        }
+
+        LocalDate date = donation.getDonationDate();
+        if (date != null) {
+            if (firstDonationDate == null || date.isBefore(firstDonationDate)) {
+                firstDonationDate = date;
+            }
+            if (lastDonationDate == null || date.isAfter(lastDonationDate)) {
+                lastDonationDate = date;
+            }
+        }
+        // A reading taken on the same day as the last one is the later one
+        if (donation.getHemoglobinLevel() != null
+                && (lastHemoglobinDate == null || (date != null && !date.isBefore(lastHemoglobinDate)))) {
+            lastHemoglobin = donation.getHemoglobinLevel();
+            lastHemoglobinDate = date;
+        }
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Count a deferral recorded (+1) or revoked (-1).
+     */
+    public void addDeferrals(int delta) {
+        deferrals = Math.max(0, deferrals + delta);
+        updatedAt = LocalDateTime.now();
+    }
+
+    public int getDonationCount(BloodStock.ComponentType componentType) {
+        return switch (componentType) {
+            case WHOLE_BLOOD -> wholeBlood;
+            case PLASMA -> plasma;
+            case PLATELETS -> platelets;
+            case RBC -> rbc;
+            case WBC -> wbc;
+        };
+    }
+
+    // Getters and Setters
+    public Long getDonorId() { return donorId; }
+    public void setDonorId(Long donorId) { this.donorId = donorId; }
+
+    public Integer getDonations() { return donations; }
+    public void setDonations(Integer donations) { this.donations = donations; }
+
+    public Long getVolumeMl() { return volumeMl; }
+    public void setVolumeMl(Long volumeMl) { this.volumeMl = volumeMl; }
+
+    public Integer getWholeBlood() { return wholeBlood; }
+    public void setWholeBlood(Integer wholeBlood) { this.wholeBlood = wholeBlood; }
+
+    public Integer getPlasma() { return plasma; }
+    public void setPlasma(Integer plasma) { this.plasma = plasma; }
+
+    public Integer getPlatelets() { return platelets; }
+    public void setPlatelets(Integer platelets) { this.platelets = platelets; }
+
+    public Integer getRbc() { return rbc; }
+    public void setRbc(Integer rbc) { this.rbc = rbc; }
+
+    public Integer getWbc() { return wbc; }
+    public void setWbc(Integer wbc) { this.wbc = wbc; }
+
+    public LocalDate getFirstDonationDate() { return firstDonationDate; }
+    public void setFirstDonationDate(LocalDate firstDonationDate) { this.firstDonationDate = firstDonationDate; }
+
+    public LocalDate getLastDonationDate() { return lastDonationDate; }
+    public void setLastDonationDate(LocalDate lastDonationDate) { this.lastDonationDate = lastDonationDate; }
+
+    public Double getLastHemoglobin() { return lastHemoglobin; }
+    public void setLastHemoglobin(Double lastHemoglobin) { this.lastHemoglobin = lastHemoglobin; }
+
+    public LocalDate getLastHemoglobinDate() { return lastHemoglobinDate; }
+    public void setLastHemoglobinDate(LocalDate lastHemoglobinDate) { this.lastHemoglobinDate = lastHemoglobinDate; }
+
+    public Integer getDeferrals() { return deferrals; }
+    public void setDeferrals(Integer deferrals) { this.deferrals = deferrals; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
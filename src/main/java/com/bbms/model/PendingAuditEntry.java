@@ -0,0 +1,80 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An audit record written in the same transaction as the change it
+ * describes, waiting for the audit writer to chain it into the log. A
+ * change that commits always leaves one of these or its chained entry.
+ */
+@Entity
+@Table(name = "audit_pending")
+public class PendingAuditEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_pending_seq")
+    @SequenceGenerator(name = "audit_pending_seq", sequenceName = "audit_pending_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false, length = 64)
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 10)
+    private AuditEntry.Action action;
+
+    @Column(name = "actor", nullable = false, length = 50)
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Lob
+    @Column(name = "changes")
+    private String changes;
+
+    public PendingAuditEntry() {}
+
+    public PendingAuditEntry(String entityType, String entityId, AuditEntry.Action action, String actor,
+                             LocalDateTime occurredAt, String changes) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.action = action;
+        this.actor = actor;
+        this.occurredAt = occurredAt;
+        this.changes = changes;
+    }
+
+    /**
+     * The log entry to chain, not yet positioned or hashed.
+     */
+    public AuditEntry toEntry() {
+        return new AuditEntry(entityType, entityId, action, actor, occurredAt, changes);
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+
+    public String getEntityId() { return entityId; }
+    public void setEntityId(String entityId) { this.entityId = entityId; }
+
+    public AuditEntry.Action getAction() { return action; }
+    public void setAction(AuditEntry.Action action) { this.action = action; }
+
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public String getChanges() { return changes; }
+    public void setChanges(String changes) { this.changes = changes; }
+}
@@ -0,0 +1,86 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running on-hand and reserved bag counts for one blood group and
+ * component, updated in the same transaction as every movement.
+ */
+@Entity
+@Table(name = "stock_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"blood_group", "component_type"}))
+public class StockBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_balances_seq")
+    @SequenceGenerator(name = "stock_balances_seq", sequenceName = "stock_balances_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "blood_group", nullable = false, length = 5)
+    private String bloodGroup;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "component_type", nullable = false, length = 30)
+    private BloodStock.ComponentType componentType;
+
+    @Column(name = "on_hand", nullable = false)
+    private Integer onHand = 0;
+
+    @Column(name = "reserved", nullable = false)
+    private Integer reserved = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public StockBalance() {}
+
+    public StockBalance(String bloodGroup, BloodStock.ComponentType componentType) {
+        this.bloodGroup = bloodGroup;
+        this.componentType = componentType;
+    }
+
+    public void apply(int onHandDelta, int reservedDelta) {
+        onHand += onHandDelta;
+        reserved += reservedDelta;
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Apply the next movement of the history, checking the running balance
+     * it recorded. Throws if the history diverges at this movement.
+     */
+    public void replay(StockMovement movement) {
+        apply(movement.getOnHandDelta(), movement.getReservedDelta());
+        if (!onHand.equals(movement.getOnHandAfter()) || !reserved.equals(movement.getReservedAfter())) {
+            throw new IllegalStateException(String.format(
+                    "Stock ledger for %s %s diverges at movement %d: replayed %d on hand, %d reserved;"
+                            + " recorded %d on hand, %d reserved",
+                    bloodGroup, componentType, movement.getId(), onHand, reserved,
+                    movement.getOnHandAfter(), movement.getReservedAfter()));
+        }
+    }
+
+    public boolean sameCounts(StockBalance other) {
+        return onHand.equals(other.onHand) && reserved.equals(other.reserved);
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBloodGroup() { return bloodGroup; }
+    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
+
+    public BloodStock.ComponentType getComponentType() { return componentType; }
+    public void setComponentType(BloodStock.ComponentType componentType) { this.componentType = componentType; }
+
+    public Integer getOnHand() { return onHand; }
+    public void setOnHand(Integer onHand) { this.onHand = onHand; }
+
+    public Integer getReserved() { return reserved; }
+    public void setReserved(Integer reserved) { this.reserved = reserved; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,75 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A time-limited hold on units of a stock lot for one blood request,
+ * covering the crossmatch window before the transfusion is processed.
+ * The row only exists while the hold is live; it is deleted when the hold
+ * is released, consumed or expires.
+ */
+@Entity
+@Table(name = "stock_holds")
+public class StockHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_holds_seq")
+    @SequenceGenerator(name = "stock_holds_seq", sequenceName = "stock_holds_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "stock_id", nullable = false, updatable = false)
+    private Long stockId;
+
+    @Column(name = "request_id", nullable = false, updatable = false)
+    private Long requestId;
+
+    @Column(name = "units", nullable = false, updatable = false)
+    private Integer units;
+
+    @Column(name = "held_by", length = 50, updatable = false)
+    private String heldBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private LocalDateTime expiresAt;
+
+    public StockHold() {}
+
+    public StockHold(Long stockId, Long requestId, int units, String heldBy, LocalDateTime expiresAt) {
+        this.stockId = stockId;
+        this.requestId = requestId;
+        this.units = units;
+        this.heldBy = heldBy;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getStockId() { return stockId; }
+    public void setStockId(Long stockId) { this.stockId = stockId; }
+
+    public Long getRequestId() { return requestId; }
+    public void setRequestId(Long requestId) { this.requestId = requestId; }
+
+    public Integer getUnits() { return units; }
+    public void setUnits(Integer units) { this.units = units; }
+
+    public String getHeldBy() { return heldBy; }
+    public void setHeldBy(String heldBy) { this.heldBy = heldBy; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,141 @@
+package com.bbms.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of one bag changing status. Each row carries its
+ * effect on the group's balance and the balance right after it, so the
+ * inventory can be replayed and checked at any point in time.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements")
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 1)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "unit_id", nullable = false)
+    private BloodUnit unit;
+
+    @Column(name = "blood_group", nullable = false, length = 5)
+    private String bloodGroup;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "component_type", nullable = false, length = 30)
+    private BloodStock.ComponentType componentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "on_hand_delta", nullable = false)
+    private Integer onHandDelta;
+
+    @Column(name = "reserved_delta", nullable = false)
+    private Integer reservedDelta;
+
+    @Column(name = "on_hand_after", nullable = false)
+    private Integer onHandAfter;
+
+    @Column(name = "reserved_after", nullable = false)
+    private Integer reservedAfter;
+
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Column(name = "actor", length = 50)
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public StockMovement() {}
+
+    public StockMovement(BloodUnit unit, Type type, int onHandDelta, int reservedDelta,
+                         StockBalance balanceAfter, String reference, String actor) {
+        this.unit = unit;
+        this.bloodGroup = unit.getBloodGroup();
+        this.componentType = unit.getComponentType();
+        this.type = type;
+        this.onHandDelta = onHandDelta;
+        this.reservedDelta = reservedDelta;
+        this.onHandAfter = balanceAfter.getOnHand();
+        this.reservedAfter = balanceAfter.getReserved();
+        this.reference = reference;
+        this.actor = actor;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    /**
+     * Move a bag: set its new status, apply the change to the balance of its
+     * group and component, and return the movement recording both. Throws
+     * if the movement is not allowed from the bag's status.
+     */
+    public static StockMovement record(BloodUnit unit, Type type, StockBalance balance,
+                                       String reference, String actor) {
+        if (!unit.getBloodGroup().equals(balance.getBloodGroup())
+                || unit.getComponentType() != balance.getComponentType()) {
+            throw new IllegalArgumentException(String.format("Bag %s is not %s %s",
+                    unit.getBarcode(), balance.getBloodGroup(), balance.getComponentType()));
+        }
+        BloodUnit.Status from = type == Type.RECEIVED ? null : unit.getStatus();
+        BloodUnit.Status to = type.target(from);
+        if (to == null) {
+            throw new IllegalStateException(String.format(
+                    "Cannot record %s for bag %s in status %s", type, unit.getBarcode(), from));
+        }
+        int onHandDelta = is(to, BloodUnit.Status.IN_STOCK) - is(from, BloodUnit.Status.IN_STOCK);
+        int reservedDelta = is(to, BloodUnit.Status.RESERVED) - is(from, BloodUnit.Status.RESERVED);
+
+        balance.apply(onHandDelta, reservedDelta);
+        unit.setStatus(to);
+        return new StockMovement(unit, type, onHandDelta, reservedDelta, balance, reference, actor);
+    }
+
+    private static int is(BloodUnit.Status status, BloodUnit.Status expected) {
+        return status == expected ? 1 : 0;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public BloodUnit getUnit() { return unit; }
+    public String getBloodGroup() { return bloodGroup; }
+    public BloodStock.ComponentType getComponentType() { return componentType; }
+    public Type getType() { return type; }
+    public Integer getOnHandDelta() { return onHandDelta; }
+    public Integer getReservedDelta() { return reservedDelta; }
+    public Integer getOnHandAfter() { return onHandAfter; }
+    public Integer getReservedAfter() { return reservedAfter; }
+    public String getReference() { return reference; }
+    public String getActor() { return actor; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    public enum Type {
+        RECEIVED, RESERVED, RELEASED, ISSUED, DISCARDED;
+
+        /**
+         * Status a bag in the given status moves to, or null if this
+         * movement is not allowed from it. A new bag has no status.
+         */
+        public BloodUnit.Status target(BloodUnit.Status from) {
+            return switch (this) {
+                case RECEIVED -> from == null ? BloodUnit.Status.IN_STOCK : null;
+                case RESERVED -> from == BloodUnit.Status.IN_STOCK ? BloodUnit.Status.RESERVED : null;
+                case RELEASED -> from == BloodUnit.Status.RESERVED ? BloodUnit.Status.IN_STOCK : null;
+                case ISSUED -> isHeld(from) ? BloodUnit.Status.ISSUED : null;
+                case DISCARDED -> isHeld(from) ? BloodUnit.Status.DISCARDED : null;
+            };
+        }
+
+        private static boolean isHeld(BloodUnit.Status status) {
+            return status == BloodUnit.Status.IN_STOCK || status == BloodUnit.Status.RESERVED;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.bbms.outbox;
+
+import com.bbms.model.OutboxEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes one structured log line per domain event.
+ */
+public class ActivityLogConsumer implements OutboxConsumer {
+
+    private static final Logger logger = LogManager.getLogger(ActivityLogConsumer.class);
+
+    @Override
+    public boolean handles(String eventType) {
+        return true;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        logger.info("{} {}#{} {}", event.getEventType(), event.getAggregateType(),
+                event.getAggregateId(), event.getPayloadMap());
+    }
+}
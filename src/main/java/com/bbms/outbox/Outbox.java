@@ -0,0 +1,34 @@
+package com.bbms.outbox;
+
+import com.bbms.dao.OutboxEventDao;
+import com.bbms.dao.Transactions;
+import com.bbms.model.OutboxEvent;
+
+import java.util.Map;
+
+/**
+ * Records domain events in the caller's transaction.
+ */
+public final class Outbox {
+
+    public static final String DONATION_RECORDED = "DonationRecorded";
+    public static final String TRANSFUSION_COMPLETED = "TransfusionCompleted";
+    public static final String DONORS_IMPORTED = "DonorsImported";
+
+    private static final OutboxEventDao outboxEventDao = new OutboxEventDao();
+
+    private Outbox() {
+    }
+
+    /**
+     * Write an event that commits or rolls back with the business change.
+     * Must be called inside {@link Transactions#inTransaction}.
+     */
+    public static void record(String aggregateType, Long aggregateId, String eventType, Map<String, String> payload) {
+        if (!Transactions.isActive()) {
+            throw new IllegalStateException("Outbox events must be recorded inside a transaction");
+        }
+        outboxEventDao.save(new OutboxEvent(aggregateType, aggregateId, eventType, payload));
+        Transactions.afterCommit(() -> OutboxDispatcher.getInstance().wakeUp());
+    }
+}
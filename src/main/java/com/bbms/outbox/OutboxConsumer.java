@@ -0,0 +1,24 @@
+package com.bbms.outbox;
+
+import com.bbms.model.OutboxEvent;
+
+/**
+ * Reacts to outbox events after the originating transaction has committed.
+ *
+ * Each call to handle runs in its own transaction, which also records that
+ * this consumer has handled the event; a failure is retried for this
+ * consumer only. Database work done there therefore happens once, but
+ * effects outside the database may repeat if that commit fails, so they
+ * must tolerate seeing an event twice.
+ */
+public interface OutboxConsumer {
+
+    /** Name recorded on events this consumer has handled; unique, no commas. */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+
+    boolean handles(String eventType);
+
+    void handle(OutboxEvent event) throws Exception;
+}
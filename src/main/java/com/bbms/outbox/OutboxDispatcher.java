@@ -0,0 +1,262 @@
+package com.bbms.outbox;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.OutboxEventDao;
+import com.bbms.dao.Transactions;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.model.OutboxEvent;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers pending outbox events to the registered consumers on a
+ * background thread.
+ *
+ * A batch is claimed oldest first in one short transaction that marks the
+ * events IN_FLIGHT for outbox.claim.lease.ms; a claim left by a dispatcher
+ * that died lapses and the events are claimed again. Each consumer then
+ * handles an event in its own transaction, which also records that it has,
+ * so a failing consumer is retried alone and never rolls back or repeats
+ * the others. Once an event for an aggregate fails, is waiting for its
+ * retry or is claimed elsewhere, later events for that aggregate are held
+ * back, so each aggregate's events arrive in order. Failures are retried
+ * with exponential backoff up to outbox.max.attempts, after which the event
+ * is marked FAILED. Delivered events are deleted once they are older than
+ * outbox.retention.days.
+ */
+public class OutboxDispatcher {
+
+    private static final Logger logger = LogManager.getLogger(OutboxDispatcher.class);
+    private static final OutboxDispatcher INSTANCE = new OutboxDispatcher();
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    // Deleted per transaction; also keeps the id list within Oracle's IN limit
+    private static final int PURGE_BATCH = 1000;
+
+    private final OutboxEventDao outboxEventDao = new OutboxEventDao();
+    private final List<OutboxConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private ScheduledExecutorService scheduler;
+    private int batchSize;
+    private int maxAttempts;
+    private Duration initialBackoff;
+    private Duration claimLease;
+    private Duration retention;
+
+    public static OutboxDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    public void register(OutboxConsumer consumer) {
+        consumers.add(consumer);
+    }
+
+    public synchronized void start() {
+        AppConfig config = AppConfig.getInstance();
+        if (scheduler != null || !config.getBoolean("outbox.dispatcher.enabled", true)) {
+            return;
+        }
+        long intervalMs = Math.max(50, config.getLong("outbox.poll.interval.ms", 1000));
+        batchSize = Math.max(1, config.getInt("outbox.batch.size", 100));
+        maxAttempts = Math.max(1, config.getInt("outbox.max.attempts", 8));
+        initialBackoff = Duration.ofMillis(Math.max(1, config.getLong("outbox.retry.backoff.ms", 1000)));
+        claimLease = Duration.ofMillis(Math.max(1000, config.getLong("outbox.claim.lease.ms", 300_000)));
+        retention = Duration.ofDays(Math.max(1, config.getLong("outbox.retention.days", 7)));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purgeDelivered, 1, 60, TimeUnit.MINUTES);
+        logger.info("Outbox dispatcher started with {} consumer(s), polling every {} ms", consumers.size(), intervalMs);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Dispatch soon instead of waiting for the next poll. Called after a
+     * transaction that recorded events commits.
+     */
+    public void wakeUp() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && wakeUpQueued.compareAndSet(false, true)) {
+            current.execute(() -> {
+                wakeUpQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            int delivered;
+            do {
+                delivered = metrics.timer("outbox.dispatch").record(this::dispatchBatch);
+            } while (delivered == batchSize);
+        } catch (LockAcquisitionException | PessimisticLockException | LockTimeoutException e) {
+            logger.debug("Outbox is being claimed elsewhere, skipping this round");
+        } catch (Exception e) {
+            logger.warn("Outbox dispatch failed", e);
+        }
+    }
+
+    /**
+     * Delete delivered events past the retention period, a batch per
+     * transaction so the purge never holds many row locks at once.
+     */
+    private void purgeDelivered() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minus(retention);
+            int purged = 0;
+            int deleted;
+            do {
+                deleted = outboxEventDao.deleteDone(before, PURGE_BATCH);
+                purged += deleted;
+            } while (deleted == PURGE_BATCH);
+            if (purged > 0) {
+                logger.debug("Deleted {} delivered outbox event(s)", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Outbox retention purge failed", e);
+        }
+    }
+
+    /**
+     * Claim and deliver one batch. Returns the number of events marked DONE.
+     */
+    int dispatchBatch() {
+        Set<String> failed = new HashSet<>();
+        int delivered = 0;
+        for (OutboxEvent event : claim(LocalDateTime.now())) {
+            event.setClaimedUntil(null);
+            if (failed.contains(event.getAggregateKey())) {
+                // Stays behind the earlier event of its aggregate that failed
+                event.setStatus(OutboxEvent.Status.PENDING);
+            } else {
+                try {
+                    deliver(event);
+                    event.setStatus(OutboxEvent.Status.DONE);
+                    event.setProcessedAt(LocalDateTime.now());
+                    delivered++;
+                    metrics.increment("outbox.delivered");
+                } catch (DeliveryException e) {
+                    failed.add(event.getAggregateKey());
+                    scheduleRetry(event, e, LocalDateTime.now());
+                }
+            }
+            outboxEventDao.saveOutcome(event);
+        }
+        return delivered;
+    }
+
+    /**
+     * Mark the next deliverable events IN_FLIGHT in one short transaction.
+     */
+    private List<OutboxEvent> claim(LocalDateTime now) {
+        return Transactions.inTransaction(() -> {
+            Set<String> heldBack = outboxEventDao.findClaimedAggregates(now);
+            List<OutboxEvent> claimed = new ArrayList<>();
+            for (OutboxEvent event : outboxEventDao.lockClaimable(batchSize, now)) {
+                String key = event.getAggregateKey();
+                if (heldBack.contains(key)) {
+                    continue;
+                }
+                if (event.getNextAttemptAt() != null && event.getNextAttemptAt().isAfter(now)) {
+                    heldBack.add(key);
+                    continue;
+                }
+                event.setStatus(OutboxEvent.Status.IN_FLIGHT);
+                event.setClaimedUntil(now.plus(claimLease));
+                claimed.add(event);
+            }
+            return claimed;
+        });
+    }
+
+    /**
+     * Hand the event to every consumer that has not handled it yet, each in
+     * its own transaction together with the record that it has.
+     */
+    private void deliver(OutboxEvent event) {
+        for (OutboxConsumer consumer : consumers) {
+            String name = consumer.name();
+            if (!consumer.handles(event.getEventType()) || event.isDeliveredTo(name)) {
+                continue;
+            }
+            String deliveredTo = event.deliveredToWith(name);
+            try {
+                Transactions.inTransaction(() -> {
+                    try {
+                        consumer.handle(event);
+                    } catch (Exception e) {
+                        throw new DeliveryException(name, e);
+                    }
+                    outboxEventDao.markDelivered(event.getId(), deliveredTo);
+                });
+            } catch (DeliveryException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Handled, but the record of it did not commit
+                throw new DeliveryException(name, e);
+            }
+            event.setDeliveredTo(deliveredTo);
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, DeliveryException error, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = error.getMessage();
+        event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.Status.FAILED);
+            metrics.increment("outbox.failed");
+            logger.error("Outbox event {} ({}) failed after {} attempts",
+                    event.getId(), event.getEventType(), attempts, error);
+            return;
+        }
+
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(MAX_BACKOFF) > 0) {
+            backoff = MAX_BACKOFF;
+        }
+        event.setStatus(OutboxEvent.Status.PENDING);
+        event.setNextAttemptAt(now.plus(backoff));
+        metrics.increment("outbox.retried");
+        logger.warn("Outbox event {} ({}) failed, retry {} in {} ms",
+                event.getId(), event.getEventType(), attempts, backoff.toMillis(), error);
+    }
+
+    /**
+     * A consumer failed to handle an event.
+     */
+    private static final class DeliveryException extends RuntimeException {
+        private DeliveryException(String consumer, Exception cause) {
+            super(consumer + ": " + cause, cause);
+        }
+    }
+}
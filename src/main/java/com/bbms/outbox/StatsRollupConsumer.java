@@ -0,0 +1,39 @@
+package com.bbms.outbox;
+
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.model.OutboxEvent;
+
+import java.util.Map;
+
+/**
+ * Rolls donations and transfusions up into per-blood-group counters
+ * (stats.donations.&lt;group&gt;, stats.units_transfused.&lt;group&gt;).
+ */
+public class StatsRollupConsumer implements OutboxConsumer {
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Override
+    public boolean handles(String eventType) {
+        return Outbox.DONATION_RECORDED.equals(eventType) || Outbox.DONORS_IMPORTED.equals(eventType)
+                || Outbox.TRANSFUSION_COMPLETED.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Map<String, String> payload = event.getPayloadMap();
+        String bloodGroup = payload.get("bloodGroup");
+        if (Outbox.DONATION_RECORDED.equals(event.getEventType())) {
+            metrics.increment("stats.donations." + bloodGroup);
+        } else if (Outbox.DONORS_IMPORTED.equals(event.getEventType())) {
+            // An import batch carries its donation count per group as donations.<group>
+            payload.forEach((key, count) -> {
+                if (key.startsWith("donations.")) {
+                    metrics.add("stats." + key, Long.parseLong(count));
+                }
+            });
+        } else {
+            metrics.add("stats.units_transfused." + bloodGroup, Long.parseLong(payload.get("units")));
+        }
+    }
+}
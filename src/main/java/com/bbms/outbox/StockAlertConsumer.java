@@ -0,0 +1,22 @@
+package com.bbms.outbox;
+
+import com.bbms.alert.StockAlertService;
+import com.bbms.model.OutboxEvent;
+
+/**
+ * After a transfusion, re-evaluates the stock alert rules. The outbox also
+ * carries transfusions recorded on other workstations, which raise no
+ * local stock change events.
+ */
+public class StockAlertConsumer implements OutboxConsumer {
+
+    @Override
+    public boolean handles(String eventType) {
+        return Outbox.TRANSFUSION_COMPLETED.equals(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        StockAlertService.getInstance().evaluateSoon();
+    }
+}
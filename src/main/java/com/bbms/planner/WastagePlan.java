@@ -0,0 +1,38 @@
+package com.bbms.planner;
+
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Output of one {@link WastagePlanner} run: which lot to issue to which
+ * request, the units still expected to expire unused, and the demand
+ * current stock cannot cover.
+ */
+public record WastagePlan(List<IssueOrder> issueOrders,
+                          List<AtRiskLot> atRisk,
+                          int expectedWastageUnits,
+                          int unmetUnits,
+                          LocalDateTime generatedAt,
+                          long elapsedMillis) {
+
+    /**
+     * Issue units of a lot to a request. held is true when the units are
+     * already held for that request.
+     */
+    public record IssueOrder(Long requestId, String recipientGroup, BloodRequest.Priority priority,
+                             Long stockId, String donorGroup, BloodStock.ComponentType componentType,
+                             int units, LocalDate expiryDate, boolean held) {
+    }
+
+    /**
+     * Units of a lot that no open request will use and that expire inside
+     * the planning horizon.
+     */
+    public record AtRiskLot(Long stockId, String bloodGroup, BloodStock.ComponentType componentType,
+                            int units, LocalDate expiryDate) {
+    }
+}
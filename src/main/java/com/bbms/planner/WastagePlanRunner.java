@@ -0,0 +1,79 @@
+package com.bbms.planner;
+
+import com.bbms.config.AppConfig;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.service.BloodStockService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-plans issues every planner.interval.minutes on a background thread
+ * and keeps the latest plan for the stock screen. Expected wastage and unmet
+ * demand are published as gauges.
+ */
+public class WastagePlanRunner {
+
+    private static final Logger logger = LogManager.getLogger(WastagePlanRunner.class);
+    private static final WastagePlanRunner INSTANCE = new WastagePlanRunner();
+
+    private volatile WastagePlan latest;
+    private ScheduledExecutorService scheduler;
+
+    private WastagePlanRunner() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("planner.expected_wastage_units", () -> latest == null ? null : latest.expectedWastageUnits());
+        registry.gauge("planner.unmet_units", () -> latest == null ? null : latest.unmetUnits());
+    }
+
+    public static WastagePlanRunner getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        AppConfig config = AppConfig.getInstance();
+        if (scheduler != null || !config.getBoolean("planner.enabled", true)) {
+            return;
+        }
+        long intervalMinutes = Math.max(1, config.getLong("planner.interval.minutes", 5));
+        BloodStockService stockService = new BloodStockService();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wastage-planner");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> run(stockService), 0, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("Wastage planner runs every {} minute(s)", intervalMinutes);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * The most recent plan, or null before the first run completes.
+     */
+    public WastagePlan getLatestPlan() {
+        return latest;
+    }
+
+    private void run(BloodStockService stockService) {
+        try {
+            WastagePlan plan = stockService.planIssues();
+            latest = plan;
+            if (plan.expectedWastageUnits() > 0) {
+                logger.warn("{} unit(s) in {} lot(s) are expected to expire unused",
+                        plan.expectedWastageUnits(), plan.atRisk().size());
+            }
+        } catch (Exception e) {
+            logger.warn("Wastage planning failed", e);
+        }
+    }
+}
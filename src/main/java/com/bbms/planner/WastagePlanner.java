@@ -0,0 +1,241 @@
+package com.bbms.planner;
+
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.StockHold;
+import com.bbms.util.BloodCompatibility;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches stock lots to open blood requests so the units closest to expiry
+ * are issued first and as few as possible expire unused.
+ *
+ * Greedy with lookahead: lots are taken in expiry order and each is spent
+ * on compatible open demand straight away. Using the earliest-expiring
+ * unit whenever a compatible request exists never increases wastage, so
+ * the only real decision is which demand a lot serves. The lookahead
+ * picks the demand bucket (recipient group and component) with the most
+ * pressure, i.e. open units minus the compatible supply still to come,
+ * and breaks ties on match quality so O- is not spent on A+ when A+
+ * stock could cover it. Within a bucket, higher priority and earlier
+ * required-by dates go first. Existing holds are honoured before anything
+ * else.
+ *
+ * Runs in O(L log L + R log R) for L lots and R requests; blood groups and
+ * components are indexed into small arrays.
+ */
+public final class WastagePlanner {
+
+    private static final String[] GROUPS = BloodCompatibility.ALL_BLOOD_GROUPS;
+    private static final BloodStock.ComponentType[] COMPONENTS = BloodStock.ComponentType.values();
+    private static final Map<String, Integer> GROUP_INDEX = new HashMap<>();
+    private static final int[][] RECIPIENTS_OF = new int[GROUPS.length][];
+    private static final int[][] MATCH_PRIORITY = new int[GROUPS.length][GROUPS.length];
+
+    private static final Set<BloodRequest.RequestStatus> OPEN = EnumSet.of(
+            BloodRequest.RequestStatus.PENDING,
+            BloodRequest.RequestStatus.APPROVED,
+            BloodRequest.RequestStatus.PARTIALLY_FULFILLED);
+
+    private static final Comparator<Demand> SERVICE_ORDER = Comparator
+            .comparing((Demand d) -> d.priority).reversed()
+            .thenComparing(d -> d.requiredBy, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(d -> d.requestId);
+
+    static {
+        for (int i = 0; i < GROUPS.length; i++) {
+            GROUP_INDEX.put(GROUPS[i], i);
+        }
+        for (int donor = 0; donor < GROUPS.length; donor++) {
+            List<Integer> recipients = new ArrayList<>();
+            for (int recipient = 0; recipient < GROUPS.length; recipient++) {
+                MATCH_PRIORITY[recipient][donor] = BloodCompatibility.getMatchPriority(GROUPS[recipient], GROUPS[donor]);
+                if (MATCH_PRIORITY[recipient][donor] >= 0) {
+                    recipients.add(recipient);
+                }
+            }
+            RECIPIENTS_OF[donor] = recipients.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final int horizonDays;
+
+    /**
+     * @param horizonDays unmatched units expiring within this many days
+     *                    count as expected wastage
+     */
+    public WastagePlanner(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+
+    public WastagePlan plan(Collection<BloodStock> stock, Collection<BloodRequest> requests,
+                            Collection<StockHold> holds, LocalDate today) {
+        long start = System.nanoTime();
+
+        Map<Long, Lot> lotsById = new HashMap<>();
+        for (BloodStock s : stock) {
+            Integer group = GROUP_INDEX.get(s.getBloodGroup());
+            if (group != null && s.getComponentType() != null && s.getStatus() == BloodStock.StockStatus.AVAILABLE
+                    && s.getExpiryDate() != null && !s.getExpiryDate().isBefore(today)
+                    && s.getUnitsAvailable() != null && s.getUnitsAvailable() > 0) {
+                lotsById.put(s.getId(), new Lot(s, group));
+            }
+        }
+        Map<Long, Demand> demandsById = new HashMap<>();
+        for (BloodRequest r : requests) {
+            Integer group = GROUP_INDEX.get(r.getBloodGroup());
+            if (group != null && OPEN.contains(r.getStatus()) && r.getRemainingUnits() > 0) {
+                demandsById.put(r.getId(), new Demand(r, group));
+            }
+        }
+
+        List<WastagePlan.IssueOrder> orders = new ArrayList<>();
+
+        // Units already held for a request go to that request
+        for (StockHold hold : holds) {
+            Lot lot = lotsById.get(hold.getStockId());
+            Demand demand = demandsById.get(hold.getRequestId());
+            if (lot != null && demand != null && lot.component == demand.component) {
+                allocate(lot, demand, Math.min(hold.getUnits(), Math.min(lot.units, demand.remaining)), true, orders);
+            }
+        }
+
+        int buckets = GROUPS.length * COMPONENTS.length;
+        List<ArrayDeque<Demand>> queues = new ArrayList<>(buckets);
+        for (int b = 0; b < buckets; b++) {
+            queues.add(new ArrayDeque<>());
+        }
+        long[] openUnits = new long[buckets];
+        long[] supplyAhead = new long[buckets];
+
+        List<Demand> demands = new ArrayList<>(demandsById.values());
+        demands.sort(SERVICE_ORDER);
+        for (Demand demand : demands) {
+            if (demand.remaining > 0) {
+                int b = bucket(demand.group, demand.component);
+                queues.get(b).add(demand);
+                openUnits[b] += demand.remaining;
+            }
+        }
+
+        List<Lot> lots = new ArrayList<>(lotsById.values());
+        lots.sort(Comparator.comparing((Lot l) -> l.expiry).thenComparing(l -> l.stock.getId()));
+        for (Lot lot : lots) {
+            for (int recipient : RECIPIENTS_OF[lot.group]) {
+                supplyAhead[bucket(recipient, lot.component)] += lot.units;
+            }
+        }
+
+        List<WastagePlan.AtRiskLot> atRisk = new ArrayList<>();
+        int expectedWastage = 0;
+        LocalDate horizon = today.plusDays(horizonDays);
+
+        for (Lot lot : lots) {
+            // From here on supplyAhead only counts lots after this one
+            for (int recipient : RECIPIENTS_OF[lot.group]) {
+                supplyAhead[bucket(recipient, lot.component)] -= lot.units;
+            }
+
+            while (lot.units > 0) {
+                int best = -1;
+                long bestPressure = 0;
+                int bestMatch = 0;
+                for (int recipient : RECIPIENTS_OF[lot.group]) {
+                    int b = bucket(recipient, lot.component);
+                    if (openUnits[b] == 0) {
+                        continue;
+                    }
+                    long pressure = openUnits[b] - supplyAhead[b];
+                    int match = MATCH_PRIORITY[recipient][lot.group];
+                    if (best < 0 || pressure > bestPressure || (pressure == bestPressure && match > bestMatch)) {
+                        best = b;
+                        bestPressure = pressure;
+                        bestMatch = match;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                Demand demand = queues.get(best).peek();
+                int units = Math.min(lot.units, demand.remaining);
+                allocate(lot, demand, units, false, orders);
+                openUnits[best] -= units;
+                if (demand.remaining == 0) {
+                    queues.get(best).poll();
+                }
+            }
+
+            if (lot.units > 0 && !lot.expiry.isAfter(horizon)) {
+                atRisk.add(new WastagePlan.AtRiskLot(lot.stock.getId(), lot.stock.getBloodGroup(),
+                        lot.component, lot.units, lot.expiry));
+                expectedWastage += lot.units;
+            }
+        }
+
+        long unmet = 0;
+        for (long units : openUnits) {
+            unmet += units;
+        }
+
+        orders.sort(Comparator.comparing(WastagePlan.IssueOrder::priority).reversed()
+                .thenComparing(WastagePlan.IssueOrder::expiryDate)
+                .thenComparing(WastagePlan.IssueOrder::requestId));
+
+        return new WastagePlan(orders, atRisk, expectedWastage, (int) unmet, LocalDateTime.now(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void allocate(Lot lot, Demand demand, int units, boolean held,
+                                 List<WastagePlan.IssueOrder> orders) {
+        if (units <= 0) {
+            return;
+        }
+        orders.add(new WastagePlan.IssueOrder(demand.requestId, GROUPS[demand.group], demand.priority,
+                lot.stock.getId(), lot.stock.getBloodGroup(), lot.component, units, lot.expiry, held));
+        lot.units -= units;
+        demand.remaining -= units;
+    }
+
+    private static int bucket(int group, BloodStock.ComponentType component) {
+        return group * COMPONENTS.length + component.ordinal();
+    }
+
+    private static final class Lot {
+        private final BloodStock stock;
+        private final int group;
+        private final BloodStock.ComponentType component;
+        private final LocalDate expiry;
+        private int units;
+
+        private Lot(BloodStock stock, int group) {
+            this.stock = stock;
+            this.group = group;
+            this.component = stock.getComponentType();
+            this.expiry = stock.getExpiryDate();
+            this.units = stock.getUnitsAvailable();
+        }
+    }
+
+    private static final class Demand {
+        private final Long requestId;
+        private final int group;
+        private final BloodStock.ComponentType component;
+        private final BloodRequest.Priority priority;
+        private final LocalDate requiredBy;
+        private int remaining;
+
+        private Demand(BloodRequest request, int group) {
+            this.requestId = request.getId();
+            this.group = group;
+            this.component = request.getComponentType() != null
+                    ? request.getComponentType() : BloodStock.ComponentType.WHOLE_BLOOD;
+            this.priority = request.getPriority() != null ? request.getPriority() : BloodRequest.Priority.NORMAL;
+            this.requiredBy = request.getRequiredByDate();
+            this.remaining = request.getRemainingUnits();
+        }
+    }
+}
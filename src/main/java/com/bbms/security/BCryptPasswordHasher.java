@@ -0,0 +1,73 @@
+package com.bbms.security;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * BCrypt with a configurable cost factor ($2a$cost$...).
+ */
+public class BCryptPasswordHasher implements PasswordHasher {
+
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 31;
+
+    private final int cost;
+
+    public BCryptPasswordHasher(int cost) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("BCrypt cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+        this.cost = cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String algorithm() {
+        return "bcrypt";
+    }
+
+    @Override
+    public String hash(String plainPassword) {
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean verify(String plainPassword, String storedHash) {
+        try {
+            return BCrypt.checkpw(plainPassword, storedHash);
+        } catch (IllegalArgumentException e) {
+            // Invalid hash format
+            return false;
+        }
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return costOf(storedHash) > 0;
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        return costOf(storedHash) < cost;
+    }
+
+    /**
+     * Cost factor encoded in a BCrypt hash, or -1 if it is not one.
+     */
+    static int costOf(String storedHash) {
+        if (storedHash == null || storedHash.length() != 60 || !storedHash.startsWith("$2")) {
+            return -1;
+        }
+        int costStart = storedHash.charAt(3) == '$' ? 4 : 3;
+        if (storedHash.charAt(costStart + 2) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(storedHash.substring(costStart, costStart + 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bbms.security;
+
+/**
+ * One password hashing scheme. Implementations encode their parameters in
+ * the stored hash so old hashes stay verifiable after the cost changes.
+ */
+public interface PasswordHasher {
+
+    /** Short name used in configuration, e.g. "bcrypt". */
+    String algorithm();
+
+    String hash(String plainPassword);
+
+    boolean verify(String plainPassword, String storedHash);
+
+    /** Whether this scheme produced the stored hash. */
+    boolean supports(String storedHash);
+
+    /** Whether the stored hash was made with weaker parameters than this hasher uses. */
+    boolean needsRehash(String storedHash);
+}
@@ -0,0 +1,157 @@
+package com.bbms.security;
+
+import com.bbms.config.AppConfig;
+import com.bbms.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Hashes and verifies passwords with the configured scheme.
+ *
+ * On first use the host is benchmarked and the work factor is chosen so a
+ * single verification takes about security.hash.target.ms, never dropping
+ * below the configured minimum. Hashes made with another scheme or an older
+ * work factor still verify, and needsRehash() tells callers to upgrade them.
+ */
+public class PasswordHashingService {
+
+    private static final Logger logger = LogManager.getLogger(PasswordHashingService.class);
+
+    private static final int CALIBRATION_BCRYPT_COST = 8;
+    private static final int CALIBRATION_PBKDF2_ITERATIONS = 20_000;
+    private static final int MAX_BCRYPT_COST = 16;
+    private static final int MAX_PBKDF2_ITERATIONS = 10_000_000;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private static class Holder {
+        private static final PasswordHashingService INSTANCE = calibrate(AppConfig.getInstance());
+    }
+
+    private final PasswordHasher current;
+    private final List<PasswordHasher> hashers;
+
+    PasswordHashingService(PasswordHasher current, List<PasswordHasher> legacy) {
+        this.current = current;
+        this.hashers = new ArrayList<>();
+        this.hashers.add(current);
+        this.hashers.addAll(legacy);
+    }
+
+    public static PasswordHashingService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public String hash(String plainPassword) {
+        return current.hash(plainPassword);
+    }
+
+    public boolean verify(String plainPassword, String storedHash) {
+        if (plainPassword == null || storedHash == null) {
+            return false;
+        }
+        PasswordHasher hasher = hasherFor(storedHash);
+        return hasher != null && hasher.verify(plainPassword, storedHash);
+    }
+
+    /**
+     * Whether the stored hash should be replaced by hash(password) after a
+     * successful verification.
+     */
+    public boolean needsRehash(String storedHash) {
+        return !current.supports(storedHash) || current.needsRehash(storedHash);
+    }
+
+    /**
+     * Whether the stored value is a hash any supported scheme can verify.
+     */
+    public boolean isRecognized(String storedHash) {
+        return hasherFor(storedHash) != null;
+    }
+
+    public PasswordHasher getCurrentHasher() {
+        return current;
+    }
+
+    private PasswordHasher hasherFor(String storedHash) {
+        if (storedHash == null) {
+            return null;
+        }
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.supports(storedHash)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+
+    static PasswordHashingService calibrate(AppConfig config) {
+        String algorithm = config.getString("security.hash.algorithm", "bcrypt").toLowerCase(Locale.ROOT);
+        long targetMs = Math.max(1, config.getLong("security.hash.target.ms", 100));
+        int minCost = config.getInt("security.bcrypt.min.cost", 10);
+        int minIterations = config.getInt("security.pbkdf2.min.iterations", 310_000);
+
+        long start = System.nanoTime();
+        PasswordHashingService service;
+        if ("pbkdf2".equals(algorithm)) {
+            int iterations = calibratePbkdf2(targetMs, minIterations);
+            service = new PasswordHashingService(new Pbkdf2PasswordHasher(iterations),
+                    List.of(new BCryptPasswordHasher(minCost)));
+            MetricsRegistry.getInstance().gauge("security.pbkdf2.iterations", () -> iterations);
+            logger.info("Password hashing: PBKDF2 with {} iterations", iterations);
+        } else {
+            if (!"bcrypt".equals(algorithm)) {
+                logger.warn("Unknown security.hash.algorithm '{}', using bcrypt", algorithm);
+            }
+            int cost = calibrateBCrypt(targetMs, minCost);
+            service = new PasswordHashingService(new BCryptPasswordHasher(cost),
+                    List.of(new Pbkdf2PasswordHasher(minIterations)));
+            MetricsRegistry.getInstance().gauge("security.bcrypt.cost", () -> cost);
+            logger.info("Password hashing: BCrypt cost {}", cost);
+        }
+        logger.debug("Password hash calibration took {} ms", (System.nanoTime() - start) / 1_000_000);
+        return service;
+    }
+
+    /**
+     * Each BCrypt cost step doubles the work, so time a cheap cost and
+     * extrapolate to the highest cost that stays within the target.
+     */
+    static int calibrateBCrypt(long targetMs, int minCost) {
+        PasswordHasher probe = new BCryptPasswordHasher(CALIBRATION_BCRYPT_COST);
+        double sampleMs = timeVerification(probe);
+        int cost = CALIBRATION_BCRYPT_COST;
+        while (cost < MAX_BCRYPT_COST && sampleMs * Math.pow(2, cost + 1 - CALIBRATION_BCRYPT_COST) <= targetMs) {
+            cost++;
+        }
+        return Math.max(Math.max(minCost, BCryptPasswordHasher.MIN_COST), cost);
+    }
+
+    /**
+     * PBKDF2 work is linear in the iteration count.
+     */
+    static int calibratePbkdf2(long targetMs, int minIterations) {
+        PasswordHasher probe = new Pbkdf2PasswordHasher(CALIBRATION_PBKDF2_ITERATIONS);
+        double sampleMs = Math.max(0.01, timeVerification(probe));
+        long iterations = (long) (CALIBRATION_PBKDF2_ITERATIONS * (targetMs / sampleMs));
+        iterations = iterations / 1000 * 1000;
+        return (int) Math.min(MAX_PBKDF2_ITERATIONS, Math.max(minIterations, iterations));
+    }
+
+    /**
+     * Best of three verifications, after one warm-up hash.
+     */
+    private static double timeVerification(PasswordHasher hasher) {
+        String hash = hasher.hash(CALIBRATION_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            hasher.verify(CALIBRATION_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+}
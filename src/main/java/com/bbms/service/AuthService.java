@@ -1,56 +1,130 @@
 package com.bbms.service;
 
+import com.bbms.config.AppConfig;
 import com.bbms.dao.UserDao;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
 import com.bbms.model.User;
+import com.bbms.security.PasswordHashingService;
 import com.bbms.util.PasswordUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Authentication and session handling. Safe to call from any thread.
+ *
+ * Password verification runs on a small bounded executor so BCrypt never
+ * blocks the FX thread, lastLogin stamps are coalesced and written in the
+ * background, and the logged-in principal lives in a session cache that
+ * expires after session.timeout.minutes of inactivity.
+ */
 public class AuthService {
 
     private static final Logger logger = LogManager.getLogger(AuthService.class);
-    private static AuthService instance;
-    
+    private static final int HASH_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int HASH_QUEUE_CAPACITY = 32;
+    private static final long MAINTENANCE_INTERVAL_SECONDS = 5;
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer CHANGE_PASSWORD_TIMER = timer("changePassword");
+    private static final Timer CREATE_USER_TIMER = timer("createUser");
+    private static final Timer LOGIN_TIMER = timer("login");
+
+    private static class Holder {
+        private static final AuthService INSTANCE = new AuthService();
+    }
+
     private final UserDao userDao;
-    private User currentUser;
+    private final PasswordHashingService hashing;
+    private final ExecutorService hashExecutor;
+    private final ScheduledExecutorService maintenance;
+    private final Duration sessionTimeout;
+
+    private final ConcurrentMap<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LocalDateTime> pendingLastLogins = new ConcurrentHashMap<>();
+    private volatile String currentSessionId;
 
     private AuthService() {
         this.userDao = new UserDao();
+        this.hashing = PasswordHashingService.getInstance();
+        this.sessionTimeout = Duration.ofMinutes(
+                Math.max(1, AppConfig.getInstance().getInt("session.timeout.minutes", 30)));
+        this.hashExecutor = new ThreadPoolExecutor(HASH_THREADS, HASH_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(HASH_QUEUE_CAPACITY), daemonThreads("auth-hash"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(daemonThreads("auth-maintenance"));
+        this.maintenance.scheduleWithFixedDelay(this::runMaintenance,
+                MAINTENANCE_INTERVAL_SECONDS, MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     public static AuthService getInstance() {
-        if (instance == null) {
-            instance = new AuthService();
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Authenticate off the calling thread. Completes with false for bad
+     * credentials and exceptionally with RejectedExecutionException when too
+     * many logins are already queued.
+     */
+    public CompletableFuture<Boolean> loginAsync(String username, String password) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> LOGIN_TIMER.record(() -> doLogin(username, password)), hashExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Login rejected, too many logins in progress");
+            return CompletableFuture.failedFuture(e);
         }
-        return instance;
     }
 
     public boolean login(String username, String password) {
+        try {
+            return loginAsync(username, password).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private boolean doLogin(String username, String password) {
         if (username == null || password == null) {
             return false;
         }
 
         Optional<User> userOpt = userDao.findByUsername(username.trim());
-        
+
         if (userOpt.isEmpty()) {
             logger.warn("Login failed: User not found - {}", username);
             return false;
         }
 
         User user = userOpt.get();
-        
-        // For demo purposes, allow plain text comparison if BCrypt fails
-        boolean passwordMatch = PasswordUtil.verifyPassword(password, user.getPasswordHash());
-        if (!passwordMatch && password.equals(user.getPasswordHash())) {
-            passwordMatch = true; // Allow plain text for initial setup
-        }
-        
-        // Special case for initial admin setup
-        if (!passwordMatch && username.equals("admin") && password.equals("admin123")) {
+
+        String storedHash = user.getPasswordHash();
+        boolean passwordMatch;
+        if (hashing.isRecognized(storedHash)) {
+            passwordMatch = hashing.verify(password, storedHash);
+        } else {
+            // Legacy plain-text password; replaced by a real hash below
+            passwordMatch = password.equals(storedHash);
+        }
+
+        // Initial admin setup: only until the admin has logged in once and been rehashed
+        boolean bootstrap = false;
+        if (!passwordMatch && user.getLastLogin() == null
+                && username.equals("admin") && password.equals("admin123")) {
             passwordMatch = true;
+            bootstrap = true;
         }
 
         if (!passwordMatch) {
@@ -63,38 +137,103 @@ public class AuthService {
             return false;
         }
 
-        currentUser = user;
-        user.setLastLogin(LocalDateTime.now());
-        userDao.update(user);
-        
+        // The seeded admin hash is not a hash of admin123, so store a real one
+        // or the admin is locked out once lastLogin is set
+        if (bootstrap || hashing.needsRehash(storedHash)) {
+            rehash(user, password);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        user.setLastLogin(now);
+        pendingLastLogins.merge(user.getId(), now, (a, b) -> a.isAfter(b) ? a : b);
+
+        String sessionId = UUID.randomUUID().toString();
+        sessions.put(sessionId, new UserSession(user));
+        String previous = currentSessionId;
+        currentSessionId = sessionId;
+        if (previous != null) {
+            sessions.remove(previous);
+        }
+
         logger.info("User logged in successfully: {}", username);
         return true;
     }
 
+    /**
+     * Upgrade an outdated or plain-text hash now that we know the password.
+     * A failure here must not fail the login.
+     */
+    private void rehash(User user, String password) {
+        try {
+            String newHash = hashing.hash(password);
+            userDao.updatePasswordHash(user.getId(), newHash);
+            user.setPasswordHash(newHash);
+            MetricsRegistry.getInstance().increment("security.rehash");
+            logger.info("Upgraded password hash for user: {}", user.getUsername());
+        } catch (Exception e) {
+            logger.warn("Failed to upgrade password hash for user: " + user.getUsername(), e);
+        }
+    }
+
     public void logout() {
-        if (currentUser != null) {
-            logger.info("User logged out: {}", currentUser.getUsername());
-            currentUser = null;
+        String sessionId = currentSessionId;
+        currentSessionId = null;
+        if (sessionId != null) {
+            UserSession session = sessions.remove(sessionId);
+            if (session != null) {
+                logger.info("User logged out: {}", session.user.getUsername());
+            }
         }
     }
 
+    /**
+     * The logged-in user, or null if nobody is logged in or the session has
+     * been idle longer than session.timeout.minutes. Each call extends the session.
+     */
     public User getCurrentUser() {
-        return currentUser;
+        String sessionId = currentSessionId;
+        if (sessionId == null) {
+            return null;
+        }
+        UserSession session = sessions.get(sessionId);
+        if (session == null || session.isExpired(sessionTimeout)) {
+            expire(sessionId);
+            return null;
+        }
+        session.touch();
+        return session.user;
+    }
+
+    /**
+     * Username of the current session without extending it, or null.
+     * Used to attribute background work such as audit entries.
+     */
+    public String getCurrentUsername() {
+        String sessionId = currentSessionId;
+        UserSession session = sessionId == null ? null : sessions.get(sessionId);
+        return session == null || session.isExpired(sessionTimeout) ? null : session.user.getUsername();
     }
 
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return getCurrentUser() != null;
     }
 
     public boolean isAdmin() {
-        return currentUser != null && currentUser.getRole() == User.UserRole.ADMIN;
+        User user = getCurrentUser();
+        return user != null && user.getRole() == User.UserRole.ADMIN;
     }
 
     public boolean hasRole(User.UserRole role) {
-        return currentUser != null && currentUser.getRole() == role;
+        User user = getCurrentUser();
+        return user != null && user.getRole() == role;
     }
 
     public boolean changePassword(String oldPassword, String newPassword) {
+        return CHANGE_PASSWORD_TIMER.record(() -> doChangePassword(oldPassword, newPassword));
+    }
+
+    private boolean doChangePassword(String oldPassword, String newPassword) {
+        User currentUser = getCurrentUser();
         if (currentUser == null) {
             return false;
         }
@@ -114,6 +253,10 @@ public class AuthService {
     }
 
     public User createUser(String username, String password, String fullName, User.UserRole role) {
+        return CREATE_USER_TIMER.record(() -> doCreateUser(username, password, fullName, role));
+    }
+
+    private User doCreateUser(String username, String password, String fullName, User.UserRole role) {
         if (userDao.existsByUsername(username)) {
             throw new IllegalArgumentException("Username already exists");
         }
@@ -127,4 +270,84 @@ public class AuthService {
 
         return userDao.save(user);
     }
+
+    /**
+     * Write pending lastLogin stamps and stop background threads.
+     */
+    public void shutdown() {
+        maintenance.shutdownNow();
+        hashExecutor.shutdownNow();
+        flushLastLogins();
+    }
+
+    private void runMaintenance() {
+        try {
+            flushLastLogins();
+            sessions.forEach((id, session) -> {
+                if (session.isExpired(sessionTimeout)) {
+                    expire(id);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Auth maintenance failed", e);
+        }
+    }
+
+    /**
+     * Write all coalesced lastLogin stamps in one transaction. Entries are
+     * only removed if no newer login arrived while writing.
+     */
+    private void flushLastLogins() {
+        if (pendingLastLogins.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> batch = new HashMap<>(pendingLastLogins);
+        try {
+            userDao.updateLastLogins(batch);
+            batch.forEach(pendingLastLogins::remove);
+            logger.debug("Flushed lastLogin for {} user(s)", batch.size());
+        } catch (Exception e) {
+            logger.warn("Failed to write lastLogin, will retry", e);
+        }
+    }
+
+    private void expire(String sessionId) {
+        UserSession session = sessions.remove(sessionId);
+        if (sessionId.equals(currentSessionId)) {
+            currentSessionId = null;
+        }
+        if (session != null) {
+            logger.info("Session expired for user: {}", session.user.getUsername());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.AuthService." + method);
+    }
+
+    private static final class UserSession {
+        private final User user;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private UserSession(User user) {
+            this.user = user;
+        }
+
+        private void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        private boolean isExpired(Duration timeout) {
+            return System.nanoTime() - lastAccessNanos > timeout.toNanos();
+        }
+    }
 }
@@ -1,7 +1,16 @@
 package com.bbms.service;
 
+import com.bbms.config.AppConfig;
+import com.bbms.dao.BloodRequestDao;
 import com.bbms.dao.BloodStockDao;
+import com.bbms.dao.Transactions;
+import com.bbms.forecast.ForecastService;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
 import com.bbms.model.BloodStock;
+import com.bbms.model.BloodUnit;
+import com.bbms.planner.WastagePlan;
+import com.bbms.planner.WastagePlanner;
 import com.bbms.util.BloodCompatibility;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,91 +21,214 @@ import java.util.*;
 public class BloodStockService {
 
     private static final Logger logger = LogManager.getLogger(BloodStockService.class);
-    private static final int LOW_STOCK_THRESHOLD = 5;
     private static final int EXPIRY_WARNING_DAYS = 7;
 
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer ADD_FROM_DONATION_TIMER = timer("addFromDonation");
+    private static final Timer DELETE_STOCK_TIMER = timer("deleteStock");
+    private static final Timer FIND_ALL_TIMER = timer("findAll");
+    private static final Timer FIND_AVAILABLE_TIMER = timer("findAvailable");
+    private static final Timer FIND_BY_BLOOD_GROUP_TIMER = timer("findByBloodGroup");
+    private static final Timer FIND_BY_ID_TIMER = timer("findById");
+    private static final Timer FIND_COMPATIBLE_STOCK_TIMER = timer("findCompatibleStock");
+    private static final Timer FIND_FILTERED_TIMER = timer("findFiltered");
+    private static final Timer GET_EXPIRED_STOCK_TIMER = timer("getExpiredStock");
+    private static final Timer GET_EXPIRING_SOON_TIMER = timer("getExpiringSoon");
+    private static final Timer GET_LOW_STOCK_LEVELS_TIMER = timer("getLowStockLevels");
+    private static final Timer GET_STOCK_SUMMARY_TIMER = timer("getStockSummary");
+    private static final Timer GET_TOTAL_UNITS_TIMER = timer("getTotalUnits");
+    private static final Timer ISSUE_STOCK_TIMER = timer("issueStock");
+    private static final Timer MARK_EXPIRED_STOCKS_TIMER = timer("markExpiredStocks");
+    private static final Timer PLAN_ISSUES_TIMER = timer("planIssues");
+    private static final Timer SAVE_STOCK_TIMER = timer("saveStock");
+
     private final BloodStockDao bloodStockDao;
+    private final StockLedgerService stockLedgerService;
+    private final ReservationService reservationService;
+    private final BloodRequestDao bloodRequestDao;
+    private final ForecastService forecastService;
 
     public BloodStockService() {
-        this.bloodStockDao = new BloodStockDao();
+        this(new BloodStockDao());
+    }
+
+    public BloodStockService(BloodStockDao bloodStockDao) {
+        this(bloodStockDao, new StockLedgerService());
+    }
+
+    public BloodStockService(BloodStockDao bloodStockDao, StockLedgerService stockLedgerService) {
+        this(bloodStockDao, stockLedgerService, ReservationService.getInstance(), new BloodRequestDao(),
+                ForecastService.getInstance());
+    }
+
+    public BloodStockService(BloodStockDao bloodStockDao, StockLedgerService stockLedgerService,
+                             ReservationService reservationService, BloodRequestDao bloodRequestDao,
+                             ForecastService forecastService) {
+        this.bloodStockDao = bloodStockDao;
+        this.stockLedgerService = stockLedgerService;
+        this.reservationService = reservationService;
+        this.bloodRequestDao = bloodRequestDao;
+        this.forecastService = forecastService;
     }
 
     public BloodStock saveStock(BloodStock stock) {
-        if (stock.getId() == null) {
-            logger.info("Adding blood stock: {} {}", stock.getBloodGroup(), stock.getComponentType());
-            return bloodStockDao.save(stock);
-        } else {
-            logger.info("Updating blood stock ID: {}", stock.getId());
-            return bloodStockDao.update(stock);
-        }
+        return SAVE_STOCK_TIMER.record(() -> {
+            if (stock.getId() == null) {
+                logger.info("Adding blood stock: {} {}", stock.getBloodGroup(), stock.getComponentType());
+                return saveLot(stock);
+            } else {
+                logger.info("Updating blood stock ID: {}", stock.getId());
+                return updateLot(stock);
+            }
+        });
     }
 
+    /**
+     * Save an edited lot and move its bags to match in one transaction: a
+     * lot marked expired or discarded discards its bags, a changed unit
+     * count receives or discards the difference.
+     */
+    private BloodStock updateLot(BloodStock stock) {
+        return Transactions.inTransaction(() -> {
+            BloodStock current = bloodStockDao.lock(stock.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown blood stock: " + stock.getId()));
+            int previousUnits = current.getUnitsAvailable();
+            BloodStock saved = bloodStockDao.update(stock);
+            if (saved.getStatus() == BloodStock.StockStatus.EXPIRED
+                    || saved.getStatus() == BloodStock.StockStatus.DISCARDED) {
+                stockLedgerService.discardLot(saved, saved.getStatus().name());
+            } else {
+                stockLedgerService.adjustLot(saved, previousUnits, "ADJUSTED");
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Delete a lot. Once its bags are in the ledger the lot is kept for
+     * their history: the bags still held are discarded and the lot is
+     * marked discarded instead.
+     */
     public void deleteStock(Long id) {
-        bloodStockDao.deleteById(id);
-        logger.info("Deleted blood stock ID: {}", id);
+        DELETE_STOCK_TIMER.run(() -> Transactions.inTransaction(() -> {
+            Optional<BloodStock> lot = bloodStockDao.lock(id);
+            if (lot.isEmpty()) {
+                return;
+            }
+            if (!stockLedgerService.hasBags(id)) {
+                bloodStockDao.delete(lot.get());
+                logger.info("Deleted blood stock ID: {}", id);
+                return;
+            }
+            BloodStock stock = lot.get();
+            stockLedgerService.discardLot(stock, "DELETED");
+            stock.setUnitsAvailable(0);
+            stock.setStatus(BloodStock.StockStatus.DISCARDED);
+            bloodStockDao.update(stock);
+            logger.info("Discarded blood stock ID: {} (kept for its bag history)", id);
+        }));
     }
 
     public Optional<BloodStock> findById(Long id) {
-        return bloodStockDao.findById(id);
+        return FIND_BY_ID_TIMER.record(() -> bloodStockDao.findById(id));
     }
 
     public List<BloodStock> findAll() {
-        return bloodStockDao.findAll();
+        return FIND_ALL_TIMER.record(bloodStockDao::findAll);
+    }
+
+    /**
+     * Lots of any status matching the stock screen's filters; null matches
+     * all.
+     */
+    public List<BloodStock> findFiltered(String bloodGroup, BloodStock.ComponentType componentType) {
+        return FIND_FILTERED_TIMER.record(() -> bloodStockDao.findFiltered(bloodGroup, componentType));
     }
 
     public List<BloodStock> findAvailable() {
-        return bloodStockDao.findAvailable();
+        return FIND_AVAILABLE_TIMER.record(bloodStockDao::findAvailable);
     }
 
     public List<BloodStock> findByBloodGroup(String bloodGroup) {
-        return bloodStockDao.findByBloodGroup(bloodGroup);
+        return FIND_BY_BLOOD_GROUP_TIMER.record(() -> bloodStockDao.findByBloodGroup(bloodGroup));
     }
 
     public int getTotalUnits(String bloodGroup) {
-        return bloodStockDao.getTotalUnitsByBloodGroup(bloodGroup);
+        return GET_TOTAL_UNITS_TIMER.record(() -> bloodStockDao.getTotalUnitsByBloodGroup(bloodGroup));
     }
 
     /**
      * Get stock summary grouped by blood group.
      */
     public Map<String, Integer> getStockSummary() {
-        Map<String, Integer> summary = new LinkedHashMap<>();
-        for (String bloodGroup : BloodCompatibility.ALL_BLOOD_GROUPS) {
-            summary.put(bloodGroup, getTotalUnits(bloodGroup));
-        }
-        return summary;
+        return GET_STOCK_SUMMARY_TIMER.record(() -> {
+            Map<String, Integer> summary = new LinkedHashMap<>();
+            for (String bloodGroup : BloodCompatibility.ALL_BLOOD_GROUPS) {
+                summary.put(bloodGroup, getTotalUnits(bloodGroup));
+            }
+            return summary;
+        });
     }
 
     /**
      * Get stocks expiring within specified days.
      */
     public List<BloodStock> getExpiringSoon() {
-        return bloodStockDao.findExpiringSoon(EXPIRY_WARNING_DAYS);
+        return GET_EXPIRING_SOON_TIMER.record(() -> bloodStockDao.findExpiringSoon(EXPIRY_WARNING_DAYS));
     }
 
     /**
-     * Get stocks that are low.
+     * Blood groups and components whose unexpired available units are
+     * below their forecast-driven low-stock threshold. Series with no stock
+     * are only reported once they have demand history.
      */
-    public List<BloodStock> getLowStock() {
-        return bloodStockDao.findLowStock(LOW_STOCK_THRESHOLD);
+    public List<StockLevel> getLowStockLevels() {
+        return GET_LOW_STOCK_LEVELS_TIMER.record(() -> {
+            Map<String, Integer> units = new HashMap<>();
+            for (Object[] row : bloodStockDao.sumAvailableByGroupAndComponent()) {
+                units.put(row[0] + "|" + row[1], ((Number) row[2]).intValue());
+            }
+            List<StockLevel> low = new ArrayList<>();
+            for (String bloodGroup : BloodCompatibility.ALL_BLOOD_GROUPS) {
+                for (BloodStock.ComponentType componentType : BloodStock.ComponentType.values()) {
+                    Integer stocked = units.get(bloodGroup + "|" + componentType);
+                    if (stocked == null && !forecastService.isTrained(bloodGroup, componentType)) {
+                        continue;
+                    }
+                    int available = stocked == null ? 0 : stocked;
+                    int threshold = forecastService.getLowStockThreshold(bloodGroup, componentType);
+                    if (available < threshold) {
+                        low.add(new StockLevel(bloodGroup, componentType, available, threshold));
+                    }
+                }
+            }
+            return low;
+        });
     }
 
     /**
      * Get expired stocks.
      */
     public List<BloodStock> getExpiredStock() {
-        return bloodStockDao.findExpired();
+        return GET_EXPIRED_STOCK_TIMER.record(bloodStockDao::findExpired);
     }
 
     /**
      * Mark expired stocks.
      */
     public int markExpiredStocks() {
+        return MARK_EXPIRED_STOCKS_TIMER.record(this::doMarkExpiredStocks);
+    }
+
+    private int doMarkExpiredStocks() {
         List<BloodStock> expired = getExpiredStock();
         int count = 0;
         for (BloodStock stock : expired) {
-            stock.setStatus(BloodStock.StockStatus.EXPIRED);
-            bloodStockDao.update(stock);
+            Transactions.inTransaction(() -> {
+                stock.setStatus(BloodStock.StockStatus.EXPIRED);
+                bloodStockDao.update(stock);
+                stockLedgerService.discardLot(stock, "EXPIRED");
+            });
             count++;
         }
         if (count > 0) {
@@ -110,6 +242,12 @@ public class BloodStockService {
      */
     public BloodStock addFromDonation(String bloodGroup, BloodStock.ComponentType componentType, 
                                        int units, int volumeMl, String storageLocation) {
+        return ADD_FROM_DONATION_TIMER.record(() ->
+                createFromDonation(bloodGroup, componentType, units, volumeMl, storageLocation));
+    }
+
+    private BloodStock createFromDonation(String bloodGroup, BloodStock.ComponentType componentType,
+                                          int units, int volumeMl, String storageLocation) {
         BloodStock stock = new BloodStock();
         stock.setBloodGroup(bloodGroup);
         stock.setComponentType(componentType);
@@ -122,41 +260,111 @@ public class BloodStockService {
         // Set expiry based on component type
         stock.setExpiryDate(calculateExpiryDate(componentType));
         
-        return bloodStockDao.save(stock);
+        return saveLot(stock);
     }
 
     /**
-     * Deduct stock for a transfusion.
+     * Save a new lot and receive its bags into the ledger in one transaction.
+     */
+    private BloodStock saveLot(BloodStock stock) {
+        return Transactions.inTransaction(() -> {
+            BloodStock saved = bloodStockDao.save(stock);
+            stockLedgerService.receiveLot(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * Deduct stock, issuing the bags through the ledger.
      */
     public boolean deductStock(Long stockId, int units) {
-        Optional<BloodStock> stockOpt = bloodStockDao.findById(stockId);
+        return issueStock(stockId, units, "lot:" + stockId) != null;
+    }
+
+    /**
+     * Issue units from a lot that are not held for any request.
+     */
+    public List<BloodUnit> issueStock(Long stockId, int units, String reference) {
+        return issueStock(stockId, null, units, reference);
+    }
+
+    /**
+     * Issue units from a lot to a request: its bags are issued earliest
+     * expiry first and the lot's count goes down, in one transaction.
+     * Units held for other requests are off limits; the request's own hold
+     * on the lot is used first and then dropped. Returns the issued bags,
+     * or null if the lot is gone or has fewer free units.
+     */
+    public List<BloodUnit> issueStock(Long stockId, Long requestId, int units, String reference) {
+        return ISSUE_STOCK_TIMER.record(() ->
+                Transactions.inTransaction(() -> doIssueStock(stockId, requestId, units, reference)));
+    }
+
+    private List<BloodUnit> doIssueStock(Long stockId, Long requestId, int units, String reference) {
+        Optional<BloodStock> stockOpt = bloodStockDao.lock(stockId);
         if (stockOpt.isEmpty()) {
-            return false;
+            return null;
         }
 
         BloodStock stock = stockOpt.get();
-        if (stock.getUnitsAvailable() < units) {
-            return false;
+        if (stock.getUnitsAvailable() - reservationService.heldForOthers(stockId, requestId) < units) {
+            return null;
         }
 
+        List<BloodUnit> bags = stockLedgerService.issueFromLot(stock, requestId, units, reference);
+        if (requestId != null) {
+            reservationService.consume(requestId, stockId);
+        }
         stock.setUnitsAvailable(stock.getUnitsAvailable() - units);
         bloodStockDao.update(stock);
         logger.info("Deducted {} units from stock ID: {}", units, stockId);
-        return true;
+        return bags;
     }
 
     /**
-     * Find available stock for a recipient blood group.
+     * Find available stock for a recipient blood group, less every hold.
      */
-    public List<BloodStock> findCompatibleStock(String recipientBloodGroup, BloodStock.ComponentType componentType) {
-        Set<String> compatibleGroups = BloodCompatibility.getCompatibleDonorGroups(recipientBloodGroup);
-        
-        return findAvailable().stream()
-                .filter(s -> compatibleGroups.contains(s.getBloodGroup()))
-                .filter(s -> componentType == null || s.getComponentType() == componentType)
-                .filter(s -> !s.isExpired())
-                .sorted(Comparator.comparing(BloodStock::getExpiryDate)) // Use oldest first
-                .toList();
+    public List<AvailableStock> findCompatibleStock(String recipientBloodGroup,
+                                                    BloodStock.ComponentType componentType) {
+        return findCompatibleStock(recipientBloodGroup, componentType, null);
+    }
+
+    /**
+     * Find available stock for a request: each lot with the units not held
+     * for other requests. Lots whose units are all held are left out; the
+     * request's own holds still count as available to it.
+     */
+    public List<AvailableStock> findCompatibleStock(String recipientBloodGroup,
+                                                    BloodStock.ComponentType componentType, Long requestId) {
+        return FIND_COMPATIBLE_STOCK_TIMER.record(() -> {
+            Set<String> compatibleGroups = BloodCompatibility.getCompatibleDonorGroups(recipientBloodGroup);
+            Map<Long, Integer> held = reservationService.heldByLot(requestId);
+
+            return findAvailable().stream()
+                    .filter(s -> compatibleGroups.contains(s.getBloodGroup()))
+                    .filter(s -> componentType == null || s.getComponentType() == componentType)
+                    .filter(s -> !s.isExpired())
+                    .map(s -> new AvailableStock(s, s.getUnitsAvailable() - held.getOrDefault(s.getId(), 0)))
+                    .filter(s -> s.freeUnits() > 0)
+                    .sorted(Comparator.comparing(s -> s.lot().getExpiryDate())) // Use oldest first
+                    .toList();
+        });
+    }
+
+    /**
+     * Plan which lots to issue to which open requests so the fewest units
+     * expire unused. Unmatched units expiring within planner.horizon.days
+     * are reported as expected wastage.
+     */
+    public WastagePlan planIssues() {
+        return PLAN_ISSUES_TIMER.record(() -> {
+            int horizonDays = Math.max(1, AppConfig.getInstance().getInt("planner.horizon.days", 7));
+            WastagePlan plan = new WastagePlanner(horizonDays).plan(findAvailable(), bloodRequestDao.findOpen(),
+                    reservationService.getLiveHolds(), LocalDate.now());
+            logger.debug("Planned {} issue order(s) in {} ms, {} unit(s) at risk, {} unit(s) unmet",
+                    plan.issueOrders().size(), plan.elapsedMillis(), plan.expectedWastageUnits(), plan.unmetUnits());
+            return plan;
+        });
     }
 
     /**
@@ -172,48 +380,16 @@ public class BloodStockService {
         };
     }
 
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.BloodStockService." + method);
+    }
+
     /**
-     * Get alerts for stock issues.
+     * A lot and how many of its units are not held for other requests.
      */
-    public List<StockAlert> getAlerts() {
-        List<StockAlert> alerts = new ArrayList<>();
-
-        // Low stock alerts
-        for (BloodStock stock : getLowStock()) {
-            alerts.add(new StockAlert(
-                    StockAlert.AlertType.LOW_STOCK,
-                    String.format("Low stock: %s %s - only %d units left",
-                            stock.getBloodGroup(), stock.getComponentType(), stock.getUnitsAvailable()),
-                    stock
-            ));
-        }
-
-        // Expiring soon alerts
-        for (BloodStock stock : getExpiringSoon()) {
-            alerts.add(new StockAlert(
-                    StockAlert.AlertType.EXPIRING_SOON,
-                    String.format("Expiring soon: %s %s expires on %s",
-                            stock.getBloodGroup(), stock.getComponentType(), stock.getExpiryDate()),
-                    stock
-            ));
-        }
-
-        // Expired alerts
-        for (BloodStock stock : getExpiredStock()) {
-            alerts.add(new StockAlert(
-                    StockAlert.AlertType.EXPIRED,
-                    String.format("Expired: %s %s expired on %s",
-                            stock.getBloodGroup(), stock.getComponentType(), stock.getExpiryDate()),
-                    stock
-            ));
-        }
-
-        return alerts;
+    public record AvailableStock(BloodStock lot, int freeUnits) {
     }
 
-    public record StockAlert(AlertType type, String message, BloodStock stock) {
-        public enum AlertType {
-            LOW_STOCK, EXPIRING_SOON, EXPIRED
-        }
+    public record StockLevel(String bloodGroup, BloodStock.ComponentType componentType, int units, int threshold) {
     }
 }
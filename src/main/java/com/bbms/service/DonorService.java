@@ -2,135 +2,250 @@ package com.bbms.service;
 
 import com.bbms.dao.DonorDao;
 import com.bbms.dao.DonationDao;
+import com.bbms.dao.Transactions;
+import com.bbms.dedup.DonorProfile;
+import com.bbms.dedup.DuplicateDetector;
+import com.bbms.dedup.DuplicateMatch;
+import com.bbms.deferral.DeferralService;
+import com.bbms.eligibility.Candidate;
+import com.bbms.eligibility.EligibilityPipeline;
+import com.bbms.eligibility.EligibilityPolicy;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
 import com.bbms.model.Donor;
+import com.bbms.model.DonorStats;
 import com.bbms.model.Donation;
 import com.bbms.model.BloodStock;
+import com.bbms.outbox.Outbox;
+import com.bbms.stats.DonorStatsService;
 import com.bbms.util.BloodCompatibility;
+import com.bbms.util.KeysetWindow;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class DonorService {
 
     private static final Logger logger = LogManager.getLogger(DonorService.class);
-    private static final int DONATION_COOLDOWN_DAYS = 90;
-    private static final double MIN_WEIGHT_KG = 50.0;
-    private static final int MIN_AGE = 18;
-    private static final int MAX_AGE = 65;
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer CHECK_ELIGIBILITY_TIMER = timer("checkEligibility");
+    private static final Timer DELETE_DONOR_TIMER = timer("deleteDonor");
+    private static final Timer FIND_ALL_TIMER = timer("findAll");
+    private static final Timer FIND_BY_BLOOD_GROUP_TIMER = timer("findByBloodGroup");
+    private static final Timer FIND_BY_ID_TIMER = timer("findById");
+    private static final Timer FIND_COMPATIBLE_DONORS_TIMER = timer("findCompatibleDonors");
+    private static final Timer FIND_DONORS_READY_TO_DONATE_TIMER = timer("findDonorsReadyToDonate");
+    private static final Timer FIND_ELIGIBLE_BY_BLOOD_GROUP_TIMER = timer("findEligibleByBloodGroup");
+    private static final Timer FIND_ELIGIBLE_DONORS_TIMER = timer("findEligibleDonors");
+    private static final Timer FIND_PAGE_TIMER = timer("findPage");
+    private static final Timer FIND_POSSIBLE_DUPLICATES_TIMER = timer("findPossibleDuplicates");
+    private static final Timer GET_DONATION_HISTORY_TIMER = timer("getDonationHistory");
+    private static final Timer GET_TOTAL_DONOR_COUNT_TIMER = timer("getTotalDonorCount");
+    private static final Timer MERGE_DONORS_TIMER = timer("mergeDonors");
+    private static final Timer RECORD_DONATION_TIMER = timer("recordDonation");
+    private static final Timer SAVE_DONOR_TIMER = timer("saveDonor");
+    private static final Timer SCAN_FOR_DUPLICATES_TIMER = timer("scanForDuplicates");
+    private static final Timer SCREEN_AT_CHECK_IN_TIMER = timer("screenAtCheckIn");
+    private static final Timer SCREEN_ELIGIBILITY_TIMER = timer("screenEligibility");
+    private static final Timer SEARCH_TIMER = timer("search");
 
     private final DonorDao donorDao;
     private final DonationDao donationDao;
+    private final EligibilityPipeline eligibility;
+    private final DeferralService deferralService;
+    private final DuplicateDetector duplicateDetector;
+    private final DonorStatsService statsService;
 
     public DonorService() {
-        this.donorDao = new DonorDao();
-        this.donationDao = new DonationDao();
+        this(new DonorDao(), new DonationDao(), DeferralService.getInstance(), DonorStatsService.getInstance());
+    }
+
+    /**
+     * A service over the given DAOs and deferrals, for tests; the screens
+     * use the no-arg constructor.
+     */
+    public DonorService(DonorDao donorDao, DonationDao donationDao, DeferralService deferralService,
+                        DonorStatsService statsService) {
+        this.donorDao = donorDao;
+        this.donationDao = donationDao;
+        this.eligibility = EligibilityPipeline.configured();
+        this.deferralService = deferralService;
+        this.duplicateDetector = DuplicateDetector.configured();
+        this.statsService = statsService;
     }
 
     public Donor saveDonor(Donor donor) {
-        validateDonor(donor);
-        
-        if (donor.getId() == null) {
-            logger.info("Creating new donor: {}", donor.getFullName());
-            return donorDao.save(donor);
-        } else {
-            logger.info("Updating donor: {}", donor.getFullName());
-            return donorDao.update(donor);
-        }
+        return SAVE_DONOR_TIMER.record(() -> {
+            validateDonor(donor);
+
+            Donor saved;
+            if (donor.getId() == null) {
+                logger.info("Creating new donor: {}", donor.getFullName());
+                saved = donorDao.save(donor);
+            } else {
+                logger.info("Updating donor: {}", donor.getFullName());
+                saved = donorDao.update(donor);
+            }
+            reportDuplicates(saved);
+            return saved;
+        });
     }
 
     public void deleteDonor(Long id) {
-        donorDao.deleteById(id);
+        DELETE_DONOR_TIMER.run(() -> donorDao.deleteById(id));
         logger.info("Deleted donor with ID: {}", id);
     }
 
     public Optional<Donor> findById(Long id) {
-        return donorDao.findById(id);
+        return FIND_BY_ID_TIMER.record(() -> donorDao.findById(id));
     }
 
     public List<Donor> findAll() {
-        return donorDao.findAll();
+        return FIND_ALL_TIMER.record(donorDao::findAll);
     }
 
     public List<Donor> findByBloodGroup(String bloodGroup) {
-        return donorDao.findByBloodGroup(bloodGroup);
+        return FIND_BY_BLOOD_GROUP_TIMER.record(() -> donorDao.findByBloodGroup(bloodGroup));
     }
 
     public List<Donor> findEligibleDonors() {
-        return donorDao.findEligibleDonors();
+        return FIND_ELIGIBLE_DONORS_TIMER.record(donorDao::findEligibleDonors);
     }
 
     public List<Donor> findEligibleByBloodGroup(String bloodGroup) {
-        return donorDao.findEligibleByBloodGroup(bloodGroup);
+        return FIND_ELIGIBLE_BY_BLOOD_GROUP_TIMER.record(() -> donorDao.findEligibleByBloodGroup(bloodGroup));
     }
 
     public List<Donor> findDonorsReadyToDonate() {
-        return donorDao.findReadyToDonate();
+        return FIND_DONORS_READY_TO_DONATE_TIMER.record(donorDao::findReadyToDonate);
     }
 
     public List<Donor> search(String keyword) {
-        return donorDao.search(keyword);
+        return SEARCH_TIMER.record(() -> donorDao.search(keyword));
+    }
+
+    /**
+     * Keyset pages of donors by name for the donor list; null keyword or
+     * blood group means no filter.
+     */
+    public KeysetWindow.PageSource<Donor> pages(String keyword, String bloodGroup) {
+        return new KeysetWindow.PageSource<>() {
+            @Override
+            public List<Donor> after(Donor key, int limit) {
+                return FIND_PAGE_TIMER.record(() -> donorDao.findPageAfter(keyword, bloodGroup, key, limit));
+            }
+
+            @Override
+            public List<Donor> before(Donor key, int limit) {
+                return FIND_PAGE_TIMER.record(() -> donorDao.findPageBefore(keyword, bloodGroup, key, limit));
+            }
+        };
     }
 
     /**
      * Find compatible donors for a recipient blood group.
      */
     public List<Donor> findCompatibleDonors(String recipientBloodGroup) {
-        var compatibleGroups = BloodCompatibility.getCompatibleDonorGroups(recipientBloodGroup);
-        return donorDao.findAll().stream()
-                .filter(d -> compatibleGroups.contains(d.getBloodGroup()))
-                .filter(Donor::canDonate)
-                .toList();
+        // Same rule as Donor.canDonate: eligible and more than 90 days since the last donation
+        return FIND_COMPATIBLE_DONORS_TIMER.record(() -> donorDao.findReadyByBloodGroups(
+                BloodCompatibility.getCompatibleDonorGroups(recipientBloodGroup), LocalDate.now().minusDays(90)));
     }
 
     /**
      * Check if a donor is eligible to donate.
      */
     public DonorEligibility checkEligibility(Donor donor) {
+        return CHECK_ELIGIBILITY_TIMER.record(() -> evaluateEligibility(donor));
+    }
+
+    private DonorEligibility evaluateEligibility(Donor donor) {
         if (donor == null) {
             return new DonorEligibility(false, "Donor not found");
         }
 
-        // Check if donor is marked as ineligible
-        if (!donor.getIsEligible()) {
-            return new DonorEligibility(false, "Donor is marked as ineligible");
+        LocalDate today = LocalDate.now();
+        Candidate candidate = new Candidate().load(donor)
+                .deferredUntil(deferralService.deferredUntil(donor.getId(), today));
+        EligibilityPipeline.Verdict verdict = eligibility.on(today).evaluate(candidate);
+        if (verdict.eligible()) {
+            return new DonorEligibility(true, "Donor is eligible to donate");
         }
+        return new DonorEligibility(false, String.join("; ", verdict.reasons()));
+    }
 
-        // Check age
-        if (donor.getDateOfBirth() != null) {
-            int age = donor.getAge();
-            if (age < MIN_AGE) {
-                return new DonorEligibility(false, "Donor must be at least 18 years old");
-            }
-            if (age > MAX_AGE) {
-                return new DonorEligibility(false, "Donor must be 65 years or younger");
-            }
-        }
+    /**
+     * Screen a batch of donors, e.g. a drive registration import, with the
+     * same rules and recorded deferrals as {@link #checkEligibility}. Bit i
+     * of the result is set when donors[i] may donate today.
+     */
+    public BitSet screenEligibility(List<Donor> donors) {
+        return SCREEN_ELIGIBILITY_TIMER.record(() -> {
+            LocalDate today = LocalDate.now();
+            return eligibility.on(today).eligible(donors, (donor, candidate) -> candidate.load(donor)
+                    .deferredUntil(deferralService.deferredUntil(donor.getId(), today)));
+        });
+    }
 
-        // Check weight
-        if (donor.getWeightKg() != null && donor.getWeightKg() < MIN_WEIGHT_KG) {
-            return new DonorEligibility(false, "Donor must weigh at least 50 kg");
-        }
+    /**
+     * Conditions that can be reported at check-in; see
+     * {@link DeferralService#getDeferralConditions()}.
+     */
+    public List<String> getDeferralConditions() {
+        return deferralService.getDeferralConditions();
+    }
 
-        // Check cooldown period
-        if (donor.getLastDonationDate() != null) {
-            LocalDate nextEligibleDate = donor.getLastDonationDate().plusDays(DONATION_COOLDOWN_DAYS);
-            if (nextEligibleDate.isAfter(LocalDate.now())) {
-                long daysRemaining = LocalDate.now().until(nextEligibleDate).getDays();
-                return new DonorEligibility(false, 
-                        String.format("Donor must wait %d more days before next donation", daysRemaining));
+    /**
+     * Check-in screening: defer the donor from today for each condition
+     * they report, in one transaction, then check eligibility with the new
+     * deferrals. A condition the donor is already deferred for is not
+     * recorded again; an unknown one throws IllegalArgumentException before
+     * anything is written.
+     */
+    public DonorEligibility screenAtCheckIn(Donor donor, Collection<String> conditions, String notes) {
+        if (donor.getId() == null) {
+            throw new IllegalArgumentException("Save the donor before screening");
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        for (String condition : conditions) {
+            String code = EligibilityPolicy.normalizeCondition(condition);
+            if (!deferralService.getDeferralConditions().contains(code)) {
+                throw new IllegalArgumentException("Unknown deferral condition: " + condition);
             }
+            codes.add(code);
         }
-
-        return new DonorEligibility(true, "Donor is eligible to donate");
+        SCREEN_AT_CHECK_IN_TIMER.run(() -> {
+            LocalDate today = LocalDate.now();
+            deferralService.getActiveDeferrals(donor.getId()).forEach(d -> codes.remove(d.getCondition()));
+            Transactions.inTransaction(() -> {
+                for (String code : codes) {
+                    deferralService.defer(donor.getId(), code, today, notes);
+                }
+            });
+            if (!codes.isEmpty()) {
+                logger.info("Check-in screening deferred donor {} for {}", donor.getId(), codes);
+            }
+        });
+        return checkEligibility(donor);
     }
 
     /**
      * Record a new donation.
      */
     public Donation recordDonation(Donor donor, Donation donation) {
+        return RECORD_DONATION_TIMER.record(() -> doRecordDonation(donor, donation));
+    }
+
+    private Donation doRecordDonation(Donor donor, Donation donation) {
         DonorEligibility eligibility = checkEligibility(donor);
         if (!eligibility.isEligible()) {
             throw new IllegalStateException(eligibility.getReason());
@@ -141,22 +256,147 @@ public class DonorService {
         donation.setDonationDate(LocalDate.now());
         donation.setStatus(Donation.DonationStatus.COMPLETED);
 
-        Donation saved = donationDao.save(donation);
+        // Donation, donor update and outbox event commit together; reactions run later
+        return Transactions.inTransaction(() -> {
+            Donation saved = donationDao.save(donation);
 
-        // Update donor's last donation date and count
-        donor.setLastDonationDate(LocalDate.now());
-        donor.setTotalDonations(donor.getTotalDonations() + 1);
-        donorDao.update(donor);
+            // Update donor's last donation date and count (eligibility depends on it)
+            donor.setLastDonationDate(LocalDate.now());
+            donor.setTotalDonations(donor.getTotalDonations() + 1);
+            donorDao.update(donor);
+            statsService.recordDonation(donor.getId(), saved);
 
-        logger.info("Recorded donation from donor: {} ({})", donor.getFullName(), donor.getBloodGroup());
-        return saved;
+            Outbox.record("Donor", donor.getId(), Outbox.DONATION_RECORDED, Map.of(
+                    "donationId", String.valueOf(saved.getId()),
+                    "donorName", String.valueOf(donor.getFullName()),
+                    "bloodGroup", donor.getBloodGroup(),
+                    "componentType", String.valueOf(saved.getComponentType()),
+                    "volumeMl", String.valueOf(saved.getVolumeMl())));
+            return saved;
+        });
+    }
+
+    /**
+     * Existing donors that probably describe the same person, strongest
+     * match first. Only donors sharing a phone number, or a date of birth
+     * and blood group, are considered.
+     */
+    public List<DuplicateMatch> findPossibleDuplicates(Donor donor) {
+        return FIND_POSSIBLE_DUPLICATES_TIMER.record(() -> {
+            DonorProfile profile = DonorProfile.of(donor);
+            List<DonorProfile> candidates = donorDao.findBlockCandidates(profile.phoneKey(),
+                            donor.getDateOfBirth(), donor.getBloodGroup()).stream()
+                    .map(DonorProfile::of)
+                    .toList();
+            return duplicateDetector.matchesFor(profile, candidates);
+        });
+    }
+
+    /**
+     * Compare every donor against the others it shares a block with.
+     */
+    public DuplicateDetector.Scan scanForDuplicates() {
+        return SCAN_FOR_DUPLICATES_TIMER.record(() -> {
+            List<DonorProfile> profiles = new ArrayList<>();
+            donorDao.scanMatchingFields(row -> profiles.add(DonorProfile.of((Long) row[0], (String) row[1],
+                    (String) row[2], (LocalDate) row[3], (String) row[4], (String) row[5])));
+            DuplicateDetector.Scan scan = duplicateDetector.scan(profiles);
+            logger.info("Duplicate scan of {} donors: {} possible duplicate(s) in {} comparisons{}",
+                    scan.donors(), scan.matches().size(), scan.comparisons(),
+                    scan.skippedBlocks() == 0 ? "" : ", " + scan.skippedBlocks() + " oversized block(s) skipped");
+            return scan;
+        });
+    }
+
+    /**
+     * Fold a duplicate record into the one being kept: donations and
+     * deferrals move over, blank fields are filled from the duplicate,
+     * donation totals are combined and the duplicate is deleted, all in one
+     * transaction.
+     */
+    public Donor mergeDonors(Long keepId, Long duplicateId) {
+        if (keepId.equals(duplicateId)) {
+            throw new IllegalArgumentException("Cannot merge a donor into itself");
+        }
+        return MERGE_DONORS_TIMER.record(() -> Transactions.inTransaction(() -> {
+            Donor keep = donorDao.findById(keepId)
+                    .orElseThrow(() -> new IllegalArgumentException("Donor not found: " + keepId));
+            Donor duplicate = donorDao.findById(duplicateId)
+                    .orElseThrow(() -> new IllegalArgumentException("Donor not found: " + duplicateId));
+            if (!keep.getBloodGroup().equals(duplicate.getBloodGroup())) {
+                throw new IllegalStateException("Donors have different blood groups ("
+                        + keep.getBloodGroup() + ", " + duplicate.getBloodGroup() + ")");
+            }
+
+            int donations = donationDao.reassignDonor(duplicateId, keepId);
+            int deferrals = deferralService.transferDeferrals(duplicateId, keepId);
+
+            if (isBlank(keep.getPhone())) keep.setPhone(duplicate.getPhone());
+            if (isBlank(keep.getEmail())) keep.setEmail(duplicate.getEmail());
+            if (isBlank(keep.getAddress())) keep.setAddress(duplicate.getAddress());
+            if (keep.getDateOfBirth() == null) keep.setDateOfBirth(duplicate.getDateOfBirth());
+            if (keep.getGender() == null) keep.setGender(duplicate.getGender());
+            if (keep.getWeightKg() == null) keep.setWeightKg(duplicate.getWeightKg());
+            if (!isBlank(duplicate.getMedicalNotes())) {
+                keep.setMedicalNotes(isBlank(keep.getMedicalNotes()) ? duplicate.getMedicalNotes()
+                        : keep.getMedicalNotes() + "\n" + duplicate.getMedicalNotes());
+            }
+            LocalDate last = duplicate.getLastDonationDate();
+            if (last != null && (keep.getLastDonationDate() == null || last.isAfter(keep.getLastDonationDate()))) {
+                keep.setLastDonationDate(last);
+            }
+            keep.setTotalDonations(count(keep.getTotalDonations()) + count(duplicate.getTotalDonations()));
+            if (Boolean.FALSE.equals(duplicate.getIsEligible())) {
+                keep.setIsEligible(false);
+            }
+
+            Donor merged = donorDao.update(keep);
+            donorDao.delete(duplicate);
+            statsService.rebuild(keepId);
+            logger.info("Merged donor {} into {} ({} donation(s), {} deferral(s) moved)",
+                    duplicateId, keepId, donations, deferrals);
+            return merged;
+        }));
+    }
+
+    private void reportDuplicates(Donor donor) {
+        try {
+            List<DuplicateMatch> matches = findPossibleDuplicates(donor);
+            if (!matches.isEmpty()) {
+                MetricsRegistry.getInstance().increment("donors.duplicates.suspected");
+                logger.warn("Donor {} may duplicate donor(s) {}", donor.getId(),
+                        matches.stream().map(DuplicateMatch::otherId).toList());
+            }
+        } catch (Exception e) {
+            logger.warn("Duplicate check failed for donor {}", donor.getId(), e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static int count(Integer value) {
+        return value == null ? 0 : value;
     }
 
     public List<Donation> getDonationHistory(Long donorId) {
-        return donationDao.findByDonorId(donorId);
+        return GET_DONATION_HISTORY_TIMER.record(() -> donationDao.findByDonorId(donorId));
+    }
+
+    /**
+     * Lifetime totals for the donor's profile, read from the donor_stats
+     * projection rather than the donation history.
+     */
+    public DonorStats getStats(Long donorId) {
+        return statsService.get(donorId);
     }
 
-    private void validateDonor(Donor donor) {
+    /**
+     * Check the fields every donor record needs; throws
+     * IllegalArgumentException naming the first problem.
+     */
+    public void validateDonor(Donor donor) {
         if (donor.getFullName() == null || donor.getFullName().trim().isEmpty()) {
             throw new IllegalArgumentException("Donor name is required");
         }
@@ -166,7 +406,11 @@ public class DonorService {
     }
 
     public long getTotalDonorCount() {
-        return donorDao.count();
+        return GET_TOTAL_DONOR_COUNT_TIMER.record(donorDao::count);
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.DonorService." + method);
     }
 
     public record DonorEligibility(boolean isEligible, String reason) {
@@ -3,62 +3,93 @@ package com.bbms.service;
 import com.bbms.dao.RecipientDao;
 import com.bbms.dao.BloodRequestDao;
 import com.bbms.dao.TransfusionDao;
+import com.bbms.dao.Transactions;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
 import com.bbms.model.*;
+import com.bbms.outbox.Outbox;
 import com.bbms.util.BloodCompatibility;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class RecipientService {
 
     private static final Logger logger = LogManager.getLogger(RecipientService.class);
 
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer APPROVE_REQUEST_TIMER = timer("approveRequest");
+    private static final Timer CREATE_BLOOD_REQUEST_TIMER = timer("createBloodRequest");
+    private static final Timer CROSSMATCH_TIMER = timer("crossmatch");
+    private static final Timer DELETE_RECIPIENT_TIMER = timer("deleteRecipient");
+    private static final Timer FIND_ALL_TIMER = timer("findAll");
+    private static final Timer FIND_BY_BLOOD_GROUP_TIMER = timer("findByBloodGroup");
+    private static final Timer FIND_BY_ID_TIMER = timer("findById");
+    private static final Timer GET_EMERGENCY_REQUESTS_TIMER = timer("getEmergencyRequests");
+    private static final Timer GET_PENDING_REQUESTS_TIMER = timer("getPendingRequests");
+    private static final Timer GET_REQUEST_HISTORY_TIMER = timer("getRequestHistory");
+    private static final Timer GET_TOTAL_RECIPIENT_COUNT_TIMER = timer("getTotalRecipientCount");
+    private static final Timer GET_TRANSFUSION_HISTORY_TIMER = timer("getTransfusionHistory");
+    private static final Timer PROCESS_TRANSFUSION_TIMER = timer("processTransfusion");
+    private static final Timer RECORD_REACTION_TIMER = timer("recordReaction");
+    private static final Timer RELEASE_HOLDS_TIMER = timer("releaseHolds");
+    private static final Timer SAVE_RECIPIENT_TIMER = timer("saveRecipient");
+    private static final Timer SEARCH_TIMER = timer("search");
+    private static final Timer TRANSFUSE_HELD_TIMER = timer("transfuseHeld");
+
     private final RecipientDao recipientDao;
     private final BloodRequestDao bloodRequestDao;
     private final TransfusionDao transfusionDao;
     private final BloodStockService bloodStockService;
+    private final ReservationService reservationService;
 
     public RecipientService() {
         this.recipientDao = new RecipientDao();
         this.bloodRequestDao = new BloodRequestDao();
         this.transfusionDao = new TransfusionDao();
         this.bloodStockService = new BloodStockService();
+        this.reservationService = ReservationService.getInstance();
     }
 
     public Recipient saveRecipient(Recipient recipient) {
-        validateRecipient(recipient);
-        
-        if (recipient.getId() == null) {
-            logger.info("Creating new recipient: {}", recipient.getFullName());
-            return recipientDao.save(recipient);
-        } else {
-            logger.info("Updating recipient: {}", recipient.getFullName());
-            return recipientDao.update(recipient);
-        }
+        return SAVE_RECIPIENT_TIMER.record(() -> {
+            validateRecipient(recipient);
+
+            if (recipient.getId() == null) {
+                logger.info("Creating new recipient: {}", recipient.getFullName());
+                return recipientDao.save(recipient);
+            } else {
+                logger.info("Updating recipient: {}", recipient.getFullName());
+                return recipientDao.update(recipient);
+            }
+        });
     }
 
     public void deleteRecipient(Long id) {
-        recipientDao.deleteById(id);
+        DELETE_RECIPIENT_TIMER.run(() -> recipientDao.deleteById(id));
         logger.info("Deleted recipient with ID: {}", id);
     }
 
     public Optional<Recipient> findById(Long id) {
-        return recipientDao.findById(id);
+        return FIND_BY_ID_TIMER.record(() -> recipientDao.findById(id));
     }
 
     public List<Recipient> findAll() {
-        return recipientDao.findAll();
+        return FIND_ALL_TIMER.record(recipientDao::findAll);
     }
 
     public List<Recipient> findByBloodGroup(String bloodGroup) {
-        return recipientDao.findByBloodGroup(bloodGroup);
+        return FIND_BY_BLOOD_GROUP_TIMER.record(() -> recipientDao.findByBloodGroup(bloodGroup));
     }
 
     public List<Recipient> search(String keyword) {
-        return recipientDao.search(keyword);
+        return SEARCH_TIMER.record(() -> recipientDao.search(keyword));
     }
 
     /**
@@ -68,6 +99,14 @@ public class RecipientService {
                                             BloodStock.ComponentType componentType,
                                             int unitsNeeded, BloodRequest.Priority priority,
                                             LocalDate requiredByDate, String notes) {
+        return CREATE_BLOOD_REQUEST_TIMER.record(() -> doCreateBloodRequest(recipient, bloodGroup,
+                componentType, unitsNeeded, priority, requiredByDate, notes));
+    }
+
+    private BloodRequest doCreateBloodRequest(Recipient recipient, String bloodGroup,
+                                              BloodStock.ComponentType componentType,
+                                              int unitsNeeded, BloodRequest.Priority priority,
+                                              LocalDate requiredByDate, String notes) {
         BloodRequest request = new BloodRequest();
         request.setRecipient(recipient);
         request.setBloodGroup(bloodGroup);
@@ -91,20 +130,24 @@ public class RecipientService {
      * Get pending requests.
      */
     public List<BloodRequest> getPendingRequests() {
-        return bloodRequestDao.findPendingRequests();
+        return GET_PENDING_REQUESTS_TIMER.record(bloodRequestDao::findPendingRequests);
     }
 
     /**
      * Get emergency requests.
      */
     public List<BloodRequest> getEmergencyRequests() {
-        return bloodRequestDao.findEmergencyRequests();
+        return GET_EMERGENCY_REQUESTS_TIMER.record(bloodRequestDao::findEmergencyRequests);
     }
 
     /**
      * Approve a blood request.
      */
     public void approveRequest(Long requestId) {
+        APPROVE_REQUEST_TIMER.run(() -> doApproveRequest(requestId));
+    }
+
+    private void doApproveRequest(Long requestId) {
         Optional<BloodRequest> requestOpt = bloodRequestDao.findById(requestId);
         if (requestOpt.isPresent()) {
             BloodRequest request = requestOpt.get();
@@ -119,6 +162,12 @@ public class RecipientService {
      */
     public Transfusion processTransfusion(BloodRequest request, BloodStock stock, 
                                            int units, String administeredBy) {
+        return PROCESS_TRANSFUSION_TIMER.record(() ->
+                doProcessTransfusion(request, stock, units, administeredBy));
+    }
+
+    private Transfusion doProcessTransfusion(BloodRequest request, BloodStock stock,
+                                             int units, String administeredBy) {
         // Validate compatibility
         if (!BloodCompatibility.isCompatible(request.getBloodGroup(), stock.getBloodGroup())) {
             throw new IllegalArgumentException("Blood types are not compatible");
@@ -129,41 +178,124 @@ public class RecipientService {
             throw new IllegalArgumentException("Insufficient stock available");
         }
 
-        // Deduct from stock
-        bloodStockService.deductStock(stock.getId(), units);
-
-        // Create transfusion record
-        Transfusion transfusion = new Transfusion();
-        transfusion.setRecipient(request.getRecipient());
-        transfusion.setBloodStock(stock);
-        transfusion.setBloodRequest(request);
-        transfusion.setBloodGroup(stock.getBloodGroup());
-        transfusion.setComponentType(stock.getComponentType());
-        transfusion.setUnitsTransfused(units);
-        transfusion.setTransfusionDate(LocalDate.now());
-        transfusion.setAdministeredBy(administeredBy);
-        transfusion.setStatus(Transfusion.TransfusionStatus.COMPLETED);
-
-        Transfusion saved = transfusionDao.save(transfusion);
-
-        // Update request status
-        request.setUnitsFulfilled(request.getUnitsFulfilled() + units);
-        if (request.isFulfilled()) {
-            request.setStatus(BloodRequest.RequestStatus.FULFILLED);
-        } else {
-            request.setStatus(BloodRequest.RequestStatus.PARTIALLY_FULFILLED);
+        // Stock, transfusion, request status and outbox event commit together; reactions run later
+        return Transactions.inTransaction(() -> {
+            // Issue the bags and deduct from the lot (re-checked against the locked row). Units held
+            // for other requests are off limits; this request's own hold on the lot is used up
+            List<BloodUnit> bags = bloodStockService.issueStock(stock.getId(), request.getId(), units,
+                    "request:" + request.getId());
+            if (bags == null) {
+                throw new IllegalArgumentException("Insufficient stock available");
+            }
+
+            // Create transfusion record
+            Transfusion transfusion = new Transfusion();
+            transfusion.setRecipient(request.getRecipient());
+            transfusion.setBloodStock(stock);
+            transfusion.setBloodRequest(request);
+            transfusion.setBloodGroup(stock.getBloodGroup());
+            transfusion.setComponentType(stock.getComponentType());
+            transfusion.setUnitsTransfused(units);
+            transfusion.setTransfusionDate(LocalDate.now());
+            transfusion.setAdministeredBy(administeredBy);
+            transfusion.setStatus(Transfusion.TransfusionStatus.COMPLETED);
+
+            Transfusion saved = transfusionDao.save(transfusion);
+
+            // Update request status
+            request.setUnitsFulfilled(request.getUnitsFulfilled() + units);
+            if (request.isFulfilled()) {
+                request.setStatus(BloodRequest.RequestStatus.FULFILLED);
+            } else {
+                request.setStatus(BloodRequest.RequestStatus.PARTIALLY_FULFILLED);
+            }
+            bloodRequestDao.update(request);
+
+            Outbox.record("BloodRequest", request.getId(), Outbox.TRANSFUSION_COMPLETED, Map.of(
+                    "transfusionId", String.valueOf(saved.getId()),
+                    "recipientId", String.valueOf(request.getRecipient().getId()),
+                    "stockId", String.valueOf(stock.getId()),
+                    "bloodGroup", stock.getBloodGroup(),
+                    "units", String.valueOf(units),
+                    "barcodes", bags.stream().map(BloodUnit::getBarcode).collect(Collectors.joining(",")),
+                    "administeredBy", String.valueOf(administeredBy),
+                    "requestStatus", request.getStatus().name()));
+            return saved;
+        });
+    }
+
+    /**
+     * Crossmatch a request: hold compatible units for it, earliest expiry
+     * first, until its outstanding units are covered or compatible stock
+     * runs out. Earlier holds of the request are released first. Returns
+     * the holds placed.
+     */
+    public List<StockHold> crossmatch(BloodRequest request) {
+        return CROSSMATCH_TIMER.record(() -> Transactions.inTransaction(() -> doCrossmatch(request)));
+    }
+
+    private List<StockHold> doCrossmatch(BloodRequest request) {
+        reservationService.releaseAll(request.getId());
+        int outstanding = request.getRemainingUnits();
+        List<StockHold> placed = new ArrayList<>();
+        for (BloodStockService.AvailableStock available : bloodStockService.findCompatibleStock(
+                request.getBloodGroup(), request.getComponentType(), request.getId())) {
+            if (outstanding <= 0) {
+                break;
+            }
+            int units = Math.min(outstanding, available.freeUnits());
+            try {
+                placed.add(reservationService.hold(request, available.lot(), units));
+                outstanding -= units;
+            } catch (IllegalArgumentException e) {
+                // Held or issued elsewhere since the holds were last synced; try the next lot
+                logger.debug("Skipped stock lot {} for request {}: {}",
+                        available.lot().getId(), request.getId(), e.getMessage());
+            }
         }
-        bloodRequestDao.update(request);
+        logger.info("Crossmatched request {}: {} lot(s) held, {} unit(s) still uncovered",
+                request.getId(), placed.size(), Math.max(0, outstanding));
+        return placed;
+    }
 
-        logger.info("Processed transfusion: {} units of {} for recipient {}",
-                units, stock.getBloodGroup(), request.getRecipient().getFullName());
-        return saved;
+    /**
+     * Live holds of a request.
+     */
+    public List<StockHold> getHolds(Long requestId) {
+        return reservationService.getHolds(requestId);
+    }
+
+    /**
+     * Release every hold of a request and put its bags back in stock.
+     */
+    public void releaseHolds(BloodRequest request) {
+        RELEASE_HOLDS_TIMER.run(() -> reservationService.releaseAll(request.getId()));
+    }
+
+    /**
+     * Transfuse the units held for a request: one transfusion per held
+     * lot, all in one transaction.
+     */
+    public List<Transfusion> transfuseHeld(BloodRequest request, String administeredBy) {
+        return TRANSFUSE_HELD_TIMER.record(() -> Transactions.inTransaction(() -> {
+            List<Transfusion> transfusions = new ArrayList<>();
+            for (StockHold hold : reservationService.getHolds(request.getId())) {
+                BloodStock stock = bloodStockService.findById(hold.getStockId())
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown stock lot: " + hold.getStockId()));
+                transfusions.add(doProcessTransfusion(request, stock, hold.getUnits(), administeredBy));
+            }
+            return transfusions;
+        }));
     }
 
     /**
      * Record a transfusion reaction.
      */
     public void recordReaction(Long transfusionId, String reactionDetails) {
+        RECORD_REACTION_TIMER.run(() -> doRecordReaction(transfusionId, reactionDetails));
+    }
+
+    private void doRecordReaction(Long transfusionId, String reactionDetails) {
         Optional<Transfusion> transfusionOpt = transfusionDao.findById(transfusionId);
         if (transfusionOpt.isPresent()) {
             Transfusion transfusion = transfusionOpt.get();
@@ -178,14 +310,14 @@ public class RecipientService {
      * Get transfusion history for a recipient.
      */
     public List<Transfusion> getTransfusionHistory(Long recipientId) {
-        return transfusionDao.findByRecipientId(recipientId);
+        return GET_TRANSFUSION_HISTORY_TIMER.record(() -> transfusionDao.findByRecipientId(recipientId));
     }
 
     /**
      * Get blood request history for a recipient.
      */
     public List<BloodRequest> getRequestHistory(Long recipientId) {
-        return bloodRequestDao.findByRecipientId(recipientId);
+        return GET_REQUEST_HISTORY_TIMER.record(() -> bloodRequestDao.findByRecipientId(recipientId));
     }
 
     private void validateRecipient(Recipient recipient) {
@@ -198,6 +330,10 @@ public class RecipientService {
     }
 
     public long getTotalRecipientCount() {
-        return recipientDao.count();
+        return GET_TOTAL_RECIPIENT_COUNT_TIMER.record(recipientDao::count);
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.RecipientService." + method);
     }
 }
@@ -0,0 +1,356 @@
+package com.bbms.service;
+
+import com.bbms.audit.AuditTrail;
+import com.bbms.config.AppConfig;
+import com.bbms.dao.BloodStockDao;
+import com.bbms.dao.StockHoldDao;
+import com.bbms.dao.Transactions;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.StockHold;
+import com.bbms.util.TimerWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time-limited holds on stock lots for the crossmatch window between
+ * choosing a lot for a request and processing the transfusion.
+ *
+ * Live holds are kept in memory and counted by findCompatibleStock without
+ * touching the database. Each hold is also written to stock_holds, which
+ * lets a restarted client recover its holds and lets every workstation see
+ * the others' holds: placing a hold and issuing from a lot both check the
+ * table under a short lock on the lot row, and a background sync merges
+ * holds placed elsewhere into memory every reservation.sync.interval.ms.
+ * The held bags are moved to RESERVED in the stock ledger, so they cannot
+ * be issued to another request.
+ * Holds lapse after reservation.ttl.minutes; a timer wheel drops them from
+ * memory on time, and the sync (or the next hold or issue on the lot)
+ * deletes their rows and puts their bags back in stock.
+ */
+public class ReservationService {
+
+    private static final Logger logger = LogManager.getLogger(ReservationService.class);
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer CONSUME_TIMER = timer("consume");
+    private static final Timer HOLD_TIMER = timer("hold");
+    private static final Timer RELEASE_TIMER = timer("release");
+    private static final Timer RELEASE_ALL_TIMER = timer("releaseAll");
+
+    private static class Holder {
+        private static final ReservationService INSTANCE = new ReservationService();
+    }
+
+    private final StockHoldDao stockHoldDao;
+    private final BloodStockDao bloodStockDao;
+    private final StockLedgerService stockLedgerService;
+    private final Duration defaultTtl;
+    private final long syncIntervalMs;
+    private final TimerWheel wheel;
+    private final ConcurrentMap<Long, LiveHold> holds = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sync;
+
+    private ReservationService() {
+        this(new StockHoldDao(), new BloodStockDao(), new StockLedgerService(),
+                Duration.ofMinutes(Math.max(1, AppConfig.getInstance().getInt("reservation.ttl.minutes", 30))),
+                new TimerWheel(Math.max(10, AppConfig.getInstance().getLong("reservation.wheel.tick.ms", 1000)),
+                        Math.max(16, AppConfig.getInstance().getInt("reservation.wheel.size", 512)),
+                        "reservation-wheel"));
+        MetricsRegistry.getInstance().gauge("reservation.holds", holds::size);
+    }
+
+    /**
+     * A service with its own holds, for tests and benchmarks; the
+     * application shares {@link #getInstance()}.
+     */
+    public ReservationService(StockHoldDao stockHoldDao, BloodStockDao bloodStockDao,
+                              StockLedgerService stockLedgerService, Duration defaultTtl, TimerWheel wheel) {
+        this.stockHoldDao = stockHoldDao;
+        this.bloodStockDao = bloodStockDao;
+        this.stockLedgerService = stockLedgerService;
+        this.defaultTtl = defaultTtl;
+        this.syncIntervalMs = Math.max(500, AppConfig.getInstance().getLong("reservation.sync.interval.ms", 5000));
+        this.wheel = wheel;
+    }
+
+    public static ReservationService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Recover live holds from the database and start expiring and syncing them.
+     */
+    public synchronized void start() {
+        if (sync != null) {
+            return;
+        }
+        wheel.start();
+        sync = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        sync.scheduleWithFixedDelay(this::sync, 0, syncIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Reservation service started, holds last {} minute(s)", defaultTtl.toMinutes());
+    }
+
+    public synchronized void stop() {
+        if (sync != null) {
+            sync.shutdownNow();
+            sync = null;
+        }
+        wheel.stop();
+    }
+
+    public StockHold hold(BloodRequest request, BloodStock stock, int units) {
+        return hold(request, stock, units, defaultTtl);
+    }
+
+    /**
+     * Hold units of a lot for a request and reserve that many of its bags,
+     * replacing any hold the request already has on that lot. Fails if the
+     * lot does not have that many units left that are not held for other
+     * requests.
+     */
+    public StockHold hold(BloodRequest request, BloodStock stock, int units, Duration ttl) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("Units to hold must be positive");
+        }
+        return HOLD_TIMER.record(() -> Transactions.inTransaction(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            BloodStock lot = bloodStockDao.lock(stock.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown stock lot: " + stock.getId()));
+            if (lot.getStatus() != BloodStock.StockStatus.AVAILABLE || lot.isExpired()) {
+                throw new IllegalArgumentException("Stock lot " + lot.getId() + " is not available");
+            }
+            int free = lot.getUnitsAvailable() - heldForOthers(lot.getId(), request.getId());
+            if (free < units) {
+                throw new IllegalArgumentException(String.format(
+                        "Only %d unit(s) of stock lot %d are free to hold", Math.max(0, free), lot.getId()));
+            }
+            drop(request.getId(), lot.getId());
+            stockLedgerService.reserveFromLot(lot, request.getId(), units, reference(request.getId()));
+            StockHold saved = stockHoldDao.save(new StockHold(lot.getId(), request.getId(), units,
+                    AuditTrail.getInstance().currentActor(), now.plus(ttl)));
+            Transactions.afterCommit(() -> track(saved));
+            logger.info("Held {} unit(s) of stock lot {} for request {} until {}",
+                    units, lot.getId(), request.getId(), saved.getExpiresAt());
+            return saved;
+        }));
+    }
+
+    /**
+     * Release a hold before it expires and put its bags back in stock.
+     */
+    public void release(StockHold hold) {
+        RELEASE_TIMER.run(() -> Transactions.inTransaction(() -> {
+            bloodStockDao.lock(hold.getStockId());
+            if (stockHoldDao.deleteHold(hold.getId()) > 0) {
+                stockLedgerService.releaseReserved(hold.getStockId(), hold.getRequestId(),
+                        reference(hold.getRequestId()));
+            }
+            Transactions.afterCommit(() -> untrack(hold.getId()));
+        }));
+    }
+
+    /**
+     * Release every hold of a request, e.g. when it is cancelled or
+     * crossmatched again.
+     */
+    public void releaseAll(Long requestId) {
+        RELEASE_ALL_TIMER.run(() -> Transactions.inTransaction(() ->
+                stockHoldDao.findByRequest(requestId).forEach(this::release)));
+    }
+
+    /**
+     * Units of a lot held for requests other than requestId (null counts
+     * every hold). Call inside the transaction that has the lot row
+     * locked; lapsed holds on the lot are released first, so their bags
+     * can be issued or held again.
+     */
+    public int heldForOthers(Long stockId, Long requestId) {
+        LocalDateTime now = LocalDateTime.now();
+        releaseLapsed(stockId, now);
+        return stockHoldDao.sumHeld(stockId, requestId, now);
+    }
+
+    /**
+     * Drop the request's hold on a lot once units have been issued to it,
+     * inside the issuing transaction. Bags of the hold that were not
+     * issued go back in stock.
+     */
+    public void consume(Long requestId, Long stockId) {
+        CONSUME_TIMER.run(() -> Transactions.inTransaction(() -> {
+            drop(requestId, stockId);
+            Transactions.afterCommit(() -> untrackRequest(requestId, stockId));
+        }));
+    }
+
+    private void drop(Long requestId, Long stockId) {
+        if (stockHoldDao.deleteByRequest(requestId, stockId) > 0) {
+            stockLedgerService.releaseReserved(stockId, requestId, reference(requestId));
+        }
+    }
+
+    /**
+     * Delete the lapsed holds on a lot and release their bags. The lot row
+     * must be locked.
+     */
+    private int releaseLapsed(Long stockId, LocalDateTime now) {
+        int released = 0;
+        for (StockHold hold : stockHoldDao.findLapsed(stockId, now)) {
+            if (stockHoldDao.deleteHold(hold.getId()) > 0) {
+                stockLedgerService.releaseReserved(stockId, hold.getRequestId(), reference(hold.getRequestId()));
+                released++;
+            }
+        }
+        return released;
+    }
+
+    private static String reference(Long requestId) {
+        return "request:" + requestId;
+    }
+
+    /**
+     * Units held per lot by live holds, leaving out the holds of
+     * excludeRequestId (pass null to count every hold). Memory only.
+     */
+    public Map<Long, Integer> heldByLot(Long excludeRequestId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> held = new HashMap<>();
+        for (LiveHold live : holds.values()) {
+            StockHold hold = live.hold;
+            if (!hold.isExpired(now) && !Objects.equals(hold.getRequestId(), excludeRequestId)) {
+                held.merge(hold.getStockId(), hold.getUnits(), Integer::sum);
+            }
+        }
+        return held;
+    }
+
+    public List<StockHold> getLiveHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        return holds.values().stream()
+                .map(live -> live.hold)
+                .filter(hold -> !hold.isExpired(now))
+                .toList();
+    }
+
+    public List<StockHold> getHolds(Long requestId) {
+        LocalDateTime now = LocalDateTime.now();
+        return holds.values().stream()
+                .map(live -> live.hold)
+                .filter(hold -> hold.getRequestId().equals(requestId) && !hold.isExpired(now))
+                .toList();
+    }
+
+    private void track(StockHold hold) {
+        LiveHold live = new LiveHold(hold);
+        long delayMs = Duration.between(LocalDateTime.now(), hold.getExpiresAt()).toMillis();
+        live.timeout = wheel.schedule(() -> expire(hold.getId()), delayMs);
+        LiveHold previous = holds.put(hold.getId(), live);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+        // A new hold replaces the request's earlier hold on the same lot
+        holds.values().removeIf(other -> other != live
+                && other.hold.getRequestId().equals(hold.getRequestId())
+                && other.hold.getStockId().equals(hold.getStockId())
+                && other.cancel());
+    }
+
+    private void untrack(Long holdId) {
+        LiveHold live = holds.remove(holdId);
+        if (live != null) {
+            live.cancel();
+        }
+    }
+
+    private void untrackRequest(Long requestId, Long stockId) {
+        holds.values().removeIf(live -> live.hold.getRequestId().equals(requestId)
+                && live.hold.getStockId().equals(stockId)
+                && live.cancel());
+    }
+
+    private void expire(Long holdId) {
+        if (holds.remove(holdId) != null) {
+            MetricsRegistry.getInstance().increment("reservation.expired");
+            logger.debug("Hold {} expired", holdId);
+        }
+    }
+
+    /**
+     * Release lapsed holds and bring memory in line with the table: recover
+     * holds placed elsewhere or before a restart and drop holds released
+     * elsewhere. Holds tracked after the read started are left alone,
+     * since the read may not have seen them. Package-private so tests can
+     * run a sync.
+     */
+    void sync() {
+        try {
+            long readStart = System.nanoTime();
+            LocalDateTime now = LocalDateTime.now();
+            int purged = 0;
+            for (Long stockId : stockHoldDao.findLapsedLots(now)) {
+                purged += Transactions.inTransaction(() -> {
+                    bloodStockDao.lock(stockId);
+                    return releaseLapsed(stockId, now);
+                });
+            }
+            Map<Long, StockHold> live = stockHoldDao.findLive(now).stream()
+                    .collect(Collectors.toMap(StockHold::getId, hold -> hold));
+
+            Set<Long> known = holds.keySet();
+            holds.entrySet().removeIf(entry -> !live.containsKey(entry.getKey())
+                    && entry.getValue().trackedAt - readStart < 0
+                    && entry.getValue().cancel());
+            live.values().stream()
+                    .filter(hold -> !known.contains(hold.getId()))
+                    .forEach(this::track);
+            if (purged > 0) {
+                logger.debug("Released {} expired hold(s)", purged);
+            }
+        } catch (Exception e) {
+            logger.warn("Reservation sync failed", e);
+        }
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.ReservationService." + method);
+    }
+
+    private static final class LiveHold {
+        private final StockHold hold;
+        private final long trackedAt = System.nanoTime();
+        private TimerWheel.Timeout timeout;
+
+        private LiveHold(StockHold hold) {
+            this.hold = hold;
+        }
+
+        /** Cancels the expiry timer; always true so it can sit in a removeIf. */
+        private boolean cancel() {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            return true;
+        }
+    }
+}
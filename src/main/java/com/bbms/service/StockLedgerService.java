@@ -0,0 +1,327 @@
+package com.bbms.service;
+
+import com.bbms.audit.AuditTrail;
+import com.bbms.dao.BloodUnitDao;
+import com.bbms.dao.StockBalanceDao;
+import com.bbms.dao.StockMovementDao;
+import com.bbms.dao.Transactions;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.BloodStock;
+import com.bbms.model.BloodUnit;
+import com.bbms.model.StockBalance;
+import com.bbms.model.StockMovement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bag-level inventory ledger.
+ *
+ * Every bag of a lot gets its own barcoded {@link BloodUnit} row. Each
+ * status change (received, reserved, released, issued, discarded) appends
+ * a {@link StockMovement} and updates the group's {@link StockBalance} in
+ * the same transaction, so balance reads are a single-row lookup and the
+ * history can be replayed to rebuild or check any balance.
+ *
+ * BloodStockService routes every change to a lot's units through here (new
+ * lots, edits, issues, expiry and deletion), so an available lot's
+ * unitsAvailable equals its bags still in stock or reserved. Bags are
+ * reserved for a blood request while ReservationService holds them for
+ * its crossmatch, and only that request can issue them.
+ */
+public class StockLedgerService {
+
+    private static final Logger logger = LogManager.getLogger(StockLedgerService.class);
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer ADJUST_LOT_TIMER = timer("adjustLot");
+    private static final Timer DISCARD_TIMER = timer("discard");
+    private static final Timer DISCARD_LOT_TIMER = timer("discardLot");
+    private static final Timer GET_BALANCE_TIMER = timer("getBalance");
+    private static final Timer GET_BALANCES_TIMER = timer("getBalances");
+    private static final Timer GET_HISTORY_TIMER = timer("getHistory");
+    private static final Timer GET_UNITS_TIMER = timer("getUnits");
+    private static final Timer ISSUE_TIMER = timer("issue");
+    private static final Timer ISSUE_FROM_LOT_TIMER = timer("issueFromLot");
+    private static final Timer RECEIVE_LOT_TIMER = timer("receiveLot");
+    private static final Timer RELEASE_RESERVED_TIMER = timer("releaseReserved");
+    private static final Timer REPLAY_TIMER = timer("replay");
+    private static final Timer RESERVE_FROM_LOT_TIMER = timer("reserveFromLot");
+
+    private final BloodUnitDao bloodUnitDao;
+    private final StockMovementDao stockMovementDao;
+    private final StockBalanceDao stockBalanceDao;
+
+    public StockLedgerService() {
+        this.bloodUnitDao = new BloodUnitDao();
+        this.stockMovementDao = new StockMovementDao();
+        this.stockBalanceDao = new StockBalanceDao();
+    }
+
+    /**
+     * Label and receive every bag of a saved lot.
+     */
+    public List<BloodUnit> receiveLot(BloodStock lot) {
+        return RECEIVE_LOT_TIMER.record(() -> Transactions.inTransaction(() -> doReceiveLot(lot)));
+    }
+
+    private List<BloodUnit> doReceiveLot(BloodStock lot) {
+        return receiveBags(lot, 1, lot.getUnitsAvailable());
+    }
+
+    /**
+     * Label and receive count bags of a lot, numbered from the given
+     * sequence on.
+     */
+    private List<BloodUnit> receiveBags(BloodStock lot, int firstSequence, int count) {
+        if (lot.getId() == null) {
+            throw new IllegalArgumentException("Lot must be saved before its bags are received");
+        }
+        Movements movements = new Movements("lot:" + lot.getId());
+        List<BloodUnit> units = new ArrayList<>();
+        for (int i = firstSequence; i < firstSequence + count; i++) {
+            BloodUnit unit = bloodUnitDao.save(BloodUnit.fromLot(lot, i));
+            movements.apply(unit, StockMovement.Type.RECEIVED);
+            units.add(unit);
+        }
+        logger.info("Received {} bag(s) for lot {}", units.size(), lot.getId());
+        return units;
+    }
+
+    /**
+     * Bring a lot's bags in line with an edited unit count: receive the
+     * extra bags, or discard in-stock bags for the units taken off. Lots
+     * added before the ledger existed have their bags labelled instead.
+     */
+    public void adjustLot(BloodStock lot, int previousUnits, String reason) {
+        ADJUST_LOT_TIMER.run(() -> Transactions.inTransaction(() -> {
+            long labelled = bloodUnitDao.countByLot(lot.getId());
+            if (labelled == 0) {
+                doReceiveLot(lot);
+                return;
+            }
+            int delta = lot.getUnitsAvailable() - previousUnits;
+            if (delta > 0) {
+                receiveBags(lot, (int) labelled + 1, delta);
+            } else if (delta < 0) {
+                List<BloodUnit> inStock = bloodUnitDao.lockInStock(lot.getId());
+                if (inStock.size() < -delta) {
+                    throw new IllegalArgumentException(String.format(
+                            "Only %d bag(s) of lot %d are in stock to take off", inStock.size(), lot.getId()));
+                }
+                Movements movements = new Movements(reason);
+                inStock.subList(0, -delta).forEach(unit -> movements.apply(unit, StockMovement.Type.DISCARDED));
+                logger.info("Discarded {} bag(s) of lot {}: {}", -delta, lot.getId(), reason);
+            }
+        }));
+    }
+
+    /**
+     * Whether the lot's bags have been labelled.
+     */
+    public boolean hasBags(Long lotId) {
+        return bloodUnitDao.countByLot(lotId) > 0;
+    }
+
+    /**
+     * Issue count bags of a group and component, earliest expiry first
+     * across all lots.
+     */
+    public List<BloodUnit> issue(String bloodGroup, BloodStock.ComponentType componentType,
+                                 int count, String reference) {
+        return ISSUE_TIMER.record(() -> Transactions.inTransaction(() ->
+                doIssue(bloodGroup, componentType, null, count, reference)));
+    }
+
+    /**
+     * Issue count bags from one lot, earliest expiry first. Lots added
+     * before the ledger existed have their bags labelled on first use.
+     */
+    public List<BloodUnit> issueFromLot(BloodStock lot, int count, String reference) {
+        return issueFromLot(lot, null, count, reference);
+    }
+
+    /**
+     * Issue count bags from one lot for a request: the bags reserved for it
+     * first, then in-stock bags, earliest expiry first. Bags reserved for
+     * other requests are never issued.
+     */
+    public List<BloodUnit> issueFromLot(BloodStock lot, Long requestId, int count, String reference) {
+        return ISSUE_FROM_LOT_TIMER.record(() -> Transactions.inTransaction(() -> {
+            labelIfNew(lot);
+            List<BloodUnit> units = new ArrayList<>(count);
+            if (requestId != null) {
+                List<BloodUnit> reserved = bloodUnitDao.lockReserved(lot.getId(), requestId);
+                units.addAll(reserved.subList(0, Math.min(count, reserved.size())));
+            }
+            if (units.size() < count) {
+                units.addAll(lockIssuable(lot.getBloodGroup(), lot.getComponentType(), lot.getId(),
+                        count - units.size()));
+            }
+            Movements movements = new Movements(reference);
+            units.forEach(unit -> movements.apply(unit, StockMovement.Type.ISSUED));
+            return units;
+        }));
+    }
+
+    private List<BloodUnit> doIssue(String bloodGroup, BloodStock.ComponentType componentType,
+                                    Long lotId, int count, String reference) {
+        List<BloodUnit> units = lockIssuable(bloodGroup, componentType, lotId, count);
+        Movements movements = new Movements(reference);
+        units.forEach(unit -> movements.apply(unit, StockMovement.Type.ISSUED));
+        return units;
+    }
+
+    private List<BloodUnit> lockIssuable(String bloodGroup, BloodStock.ComponentType componentType,
+                                         Long lotId, int count) {
+        List<BloodUnit> units = bloodUnitDao.lockIssuable(bloodGroup, componentType, lotId, count);
+        if (units.size() < count) {
+            throw new IllegalArgumentException(String.format(
+                    "Only %d bag(s) of %s %s available to issue", units.size(), bloodGroup, componentType));
+        }
+        return units;
+    }
+
+    private void labelIfNew(BloodStock lot) {
+        if (bloodUnitDao.countByLot(lot.getId()) == 0) {
+            doReceiveLot(lot);
+        }
+    }
+
+    /**
+     * Reserve count in-stock bags of a lot for a request, earliest expiry
+     * first, so they cannot be issued to anyone else.
+     */
+    public List<BloodUnit> reserveFromLot(BloodStock lot, Long requestId, int count, String reference) {
+        return RESERVE_FROM_LOT_TIMER.record(() -> Transactions.inTransaction(() -> {
+            labelIfNew(lot);
+            List<BloodUnit> units = lockIssuable(lot.getBloodGroup(), lot.getComponentType(), lot.getId(), count);
+            Movements movements = new Movements(reference);
+            for (BloodUnit unit : units) {
+                movements.apply(unit, StockMovement.Type.RESERVED);
+                unit.setReservedFor(requestId);
+            }
+            return units;
+        }));
+    }
+
+    /**
+     * Put the bags of a lot reserved for a request back in stock.
+     */
+    public int releaseReserved(Long lotId, Long requestId, String reference) {
+        return RELEASE_RESERVED_TIMER.record(() -> Transactions.inTransaction(() -> {
+            List<BloodUnit> units = bloodUnitDao.lockReserved(lotId, requestId);
+            Movements movements = new Movements(reference);
+            units.forEach(unit -> movements.apply(unit, StockMovement.Type.RELEASED));
+            return units.size();
+        }));
+    }
+
+    public BloodUnit discard(Long unitId, String reason) {
+        return DISCARD_TIMER.record(() -> move(unitId, StockMovement.Type.DISCARDED, reason));
+    }
+
+    /**
+     * Discard every bag of a lot that is still in stock or reserved.
+     */
+    public int discardLot(BloodStock lot, String reason) {
+        return DISCARD_LOT_TIMER.record(() -> Transactions.inTransaction(() -> {
+            Movements movements = new Movements(reason);
+            int count = 0;
+            for (BloodUnit bag : bloodUnitDao.findByLot(lot.getId())) {
+                BloodUnit unit = bloodUnitDao.lock(bag.getId()).orElse(null);
+                if (unit != null && StockMovement.Type.DISCARDED.target(unit.getStatus()) != null) {
+                    movements.apply(unit, StockMovement.Type.DISCARDED);
+                    count++;
+                }
+            }
+            return count;
+        }));
+    }
+
+    private BloodUnit move(Long unitId, StockMovement.Type type, String reference) {
+        return Transactions.inTransaction(() -> {
+            BloodUnit unit = bloodUnitDao.lock(unitId)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown bag: " + unitId));
+            new Movements(reference).apply(unit, type);
+            return unit;
+        });
+    }
+
+    /**
+     * Current balance: one indexed row read.
+     */
+    public StockBalance getBalance(String bloodGroup, BloodStock.ComponentType componentType) {
+        return GET_BALANCE_TIMER.record(() -> stockBalanceDao.find(bloodGroup, componentType)
+                .orElseGet(() -> new StockBalance(bloodGroup, componentType)));
+    }
+
+    public List<StockBalance> getBalances() {
+        return GET_BALANCES_TIMER.record(stockBalanceDao::findAll);
+    }
+
+    public List<StockMovement> getHistory(Long unitId) {
+        return GET_HISTORY_TIMER.record(() -> stockMovementDao.findByUnit(unitId));
+    }
+
+    public List<BloodUnit> getUnits(Long lotId) {
+        return GET_UNITS_TIMER.record(() -> bloodUnitDao.findByLot(lotId));
+    }
+
+    /**
+     * Rebuild a balance from its movement history. Throws if a movement's
+     * recorded running balance does not match the replay.
+     */
+    public StockBalance replay(String bloodGroup, BloodStock.ComponentType componentType) {
+        return REPLAY_TIMER.record(() -> {
+            StockBalance replayed = new StockBalance(bloodGroup, componentType);
+            stockMovementDao.scanHistory(bloodGroup, componentType, replayed::replay);
+            return replayed;
+        });
+    }
+
+    /**
+     * True if the stored balance equals the replayed movement history.
+     */
+    public boolean verify(String bloodGroup, BloodStock.ComponentType componentType) {
+        StockBalance stored = getBalance(bloodGroup, componentType);
+        try {
+            return stored.sameCounts(replay(bloodGroup, componentType));
+        } catch (IllegalStateException e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.StockLedgerService." + method);
+    }
+
+    /**
+     * Applies movements inside the caller's transaction, locking each
+     * balance row once.
+     */
+    private final class Movements {
+        private final String reference;
+        private final String actor = AuditTrail.getInstance().currentActor();
+        private final Map<String, StockBalance> balances = new HashMap<>();
+
+        private Movements(String reference) {
+            this.reference = reference;
+        }
+
+        private void apply(BloodUnit unit, StockMovement.Type type) {
+            StockBalance balance = balances.computeIfAbsent(unit.getBloodGroup() + "|" + unit.getComponentType(),
+                    key -> stockBalanceDao.lock(unit.getBloodGroup(), unit.getComponentType()));
+            stockMovementDao.save(StockMovement.record(unit, type, balance, reference, actor));
+            if (unit.getStatus() != BloodUnit.Status.RESERVED) {
+                unit.setReservedFor(null);
+            }
+        }
+    }
+}
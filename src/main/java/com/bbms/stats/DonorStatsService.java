@@ -0,0 +1,177 @@
+package com.bbms.stats;
+
+import com.bbms.config.AppConfig;
+import com.bbms.dao.DonationDao;
+import com.bbms.dao.DonorStatsDao;
+import com.bbms.metrics.MetricsRegistry;
+import com.bbms.metrics.Timer;
+import com.bbms.model.Donation;
+import com.bbms.model.DonorStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Donor lifetime statistics: the donor_stats projection of each donor's
+ * donations and deferrals.
+ *
+ * Rows are updated incrementally in the transaction that records a
+ * donation or deferral, locking only that donor's row, so profiles and
+ * reports read one row per donor instead of aggregating history. Changes
+ * that bypass those paths (merges, bulk imports) rebuild the affected rows,
+ * and every night at donor.stats.rebuild.hour all rows are rebuilt from
+ * the history in one statement to correct any drift.
+ */
+public class DonorStatsService {
+
+    private static final Logger logger = LogManager.getLogger(DonorStatsService.class);
+
+    // Per-method timers, resolved once so calls do no registry lookups
+    private static final Timer COUNT_ACTIVE_DONORS_TIMER = timer("countActiveDonors");
+    private static final Timer COUNT_NEW_DONORS_TIMER = timer("countNewDonors");
+    private static final Timer FIND_TOP_DONORS_TIMER = timer("findTopDonors");
+    private static final Timer GET_TIMER = timer("get");
+    private static final Timer REBUILD_TIMER = timer("rebuild");
+    private static final Timer REBUILD_ALL_TIMER = timer("rebuildAll");
+    private static final Timer TOTALS_TIMER = timer("totals");
+
+    private static class Holder {
+        private static final DonorStatsService INSTANCE = new DonorStatsService();
+    }
+
+    private final DonorStatsDao statsDao;
+    private final DonationDao donationDao;
+    private ScheduledExecutorService scheduler;
+
+    private DonorStatsService() {
+        this.statsDao = new DonorStatsDao();
+        this.donationDao = new DonationDao();
+    }
+
+    public static DonorStatsService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Build the projection now if it has never been built, then rebuild it
+     * nightly.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        int hour = Math.floorMod(AppConfig.getInstance().getInt("donor.stats.rebuild.hour", 3), 24);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(hour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "donor-stats-rebuild");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(() -> {
+            try {
+                if (statsDao.count() == 0) {
+                    rebuildAll();
+                }
+            } catch (Exception e) {
+                logger.warn("Initial donor stats build failed", e);
+            }
+        });
+        scheduler.scheduleAtFixedRate(this::rebuildQuietly, Duration.between(now, next).toMinutes(),
+                TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        logger.info("Donor stats are rebuilt nightly at {}:00", hour);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * The donor's statistics; all zero if the donor has none yet.
+     */
+    public DonorStats get(Long donorId) {
+        return GET_TIMER.record(() -> statsDao.findById(donorId).orElseGet(() -> new DonorStats(donorId)));
+    }
+
+    /**
+     * Add a saved donation to its donor's row, in the caller's transaction.
+     */
+    public void recordDonation(Long donorId, Donation donation) {
+        statsDao.lock(donorId).addDonation(donation);
+    }
+
+    /**
+     * Count a deferral recorded (+1) or revoked (-1), in the caller's
+     * transaction.
+     */
+    public void recordDeferral(Long donorId, int delta) {
+        statsDao.lock(donorId).addDeferrals(delta);
+    }
+
+    /**
+     * Recompute one donor's row from the history, in the caller's
+     * transaction if there is one.
+     */
+    public void rebuild(Long donorId) {
+        REBUILD_TIMER.run(() -> statsDao.rebuild(donorId));
+    }
+
+    /**
+     * Recompute every row from the history.
+     */
+    public void rebuildAll() {
+        long start = System.nanoTime();
+        REBUILD_ALL_TIMER.run(statsDao::rebuildAll);
+        logger.info("Rebuilt donor stats in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<DonorStatsDao.TopDonor> findTopDonors(int limit) {
+        return FIND_TOP_DONORS_TIMER.record(() -> statsDao.findTopDonors(limit));
+    }
+
+    public DonorStatsDao.Totals totals() {
+        return TOTALS_TIMER.record(statsDao::totals);
+    }
+
+    /**
+     * Donors whose first donation was in the range.
+     */
+    public long countNewDonors(LocalDate from, LocalDate to) {
+        return COUNT_NEW_DONORS_TIMER.record(() -> statsDao.countFirstDonationsBetween(from, to));
+    }
+
+    /**
+     * Donors with a completed donation in the range. Counted from the
+     * donations in the range, since a donor's latest donation says nothing
+     * about earlier ones.
+     */
+    public long countActiveDonors(LocalDate from, LocalDate to) {
+        return COUNT_ACTIVE_DONORS_TIMER.record(() -> donationDao.countDonorsBetween(from, to));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuildAll();
+        } catch (Exception e) {
+            logger.warn("Donor stats rebuild failed", e);
+        }
+    }
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.getInstance().timer("service.DonorStatsService." + method);
+    }
+}
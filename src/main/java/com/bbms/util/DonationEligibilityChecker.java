@@ -1,5 +1,10 @@
 package com.bbms.util;
 
+import com.bbms.eligibility.Candidate;
+import com.bbms.eligibility.EligibilityPipeline;
+import com.bbms.eligibility.EligibilityPolicy;
+import com.bbms.model.BloodStock;
+
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.temporal.ChronoUnit;
@@ -9,55 +14,23 @@ import java.util.*;
  * Donation Eligibility Checker Utility
  * 
  * Validates if a person is eligible to donate blood based on:
- * - Age requirements (18-65 years)
- * - Weight requirements (minimum 50kg / 110lbs)
- * - Time since last donation (56 days for whole blood)
+ * - Age requirements
+ * - Weight requirements
+ * - Time since last donation
  * - Health conditions and medications
  * - Travel history restrictions
  * 
- * Based on standard blood bank guidelines (WHO/FDA/Red Cross).
+ * The limits are the configured donor.* policy, the same one DonorService
+ * checks donors against, so both always give the same answer.
  * 
  * @author Nivedhaa Sai Saravana Kumar
  * @version 1.0
  */
 public class DonationEligibilityChecker {
 
-    // Constants
-    public static final int MIN_AGE = 18;
-    public static final int MAX_AGE = 65;
-    public static final double MIN_WEIGHT_KG = 50.0;
-    public static final double MIN_WEIGHT_LBS = 110.0;
-    public static final int WHOLE_BLOOD_INTERVAL_DAYS = 56;
-    public static final int PLATELET_INTERVAL_DAYS = 7;
-    public static final int PLASMA_INTERVAL_DAYS = 28;
-    public static final double MIN_HEMOGLOBIN_MALE = 13.0;    // g/dL
-    public static final double MIN_HEMOGLOBIN_FEMALE = 12.5;  // g/dL
-
-    // Temporary deferrals (condition -> deferral days)
-    private static final Map<String, Integer> TEMPORARY_DEFERRALS = new LinkedHashMap<>();
-    static {
-        TEMPORARY_DEFERRALS.put("cold_flu", 7);
-        TEMPORARY_DEFERRALS.put("fever", 14);
-        TEMPORARY_DEFERRALS.put("antibiotics", 14);
-        TEMPORARY_DEFERRALS.put("dental_procedure", 3);
-        TEMPORARY_DEFERRALS.put("tattoo_piercing", 90);
-        TEMPORARY_DEFERRALS.put("vaccination", 14);
-        TEMPORARY_DEFERRALS.put("minor_surgery", 90);
-        TEMPORARY_DEFERRALS.put("major_surgery", 180);
-        TEMPORARY_DEFERRALS.put("pregnancy", 180);
-        TEMPORARY_DEFERRALS.put("blood_transfusion", 365);
-    }
-
-    // Permanent deferrals
-    private static final Set<String> PERMANENT_DEFERRALS = Set.of(
-        "hiv_positive",
-        "hepatitis_b",
-        "hepatitis_c",
-        "heart_disease",
-        "cancer_active",
-        "bleeding_disorder",
-        "organ_transplant"
-    );
+    // The configured pipeline shared with DonorService, and its limits
+    private static final EligibilityPipeline PIPELINE = EligibilityPipeline.configured();
+    private static final EligibilityPolicy POLICY = PIPELINE.getPolicy();
 
     /**
      * Result class for eligibility check
@@ -100,7 +73,7 @@ public class DonationEligibilityChecker {
     public static boolean isAgeEligible(LocalDate birthDate) {
         if (birthDate == null) return false;
         int age = Period.between(birthDate, LocalDate.now()).getYears();
-        return age >= MIN_AGE && age <= MAX_AGE;
+        return age >= POLICY.minAge() && age <= POLICY.maxAge();
     }
 
     /**
@@ -115,7 +88,7 @@ public class DonationEligibilityChecker {
      * Check if person meets weight requirement
      */
     public static boolean isWeightEligible(double weightKg) {
-        return weightKg >= MIN_WEIGHT_KG;
+        return weightKg >= POLICY.minWeightKg();
     }
 
     /**
@@ -133,11 +106,7 @@ public class DonationEligibilityChecker {
         
         long daysSinceLastDonation = ChronoUnit.DAYS.between(lastDonationDate, LocalDate.now());
         
-        int requiredDays = switch (donationType.toLowerCase()) {
-            case "platelet", "platelets" -> PLATELET_INTERVAL_DAYS;
-            case "plasma" -> PLASMA_INTERVAL_DAYS;
-            default -> WHOLE_BLOOD_INTERVAL_DAYS;
-        };
+        int requiredDays = intervalDays(donationType);
         
         return daysSinceLastDonation >= requiredDays;
     }
@@ -148,11 +117,7 @@ public class DonationEligibilityChecker {
     public static long getDaysUntilEligible(LocalDate lastDonationDate, String donationType) {
         if (lastDonationDate == null) return 0;
         
-        int requiredDays = switch (donationType.toLowerCase()) {
-            case "platelet", "platelets" -> PLATELET_INTERVAL_DAYS;
-            case "plasma" -> PLASMA_INTERVAL_DAYS;
-            default -> WHOLE_BLOOD_INTERVAL_DAYS;
-        };
+        int requiredDays = intervalDays(donationType);
         
         LocalDate eligibleDate = lastDonationDate.plusDays(requiredDays);
         long daysUntil = ChronoUnit.DAYS.between(LocalDate.now(), eligibleDate);
@@ -164,7 +129,7 @@ public class DonationEligibilityChecker {
      */
     public static boolean isHemoglobinEligible(double hemoglobin, String gender) {
         double minRequired = "female".equalsIgnoreCase(gender) ? 
-            MIN_HEMOGLOBIN_FEMALE : MIN_HEMOGLOBIN_MALE;
+            POLICY.minHemoglobinFemale() : POLICY.minHemoglobinMale();
         return hemoglobin >= minRequired;
     }
 
@@ -172,17 +137,14 @@ public class DonationEligibilityChecker {
      * Check if condition causes permanent deferral
      */
     public static boolean isPermanentlyDeferred(String condition) {
-        return PERMANENT_DEFERRALS.contains(condition.toLowerCase().replace(" ", "_"));
+        return POLICY.permanentDeferrals().contains(EligibilityPolicy.normalizeCondition(condition));
     }
 
     /**
      * Get deferral period for temporary condition
      */
     public static int getTemporaryDeferralDays(String condition) {
-        return TEMPORARY_DEFERRALS.getOrDefault(
-            condition.toLowerCase().replace(" ", "_"), 
-            0
-        );
+        return POLICY.temporaryDeferrals().getOrDefault(EligibilityPolicy.normalizeCondition(condition), 0);
     }
 
     /**
@@ -196,76 +158,33 @@ public class DonationEligibilityChecker {
             LocalDate lastDonationDate,
             String donationType,
             List<String> conditions) {
-        
-        List<String> reasons = new ArrayList<>();
-        LocalDate nextEligible = LocalDate.now();
-        boolean hasTemporaryDeferral = false;
 
-        // Age check
-        if (!isAgeEligible(birthDate)) {
-            int age = calculateAge(birthDate);
-            if (age < MIN_AGE) {
-                reasons.add("Must be at least " + MIN_AGE + " years old (current age: " + age + ")");
-                nextEligible = birthDate.plusYears(MIN_AGE);
-                hasTemporaryDeferral = true;
-            } else {
-                reasons.add("Maximum donation age is " + MAX_AGE + " years (current age: " + age + ")");
-                return new EligibilityResult(false, reasons, null); // Permanent
-            }
-        }
-
-        // Weight check
-        if (!isWeightEligible(weightKg)) {
-            reasons.add(String.format("Minimum weight is %.1f kg (current: %.1f kg)", MIN_WEIGHT_KG, weightKg));
-        }
-
-        // Hemoglobin check
-        if (!isHemoglobinEligible(hemoglobin, gender)) {
-            double minRequired = "female".equalsIgnoreCase(gender) ? 
-                MIN_HEMOGLOBIN_FEMALE : MIN_HEMOGLOBIN_MALE;
-            reasons.add(String.format("Hemoglobin too low: %.1f g/dL (minimum: %.1f g/dL)", 
-                hemoglobin, minRequired));
-        }
-
-        // Last donation check
-        if (!hasEnoughTimeSinceLastDonation(lastDonationDate, donationType)) {
-            long daysUntil = getDaysUntilEligible(lastDonationDate, donationType);
-            LocalDate eligibleDate = LocalDate.now().plusDays(daysUntil);
-            reasons.add("Must wait " + daysUntil + " more days since last " + donationType + " donation");
-            if (eligibleDate.isAfter(nextEligible)) {
-                nextEligible = eligibleDate;
-            }
-            hasTemporaryDeferral = true;
-        }
-
-        // Check conditions
-        if (conditions != null) {
-            for (String condition : conditions) {
-                String normalizedCondition = condition.toLowerCase().replace(" ", "_");
-                
-                if (isPermanentlyDeferred(normalizedCondition)) {
-                    reasons.add("Permanent deferral due to: " + condition);
-                    return new EligibilityResult(false, reasons, null);
-                }
-                
-                int deferralDays = getTemporaryDeferralDays(normalizedCondition);
-                if (deferralDays > 0) {
-                    reasons.add("Temporary deferral (" + deferralDays + " days) due to: " + condition);
-                    LocalDate deferralEnd = LocalDate.now().plusDays(deferralDays);
-                    if (deferralEnd.isAfter(nextEligible)) {
-                        nextEligible = deferralEnd;
-                    }
-                    hasTemporaryDeferral = true;
-                }
-            }
-        }
+        Candidate candidate = new Candidate()
+                .birthDate(birthDate)
+                .weightKg(weightKg)
+                .female("female".equalsIgnoreCase(gender))
+                .hemoglobin(hemoglobin)
+                .lastDonation(lastDonationDate)
+                .donationType(componentType(donationType))
+                .conditions(PIPELINE.conditionMask(conditions));
+        EligibilityPipeline.Verdict verdict = PIPELINE.on(LocalDate.now()).evaluate(candidate);
+        return new EligibilityResult(verdict.eligible(), verdict.reasons(), verdict.nextEligibleDate());
+    }
+
+    private static int intervalDays(String donationType) {
+        return switch (componentType(donationType)) {
+            case PLATELETS -> POLICY.plateletIntervalDays();
+            case PLASMA -> POLICY.plasmaIntervalDays();
+            default -> POLICY.wholeBloodIntervalDays();
+        };
+    }
 
-        if (reasons.isEmpty()) {
-            return new EligibilityResult(true, Collections.emptyList(), null);
-        } else {
-            return new EligibilityResult(false, reasons, 
-                hasTemporaryDeferral ? nextEligible : null);
-        }
+    private static BloodStock.ComponentType componentType(String donationType) {
+        return switch (donationType.toLowerCase()) {
+            case "platelet", "platelets" -> BloodStock.ComponentType.PLATELETS;
+            case "plasma" -> BloodStock.ComponentType.PLASMA;
+            default -> BloodStock.ComponentType.WHOLE_BLOOD;
+        };
     }
 
     /**
@@ -279,14 +198,14 @@ public class DonationEligibilityChecker {
      * Get list of all temporary deferral conditions
      */
     public static Map<String, Integer> getTemporaryDeferralConditions() {
-        return Collections.unmodifiableMap(TEMPORARY_DEFERRALS);
+        return POLICY.temporaryDeferrals();
     }
 
     /**
      * Get list of all permanent deferral conditions
      */
     public static Set<String> getPermanentDeferralConditions() {
-        return PERMANENT_DEFERRALS;
+        return POLICY.permanentDeferrals();
     }
 
     /**
@@ -0,0 +1,179 @@
+package com.bbms.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+/**
+ * A sliding window over a large, ordered result for infinite scrolling.
+ *
+ * Rows are fetched a page at a time by keyset ("rows after this one"), so
+ * each fetch costs the same however far down the list it is. As the user
+ * nears either end of the loaded rows the adjacent page is fetched on the
+ * loader executor and spliced in on the ui executor; rows more than
+ * maxPages pages away are dropped, so memory stays bounded and scrolling
+ * back up fetches them again.
+ *
+ * All methods except the fetches themselves run on the ui executor's
+ * thread. The owner is told how far the rows moved after each change (see
+ * {@link #setOnChange}) to keep the same rows in view.
+ */
+public final class KeysetWindow<T> {
+
+    private static final Logger logger = LogManager.getLogger(KeysetWindow.class);
+
+    /**
+     * Fetches pages in the window's order. A null key means from the start
+     * (after) or the end (before); both return rows in ascending order.
+     */
+    public interface PageSource<T> {
+        List<T> after(T key, int limit);
+
+        List<T> before(T key, int limit);
+    }
+
+    private final List<T> items;
+    private final int pageSize;
+    private final int maxRows;
+    private final int prefetchRows;
+    private final Executor loader;
+    private final Executor ui;
+    private IntConsumer onChange = shift -> { };
+
+    private PageSource<T> source;
+    // Keyset cursors: the first and last rows fetched into the window
+    private T first;
+    private T last;
+    private boolean atStart;
+    private boolean atEnd;
+    private boolean loading;
+    private int generation;
+
+    /**
+     * @param items    the list to fill, e.g. a table's items
+     * @param maxPages pages kept in the window, at least 2
+     */
+    public KeysetWindow(List<T> items, int pageSize, int maxPages, Executor loader, Executor ui) {
+        if (pageSize < 1 || maxPages < 2) {
+            throw new IllegalArgumentException("Need pageSize >= 1 and maxPages >= 2");
+        }
+        this.items = items;
+        this.pageSize = pageSize;
+        this.maxRows = pageSize * maxPages;
+        this.prefetchRows = Math.max(1, pageSize / 2);
+        this.loader = loader;
+        this.ui = ui;
+    }
+
+    /**
+     * Called after rows are added or dropped at the top, with the number of
+     * positions the remaining rows moved (positive when rows were added
+     * above them), and with 0 after rows change at the bottom.
+     */
+    public void setOnChange(IntConsumer onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Start over from the top with a new source, e.g. after the search
+     * changes. Fetches still in flight for the old source are ignored.
+     */
+    public void reset(PageSource<T> source) {
+        this.source = source;
+        generation++;
+        items.clear();
+        first = null;
+        last = null;
+        atStart = true;
+        atEnd = false;
+        loading = false;
+        fetch(true);
+    }
+
+    /**
+     * Report the visible rows; fetches the next or previous page when
+     * either end of the window is near.
+     */
+    public void visible(int firstIndex, int lastIndex) {
+        if (source == null || loading) {
+            return;
+        }
+        if (!atEnd && lastIndex >= items.size() - prefetchRows) {
+            fetch(true);
+        } else if (!atStart && firstIndex < prefetchRows) {
+            fetch(false);
+        }
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Whether the window reaches the first and last rows of the result.
+     */
+    public boolean isComplete() {
+        return atStart && atEnd;
+    }
+
+    private void fetch(boolean forward) {
+        loading = true;
+        int fetching = generation;
+        PageSource<T> from = source;
+        T key = forward ? last : first;
+        loader.execute(() -> {
+            try {
+                List<T> page = forward ? from.after(key, pageSize) : from.before(key, pageSize);
+                ui.execute(() -> apply(fetching, forward, page));
+            } catch (RuntimeException e) {
+                logger.error("Failed to fetch a page", e);
+                ui.execute(() -> {
+                    if (fetching == generation) {
+                        loading = false;
+                    }
+                });
+            }
+        });
+    }
+
+    private void apply(int fetched, boolean forward, List<T> page) {
+        if (fetched != generation) {
+            return;
+        }
+        loading = false;
+        boolean exhausted = page.size() < pageSize;
+        if (forward) {
+            atEnd = exhausted;
+            if (!page.isEmpty()) {
+                items.addAll(page);
+                last = page.get(page.size() - 1);
+                if (first == null) {
+                    first = page.get(0);
+                }
+            }
+            int excess = items.size() - maxRows;
+            if (excess > 0) {
+                items.subList(0, excess).clear();
+                first = items.get(0);
+                atStart = false;
+            }
+            onChange.accept(excess > 0 ? -excess : 0);
+        } else {
+            atStart = exhausted;
+            if (!page.isEmpty()) {
+                items.addAll(0, page);
+                first = page.get(0);
+            }
+            int excess = items.size() - maxRows;
+            if (excess > 0) {
+                items.subList(items.size() - excess, items.size()).clear();
+                last = items.get(items.size() - 1);
+                atEnd = false;
+            }
+            onChange.accept(page.size());
+        }
+    }
+}
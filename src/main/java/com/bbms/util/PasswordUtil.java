@@ -1,14 +1,12 @@
 package com.bbms.util;
 
-import org.mindrot.jbcrypt.BCrypt;
+import com.bbms.security.PasswordHashingService;
 
 /**
- * Password hashing utility using BCrypt.
+ * Password helpers. Hashing is delegated to {@link PasswordHashingService}.
  */
 public class PasswordUtil {
 
-    private static final int BCRYPT_ROUNDS = 10;
-
     /**
      * Hash a plain text password.
      */
@@ -16,22 +14,14 @@ public class PasswordUtil {
         if (plainPassword == null || plainPassword.isEmpty()) {
             throw new IllegalArgumentException("Password cannot be empty");
         }
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(BCRYPT_ROUNDS));
+        return PasswordHashingService.getInstance().hash(plainPassword);
     }
 
     /**
      * Verify a plain text password against a hashed password.
      */
     public static boolean verifyPassword(String plainPassword, String hashedPassword) {
-        if (plainPassword == null || hashedPassword == null) {
-            return false;
-        }
-        try {
-            return BCrypt.checkpw(plainPassword, hashedPassword);
-        } catch (IllegalArgumentException e) {
-            // Invalid hash format
-            return false;
-        }
+        return PasswordHashingService.getInstance().verify(plainPassword, hashedPassword);
     }
 
     /**
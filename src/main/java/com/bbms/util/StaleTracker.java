@@ -0,0 +1,42 @@
+package com.bbms.util;
+
+import com.bbms.event.EventBus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers whether any of the watched entity types changed since a view
+ * last loaded, so showing a cached view reloads only when something it
+ * displays was written. Starts stale so the first show loads. Close it
+ * when the view is discarded.
+ */
+public final class StaleTracker implements AutoCloseable {
+
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private final List<EventBus.Subscription> subscriptions = new ArrayList<>();
+
+    private StaleTracker() {
+    }
+
+    public static StaleTracker watch(Class<?>... entityTypes) {
+        StaleTracker tracker = new StaleTracker();
+        for (Class<?> entityType : entityTypes) {
+            tracker.subscriptions.add(EventBus.getInstance().subscribe(entityType, event -> tracker.stale.set(true)));
+        }
+        return tracker;
+    }
+
+    /**
+     * Whether a watched entity changed since the last call; clears the flag.
+     */
+    public boolean takeStale() {
+        return stale.getAndSet(false);
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(EventBus.Subscription::close);
+    }
+}
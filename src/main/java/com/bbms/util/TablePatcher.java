@@ -0,0 +1,131 @@
+package com.bbms.util;
+
+import com.bbms.event.EntityEvent;
+import com.bbms.event.EventBus;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a table's item list in step with entity events by patching single
+ * rows, so an issued bag updates one row instead of reloading the table.
+ *
+ * The filter decides which entities belong in the list; an update that makes
+ * an entity stop (or start) matching removes (or adds) its row. Rows are
+ * found through an id-to-index map kept up to date by updates and appends;
+ * any other change to the list (a reload, a removal, a sort) marks it stale
+ * and it is rebuilt on the next event. Close the patcher when the view is
+ * discarded.
+ */
+public final class TablePatcher<T> implements AutoCloseable {
+
+    private final ObservableList<T> items;
+    private final Function<T, ?> idOf;
+    private final EventBus.Subscription subscription;
+    private final ListChangeListener<T> indexKeeper = this::onItemsChanged;
+    private volatile Predicate<T> filter;
+
+    // Row index by entity id; null when stale. Only touched on the FX thread
+    private Map<Object, Integer> rows;
+
+    private TablePatcher(ObservableList<T> items, Class<T> entityType, Function<T, ?> idOf, Predicate<T> filter) {
+        this.items = items;
+        this.idOf = idOf;
+        this.filter = filter;
+        items.addListener(indexKeeper);
+        this.subscription = EventBus.getInstance().subscribe(entityType, this::onEvent);
+    }
+
+    public static <T> TablePatcher<T> bind(ObservableList<T> items, Class<T> entityType, Function<T, ?> idOf) {
+        return new TablePatcher<>(items, entityType, idOf, entity -> true);
+    }
+
+    /**
+     * Change which entities belong in the list, e.g. after the user applies a
+     * search. Does not touch rows already present.
+     */
+    public void setFilter(Predicate<T> filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+        items.removeListener(indexKeeper);
+    }
+
+    private void onEvent(EntityEvent<T> event) {
+        if (Platform.isFxApplicationThread()) {
+            apply(event);
+        } else {
+            Platform.runLater(() -> apply(event));
+        }
+    }
+
+    void apply(EntityEvent<T> event) {
+        int index = indexOf(event.id());
+        T entity = event.entity();
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                if (filter.test(entity)) {
+                    if (index >= 0) {
+                        items.set(index, entity);
+                    } else {
+                        items.add(entity);
+                    }
+                } else if (index >= 0) {
+                    items.remove(index);
+                }
+            }
+            case DELETED -> {
+                if (index >= 0) {
+                    items.remove(index);
+                }
+            }
+        }
+    }
+
+    private int indexOf(Object id) {
+        if (rows == null) {
+            rows = new HashMap<>(items.size() * 2);
+            for (int i = 0; i < items.size(); i++) {
+                rows.put(idOf.apply(items.get(i)), i);
+            }
+        }
+        Integer index = rows.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Keep the index for rows replaced in place or appended at the end;
+     * anything else shifts rows, so the index is rebuilt when next needed.
+     */
+    private void onItemsChanged(ListChangeListener.Change<? extends T> change) {
+        while (rows != null && change.next()) {
+            if (change.wasPermutated() || change.wasUpdated()) {
+                rows = null;
+            } else if (change.wasReplaced() && change.getRemovedSize() == change.getAddedSize()) {
+                for (T removed : change.getRemoved()) {
+                    rows.remove(idOf.apply(removed));
+                }
+                index(change.getAddedSubList(), change.getFrom());
+            } else if (!change.wasRemoved() && change.getTo() == items.size()) {
+                index(change.getAddedSubList(), change.getFrom());
+            } else {
+                rows = null;
+            }
+        }
+    }
+
+    private void index(List<? extends T> added, int from) {
+        for (int i = 0; i < added.size(); i++) {
+            rows.put(idOf.apply(added.get(i)), from + i);
+        }
+    }
+}
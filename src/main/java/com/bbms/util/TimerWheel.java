@@ -0,0 +1,142 @@
+package com.bbms.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel for large numbers of cancellable timeouts.
+ *
+ * Scheduling and cancelling are O(1) and never block: new timeouts are
+ * queued and moved into their bucket by the wheel thread on the next tick,
+ * and a cancelled timeout is simply skipped and dropped when its bucket
+ * comes round. Timeouts fire on the wheel thread within one tick of their
+ * deadline, so tasks must be short and must not block.
+ */
+public final class TimerWheel implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(TimerWheel.class);
+
+    private final long tickMillis;
+    private final String threadName;
+    private final ArrayDeque<Timeout>[] buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private volatile long tick;
+    private ScheduledExecutorService ticker;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int wheelSize, String threadName) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.threadName = threadName;
+        this.buckets = (ArrayDeque<Timeout>[]) new ArrayDeque<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Run task once delayMillis has passed. Delays shorter than a tick are
+     * rounded up to one tick.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        Timeout timeout = new Timeout(task, tick + ticks);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Move the wheel on by one tick and fire everything now due. Called by
+     * the wheel thread; package-private so tests can drive the wheel.
+     */
+    void advance() {
+        long current = tick + 1;
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (!timeout.cancelled) {
+                buckets[bucket(Math.max(timeout.deadline, current))].add(timeout);
+            }
+        }
+
+        Iterator<Timeout> it = buckets[bucket(current)].iterator();
+        while (it.hasNext()) {
+            Timeout candidate = it.next();
+            if (candidate.cancelled) {
+                it.remove();
+            } else if (candidate.deadline <= current) {
+                it.remove();
+                candidate.fire();
+            }
+        }
+        tick = current;
+    }
+
+    private int bucket(long tickNumber) {
+        return (int) (tickNumber % buckets.length);
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void fire() {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.warn("Timer wheel task failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bbms.util;
+
+import com.bbms.controller.RefreshableView;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * LRU cache of loaded scenes and their controllers, keyed by FXML path.
+ *
+ * A cached view keeps its controller state. Controllers load their data in
+ * {@link RefreshableView#onShow()}, called on every show including the
+ * first, rather than in initialize(), so preloading only parses the FXML
+ * and a view shown again refreshes instead of re-parsing it. Forms and the login screen are never cached because
+ * they must start from a clean state. All methods except preload() must be
+ * called on the FX thread.
+ */
+public class ViewCache {
+
+    private static final Logger logger = LogManager.getLogger(ViewCache.class);
+    private static final Set<String> NEVER_CACHED = Set.of(
+            "/fxml/login.fxml", "/fxml/donor_form.fxml", "/fxml/recipient_form.fxml");
+
+    public record View(Scene scene, Object controller) {}
+
+    private final Map<String, View> views;
+    private final String stylesheet;
+    private int generation;
+    private final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "view-preload");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ViewCache(int capacity, String stylesheet) {
+        this.stylesheet = stylesheet;
+        this.views = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+                if (size() > capacity) {
+                    logger.debug("Evicting cached view {}", eldest.getKey());
+                    dispose(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The view for fxmlPath, cached or freshly loaded, told it is being shown.
+     */
+    public View get(String fxmlPath) throws IOException {
+        View view = views.get(fxmlPath);
+        if (view == null) {
+            view = load(fxmlPath);
+            if (!NEVER_CACHED.contains(fxmlPath)) {
+                views.put(fxmlPath, view);
+            }
+        }
+        if (view.controller() instanceof RefreshableView refreshable) {
+            refreshable.onShow();
+        }
+        return view;
+    }
+
+    /**
+     * Parse views in the background so the first visit skips it. Only the FXML
+     * is loaded off the FX thread; the data is queried on first show. The
+     * scenes are added to the cache on the FX thread.
+     */
+    public void preload(List<String> fxmlPaths) {
+        int requestedGeneration = generation;
+        for (String fxmlPath : fxmlPaths) {
+            if (NEVER_CACHED.contains(fxmlPath)) continue;
+            preloader.execute(() -> {
+                try {
+                    FXMLLoader loader = new FXMLLoader(resource(fxmlPath));
+                    Parent root = loader.load();
+                    Object controller = loader.getController();
+                    Platform.runLater(() -> {
+                        // Skip if the user got there first or the cache was cleared meanwhile
+                        if (generation == requestedGeneration && !views.containsKey(fxmlPath)) {
+                            views.put(fxmlPath, new View(newScene(root), controller));
+                            logger.debug("Preloaded view {}", fxmlPath);
+                        }
+                    });
+                } catch (Exception e) {
+                    logger.warn("Failed to preload view " + fxmlPath, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop every cached view, e.g. on logout so the next user starts fresh.
+     */
+    public void clear() {
+        generation++;
+        views.values().forEach(ViewCache::dispose);
+        views.clear();
+    }
+
+    public void shutdown() {
+        preloader.shutdownNow();
+    }
+
+    private static void dispose(View view) {
+        if (view.controller() instanceof RefreshableView refreshable) {
+            refreshable.dispose();
+        }
+    }
+
+    private View load(String fxmlPath) throws IOException {
+        FXMLLoader loader = new FXMLLoader(resource(fxmlPath));
+        Parent root = loader.load();
+        return new View(newScene(root), loader.getController());
+    }
+
+    private Scene newScene(Parent root) {
+        Scene scene = new Scene(root);
+        if (stylesheet != null) {
+            scene.getStylesheets().add(stylesheet);
+        }
+        return scene;
+    }
+
+    private static URL resource(String fxmlPath) {
+        return Objects.requireNonNull(ViewCache.class.getResource(fxmlPath), fxmlPath);
+    }
+}
@@ -1,21 +1,26 @@
 package org.example;
 
-import org.example.dao.*;
-import org.example.model.*;
+import com.bbms.config.HibernateUtil;
+import com.bbms.model.Donor;
+import com.bbms.service.BloodStockService;
+import com.bbms.service.DonorService;
+
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
-        DonorDao donorDao = new DonorDao();
-        Donor donor = new Donor();
-        donor.setFullName("Arjun Kumar");
-        donor.setBloodGroup("A+");
-        donor.setPhone("8888800000");
-        donorDao.saveDonor(donor);
+        try {
+            DonorService donorService = new DonorService();
+            Donor donor = new Donor("Arjun Kumar", "A+", "8888800000");
+            donorService.saveDonor(donor);
 
-        BloodStockDao stockDao = new BloodStockDao();
-        System.out.println("Current Stock:");
-        for (BloodStock s : stockDao.getAllStocks()) {
-            System.out.println(s.getBloodGroup() + " - " + s.getUnitsAvailable() + " units");
+            BloodStockService stockService = new BloodStockService();
+            System.out.println("Current Stock:");
+            for (Map.Entry<String, Integer> entry : stockService.getStockSummary().entrySet()) {
+                System.out.println(entry.getKey() + " - " + entry.getValue() + " units");
+            }
+        } finally {
+            HibernateUtil.shutdown();
         }
     }
 }
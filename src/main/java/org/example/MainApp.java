@@ -1,5 +1,7 @@
 package org.example;
 
+import com.bbms.config.HibernateUtil;
+import com.bbms.service.AuthService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -13,6 +15,9 @@ public class MainApp extends Application {
     public void start(Stage stage) throws Exception {
         primaryStage = stage; // Save reference
 
+        // Same SessionFactory and services as com.bbms.MainApp, built while the login screen shows
+        HibernateUtil.initializeAsync();
+
         FXMLLoader fxmlLoader = new FXMLLoader(MainApp.class.getResource("/login.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 600, 400);
         stage.setTitle("Blood Bank - Main Menu");
@@ -20,6 +25,12 @@ public class MainApp extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        AuthService.getInstance().shutdown();
+        HibernateUtil.shutdown();
+    }
+
     public static Stage getPrimaryStage() {
         return primaryStage;
     }
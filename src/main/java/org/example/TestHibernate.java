@@ -1,31 +1,24 @@
 package org.example;
 
-import org.example.config.HibernateUtil;
-import org.example.model.Donor;
-import org.hibernate.Session;
-import org.hibernate.Transaction;
+import com.bbms.config.HibernateUtil;
+import com.bbms.model.Donor;
+import com.bbms.service.DonorService;
 
 import java.time.LocalDate;
 
 public class TestHibernate {
     public static void main(String[] args) {
-        // Open a session
-        Session session = HibernateUtil.getSessionFactory().openSession();
-        Transaction tx = session.beginTransaction();
+        try {
+            // Create a sample Donor record
+            Donor d = new Donor("Priya Raman", "O+", "9999900000");
+            d.setDateOfBirth(LocalDate.of(1995, 5, 10));
+            d.setLastDonationDate(LocalDate.of(2025, 9, 1));
 
-        // Create a sample Donor record
-        Donor d = new Donor();
-        d.setFullName("Priya Raman");
-        d.setBloodGroup("O+");
-        d.setPhone("99999 00000");
-        d.setDateOfBirth(LocalDate.of(1995, 5, 10));
-        d.setLastDonationDate(LocalDate.of(2025, 9, 1));
-
-        // Save into DB
-        session.persist(d);
-        tx.commit();
-
-        session.close();
-        System.out.println("✅ Hibernate connected and donor saved successfully!");
+            // Save into DB through the shared SessionFactory
+            new DonorService().saveDonor(d);
+            System.out.println("✅ Hibernate connected and donor saved successfully!");
+        } finally {
+            HibernateUtil.shutdown();
+        }
     }
 }
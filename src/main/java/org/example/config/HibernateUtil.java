@@ -1,40 +0,0 @@
-package org.example.config;
-
-import org.hibernate.SessionFactory;
-import org.hibernate.boot.MetadataSources;
-import org.hibernate.boot.registry.StandardServiceRegistry;
-import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
-
-public class HibernateUtil {
-
-    private static final SessionFactory sessionFactory = buildSessionFactory();
-
-    private static SessionFactory buildSessionFactory() {
-        try {
-            StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
-                    .configure("hibernate.cfg.xml") // loads configuration
-                    .build();
-
-            SessionFactory factory = new MetadataSources(registry)
-                    .buildMetadata()
-                    .buildSessionFactory();
-
-            System.out.println("✅ Hibernate SessionFactory initialized.");
-            return factory;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new ExceptionInInitializerError("❌ Hibernate initialization failed: " + e);
-        }
-    }
-
-    public static SessionFactory getSessionFactory() {
-        return sessionFactory;
-    }
-
-    public static void shutdown() {
-        if (sessionFactory != null && !sessionFactory.isClosed()) {
-            sessionFactory.close();
-        }
-    }
-}
@@ -6,25 +6,39 @@ import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import org.example.dao.BloodStockDao;
-import org.example.model.BloodStock;
+import com.bbms.model.BloodStock;
+import com.bbms.service.BloodStockService;
+import com.bbms.util.BloodCompatibility;
 import org.example.MainApp;
 
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.fxml.FXMLLoader;
 import javafx.stage.Stage;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BloodStockController {
 
-    @FXML private TableView<BloodStock> tblStock;
-    @FXML private TableColumn<BloodStock, String> colGroup;
-    @FXML private TableColumn<BloodStock, Integer> colUnits;
-    @FXML private TableColumn<BloodStock, String> colUpdated;
+    /**
+     * One row per blood group, summed over the available bags.
+     */
+    public record GroupStock(String bloodGroup, int unitsAvailable, LocalDateTime lastUpdated) {
+        public String getBloodGroup() { return bloodGroup; }
+        public int getUnitsAvailable() { return unitsAvailable; }
+        public LocalDateTime getLastUpdated() { return lastUpdated; }
+    }
+
+    @FXML private TableView<GroupStock> tblStock;
+    @FXML private TableColumn<GroupStock, String> colGroup;
+    @FXML private TableColumn<GroupStock, Integer> colUnits;
+    @FXML private TableColumn<GroupStock, String> colUpdated;
 
-    private final BloodStockDao stockDao = new BloodStockDao();
+    private final BloodStockService stockService = new BloodStockService();
 
     @FXML
     public void initialize() {
@@ -44,8 +58,23 @@ public class BloodStockController {
     }
 
     private void loadStockData() {
-        List<BloodStock> stockList = stockDao.getAllStocks();
-        ObservableList<BloodStock> observableStock = FXCollections.observableArrayList(stockList);
+        // One query for all available bags, folded into per-group totals
+        Map<String, Integer> units = new LinkedHashMap<>();
+        Map<String, LocalDateTime> updated = new LinkedHashMap<>();
+        for (String group : BloodCompatibility.ALL_BLOOD_GROUPS) {
+            units.put(group, 0);
+        }
+        for (BloodStock stock : stockService.findAvailable()) {
+            units.merge(stock.getBloodGroup(), stock.getUnitsAvailable(), Integer::sum);
+            LocalDateTime changed = stock.getUpdatedAt() != null ? stock.getUpdatedAt() : stock.getCreatedAt();
+            if (changed != null) {
+                updated.merge(stock.getBloodGroup(), changed, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+
+        List<GroupStock> stockList = new ArrayList<>();
+        units.forEach((group, total) -> stockList.add(new GroupStock(group, total, updated.get(group))));
+        ObservableList<GroupStock> observableStock = FXCollections.observableArrayList(stockList);
         tblStock.setItems(observableStock);
     }
 
@@ -3,23 +3,19 @@ package org.example.controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import org.example.dao.BloodStockDao;
-import org.example.dao.DonorDao;
-import org.example.dao.DonationDao;       // 🆕 added
-import org.example.model.BloodStock;
-import org.example.model.Donor;
-import org.example.model.Donation;
+import com.bbms.dao.Transactions;
+import com.bbms.model.BloodStock;
+import com.bbms.model.Donation;
+import com.bbms.model.Donor;
+import com.bbms.service.BloodStockService;
+import com.bbms.service.DonorService;
+import com.bbms.util.BloodCompatibility;
 import javafx.stage.Stage;
-// 🆕 added
 
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import org.example.MainApp;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
-
 public class DonorController {
 
     @FXML private TextField txtName;
@@ -27,9 +23,8 @@ public class DonorController {
     @FXML private TextField txtPhone;
     @FXML private Label lblStatus;
 
-    private final DonorDao donorDao = new DonorDao();
-    private final BloodStockDao stockDao = new BloodStockDao();
-    private final DonationDao donationDao = new DonationDao();   // 🆕 added
+    private final DonorService donorService = new DonorService();
+    private final BloodStockService stockService = new BloodStockService();
 
     @FXML
     private void saveDonor() {
@@ -48,33 +43,13 @@ public class DonorController {
                 return;
             }
 
-            // --- Save donor ---
-            Donor donor = new Donor();
-            donor.setFullName(name);
-            donor.setBloodGroup(group);
-            donor.setPhone(phone);
-            donor.setLastDonationDate(LocalDate.now());
-            donorDao.saveDonor(donor);
-
-            // 🆕 --- Record Donation ---
-            Donation donation = new Donation();
-            donation.setDonor(donor);               // link donor entity
-            donation.setBloodGroup(group);
-            donation.setDonatedAt(java.time.LocalDateTime.now());
-            donation.setUnits(1);                   // assume one unit donated
-            donationDao.saveDonation(donation);
-
-            // --- Update blood stock ---
-            BloodStock stock = stockDao.getStockByGroup(group);
-            if (stock == null) {
-                stock = new BloodStock();
-                stock.setBloodGroup(group);
-                stock.setUnitsAvailable(1);
-            } else {
-                stock.setUnitsAvailable(stock.getUnitsAvailable() + 1);
-            }
-            stock.setLastUpdated(LocalDateTime.now());
-            stockDao.saveOrUpdateStock(stock);
+            // --- Save donor, record donation and add one unit to stock, all in one transaction ---
+            Donor donor = new Donor(name, group, phone);
+            Transactions.inTransaction(() -> {
+                donorService.saveDonor(donor);
+                donorService.recordDonation(donor, new Donation());
+                stockService.addFromDonation(group, BloodStock.ComponentType.WHOLE_BLOOD, 1, 450, null);
+            });
 
             // --- Feedback ---
             showSuccess("✅ Donor & donation saved, stock updated!");
@@ -87,8 +62,7 @@ public class DonorController {
     }
 
     private boolean isValidBloodGroup(String bg) {
-        List<String> validGroups = List.of("A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-");
-        return validGroups.contains(bg);
+        return BloodCompatibility.isValidBloodGroup(bg);
     }
 
     private void clearFields() {
@@ -6,8 +6,8 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.beans.property.SimpleStringProperty;
-import org.example.dao.DonorDao;
-import org.example.model.Donor;
+import com.bbms.model.Donor;
+import com.bbms.service.DonorService;
 
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -23,7 +23,7 @@ public class DonorListController {
     @FXML private TableColumn<Donor, String> colPhone;
     @FXML private TableColumn<Donor, String> colLastDonation;
 
-    private final DonorDao donorDao = new DonorDao();
+    private final DonorService donorService = new DonorService();
 
     @FXML
     public void initialize() {
@@ -42,7 +42,7 @@ public class DonorListController {
         );
 
         // Load donor data into table
-        donorTable.setItems(FXCollections.observableArrayList(donorDao.getAllDonors()));
+        donorTable.setItems(FXCollections.observableArrayList(donorService.findAll()));
 
         // Optional: sort by latest donors first
         donorTable.getSortOrder().add(colLastDonation);
@@ -1,5 +1,7 @@
 package org.example.controller;
 
+import com.bbms.service.AuthService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -7,8 +9,9 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import org.example.MainApp;
-import org.example.dao.UserDao;
-import org.example.model.User;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class LoginController {
 
@@ -16,7 +19,7 @@ public class LoginController {
     @FXML private PasswordField txtPassword;
     @FXML private Label lblStatus;
 
-    private final UserDao userDao = new UserDao();
+    private final AuthService authService = AuthService.getInstance();
 
     @FXML
     private void handleLogin() {
@@ -28,12 +31,20 @@ public class LoginController {
             return;
         }
 
-        User user = userDao.getUserByUsername(username);
-        if (user != null && user.getPassword().equals(password)) {
-            openMainMenu();
-        } else {
-            lblStatus.setText("❌ Invalid credentials");
-        }
+        // Password check runs off the FX thread (see AuthService)
+        authService.loginAsync(username, password).whenComplete((success, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                lblStatus.setText(cause instanceof RejectedExecutionException
+                        ? "⚠️ Too many logins in progress, please try again"
+                        : "❌ Could not reach the database");
+            } else if (success) {
+                openMainMenu();
+            } else {
+                lblStatus.setText("❌ Invalid credentials");
+            }
+        }));
     }
 
     private void openMainMenu() {
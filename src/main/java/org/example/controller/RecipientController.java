@@ -3,19 +3,20 @@ package org.example.controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import org.example.dao.BloodStockDao;
-import org.example.dao.RecipientDao;
-import org.example.dao.TransfusionDao;        // 🆕 added
-import org.example.model.BloodStock;
-import org.example.model.Recipient;
-import org.example.model.Transfusion;         // 🆕 added
+import com.bbms.dao.Transactions;
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.Recipient;
+import com.bbms.service.AuthService;
+import com.bbms.service.BloodStockService;
+import com.bbms.service.RecipientService;
+import com.bbms.util.BloodCompatibility;
 
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import org.example.MainApp;
 
-import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -26,9 +27,8 @@ public class RecipientController {
     @FXML private TextField txtPhone;
     @FXML private Label lblStatus;
 
-    private final RecipientDao recipientDao = new RecipientDao();
-    private final BloodStockDao stockDao = new BloodStockDao();
-    private final TransfusionDao transfusionDao = new TransfusionDao();   // 🆕 added
+    private final RecipientService recipientService = new RecipientService();
+    private final BloodStockService stockService = new BloodStockService();
 
     @FXML
     private void saveRecipient() {
@@ -50,32 +50,27 @@ public class RecipientController {
                 return;
             }
 
-            // --- Step 2: Check stock availability ---
-            BloodStock stock = stockDao.getStockByGroup(group);
-            if (stock == null || stock.getUnitsAvailable() <= 0) {
+            // --- Step 2: Check stock availability (same group first, then compatible, oldest first) ---
+            List<BloodStockService.AvailableStock> available =
+                    stockService.findCompatibleStock(group, BloodStock.ComponentType.WHOLE_BLOOD);
+            if (available.isEmpty()) {
                 lblStatus.setText("❌ Requested blood not available!");
                 lblStatus.setStyle("-fx-text-fill: red;");
                 return;
             }
-
-            // --- Step 3: Save recipient ---
-            Recipient recipient = new Recipient();
-            recipient.setFullName(name);
-            recipient.setBloodGroupRequired(group);
-            recipient.setPhone(phone);
-            recipient.setRequestDate(LocalDate.now());
-            recipientDao.saveRecipient(recipient);
-
-            // 🆕 --- Step 4A: Record transfusion ---
-            Transfusion transfusion = new Transfusion();
-            transfusion.setRecipient(recipient);
-            transfusion.setBloodGroupUsed(group);
-            transfusion.setTransfusedAt(java.time.LocalDateTime.now());
-            transfusion.setUnits(1); // assuming 1 unit per request
-            transfusionDao.saveTransfusion(transfusion);
-
-            // --- Step 4B: Update stock (-1) ---
-            reduceStockAfterRequest(stock);
+            BloodStock stock = available.stream()
+                    .map(BloodStockService.AvailableStock::lot)
+                    .filter(s -> group.equals(s.getBloodGroup()))
+                    .findFirst()
+                    .orElse(available.get(0).lot());
+
+            // --- Step 3 & 4: Save recipient, raise a one-unit request and transfuse it in one transaction ---
+            Transactions.inTransaction(() -> {
+                Recipient recipient = recipientService.saveRecipient(new Recipient(name, group, phone));
+                BloodRequest request = recipientService.createBloodRequest(recipient, group,
+                        BloodStock.ComponentType.WHOLE_BLOOD, 1, BloodRequest.Priority.NORMAL, LocalDate.now(), null);
+                recipientService.processTransfusion(request, stock, 1, AuthService.getInstance().getCurrentUsername());
+            });
 
             // --- Step 5: Feedback ---
             lblStatus.setText("✅ Recipient request saved, transfusion recorded, stock updated!");
@@ -89,17 +84,9 @@ public class RecipientController {
         }
     }
 
-    // --- Helper: Reduce stock by 1 ---
-    private void reduceStockAfterRequest(BloodStock stock) {
-        stock.setUnitsAvailable(stock.getUnitsAvailable() - 1);
-        stock.setLastUpdated(LocalDateTime.now());
-        stockDao.saveOrUpdateStock(stock);
-    }
-
     // --- Helper: Validate blood group ---
     private boolean isValidBloodGroup(String bg) {
-        List<String> validGroups = List.of("A+", "A-", "B+", "B-", "O+", "O-", "AB+", "AB-");
-        return validGroups.contains(bg);
+        return BloodCompatibility.isValidBloodGroup(bg);
     }
 
     private void clearFields() {
@@ -5,8 +5,8 @@ import javafx.fxml.FXML;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.beans.property.SimpleStringProperty;
-import org.example.dao.RecipientDao;
-import org.example.model.Recipient;
+import com.bbms.model.Recipient;
+import com.bbms.service.RecipientService;
 
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -23,7 +23,7 @@ public class RecipientListController {
     @FXML private TableColumn<Recipient, String> colPhone;
     @FXML private TableColumn<Recipient, String> colRequestDate;
 
-    private final RecipientDao recipientDao = new RecipientDao();
+    private final RecipientService recipientService = new RecipientService();
 
     @FXML
     public void initialize() {
@@ -32,22 +32,22 @@ public class RecipientListController {
                 new SimpleStringProperty(cellData.getValue().getFullName()));
 
         colBloodGroup.setCellValueFactory(cellData ->
-                new SimpleStringProperty(cellData.getValue().getBloodGroupRequired()));
+                new SimpleStringProperty(cellData.getValue().getBloodGroup()));
 
         colPhone.setCellValueFactory(cellData ->
                 new SimpleStringProperty(cellData.getValue().getPhone()));
 
-        // Convert LocalDate → readable string or dash
+        // Registration date → readable string or dash
         colRequestDate.setCellValueFactory(cellData ->
                 new SimpleStringProperty(
-                        cellData.getValue().getRequestDate() != null
-                                ? cellData.getValue().getRequestDate().toString()
+                        cellData.getValue().getCreatedAt() != null
+                                ? cellData.getValue().getCreatedAt().toLocalDate().toString()
                                 : "—"
                 )
         );
 
         // Load data into table
-        recipientTable.setItems(FXCollections.observableArrayList(recipientDao.getAllRecipients()));
+        recipientTable.setItems(FXCollections.observableArrayList(recipientService.findAll()));
 
         // Optional: sort by most recent requests first
         recipientTable.getSortOrder().add(colRequestDate);
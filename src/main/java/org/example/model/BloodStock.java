@@ -1,32 +0,0 @@
-package org.example.model;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "blood_stock")
-public class BloodStock {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    private String bloodGroup;
-    private int unitsAvailable;
-    private LocalDateTime lastUpdated;
-
-    public BloodStock() {}
-
-    // Getters and setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public String getBloodGroup() { return bloodGroup; }
-    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
-
-    public int getUnitsAvailable() { return unitsAvailable; }
-    public void setUnitsAvailable(int unitsAvailable) { this.unitsAvailable = unitsAvailable; }
-
-    public LocalDateTime getLastUpdated() { return lastUpdated; }
-    public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
-}
-
@@ -1,38 +0,0 @@
-package org.example.model;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "donation")
-public class Donation {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "donor_id", nullable = false)
-    private Donor donor;
-
-    private String bloodGroup;
-    private int units;
-    private LocalDateTime donatedAt = LocalDateTime.now();
-
-    public Donation() {}
-
-    // Getters and setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public Donor getDonor() { return donor; }
-    public void setDonor(Donor donor) { this.donor = donor; }
-
-    public String getBloodGroup() { return bloodGroup; }
-    public void setBloodGroup(String bloodGroup) { this.bloodGroup = bloodGroup; }
-
-    public int getUnits() { return units; }
-    public void setUnits(int units) { this.units = units; }
-
-    public LocalDateTime getDonatedAt() { return donatedAt; }
-    public void setDonatedAt(LocalDateTime donatedAt) { this.donatedAt = donatedAt; }
-}
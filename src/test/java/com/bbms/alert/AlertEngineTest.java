@@ -0,0 +1,143 @@
+package com.bbms.alert;
+
+import com.bbms.model.BloodStock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiled stock alert rules and their de-duplication.
+ */
+class AlertEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    private final Map<String, String> properties = new HashMap<>(Map.of(
+            "stock.critical.threshold", "5",
+            "alert.rules", "critical,below-forecast,expired",
+            "alert.rule.critical.scope", "group",
+            "alert.rule.critical.when", "units <= ${stock.critical.threshold}",
+            "alert.rule.critical.severity", "critical",
+            "alert.rule.critical.message", "Critical stock: {bloodGroup} has {units} unit(s) left",
+            "alert.rule.critical.repeat.minutes", "60",
+            "alert.rule.below-forecast.scope", "series",
+            "alert.rule.below-forecast.when", "units < threshold",
+            "alert.rule.below-forecast.message", "Low stock: {bloodGroup} {component} - {units} of {threshold}"
+    ));
+
+    {
+        properties.put("alert.rule.expired.scope", "lot");
+        properties.put("alert.rule.expired.when", "days < 0");
+        properties.put("alert.rule.expired.message", "Expired: lot {stockId} expired on {expiry}");
+    }
+
+    /** Every series with stock or history needs 10 units; only A+ RBC has history. */
+    private final ThresholdSource thresholds = new ThresholdSource() {
+        @Override
+        public int lowStockThreshold(String bloodGroup, BloodStock.ComponentType componentType) {
+            return 10;
+        }
+
+        @Override
+        public boolean hasDemandHistory(String bloodGroup, BloodStock.ComponentType componentType) {
+            return "A+".equals(bloodGroup) && componentType == BloodStock.ComponentType.RBC;
+        }
+    };
+
+    @Test
+    @DisplayName("Lot, series and group rules are evaluated in one pass over the lots")
+    void testEvaluatesEveryScope() {
+        AlertEngine engine = new AlertEngine(AlertRule.loadAll(properties::get));
+        List<BloodStock> lots = List.of(
+                lot(1L, "O+", BloodStock.ComponentType.WHOLE_BLOOD, 20, 10),
+                lot(2L, "O+", BloodStock.ComponentType.PLATELETS, 3, -1),
+                lot(3L, "B-", BloodStock.ComponentType.PLATELETS, 4, 2));
+
+        AlertUpdate update = engine.evaluate(lots, thresholds, NOW);
+
+        List<String> messages = update.active().stream().map(Alert::message).toList();
+        assertTrue(messages.contains("Expired: lot 2 expired on 2024-05-31"), messages.toString());
+        // Expired lots count towards no total, so O+ PLATELETS has neither stock nor history
+        assertFalse(messages.stream().anyMatch(m -> m.startsWith("Low stock: O+ PLATELETS")), messages.toString());
+        assertTrue(messages.contains("Low stock: B- PLATELETS - 4 of 10"), messages.toString());
+        assertTrue(messages.contains("Low stock: A+ RBC - 0 of 10"), "A series with history is checked without stock");
+        assertFalse(messages.stream().anyMatch(m -> m.startsWith("Low stock: A- ")), "No stock and no history");
+        assertTrue(messages.contains("Critical stock: B- has 4 unit(s) left"), messages.toString());
+        assertTrue(messages.contains("Critical stock: AB+ has 0 unit(s) left"), messages.toString());
+        assertFalse(messages.contains("Critical stock: O+ has 20 unit(s) left"));
+        assertEquals(AlertRule.Severity.CRITICAL, update.active().get(0).severity(), "Most severe first");
+        assertEquals(update.active().size(), update.raised().size());
+    }
+
+    @Test
+    @DisplayName("A persisting alert is sent once per repeat interval and cleared when it stops matching")
+    void testDeduplicatesAndRepeats() {
+        AlertEngine engine = new AlertEngine(AlertRule.loadAll(properties::get));
+        List<AlertUpdate> received = new ArrayList<>();
+        engine.subscribe(received::add);
+        List<BloodStock> lots = new ArrayList<>();
+        for (String group : List.of("A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-")) {
+            lots.add(lot(lots.size() + 1L, group, BloodStock.ComponentType.RBC, 20, 30));
+        }
+        BloodStock expired = lot(100L, "O-", BloodStock.ComponentType.RBC, 2, -3);
+        lots.add(expired);
+
+        assertEquals(1, engine.evaluate(lots, thresholds, NOW).raised().size());
+        assertNull(engine.evaluate(lots, thresholds, NOW.plusMinutes(5)), "Nothing changed");
+        assertEquals(1, received.size());
+
+        // Critical repeats every 60 minutes while it holds, the others never do
+        lots.set(0, lot(1L, "A+", BloodStock.ComponentType.RBC, 4, 30));
+        AlertUpdate raised = engine.evaluate(lots, thresholds, NOW.plusMinutes(10));
+        assertEquals(Set.of("critical:A+", "below-forecast:A+|RBC"),
+                raised.raised().stream().map(Alert::key).collect(Collectors.toSet()));
+        AlertUpdate quiet = engine.evaluate(lots, thresholds, NOW.plusMinutes(30));
+        assertNull(quiet);
+        AlertUpdate repeated = engine.evaluate(lots, thresholds, NOW.plusMinutes(70));
+        assertEquals(List.of("critical:A+"), repeated.raised().stream().map(Alert::key).toList());
+        assertEquals(NOW.plusMinutes(10), repeated.raised().get(0).raisedAt());
+
+        lots.remove(expired);
+        AlertUpdate cleared = engine.evaluate(lots, thresholds, NOW.plusMinutes(75));
+        assertEquals(List.of("expired:lot:100"), cleared.cleared().stream().map(Alert::key).toList());
+        assertTrue(cleared.raised().isEmpty());
+        assertEquals(4, received.size());
+        assertEquals(cleared.active(), engine.getActiveAlerts());
+    }
+
+    @Test
+    @DisplayName("Invalid rules are rejected when loaded")
+    void testRejectsInvalidRules() {
+        properties.put("alert.rule.critical.when", "units <= reorder");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> AlertRule.loadAll(properties::get));
+        assertTrue(e.getMessage().contains("critical") && e.getMessage().contains("reorder"), e.getMessage());
+
+        properties.put("alert.rule.critical.when", "units <= ${stock.missing}");
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.loadAll(properties::get));
+
+        properties.put("alert.rule.critical.when", "units <= 5 and");
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.loadAll(properties::get));
+
+        properties.put("alert.rule.critical.when", "units <= 5");
+        properties.put("alert.rule.critical.message", "{bloodGroup} expires on {expiry}");
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.loadAll(properties::get));
+    }
+
+    private static BloodStock lot(long id, String bloodGroup, BloodStock.ComponentType componentType,
+                                  int units, int daysToExpiry) {
+        BloodStock stock = new BloodStock(bloodGroup, componentType, units);
+        stock.setId(id);
+        stock.setExpiryDate(NOW.toLocalDate().plusDays(daysToExpiry));
+        return stock;
+    }
+}
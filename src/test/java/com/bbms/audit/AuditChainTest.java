@@ -0,0 +1,94 @@
+package com.bbms.audit;
+
+import com.bbms.model.AuditEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for audit field diffs and the audit hash chain.
+ */
+class AuditChainTest {
+
+    @Test
+    @DisplayName("Diff lists only changed fields, old value first")
+    void testDiffListsChangedFields() {
+        String diff = FieldDiff.describe(
+                state("unitsAvailable", "5", "status", "AVAILABLE"),
+                state("unitsAvailable", "3", "status", "AVAILABLE"));
+
+        assertEquals("{\"unitsAvailable\":[\"5\",\"3\"]}", diff);
+    }
+
+    @Test
+    @DisplayName("Diff is null when nothing changed")
+    void testDiffNullWhenUnchanged() {
+        assertNull(FieldDiff.describe(state("status", "AVAILABLE"), state("status", "AVAILABLE")));
+    }
+
+    @Test
+    @DisplayName("Diff escapes quotes and hides password hashes")
+    void testDiffEscapesAndRedacts() {
+        String diff = FieldDiff.describe(
+                state("notes", null, "passwordHash", "$2a$old"),
+                state("notes", "said \"ok\"", "passwordHash", "$2a$new"));
+
+        assertEquals("{\"notes\":[null,\"said \\\"ok\\\"\"],\"passwordHash\":[\"[redacted]\",\"[redacted]\"]}", diff);
+    }
+
+    @Test
+    @DisplayName("Linking assigns consecutive ids and chains hashes")
+    void testLinkChainsEntries() {
+        List<AuditEntry> entries = List.of(entry("1"), entry("2"), entry("3"));
+
+        String last = AuditChain.link(entries, 10, "abc");
+
+        assertEquals(11L, entries.get(0).getId());
+        assertEquals(13L, entries.get(2).getId());
+        assertEquals("abc", entries.get(0).getPrevHash());
+        assertEquals(entries.get(0).getHash(), entries.get(1).getPrevHash());
+        assertEquals(last, entries.get(2).getHash());
+        assertTrue(AuditChain.isIntact(entries.get(1), 12, entries.get(0).getHash()));
+    }
+
+    @Test
+    @DisplayName("Editing an entry breaks its hash")
+    void testTamperingDetected() {
+        List<AuditEntry> entries = List.of(entry("1"), entry("2"));
+        AuditChain.link(entries, 0, null);
+
+        entries.get(0).setActor("someone-else");
+
+        assertFalse(AuditChain.isIntact(entries.get(0), 1, null));
+        assertTrue(AuditChain.isIntact(entries.get(1), 2, entries.get(0).getHash()));
+    }
+
+    @Test
+    @DisplayName("Removing an entry breaks the chain for the next one")
+    void testRemovalDetected() {
+        List<AuditEntry> entries = List.of(entry("1"), entry("2"), entry("3"));
+        AuditChain.link(entries, 0, null);
+
+        // Entry 2 removed: entry 3 no longer follows entry 1
+        assertFalse(AuditChain.isIntact(entries.get(2), 2, entries.get(0).getHash()));
+    }
+
+    private static AuditEntry entry(String entityId) {
+        return new AuditEntry("BloodStock", entityId, AuditEntry.Action.UPDATE, "admin",
+                LocalDateTime.of(2026, 1, 15, 10, 30), "{\"unitsAvailable\":[\"5\",\"3\"]}");
+    }
+
+    private static Map<String, String> state(String... keyValues) {
+        Map<String, String> state = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            state.put(keyValues[i], keyValues[i + 1]);
+        }
+        return state;
+    }
+}
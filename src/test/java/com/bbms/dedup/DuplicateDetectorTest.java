@@ -0,0 +1,104 @@
+package com.bbms.dedup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for duplicate donor detection.
+ */
+class DuplicateDetectorTest {
+
+    private static final LocalDate DOB = LocalDate.of(1990, 4, 12);
+
+    private final DuplicateDetector detector = new DuplicateDetector(0.90, 0.80, 50);
+
+    @Test
+    @DisplayName("Jaro-Winkler scores known pairs; word order and accents are ignored")
+    void testNameSimilarity() {
+        assertEquals(0.961, NameSimilarity.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, NameSimilarity.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(0.0, NameSimilarity.jaroWinkler("", "abc"));
+        assertEquals(1.0, NameSimilarity.similarity("Smith, Mary-Ann", "Mary Ann SMITH"));
+        assertEquals(1.0, NameSimilarity.similarity("José Núñez", "Jose Nunez"));
+    }
+
+    @Test
+    @DisplayName("Phone keys ignore formatting and country prefixes")
+    void testPhoneKey() {
+        assertEquals("5550100123", DonorProfile.phoneKey("+1 (555) 010-0123"));
+        assertEquals("5550100123", DonorProfile.phoneKey("555.010.0123"));
+        assertEquals("0100123", DonorProfile.phoneKey("010 0123"));
+        assertNull(DonorProfile.phoneKey("ext 12"));
+        assertNull(DonorProfile.phoneKey(null));
+    }
+
+    @Test
+    @DisplayName("A pair needs a shared identifier, close names and no conflicts")
+    void testMatchRules() {
+        DonorProfile donor = profile(1, "Mary Ann Smith", "555-010-0123", DOB, "O+", null);
+
+        DuplicateMatch match = detector.match(donor,
+                profile(2, "Smith Mary-Ann", "+1 555 010 0123", null, "O+", null));
+        assertNotNull(match);
+        assertEquals(Set.of(DuplicateMatch.Evidence.PHONE), match.evidence());
+
+        assertNull(detector.match(donor, profile(3, "Marian Smyth", "555-010-0123", null, "O+", null)),
+                "One identifier needs a close name");
+        assertNotNull(detector.match(donor, profile(4, "Marian Smyth", "555-010-0123", DOB, "O+", null)),
+                "Two identifiers accept a looser name");
+        assertNull(detector.match(donor, profile(5, "Mary Ann Smith", "555-010-0123", DOB, "A+", null)));
+        assertNull(detector.match(donor, profile(6, "Mary Ann Smith", "555-010-0123", DOB.plusDays(1), "O+", null)));
+        assertNull(detector.match(donor, profile(7, "Mary Ann Smith", "555-999-0000", null, "O+", null)));
+    }
+
+    @Test
+    @DisplayName("A scan finds each planted duplicate once and skips oversized blocks")
+    void testScan() {
+        Random random = new Random(3);
+        String[] groups = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+        List<DonorProfile> profiles = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            profiles.add(profile(i, word(random, 6) + " " + word(random, 8),
+                    String.format("555%07d", i), LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)),
+                    groups[random.nextInt(groups.length)], null));
+        }
+        // Re-registrations: a typo in the name and no date of birth
+        for (int i = 1; i <= 10; i++) {
+            DonorProfile original = profiles.get(i * 100);
+            profiles.add(new DonorProfile(100_000 + i, original.name() + "e", original.sortedName() + "e",
+                    original.phoneKey(), DonorProfile.UNKNOWN_DAY, original.bloodGroup(), null));
+        }
+        // Walk-in registrations sharing the clinic's number
+        for (int i = 1; i <= 60; i++) {
+            profiles.add(profile(200_000 + i, "Walk In " + i, "555-000-0000", null, "O+", null));
+        }
+
+        DuplicateDetector.Scan scan = detector.scan(profiles);
+        assertEquals(10, scan.matches().size());
+        for (DuplicateMatch match : scan.matches()) {
+            assertTrue(match.donorId() < match.otherId());
+            assertTrue(match.otherId() > 100_000);
+        }
+        assertEquals(1, scan.skippedBlocks());
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    private static DonorProfile profile(long id, String name, String phone, LocalDate dob, String group, String email) {
+        return DonorProfile.of(id, name, phone, dob, group, email);
+    }
+}
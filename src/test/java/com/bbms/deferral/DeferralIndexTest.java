@@ -0,0 +1,104 @@
+package com.bbms.deferral;
+
+import com.bbms.model.DonorDeferral;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory deferral index.
+ */
+class DeferralIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 1);
+
+    private long nextId = 1;
+
+    @Test
+    @DisplayName("Overlapping and back-to-back deferrals merge into one interval")
+    void testMergedIntervals() {
+        DeferralIndex index = new DeferralIndex();
+        index.put(deferral(1L, DAY, DAY.plusDays(14)));
+        index.put(deferral(1L, DAY.plusDays(10), DAY.plusDays(30)));
+        index.put(deferral(1L, DAY.plusDays(30), DAY.plusDays(40)));
+        index.put(deferral(1L, DAY.plusDays(60), DAY.plusDays(70)));
+
+        assertNull(index.deferredUntil(1L, DAY.minusDays(1)));
+        assertEquals(DAY.plusDays(40), index.deferredUntil(1L, DAY));
+        assertEquals(DAY.plusDays(40), index.deferredUntil(1L, DAY.plusDays(35)));
+        assertNull(index.deferredUntil(1L, DAY.plusDays(40)), "The end date is exclusive");
+        assertEquals(DAY.plusDays(70), index.deferredUntil(1L, DAY.plusDays(60)));
+        assertFalse(index.isDeferred(2L, DAY));
+        assertEquals(4, index.getDeferrals(1L).size());
+    }
+
+    @Test
+    @DisplayName("A permanent deferral covers every later day")
+    void testPermanent() {
+        DeferralIndex index = new DeferralIndex();
+        index.put(deferral(1L, DAY.plusDays(5), null));
+        index.put(deferral(1L, DAY, DAY.plusDays(10)));
+
+        assertEquals(LocalDate.MAX, index.deferredUntil(1L, DAY));
+        assertEquals(LocalDate.MAX, index.deferredUntil(1L, DAY.plusYears(50)));
+        assertEquals(1, index.releaseExpired(DAY.plusYears(50)).size());
+        assertNull(index.deferredUntil(1L, DAY));
+        assertEquals(LocalDate.MAX, index.deferredUntil(1L, DAY.plusDays(5)));
+    }
+
+    @Test
+    @DisplayName("Release removes only what has run out; inactive rows leave the index")
+    void testReleaseAndStatus() {
+        DeferralIndex index = new DeferralIndex();
+        DonorDeferral shortOne = deferral(1L, DAY, DAY.plusDays(7));
+        DonorDeferral longOne = deferral(2L, DAY, DAY.plusDays(90));
+        index.replaceAll(List.of(shortOne, longOne));
+
+        assertEquals(List.of(shortOne), index.releaseExpired(DAY.plusDays(7)));
+        assertFalse(index.isDeferred(1L, DAY));
+        assertTrue(index.isDeferred(2L, DAY));
+
+        longOne.setStatus(DonorDeferral.DeferralStatus.REVOKED);
+        index.put(longOne);
+        assertFalse(index.isDeferred(2L, DAY));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Queries agree with a scan of the individual deferrals")
+    void testMatchesScan() {
+        Random random = new Random(11);
+        DeferralIndex index = new DeferralIndex();
+        List<DonorDeferral> all = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate start = DAY.plusDays(random.nextInt(365));
+            LocalDate end = random.nextInt(20) == 0 ? null : start.plusDays(1 + random.nextInt(120));
+            DonorDeferral deferral = deferral((long) random.nextInt(200), start, end);
+            all.add(deferral);
+            index.put(deferral);
+        }
+
+        for (int i = 0; i < 5_000; i++) {
+            long donorId = random.nextInt(200);
+            LocalDate day = DAY.plusDays(random.nextInt(500));
+            boolean covered = all.stream().anyMatch(d -> d.getDonorId() == donorId && d.covers(day));
+            LocalDate until = index.deferredUntil(donorId, day);
+            assertEquals(covered, until != null, "Donor " + donorId + " on " + day);
+            if (until != null && until != LocalDate.MAX) {
+                assertFalse(index.isDeferred(donorId, until));
+            }
+        }
+    }
+
+    private DonorDeferral deferral(Long donorId, LocalDate start, LocalDate end) {
+        DonorDeferral deferral = new DonorDeferral(donorId, "fever", start, end, "test");
+        deferral.setId(nextId++);
+        return deferral;
+    }
+}
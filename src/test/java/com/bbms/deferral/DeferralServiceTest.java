@@ -0,0 +1,199 @@
+package com.bbms.deferral;
+
+import com.bbms.config.AppConfig;
+import com.bbms.config.HibernateUtil;
+import com.bbms.dao.DonationDao;
+import com.bbms.dao.DonorDao;
+import com.bbms.dao.DonorDeferralDao;
+import com.bbms.dao.Transactions;
+import com.bbms.eligibility.EligibilityPolicy;
+import com.bbms.event.EntityEvent;
+import com.bbms.event.EventBus;
+import com.bbms.model.Donor;
+import com.bbms.model.DonorDeferral;
+import com.bbms.service.DonorService;
+import com.bbms.stats.DonorStatsService;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Service-level tests for recording deferrals and screening donors at
+ * check-in. The DAOs are mocked; saves publish their event after commit as
+ * the real DAOs do, and committed rows are what a reload reads back.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DeferralServiceTest {
+
+    // Event subscriptions are process-wide; keep donors apart across tests
+    private static final AtomicLong NEXT_DONOR_ID = new AtomicLong(90_000);
+
+    @Mock private DonorDeferralDao deferralDao;
+    @Mock private DonorDao donorDao;
+    @Mock private DonationDao donationDao;
+    @Mock private DonorStatsService statsService;
+    @Mock private SessionFactory sessionFactory;
+    @Mock private Session session;
+    @Mock private Transaction transaction;
+
+    private MockedStatic<HibernateUtil> hibernate;
+    private DeferralService deferrals;
+    private Long donorId;
+    private long nextDeferralId = 1;
+    private final List<DonorDeferral> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        hibernate = mockStatic(HibernateUtil.class);
+        hibernate.when(HibernateUtil::getSessionFactory).thenReturn(sessionFactory);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+
+        when(deferralDao.findActive()).thenAnswer(invocation -> saved.stream()
+                .filter(d -> d.getStatus() == DonorDeferral.DeferralStatus.ACTIVE)
+                .toList());
+        when(deferralDao.save(any())).thenAnswer(invocation -> {
+            DonorDeferral deferral = invocation.getArgument(0);
+            deferral.setId(nextDeferralId++);
+            Transactions.afterCommit(() -> saved.add(deferral));
+            Transactions.afterCommit(() -> EventBus.getInstance().publish(new EntityEvent<>(
+                    EntityEvent.Type.CREATED, DonorDeferral.class, deferral.getId(), deferral)));
+            return deferral;
+        });
+        when(deferralDao.update(any())).thenAnswer(invocation -> {
+            DonorDeferral deferral = invocation.getArgument(0);
+            Transactions.afterCommit(() -> EventBus.getInstance().publish(new EntityEvent<>(
+                    EntityEvent.Type.UPDATED, DonorDeferral.class, deferral.getId(), deferral)));
+            return deferral;
+        });
+
+        deferrals = new DeferralService(deferralDao, statsService, EligibilityPolicy.fromConfig(AppConfig.getInstance()));
+        donorId = NEXT_DONOR_ID.incrementAndGet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernate.close();
+    }
+
+    @Test
+    @DisplayName("A temporary deferral lasts the condition's period from its start")
+    void testTemporaryDeferral() {
+        LocalDate start = LocalDate.now();
+        int days = EligibilityPolicy.DEFAULT_TEMPORARY_DEFERRALS.get("tattoo_piercing");
+
+        DonorDeferral deferral = deferrals.defer(donorId, "Tattoo Piercing", start, "Left arm");
+
+        assertEquals("tattoo_piercing", deferral.getCondition());
+        assertEquals(start.plusDays(days), deferral.getEndDate());
+        verify(transaction).commit();
+        verify(statsService).recordDeferral(donorId, 1);
+        assertEquals(start.plusDays(days), deferrals.deferredUntil(donorId, start));
+        assertEquals(start.plusDays(days), deferrals.deferredUntil(donorId, start.plusDays(days - 1)));
+        assertNull(deferrals.deferredUntil(donorId, start.plusDays(days)));
+    }
+
+    @Test
+    @DisplayName("A permanent condition defers the donor for good")
+    void testPermanentDeferral() {
+        LocalDate start = LocalDate.now();
+
+        deferrals.defer(donorId, "hepatitis_b", start, null);
+
+        assertEquals(LocalDate.MAX, deferrals.deferredUntil(donorId, start.plusYears(30)));
+    }
+
+    @Test
+    @DisplayName("An unknown condition is rejected without writing")
+    void testUnknownCondition() {
+        assertThrows(IllegalArgumentException.class,
+                () -> deferrals.defer(donorId, "sunburn", LocalDate.now(), null));
+        verify(deferralDao, never()).save(any());
+        assertNull(deferrals.deferredUntil(donorId, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("A deferral that fails to commit never reaches the index")
+    void testRolledBackDeferral() {
+        doThrow(new IllegalStateException("commit failed")).when(transaction).commit();
+
+        assertThrows(IllegalStateException.class,
+                () -> deferrals.defer(donorId, "fever", LocalDate.now(), null));
+        assertNull(deferrals.deferredUntil(donorId, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Revoking a deferral lifts it")
+    void testRevoke() {
+        DonorDeferral deferral = deferrals.defer(donorId, "fever", LocalDate.now(), null);
+        when(deferralDao.findById(deferral.getId())).thenReturn(Optional.of(deferral));
+
+        deferrals.revoke(deferral.getId());
+
+        assertEquals(DonorDeferral.DeferralStatus.REVOKED, deferral.getStatus());
+        verify(statsService).recordDeferral(donorId, -1);
+        assertFalse(deferrals.isDeferred(donorId, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Check-in screening records reported conditions and the donor is no longer eligible")
+    void testScreenAtCheckIn() {
+        DonorService donors = new DonorService(donorDao, donationDao, deferrals, statsService);
+        Donor donor = eligibleDonor();
+        assertTrue(donors.checkEligibility(donor).isEligible());
+
+        DonorService.DonorEligibility result = donors.screenAtCheckIn(donor, List.of("Fever", "cold_flu"), "Reported at desk");
+
+        assertFalse(result.isEligible());
+        verify(deferralDao, times(2)).save(any());
+        verify(transaction, times(1)).commit();
+        assertEquals(LocalDate.now().plusDays(14), deferrals.deferredUntil(donorId, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Screening skips conditions already deferred and rejects unknown ones up front")
+    void testScreenAtCheckInSkipsAndRejects() {
+        DonorService donors = new DonorService(donorDao, donationDao, deferrals, statsService);
+        Donor donor = eligibleDonor();
+        deferrals.defer(donorId, "fever", LocalDate.now(), null);
+
+        donors.screenAtCheckIn(donor, List.of("fever"), null);
+        assertThrows(IllegalArgumentException.class,
+                () -> donors.screenAtCheckIn(donor, List.of("antibiotics", "sunburn"), null));
+
+        verify(deferralDao, times(1)).save(any());
+    }
+
+    private Donor eligibleDonor() {
+        Donor donor = new Donor();
+        donor.setId(donorId);
+        donor.setFullName("Screened Donor");
+        donor.setBloodGroup("O+");
+        donor.setGender(Donor.Gender.MALE);
+        donor.setDateOfBirth(LocalDate.now().minusYears(30));
+        donor.setWeightKg(70.0);
+        donor.setIsEligible(true);
+        return donor;
+    }
+}
@@ -0,0 +1,108 @@
+package com.bbms.eligibility;
+
+import com.bbms.model.BloodStock;
+import com.bbms.model.Donor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compiled donor eligibility pipeline.
+ */
+class EligibilityPipelineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    private final EligibilityPipeline pipeline = EligibilityPipeline.compile(new EligibilityPolicy(
+            18, 65, 50.0, 13.0, 12.5, 90, 7, 28,
+            EligibilityPolicy.DEFAULT_TEMPORARY_DEFERRALS, EligibilityPolicy.DEFAULT_PERMANENT_DEFERRALS));
+
+    @Test
+    @DisplayName("The configured interval applies per donation type")
+    void testIntervalFromPolicy() {
+        EligibilityPipeline.Screen screen = pipeline.on(TODAY);
+        Candidate candidate = adult().lastDonation(TODAY.minusDays(60));
+
+        EligibilityPipeline.Verdict verdict = screen.evaluate(candidate);
+        assertFalse(verdict.eligible());
+        assertEquals(List.of("Must wait 30 more days since last whole_blood donation"), verdict.reasons());
+        assertEquals(TODAY.plusDays(30), verdict.nextEligibleDate());
+
+        assertTrue(screen.isEligible(candidate.donationType(BloodStock.ComponentType.PLATELETS)));
+        assertTrue(screen.isEligible(adult().lastDonation(TODAY.minusDays(90))));
+    }
+
+    @Test
+    @DisplayName("Deferrals resolve to bits; a permanent deferral is reported alone")
+    void testDeferrals() {
+        EligibilityPipeline.Screen screen = pipeline.on(TODAY);
+
+        Candidate temporary = adult().conditions(pipeline.conditionMask(List.of("Cold Flu", "tattoo_piercing", "sunburn")));
+        EligibilityPipeline.Verdict verdict = screen.evaluate(temporary);
+        assertEquals(2, verdict.reasons().size());
+        assertEquals(TODAY.plusDays(90), verdict.nextEligibleDate());
+
+        Candidate permanent = adult().weightKg(40.0)
+                .conditions(pipeline.conditionMask(List.of("fever", "hepatitis_c")));
+        verdict = screen.evaluate(permanent);
+        assertEquals(List.of("Permanent deferral due to: hepatitis_c"), verdict.reasons());
+        assertNull(verdict.nextEligibleDate());
+
+        assertEquals(0, pipeline.conditionMask(List.of("sunburn")));
+    }
+
+    @Test
+    @DisplayName("Recorded deferrals block until their end date")
+    void testRecordedDeferrals() {
+        EligibilityPipeline.Screen screen = pipeline.on(TODAY);
+
+        EligibilityPipeline.Verdict verdict = screen.evaluate(adult().deferredUntil(TODAY.plusDays(10)));
+        assertEquals(List.of("Deferred until " + TODAY.plusDays(10)), verdict.reasons());
+        assertEquals(TODAY.plusDays(10), verdict.nextEligibleDate());
+
+        verdict = screen.evaluate(adult().weightKg(40.0).deferredUntil(LocalDate.MAX));
+        assertEquals(List.of("Permanently deferred (see deferral history)"), verdict.reasons());
+        assertNull(verdict.nextEligibleDate());
+
+        assertTrue(screen.isEligible(adult().deferredUntil(TODAY)));
+        assertTrue(screen.isEligible(adult().deferredUntil(null)));
+    }
+
+    @Test
+    @DisplayName("The fast path agrees with the full verdict and the batch screen")
+    void testFastPathMatchesVerdict() {
+        Random random = new Random(7);
+        List<Donor> donors = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Donor donor = new Donor("Donor " + i, "O+", "555-0100");
+            donor.setDateOfBirth(random.nextInt(10) == 0 ? null : TODAY.minusDays(random.nextInt(80 * 365)));
+            donor.setWeightKg(random.nextInt(10) == 0 ? null : 40.0 + random.nextInt(60));
+            donor.setGender(random.nextBoolean() ? Donor.Gender.FEMALE : Donor.Gender.MALE);
+            donor.setLastDonationDate(random.nextBoolean() ? null : TODAY.minusDays(random.nextInt(200)));
+            donor.setIsEligible(random.nextInt(20) != 0);
+            donors.add(donor);
+        }
+
+        EligibilityPipeline.Screen screen = pipeline.on(TODAY);
+        BitSet eligible = screen.eligible(donors, (donor, candidate) -> candidate.load(donor));
+        Candidate candidate = new Candidate();
+        for (int i = 0; i < donors.size(); i++) {
+            EligibilityPipeline.Verdict verdict = screen.evaluate(candidate.load(donors.get(i)));
+            assertEquals(verdict.eligible(), eligible.get(i), "Donor " + i + ": " + verdict.reasons());
+            assertEquals(verdict.eligible(), verdict.reasons().isEmpty());
+        }
+        assertTrue(eligible.cardinality() > 0 && eligible.cardinality() < donors.size());
+        assertSame(screen, pipeline.on(TODAY), "The screen is reused for the same day");
+    }
+
+    private static Candidate adult() {
+        return new Candidate().birthDate(TODAY.minusYears(30)).weightKg(70.0).hemoglobin(14.0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bbms.forecast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for incremental weekday-seasonal exponential smoothing.
+ */
+class SeasonalSmootherTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1); // a Monday
+
+    @Test
+    @DisplayName("Learns a weekday pattern")
+    void testLearnsWeekdayPattern() {
+        SeasonalSmoother smoother = new SeasonalSmoother(0.2, 0.1, 0.1);
+        LocalDate day = START;
+        for (int i = 0; i < 20 * 7; i++, day = day.plusDays(1)) {
+            smoother.update(day, demand(day));
+        }
+
+        LocalDate nextMonday = day.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        assertEquals(10.0, smoother.forecast(nextMonday), 1.0);
+        assertEquals(2.0, smoother.forecast(nextMonday.plusDays(5)), 1.0);
+        assertTrue(smoother.sigma() < 1.0, "A clean pattern should leave little error: " + smoother.sigma());
+    }
+
+    @Test
+    @DisplayName("Resuming from stored state matches training in one go")
+    void testRestoreContinuesTraining() {
+        SeasonalSmoother straight = new SeasonalSmoother(0.2, 0.1, 0.1);
+        SeasonalSmoother split = new SeasonalSmoother(0.2, 0.1, 0.1);
+        LocalDate day = START;
+        for (int i = 0; i < 60; i++, day = day.plusDays(1)) {
+            straight.update(day, demand(day) + i % 3);
+            split.update(day, demand(day) + i % 3);
+        }
+        SeasonalSmoother resumed = SeasonalSmoother.restore(0.2, 0.1, 0.1, split.getLevel(), split.getSeason(),
+                split.getMse(), split.getObservations(), split.getLastDate());
+        for (int i = 60; i < 90; i++, day = day.plusDays(1)) {
+            straight.update(day, demand(day) + i % 3);
+            resumed.update(day, demand(day) + i % 3);
+        }
+
+        assertEquals(straight.getLevel(), resumed.getLevel(), 1e-9);
+        assertArrayEquals(straight.getSeason(), resumed.getSeason(), 1e-9);
+        assertEquals(straight.getObservations(), resumed.getObservations());
+    }
+
+    @Test
+    @DisplayName("Days must be applied in order and forecasts never go negative")
+    void testOrderingAndNonNegativeForecast() {
+        SeasonalSmoother smoother = new SeasonalSmoother(0.2, 0.1, 0.1);
+        assertEquals(0.0, smoother.forecast(START), 0.0);
+
+        smoother.update(START, 5);
+        assertThrows(IllegalArgumentException.class, () -> smoother.update(START, 3));
+
+        for (LocalDate day = START.plusDays(1); day.isBefore(START.plusDays(30)); day = day.plusDays(1)) {
+            smoother.update(day, 0);
+        }
+        for (int i = 0; i < 7; i++) {
+            assertTrue(smoother.forecast(START.plusDays(30 + i)) >= 0);
+        }
+    }
+
+    private static double demand(LocalDate day) {
+        return switch (day.getDayOfWeek()) {
+            case MONDAY -> 10;
+            case SATURDAY, SUNDAY -> 2;
+            default -> 6;
+        };
+    }
+}
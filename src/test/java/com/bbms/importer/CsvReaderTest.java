@@ -0,0 +1,103 @@
+package com.bbms.importer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming CSV reader and the import error report.
+ */
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("Quoted fields keep commas, escaped quotes and line breaks")
+    void testQuoting() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "name,notes\r\n\"Smith, Mary\",\"said \"\"hi\"\"\"\n\"Two\nlines\",\n"));
+
+        assertTrue(csv.next());
+        assertEquals(2, csv.size());
+        assertEquals(1, csv.line());
+
+        assertTrue(csv.next());
+        assertEquals("Smith, Mary", csv.get(0));
+        assertEquals("said \"hi\"", csv.field(1).toString());
+        assertEquals(2, csv.line());
+
+        assertTrue(csv.next());
+        assertEquals("Two\nlines", csv.get(0));
+        assertNull(csv.get(1), "A trailing empty field is blank");
+        assertEquals(3, csv.line());
+
+        assertFalse(csv.next());
+    }
+
+    @Test
+    @DisplayName("Blank lines are skipped and fields are trimmed views")
+    void testViews() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a, b ,\n\n\nlonger value,x,y,z\n"));
+
+        assertTrue(csv.next());
+        assertEquals(3, csv.size());
+        assertEquals("b", csv.get(1));
+        assertEquals(" b ", csv.field(1).toString());
+        CharSequence view = csv.field(0);
+
+        assertTrue(csv.next());
+        assertEquals(4, csv.line());
+        assertEquals("longer value", view.toString(), "Views follow the current record");
+        assertEquals(0, csv.field(7).length());
+        assertNull(csv.get(7));
+    }
+
+    @Test
+    @DisplayName("Records longer than the read block are reassembled")
+    void testLongInput() throws IOException {
+        StringBuilder input = new StringBuilder("id,text\n");
+        String text = "x".repeat(100_000);
+        for (int i = 0; i < 50; i++) {
+            input.append(i).append(",\"").append(text).append("\"\n");
+        }
+        CsvReader csv = new CsvReader(new StringReader(input.toString()));
+        assertTrue(csv.next());
+        int rows = 0;
+        while (csv.next()) {
+            assertEquals(String.valueOf(rows), csv.get(0));
+            assertEquals(text.length(), csv.field(1).length());
+            rows++;
+        }
+        assertEquals(50, rows);
+    }
+
+    @Test
+    @DisplayName("An unterminated quote is reported with its line")
+    void testUnterminatedQuote() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a\n\"open,\n"));
+        assertTrue(csv.next());
+        IOException e = assertThrows(IOException.class, csv::next);
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    @DisplayName("The error report is itself valid CSV")
+    void testErrorReport() throws IOException {
+        ImportReport report = new ImportReport(3, 1, 0, 1,
+                List.of(new ImportReport.RowError(4, "Invalid gender 'X, \"Y\"'")), Duration.ofMillis(1500));
+        StringWriter out = new StringWriter();
+        report.writeErrors(out);
+
+        CsvReader csv = new CsvReader(new StringReader(out.toString()));
+        assertTrue(csv.next());
+        assertTrue(csv.next());
+        assertEquals("4", csv.get(0));
+        assertEquals("Invalid gender 'X, \"Y\"'", csv.get(1));
+        assertEquals(2, report.rowsImported());
+    }
+}
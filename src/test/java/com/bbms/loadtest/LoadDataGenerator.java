@@ -0,0 +1,186 @@
+package com.bbms.loadtest;
+
+import com.bbms.config.HibernateUtil;
+import com.bbms.model.*;
+import com.bbms.util.BloodCompatibility;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic data set for load testing. The same seed and sizes
+ * always produce the same rows, so runs are comparable across releases.
+ */
+class LoadDataGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Priya", "Arjun", "Divya", "Rahul", "Sneha", "Vikram", "Ananya",
+            "Karthik", "Meera", "Rohan", "Kavya", "Sanjay", "Lakshmi", "Nikhil", "Pooja"
+    };
+    private static final String[] LAST_NAMES = {
+            "Kumar", "Sharma", "Raman", "Iyer", "Patel", "Reddy", "Nair", "Gupta",
+            "Menon", "Rao", "Singh", "Das", "Pillai", "Joshi", "Verma", "Shah"
+    };
+    private static final String[] HOSPITALS = {
+            "City General", "St. Mary's", "Apollo", "Fortis", "AIIMS", "Manipal"
+    };
+    private static final int COMMIT_EVERY = 5_000;
+
+    private final SplittableRandom random;
+    private final LocalDate today = LocalDate.now();
+
+    private final List<Long> stockIds = new ArrayList<>();
+    private final List<String> stockGroups = new ArrayList<>();
+    private final List<Recipient> recipients = new ArrayList<>();
+    private final List<BloodRequest> requests = new ArrayList<>();
+
+    LoadDataGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    void seed(int donors, int donationsPerDonor, int stockLots, int unitsPerLot, int recipientCount, int requestCount) {
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            insertDonorsAndDonations(session, donors, donationsPerDonor);
+            insertStock(session, stockLots, unitsPerLot);
+            insertRecipients(session, recipientCount);
+            insertRequests(session, requestCount);
+        }
+    }
+
+    private void insertDonorsAndDonations(StatelessSession session, int count, int donationsPerDonor) {
+        Transaction tx = session.beginTransaction();
+        for (int i = 0; i < count; i++) {
+            Donor donor = new Donor(randomName(), randomBloodGroup(), randomPhone());
+            donor.setDateOfBirth(today.minusYears(18 + random.nextInt(47)).minusDays(random.nextInt(365)));
+            donor.setGender(random.nextBoolean() ? Donor.Gender.MALE : Donor.Gender.FEMALE);
+            donor.setWeightKg(50 + random.nextDouble() * 40);
+            donor.setTotalDonations(donationsPerDonor);
+            session.insert(donor);
+
+            LocalDate last = null;
+            for (int d = 0; d < donationsPerDonor; d++) {
+                Donation donation = new Donation(donor, today.minusDays(random.nextInt(1095)), donor.getBloodGroup());
+                donation.setHemoglobinLevel(12.5 + random.nextDouble() * 4);
+                donation.setStatus(Donation.DonationStatus.COMPLETED);
+                session.insert(donation);
+                if (last == null || donation.getDonationDate().isAfter(last)) {
+                    last = donation.getDonationDate();
+                }
+            }
+            if (last != null) {
+                donor.setLastDonationDate(last);
+                session.update(donor);
+            }
+
+            if ((i + 1) % COMMIT_EVERY == 0) {
+                tx.commit();
+                tx = session.beginTransaction();
+            }
+        }
+        tx.commit();
+    }
+
+    /**
+     * Unexpired lots with their bags received through the same movements
+     * the ledger records, and the balances those movements add up to, so
+     * issues find bags and ledger checks replay cleanly.
+     */
+    private void insertStock(StatelessSession session, int count, int unitsPerLot) {
+        BloodStock.ComponentType[] components = BloodStock.ComponentType.values();
+        Map<String, StockBalance> balances = new LinkedHashMap<>();
+        Transaction tx = session.beginTransaction();
+        for (int i = 0; i < count; i++) {
+            BloodStock stock = new BloodStock(randomBloodGroup(),
+                    components[random.nextInt(components.length)], unitsPerLot);
+            stock.setCollectionDate(today.minusDays(random.nextInt(30)));
+            stock.setExpiryDate(today.plusDays(random.nextInt(1, 365)));
+            stock.setStorageLocation("Fridge-" + (1 + random.nextInt(20)));
+            stock.setStatus(BloodStock.StockStatus.AVAILABLE);
+            session.insert(stock);
+            stockIds.add(stock.getId());
+            stockGroups.add(stock.getBloodGroup());
+
+            StockBalance balance = balances.computeIfAbsent(stock.getBloodGroup() + "|" + stock.getComponentType(),
+                    key -> new StockBalance(stock.getBloodGroup(), stock.getComponentType()));
+            for (int sequence = 1; sequence <= unitsPerLot; sequence++) {
+                BloodUnit unit = BloodUnit.fromLot(stock, sequence);
+                StockMovement received = StockMovement.record(unit, StockMovement.Type.RECEIVED, balance,
+                        "lot:" + stock.getId(), "loadtest");
+                session.insert(unit);
+                session.insert(received);
+            }
+
+            if ((i + 1) % COMMIT_EVERY == 0) {
+                tx.commit();
+                tx = session.beginTransaction();
+            }
+        }
+        balances.values().forEach(session::insert);
+        tx.commit();
+    }
+
+    private void insertRecipients(StatelessSession session, int count) {
+        Transaction tx = session.beginTransaction();
+        for (int i = 0; i < count; i++) {
+            Recipient recipient = new Recipient();
+            recipient.setFullName(randomName());
+            recipient.setBloodGroup(randomBloodGroup());
+            recipient.setPhone(randomPhone());
+            recipient.setHospitalName(HOSPITALS[random.nextInt(HOSPITALS.length)]);
+            session.insert(recipient);
+            recipients.add(recipient);
+
+            if ((i + 1) % COMMIT_EVERY == 0) {
+                tx.commit();
+                tx = session.beginTransaction();
+            }
+        }
+        tx.commit();
+    }
+
+    private void insertRequests(StatelessSession session, int count) {
+        BloodRequest.Priority[] priorities = BloodRequest.Priority.values();
+        Transaction tx = session.beginTransaction();
+        for (int i = 0; i < count; i++) {
+            Recipient recipient = recipients.get(random.nextInt(recipients.size()));
+            BloodRequest request = new BloodRequest();
+            request.setRecipient(recipient);
+            request.setBloodGroup(recipient.getBloodGroup());
+            request.setUnitsRequested(1_000_000);
+            request.setPriority(priorities[random.nextInt(priorities.length)]);
+            request.setRequestDate(today.minusDays(random.nextInt(365)));
+            request.setStatus(BloodRequest.RequestStatus.PENDING);
+            session.insert(request);
+            requests.add(request);
+
+            if ((i + 1) % COMMIT_EVERY == 0) {
+                tx.commit();
+                tx = session.beginTransaction();
+            }
+        }
+        tx.commit();
+    }
+
+    List<Long> getStockIds() { return stockIds; }
+    List<String> getStockGroups() { return stockGroups; }
+    List<BloodRequest> getRequests() { return requests; }
+
+    private String randomName() {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private String randomBloodGroup() {
+        return BloodCompatibility.ALL_BLOOD_GROUPS[random.nextInt(BloodCompatibility.ALL_BLOOD_GROUPS.length)];
+    }
+
+    private String randomPhone() {
+        return String.valueOf(6_000_000_000L + random.nextLong(4_000_000_000L));
+    }
+}
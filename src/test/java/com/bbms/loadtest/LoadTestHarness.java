@@ -0,0 +1,165 @@
+package com.bbms.loadtest;
+
+import com.bbms.config.HibernateUtil;
+import com.bbms.dao.DonationDao;
+import com.bbms.metrics.Timer;
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.service.BloodStockService;
+import com.bbms.service.DonorService;
+import com.bbms.service.RecipientService;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end capacity baseline against embedded H2 (Oracle mode).
+ *
+ * Run with: mvn test -Ploadtest
+ * Scale with -Dloadtest.donors, -Dloadtest.threads, -Dloadtest.seconds, etc.
+ * The run fails if any operation's error rate exceeds -Dloadtest.maxErrorRate.
+ */
+@Tag("loadtest")
+@DisplayName("Load Test Harness")
+class LoadTestHarness {
+
+    private static final long SEED = Long.getLong("loadtest.seed", 20240601L);
+    private static final int DONORS = Integer.getInteger("loadtest.donors", 200_000);
+    private static final int DONATIONS_PER_DONOR = Integer.getInteger("loadtest.donationsPerDonor", 2);
+    private static final int STOCK_LOTS = Integer.getInteger("loadtest.stockLots", 50_000);
+    private static final int UNITS_PER_LOT = Integer.getInteger("loadtest.unitsPerLot", 20);
+    private static final int RECIPIENTS = Integer.getInteger("loadtest.recipients", 20_000);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 50_000);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+    private static final int SECONDS = Integer.getInteger("loadtest.seconds", 60);
+    // Share of an operation's attempts that may fail before the run fails
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+
+    private static final String[] SEARCH_TERMS = {"aarav", "priya", "kumar", "iyer", "shah", "9"};
+
+    private static LoadDataGenerator data;
+
+    private final DonorService donorService = new DonorService();
+    private final BloodStockService stockService = new BloodStockService();
+    private final RecipientService recipientService = new RecipientService();
+    private final DonationDao donationDao = new DonationDao();
+
+    @BeforeAll
+    static void seedDatabase() {
+        // One pooled connection per worker thread unless overridden
+        if (System.getProperty("db.pool.size") == null) {
+            System.setProperty("db.pool.size", String.valueOf(THREADS));
+        }
+
+        long start = System.nanoTime();
+        data = new LoadDataGenerator(SEED);
+        data.seed(DONORS, DONATIONS_PER_DONOR, STOCK_LOTS, UNITS_PER_LOT, RECIPIENTS, REQUESTS);
+        System.out.printf("Seeded %,d donors, %,d donations, %,d stock lots (%,d bags), %,d requests in %.1fs%n",
+                DONORS, DONORS * DONATIONS_PER_DONOR, STOCK_LOTS, (long) STOCK_LOTS * UNITS_PER_LOT, REQUESTS,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        HibernateUtil.shutdown();
+    }
+
+    @Test
+    @DisplayName("Mixed workload: search, issue, transfusion and reports")
+    void mixedWorkload() throws InterruptedException {
+        Map<String, Timer> timers = new LinkedHashMap<>();
+        Map<String, LongAdder> errors = new LinkedHashMap<>();
+        Map<String, Exception> firstErrors = new ConcurrentHashMap<>();
+        for (String op : List.of("search", "issue", "transfusion", "report")) {
+            timers.put(op, new Timer());
+            errors.put(op, new LongAdder());
+        }
+
+        Map<String, List<Long>> stockByGroup = new HashMap<>();
+        for (int i = 0; i < data.getStockIds().size(); i++) {
+            stockByGroup.computeIfAbsent(data.getStockGroups().get(i), k -> new ArrayList<>())
+                    .add(data.getStockIds().get(i));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(SEED + t);
+            workers.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(100);
+                    // 50% search, 25% issue, 15% transfusion, 10% reports
+                    String op = pick < 50 ? "search" : pick < 75 ? "issue" : pick < 90 ? "transfusion" : "report";
+                    long start = System.nanoTime();
+                    try {
+                        switch (op) {
+                            case "search" -> donorService.search(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+                            case "issue" -> runIssue(random);
+                            case "transfusion" -> runTransfusion(random, stockByGroup);
+                            default -> {
+                                LocalDate to = LocalDate.now().minusDays(random.nextInt(1000));
+                                donationDao.findByDateRange(to.minusDays(7), to);
+                            }
+                        }
+                        timers.get(op).recordNanos(System.nanoTime() - start);
+                    } catch (Exception e) {
+                        errors.get(op).increment();
+                        firstErrors.putIfAbsent(op, e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(SECONDS + 120, TimeUnit.SECONDS), "Workers did not finish");
+
+        printReport(timers, errors);
+        timers.forEach((op, timer) -> {
+            assertTrue(timer.getCount() > 0, "No successful " + op + " operations");
+            long failed = errors.get(op).sum();
+            double rate = failed / (double) (timer.getCount() + failed);
+            assertTrue(rate <= MAX_ERROR_RATE, String.format("%s error rate %.2f%% exceeds %.2f%%; first error: %s",
+                    op, rate * 100, MAX_ERROR_RATE * 100, firstErrors.get(op)));
+        });
+    }
+
+    private void runIssue(SplittableRandom random) {
+        Long stockId = data.getStockIds().get(random.nextInt(data.getStockIds().size()));
+        if (!stockService.deductStock(stockId, 1)) {
+            throw new IllegalStateException("Lot " + stockId + " had no unit to issue");
+        }
+    }
+
+    private void runTransfusion(SplittableRandom random, Map<String, List<Long>> stockByGroup) {
+        BloodRequest source = data.getRequests().get(random.nextInt(data.getRequests().size()));
+        List<Long> candidates = stockByGroup.get(source.getBloodGroup());
+        if (candidates == null) return;
+
+        // Detached copies so concurrent workers never share mutable entities
+        BloodRequest request = new BloodRequest();
+        request.setId(source.getId());
+        request.setRecipient(source.getRecipient());
+        request.setBloodGroup(source.getBloodGroup());
+        request.setUnitsRequested(source.getUnitsRequested());
+        request.setRequestDate(source.getRequestDate());
+
+        BloodStock stock = new BloodStock(source.getBloodGroup(), BloodStock.ComponentType.WHOLE_BLOOD, UNITS_PER_LOT);
+        stock.setId(candidates.get(random.nextInt(candidates.size())));
+
+        recipientService.processTransfusion(request, stock, 1, "loadtest");
+    }
+
+    private static void printReport(Map<String, Timer> timers, Map<String, LongAdder> errors) {
+        System.out.printf("%nLoad test: %d threads, %ds%n", THREADS, SECONDS);
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s %8s%n",
+                "operation", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+        timers.forEach((op, timer) -> System.out.printf("%-12s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                op, timer.getCount(), timer.getCount() / (double) SECONDS,
+                timer.getPercentileMillis(50), timer.getPercentileMillis(95),
+                timer.getPercentileMillis(99), timer.getMaxMillis(), errors.get(op).sum()));
+    }
+}
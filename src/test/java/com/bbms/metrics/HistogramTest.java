@@ -0,0 +1,49 @@
+package com.bbms.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the log-linear Histogram used by Timer
+ */
+class HistogramTest {
+
+    @Test
+    @DisplayName("Empty histogram reports zero")
+    void testEmptyHistogram() {
+        assertEquals(0, new Histogram().getValueAtPercentile(99));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 15, 16, 17, 31, 32, 1_000, 123_456, 5_000_000_000L})
+    @DisplayName("Bucket midpoint stays within 7% of the recorded value")
+    void testBucketPrecision(long value) {
+        long reported = Histogram.midpointOf(Histogram.indexOf(value));
+        assertTrue(Math.abs(reported - value) <= Math.max(1, value * 0.07),
+                "value " + value + " reported as " + reported);
+    }
+
+    @Test
+    @DisplayName("Percentiles follow the recorded distribution")
+    void testPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.07);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.07);
+    }
+
+    @Test
+    @DisplayName("Negative values are ignored")
+    void testNegativeIgnored() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+}
@@ -0,0 +1,75 @@
+package com.bbms.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the incremental donor statistics.
+ */
+class DonorStatsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    @DisplayName("Completed donations add to the totals; others are ignored")
+    void testTotals() {
+        DonorStats stats = new DonorStats(1L);
+        stats.addDonation(donation(DAY, BloodStock.ComponentType.WHOLE_BLOOD, 450, null));
+        stats.addDonation(donation(DAY.plusDays(30), BloodStock.ComponentType.PLASMA, 600, null));
+        stats.addDonation(donation(DAY.minusDays(90), null, null, null));
+        Donation cancelled = donation(DAY.plusDays(60), BloodStock.ComponentType.PLATELETS, 250, 14.0);
+        cancelled.setStatus(Donation.DonationStatus.CANCELLED);
+        stats.addDonation(cancelled);
+
+        assertEquals(3, stats.getDonations());
+        assertEquals(1050L, stats.getVolumeMl());
+        assertEquals(2, stats.getDonationCount(BloodStock.ComponentType.WHOLE_BLOOD));
+        assertEquals(1, stats.getDonationCount(BloodStock.ComponentType.PLASMA));
+        assertEquals(0, stats.getDonationCount(BloodStock.ComponentType.PLATELETS));
+        assertEquals(DAY.minusDays(90), stats.getFirstDonationDate());
+        assertEquals(DAY.plusDays(30), stats.getLastDonationDate());
+        assertNull(stats.getLastHemoglobin());
+    }
+
+    @Test
+    @DisplayName("The latest hemoglobin reading is kept, also when donations arrive out of order")
+    void testLastHemoglobin() {
+        DonorStats stats = new DonorStats(1L);
+        stats.addDonation(donation(DAY, BloodStock.ComponentType.WHOLE_BLOOD, 450, 13.5));
+        stats.addDonation(donation(DAY.plusDays(90), BloodStock.ComponentType.WHOLE_BLOOD, 450, null));
+        assertEquals(13.5, stats.getLastHemoglobin());
+
+        stats.addDonation(donation(DAY.minusDays(90), BloodStock.ComponentType.WHOLE_BLOOD, 450, 12.1));
+        assertEquals(13.5, stats.getLastHemoglobin(), "An older reading does not replace a newer one");
+
+        stats.addDonation(donation(DAY, BloodStock.ComponentType.PLASMA, 600, 14.2));
+        assertEquals(14.2, stats.getLastHemoglobin(), "A later reading on the same day wins");
+        assertEquals(DAY, stats.getLastHemoglobinDate());
+    }
+
+    @Test
+    @DisplayName("Deferral counts never go below zero")
+    void testDeferrals() {
+        DonorStats stats = new DonorStats(1L);
+        stats.addDeferrals(1);
+        stats.addDeferrals(1);
+        stats.addDeferrals(-1);
+        assertEquals(1, stats.getDeferrals());
+        stats.addDeferrals(-1);
+        stats.addDeferrals(-1);
+        assertEquals(0, stats.getDeferrals());
+    }
+
+    private static Donation donation(LocalDate date, BloodStock.ComponentType type, Integer volumeMl,
+                                     Double hemoglobin) {
+        Donation donation = new Donation(null, date, "O+");
+        donation.setComponentType(type);
+        donation.setVolumeMl(volumeMl);
+        donation.setHemoglobinLevel(hemoglobin);
+        return donation;
+    }
+}
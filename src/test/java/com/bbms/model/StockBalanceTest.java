@@ -0,0 +1,72 @@
+package com.bbms.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for replaying the movement history into a balance.
+ */
+class StockBalanceTest {
+
+    private static final BloodStock.ComponentType RBC = BloodStock.ComponentType.RBC;
+
+    @Test
+    @DisplayName("Replaying the history rebuilds the stored balance")
+    void testReplay() {
+        StockBalance stored = new StockBalance("A+", RBC);
+        List<StockMovement> history = history(stored);
+
+        StockBalance replayed = new StockBalance("A+", RBC);
+        history.forEach(replayed::replay);
+
+        assertTrue(replayed.sameCounts(stored));
+        assertEquals(1, replayed.getOnHand());
+        assertEquals(1, replayed.getReserved());
+    }
+
+    @Test
+    @DisplayName("A movement whose running balance does not follow from the history is reported")
+    void testDivergence() {
+        List<StockMovement> history = history(new StockBalance("A+", RBC));
+        // A bag received without its balance row being updated
+        StockBalance stale = new StockBalance("A+", RBC);
+        history.add(2, new StockMovement(StockMovementTest.bag(9), StockMovement.Type.RECEIVED, 1, 0,
+                stale, "lot:7", "clerk"));
+
+        StockBalance replayed = new StockBalance("A+", RBC);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> history.forEach(replayed::replay));
+        assertTrue(e.getMessage().contains("diverges"));
+    }
+
+    @Test
+    @DisplayName("A stored balance changed outside the ledger no longer matches its replay")
+    void testStoredBalanceDrift() {
+        StockBalance stored = new StockBalance("A+", RBC);
+        List<StockMovement> history = history(stored);
+        stored.apply(-1, 0);
+
+        StockBalance replayed = new StockBalance("A+", RBC);
+        history.forEach(replayed::replay);
+        assertFalse(replayed.sameCounts(stored));
+    }
+
+    /**
+     * Three bags received, one reserved and one issued.
+     */
+    private static List<StockMovement> history(StockBalance balance) {
+        List<StockMovement> history = new ArrayList<>();
+        List<BloodUnit> bags = List.of(StockMovementTest.bag(1), StockMovementTest.bag(2), StockMovementTest.bag(3));
+        for (BloodUnit bag : bags) {
+            history.add(StockMovement.record(bag, StockMovement.Type.RECEIVED, balance, "lot:7", "clerk"));
+        }
+        history.add(StockMovement.record(bags.get(0), StockMovement.Type.RESERVED, balance, "request:3", "clerk"));
+        history.add(StockMovement.record(bags.get(1), StockMovement.Type.ISSUED, balance, "request:4", "nurse"));
+        return history;
+    }
+}
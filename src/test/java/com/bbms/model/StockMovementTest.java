@@ -0,0 +1,101 @@
+package com.bbms.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for bag status transitions and their balance bookkeeping.
+ */
+class StockMovementTest {
+
+    private static final BloodStock.ComponentType RBC = BloodStock.ComponentType.RBC;
+
+    @Test
+    @DisplayName("Each movement is allowed only from the statuses it applies to")
+    void testTransitions() {
+        assertEquals(BloodUnit.Status.IN_STOCK, StockMovement.Type.RECEIVED.target(null));
+        for (BloodUnit.Status status : BloodUnit.Status.values()) {
+            assertNull(StockMovement.Type.RECEIVED.target(status), "Received twice from " + status);
+        }
+
+        assertTarget(StockMovement.Type.RESERVED, BloodUnit.Status.RESERVED, BloodUnit.Status.IN_STOCK);
+        assertTarget(StockMovement.Type.RELEASED, BloodUnit.Status.IN_STOCK, BloodUnit.Status.RESERVED);
+        assertTarget(StockMovement.Type.ISSUED, BloodUnit.Status.ISSUED,
+                BloodUnit.Status.IN_STOCK, BloodUnit.Status.RESERVED);
+        assertTarget(StockMovement.Type.DISCARDED, BloodUnit.Status.DISCARDED,
+                BloodUnit.Status.IN_STOCK, BloodUnit.Status.RESERVED);
+    }
+
+    @Test
+    @DisplayName("Movements update the bag, the balance and the running balance they record")
+    void testBookkeeping() {
+        StockBalance balance = new StockBalance("A+", RBC);
+        BloodUnit first = bag(1);
+        BloodUnit second = bag(2);
+
+        StockMovement received = StockMovement.record(first, StockMovement.Type.RECEIVED, balance, "lot:7", "clerk");
+        StockMovement.record(second, StockMovement.Type.RECEIVED, balance, "lot:7", "clerk");
+        assertEquals(1, received.getOnHandDelta());
+        assertEquals(1, received.getOnHandAfter(), "Balance right after the first bag");
+        assertEquals(2, balance.getOnHand());
+
+        StockMovement reserved = StockMovement.record(first, StockMovement.Type.RESERVED, balance, "request:3", "clerk");
+        assertEquals(BloodUnit.Status.RESERVED, first.getStatus());
+        assertEquals(-1, reserved.getOnHandDelta());
+        assertEquals(1, reserved.getReservedDelta());
+        assertEquals(1, reserved.getOnHandAfter());
+        assertEquals(1, reserved.getReservedAfter());
+
+        StockMovement issued = StockMovement.record(first, StockMovement.Type.ISSUED, balance, "request:3", "nurse");
+        assertEquals(0, issued.getOnHandDelta());
+        assertEquals(-1, issued.getReservedDelta());
+        StockMovement.record(second, StockMovement.Type.DISCARDED, balance, "EXPIRED", "system");
+
+        assertEquals(0, balance.getOnHand());
+        assertEquals(0, balance.getReserved());
+        assertEquals(BloodUnit.Status.ISSUED, first.getStatus());
+        assertEquals(BloodUnit.Status.DISCARDED, second.getStatus());
+        assertEquals("nurse", issued.getActor());
+        assertEquals("request:3", issued.getReference());
+    }
+
+    @Test
+    @DisplayName("A refused movement leaves the bag and the balance unchanged")
+    void testRefusedMovement() {
+        StockBalance balance = new StockBalance("A+", RBC);
+        BloodUnit unit = bag(1);
+        StockMovement.record(unit, StockMovement.Type.RECEIVED, balance, null, null);
+        StockMovement.record(unit, StockMovement.Type.ISSUED, balance, null, null);
+
+        assertThrows(IllegalStateException.class,
+                () -> StockMovement.record(unit, StockMovement.Type.RELEASED, balance, null, null));
+        assertThrows(IllegalStateException.class,
+                () -> StockMovement.record(unit, StockMovement.Type.ISSUED, balance, null, null));
+        assertThrows(IllegalArgumentException.class, () -> StockMovement.record(unit,
+                StockMovement.Type.DISCARDED, new StockBalance("B+", RBC), null, null), "Wrong group's balance");
+        assertEquals(BloodUnit.Status.ISSUED, unit.getStatus());
+        assertEquals(0, balance.getOnHand());
+        assertEquals(0, balance.getReserved());
+    }
+
+    private static void assertTarget(StockMovement.Type type, BloodUnit.Status target, BloodUnit.Status... from) {
+        EnumSet<BloodUnit.Status> allowed = EnumSet.noneOf(BloodUnit.Status.class);
+        allowed.addAll(List.of(from));
+        for (BloodUnit.Status status : BloodUnit.Status.values()) {
+            assertEquals(allowed.contains(status) ? target : null, type.target(status), type + " from " + status);
+        }
+    }
+
+    static BloodUnit bag(int sequence) {
+        BloodStock lot = new BloodStock("A+", RBC, 2);
+        lot.setId(7L);
+        lot.setExpiryDate(LocalDate.of(2026, 6, 1));
+        return BloodUnit.fromLot(lot, sequence);
+    }
+}
@@ -0,0 +1,139 @@
+package com.bbms.planner;
+
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.StockHold;
+import com.bbms.util.BloodCompatibility;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for expiry-aware issue planning.
+ */
+class WastagePlannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+    private final WastagePlanner planner = new WastagePlanner(7);
+
+    @Test
+    @DisplayName("Earliest-expiring compatible lot is issued first")
+    void testEarliestExpiryIssuedFirst() {
+        BloodStock late = lot(1L, "A+", BloodStock.ComponentType.PLATELETS, 2, 4);
+        BloodStock early = lot(2L, "A+", BloodStock.ComponentType.PLATELETS, 2, 1);
+        BloodRequest request = request(10L, "A+", BloodStock.ComponentType.PLATELETS, 2, BloodRequest.Priority.NORMAL);
+
+        WastagePlan plan = planner.plan(List.of(late, early), List.of(request), List.of(), TODAY);
+
+        assertEquals(1, plan.issueOrders().size());
+        assertEquals(2L, plan.issueOrders().get(0).stockId());
+        assertEquals(0, plan.unmetUnits());
+        assertEquals(2, plan.expectedWastageUnits(), "The later lot has no demand and expires inside the horizon");
+    }
+
+    @Test
+    @DisplayName("O- is kept for the O- request when A+ stock can cover the A+ request")
+    void testUniversalDonorSavedForConstrainedDemand() {
+        BloodStock oNeg = lot(1L, "O-", BloodStock.ComponentType.RBC, 1, 2);
+        BloodStock aPos = lot(2L, "A+", BloodStock.ComponentType.RBC, 1, 3);
+        BloodRequest forAPos = request(10L, "A+", BloodStock.ComponentType.RBC, 1, BloodRequest.Priority.EMERGENCY);
+        BloodRequest forONeg = request(11L, "O-", BloodStock.ComponentType.RBC, 1, BloodRequest.Priority.NORMAL);
+
+        WastagePlan plan = planner.plan(List.of(oNeg, aPos), List.of(forAPos, forONeg), List.of(), TODAY);
+
+        assertEquals(0, plan.unmetUnits());
+        assertEquals(0, plan.expectedWastageUnits());
+        for (WastagePlan.IssueOrder order : plan.issueOrders()) {
+            assertEquals(order.recipientGroup(), order.donorGroup());
+        }
+    }
+
+    @Test
+    @DisplayName("Held units go to the request holding them")
+    void testHoldsAreHonoured() {
+        BloodStock early = lot(1L, "B+", BloodStock.ComponentType.WHOLE_BLOOD, 1, 1);
+        BloodStock late = lot(2L, "B+", BloodStock.ComponentType.WHOLE_BLOOD, 1, 20);
+        BloodRequest urgent = request(10L, "B+", BloodStock.ComponentType.WHOLE_BLOOD, 1, BloodRequest.Priority.EMERGENCY);
+        BloodRequest holder = request(11L, "B+", BloodStock.ComponentType.WHOLE_BLOOD, 1, BloodRequest.Priority.LOW);
+        StockHold hold = new StockHold(2L, 11L, 1, "tester", LocalDateTime.now().plusMinutes(30));
+
+        WastagePlan plan = planner.plan(List.of(early, late), List.of(urgent, holder), List.of(hold), TODAY);
+
+        WastagePlan.IssueOrder held = plan.issueOrders().stream().filter(WastagePlan.IssueOrder::held).findFirst().orElseThrow();
+        assertEquals(11L, held.requestId());
+        assertEquals(2L, held.stockId());
+        WastagePlan.IssueOrder other = plan.issueOrders().stream().filter(o -> !o.held()).findFirst().orElseThrow();
+        assertEquals(10L, other.requestId());
+        assertEquals(1L, other.stockId());
+    }
+
+    @Test
+    @DisplayName("Expired lots, closed requests and other components are ignored")
+    void testIgnoresUnusableInput() {
+        BloodStock expired = lot(1L, "O+", BloodStock.ComponentType.PLASMA, 3, -1);
+        BloodStock otherComponent = lot(2L, "O+", BloodStock.ComponentType.RBC, 3, 30);
+        BloodRequest fulfilled = request(10L, "O+", BloodStock.ComponentType.PLASMA, 1, BloodRequest.Priority.HIGH);
+        fulfilled.setStatus(BloodRequest.RequestStatus.FULFILLED);
+        BloodRequest open = request(11L, "O+", BloodStock.ComponentType.PLASMA, 2, BloodRequest.Priority.HIGH);
+
+        WastagePlan plan = planner.plan(List.of(expired, otherComponent), List.of(fulfilled, open), List.of(), TODAY);
+
+        assertTrue(plan.issueOrders().isEmpty());
+        assertEquals(2, plan.unmetUnits());
+        assertEquals(0, plan.expectedWastageUnits());
+    }
+
+    @Test
+    @DisplayName("Tens of thousands of lots are planned in under a second")
+    void testPlansLargeStockQuickly() {
+        Random random = new Random(42);
+        BloodStock.ComponentType[] components = BloodStock.ComponentType.values();
+        List<BloodStock> lots = new ArrayList<>();
+        for (long id = 1; id <= 50_000; id++) {
+            lots.add(lot(id, BloodCompatibility.ALL_BLOOD_GROUPS[random.nextInt(8)],
+                    components[random.nextInt(components.length)], 1 + random.nextInt(4), random.nextInt(42)));
+        }
+        List<BloodRequest> requests = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            requests.add(request(id, BloodCompatibility.ALL_BLOOD_GROUPS[random.nextInt(8)],
+                    components[random.nextInt(components.length)], 1 + random.nextInt(6),
+                    BloodRequest.Priority.values()[random.nextInt(4)]));
+        }
+
+        WastagePlan plan = planner.plan(lots, requests, List.of(), TODAY);
+
+        assertFalse(plan.issueOrders().isEmpty());
+        assertTrue(plan.elapsedMillis() < 1000, "Planning took " + plan.elapsedMillis() + " ms");
+    }
+
+    private static BloodStock lot(Long id, String group, BloodStock.ComponentType component, int units, int daysLeft) {
+        BloodStock stock = new BloodStock();
+        stock.setId(id);
+        stock.setBloodGroup(group);
+        stock.setComponentType(component);
+        stock.setUnitsAvailable(units);
+        stock.setExpiryDate(TODAY.plusDays(daysLeft));
+        stock.setStatus(BloodStock.StockStatus.AVAILABLE);
+        return stock;
+    }
+
+    private static BloodRequest request(Long id, String group, BloodStock.ComponentType component, int units,
+                                        BloodRequest.Priority priority) {
+        BloodRequest request = new BloodRequest();
+        request.setId(id);
+        request.setBloodGroup(group);
+        request.setComponentType(component);
+        request.setUnitsRequested(units);
+        request.setPriority(priority);
+        request.setStatus(BloodRequest.RequestStatus.PENDING);
+        return request;
+    }
+}
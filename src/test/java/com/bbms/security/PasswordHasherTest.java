@@ -0,0 +1,80 @@
+package com.bbms.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the password hashers and rehash detection.
+ */
+class PasswordHasherTest {
+
+    @Test
+    @DisplayName("BCrypt hash verifies and encodes its cost")
+    void testBCryptRoundTrip() {
+        BCryptPasswordHasher hasher = new BCryptPasswordHasher(4);
+        String hash = hasher.hash("secret1");
+
+        assertTrue(hasher.supports(hash));
+        assertTrue(hasher.verify("secret1", hash));
+        assertFalse(hasher.verify("secret2", hash));
+        assertEquals(4, BCryptPasswordHasher.costOf(hash));
+    }
+
+    @Test
+    @DisplayName("BCrypt hash with a lower cost needs rehash, one with a higher cost does not")
+    void testBCryptNeedsRehash() {
+        String hash = new BCryptPasswordHasher(5).hash("secret1");
+
+        assertFalse(new BCryptPasswordHasher(5).needsRehash(hash));
+        assertTrue(new BCryptPasswordHasher(6).needsRehash(hash));
+        assertFalse(new BCryptPasswordHasher(4).needsRehash(hash), "Never downgraded");
+    }
+
+    @Test
+    @DisplayName("PBKDF2 hash verifies and needs rehash only for fewer iterations")
+    void testPbkdf2RoundTrip() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+        String hash = hasher.hash("secret1");
+
+        assertTrue(hash.startsWith("$pbkdf2-sha256$1000$"));
+        assertTrue(hasher.verify("secret1", hash));
+        assertFalse(hasher.verify("secret2", hash));
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(new Pbkdf2PasswordHasher(2000).needsRehash(hash));
+        assertFalse(new Pbkdf2PasswordHasher(500).needsRehash(hash), "Never downgraded");
+    }
+
+    @Test
+    @DisplayName("Plain text is not recognised as a hash")
+    void testPlainTextNotRecognised() {
+        PasswordHashingService service = new PasswordHashingService(
+                new BCryptPasswordHasher(4), List.of(new Pbkdf2PasswordHasher(1000)));
+
+        assertFalse(service.isRecognized("admin123"));
+        assertFalse(service.verify("admin123", "admin123"));
+        assertTrue(service.needsRehash("admin123"));
+    }
+
+    @Test
+    @DisplayName("Hashes from the other scheme verify but need rehash")
+    void testSchemeMigration() {
+        PasswordHashingService service = new PasswordHashingService(
+                new BCryptPasswordHasher(4), List.of(new Pbkdf2PasswordHasher(1000)));
+        String legacy = new Pbkdf2PasswordHasher(1000).hash("secret1");
+
+        assertTrue(service.verify("secret1", legacy));
+        assertTrue(service.needsRehash(legacy));
+        assertFalse(service.needsRehash(service.hash("secret1")));
+    }
+
+    @Test
+    @DisplayName("Calibration never goes below the configured minimum")
+    void testCalibrationRespectsMinimum() {
+        assertTrue(PasswordHashingService.calibrateBCrypt(1, 6) >= 6);
+        assertTrue(PasswordHashingService.calibratePbkdf2(1, 50_000) >= 50_000);
+    }
+}
@@ -0,0 +1,206 @@
+package com.bbms.service;
+
+import com.bbms.config.HibernateUtil;
+import com.bbms.dao.BloodRequestDao;
+import com.bbms.dao.BloodStockDao;
+import com.bbms.dao.StockHoldDao;
+import com.bbms.forecast.ForecastService;
+import com.bbms.model.BloodRequest;
+import com.bbms.model.BloodStock;
+import com.bbms.model.BloodUnit;
+import com.bbms.model.StockHold;
+import com.bbms.util.TimerWheel;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Service-level tests for crossmatch holds: placing, consuming, expiring
+ * and recovering them, and issuing around other requests' holds. The DAOs
+ * and the ledger are mocked; transactions run against a mocked session.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReservationServiceTest {
+
+    private static final Long LOT_ID = 1L;
+    private static final Long REQUEST_ID = 7L;
+    private static final String REFERENCE = "request:7";
+
+    @Mock private StockHoldDao stockHoldDao;
+    @Mock private BloodStockDao bloodStockDao;
+    @Mock private StockLedgerService ledger;
+    @Mock private SessionFactory sessionFactory;
+    @Mock private Session session;
+    @Mock private Transaction transaction;
+
+    private MockedStatic<HibernateUtil> hibernate;
+    private ReservationService reservations;
+    private BloodStock lot;
+    private BloodRequest request;
+    private long nextHoldId = 100;
+
+    @BeforeEach
+    void setUp() {
+        hibernate = mockStatic(HibernateUtil.class);
+        hibernate.when(HibernateUtil::getSessionFactory).thenReturn(sessionFactory);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.beginTransaction()).thenReturn(transaction);
+
+        lot = new BloodStock("O-", BloodStock.ComponentType.RBC, 10);
+        lot.setId(LOT_ID);
+        lot.setStatus(BloodStock.StockStatus.AVAILABLE);
+        lot.setExpiryDate(LocalDate.now().plusDays(20));
+        request = new BloodRequest();
+        request.setId(REQUEST_ID);
+
+        when(bloodStockDao.lock(LOT_ID)).thenReturn(Optional.of(lot));
+        when(stockHoldDao.save(any())).thenAnswer(invocation -> {
+            StockHold hold = invocation.getArgument(0);
+            hold.setId(nextHoldId++);
+            return hold;
+        });
+        reservations = new ReservationService(stockHoldDao, bloodStockDao, ledger,
+                Duration.ofMinutes(30), new TimerWheel(1000, 16, "test-wheel"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernate.close();
+    }
+
+    @Test
+    @DisplayName("A hold reserves its bags and counts against the lot once committed")
+    void testHoldReservesBags() {
+        StockHold hold = reservations.hold(request, lot, 3);
+
+        verify(ledger).reserveFromLot(lot, REQUEST_ID, 3, REFERENCE);
+        verify(transaction).commit();
+        assertEquals(Map.of(LOT_ID, 3), reservations.heldByLot(null));
+        assertTrue(reservations.heldByLot(REQUEST_ID).isEmpty(), "A request's own hold is available to it");
+        assertEquals(List.of(hold), reservations.getHolds(REQUEST_ID));
+    }
+
+    @Test
+    @DisplayName("Holding again replaces the request's earlier hold and its bags")
+    void testHoldReplacesEarlierHold() {
+        reservations.hold(request, lot, 3);
+        when(stockHoldDao.deleteByRequest(REQUEST_ID, LOT_ID)).thenReturn(1);
+
+        reservations.hold(request, lot, 2);
+
+        InOrder order = inOrder(ledger);
+        order.verify(ledger).releaseReserved(LOT_ID, REQUEST_ID, REFERENCE);
+        order.verify(ledger).reserveFromLot(lot, REQUEST_ID, 2, REFERENCE);
+        assertEquals(Map.of(LOT_ID, 2), reservations.heldByLot(null));
+    }
+
+    @Test
+    @DisplayName("Units held for other requests cannot be held again")
+    void testHoldRejectsUnitsHeldElsewhere() {
+        when(stockHoldDao.sumHeld(eq(LOT_ID), eq(REQUEST_ID), any())).thenReturn(8);
+
+        assertThrows(IllegalArgumentException.class, () -> reservations.hold(request, lot, 3));
+        verify(ledger, never()).reserveFromLot(any(), any(), anyInt(), any());
+        verify(transaction, never()).commit();
+        assertTrue(reservations.heldByLot(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A hold that fails to commit is never tracked")
+    void testRolledBackHoldNotTracked() {
+        when(transaction.isActive()).thenReturn(true);
+        doThrow(new IllegalStateException("commit failed")).when(transaction).commit();
+
+        assertThrows(IllegalStateException.class, () -> reservations.hold(request, lot, 3));
+        assertTrue(reservations.heldByLot(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Consuming a hold drops it and returns its unissued bags")
+    void testConsume() {
+        reservations.hold(request, lot, 3);
+        when(stockHoldDao.deleteByRequest(REQUEST_ID, LOT_ID)).thenReturn(1);
+
+        reservations.consume(REQUEST_ID, LOT_ID);
+
+        verify(ledger).releaseReserved(LOT_ID, REQUEST_ID, REFERENCE);
+        assertTrue(reservations.heldByLot(null).isEmpty());
+        assertTrue(reservations.getHolds(REQUEST_ID).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Expired holds stop counting and the sync puts their bags back")
+    void testExpiry() throws InterruptedException {
+        StockHold hold = reservations.hold(request, lot, 3, Duration.ofMillis(1));
+        Thread.sleep(5);
+        assertTrue(reservations.heldByLot(null).isEmpty());
+
+        when(stockHoldDao.findLapsedLots(any())).thenReturn(List.of(LOT_ID));
+        when(stockHoldDao.findLapsed(eq(LOT_ID), any())).thenReturn(List.of(hold));
+        when(stockHoldDao.deleteHold(hold.getId())).thenReturn(1);
+        reservations.sync();
+
+        verify(bloodStockDao, times(2)).lock(LOT_ID);
+        verify(ledger).releaseReserved(LOT_ID, REQUEST_ID, REFERENCE);
+        assertTrue(reservations.getLiveHolds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("The sync recovers holds placed elsewhere or before a restart")
+    void testRecovery() {
+        StockHold elsewhere = new StockHold(LOT_ID, 9L, 4, "nurse", LocalDateTime.now().plusMinutes(10));
+        elsewhere.setId(55L);
+        when(stockHoldDao.findLive(any())).thenReturn(List.of(elsewhere));
+
+        reservations.sync();
+
+        assertEquals(Map.of(LOT_ID, 4), reservations.heldByLot(REQUEST_ID));
+        assertEquals(List.of(elsewhere), reservations.getHolds(9L));
+
+        when(stockHoldDao.findLive(any())).thenReturn(List.of());
+        reservations.sync();
+        assertTrue(reservations.heldByLot(null).isEmpty(), "A hold released elsewhere is dropped");
+    }
+
+    @Test
+    @DisplayName("Issuing skips units held for other requests and uses the request's own hold")
+    void testIssueRespectsHolds() {
+        BloodStockService stock = new BloodStockService(bloodStockDao, ledger, reservations,
+                mock(BloodRequestDao.class), mock(ForecastService.class));
+        when(stockHoldDao.sumHeld(eq(LOT_ID), isNull(), any())).thenReturn(9);
+        when(stockHoldDao.sumHeld(eq(LOT_ID), eq(REQUEST_ID), any())).thenReturn(0);
+        List<BloodUnit> bags = List.of(new BloodUnit(), new BloodUnit());
+        when(ledger.issueFromLot(lot, REQUEST_ID, 2, REFERENCE)).thenReturn(bags);
+
+        assertNull(stock.issueStock(LOT_ID, 2, "lot:1"), "Only one unit is free of holds");
+        verify(ledger, never()).issueFromLot(any(), any(), anyInt(), any());
+
+        assertEquals(bags, stock.issueStock(LOT_ID, REQUEST_ID, 2, REFERENCE));
+        verify(stockHoldDao).deleteByRequest(REQUEST_ID, LOT_ID);
+        assertEquals(8, lot.getUnitsAvailable());
+        verify(bloodStockDao).update(lot);
+    }
+}
@@ -1,5 +1,6 @@
 package com.bbms.util;
 
+import com.bbms.eligibility.EligibilityPipeline;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -19,6 +20,9 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class DonationEligibilityCheckerTest {
 
+    // The configured whole blood interval the checker applies
+    private static final int INTERVAL = EligibilityPipeline.configured().getPolicy().wholeBloodIntervalDays();
+
     @Test
     @DisplayName("Person aged 25 should be eligible by age")
     void testAgeEligible25() {
@@ -96,16 +100,16 @@ class DonationEligibilityCheckerTest {
     }
 
     @Test
-    @DisplayName("Donation 60 days ago should be eligible for whole blood")
-    void testDonation60DaysAgo() {
-        LocalDate lastDonation = LocalDate.now().minusDays(60);
+    @DisplayName("Donation a full interval ago should be eligible for whole blood")
+    void testDonationIntervalAgo() {
+        LocalDate lastDonation = LocalDate.now().minusDays(INTERVAL);
         assertTrue(DonationEligibilityChecker.hasEnoughTimeSinceLastDonation(lastDonation, "whole_blood"));
     }
 
     @Test
-    @DisplayName("Donation 30 days ago should not be eligible for whole blood")
-    void testDonation30DaysAgo() {
-        LocalDate lastDonation = LocalDate.now().minusDays(30);
+    @DisplayName("Donation a day short of the interval should not be eligible for whole blood")
+    void testDonationInsideInterval() {
+        LocalDate lastDonation = LocalDate.now().minusDays(INTERVAL - 1);
         assertFalse(DonationEligibilityChecker.hasEnoughTimeSinceLastDonation(lastDonation, "whole_blood"));
     }
 
@@ -171,7 +175,7 @@ class DonationEligibilityCheckerTest {
         double weight = 70.0;
         String gender = "male";
         double hemoglobin = 14.0;
-        LocalDate lastDonation = LocalDate.now().minusDays(60);
+        LocalDate lastDonation = LocalDate.now().minusDays(INTERVAL);
         
         DonationEligibilityChecker.EligibilityResult result = 
             DonationEligibilityChecker.checkEligibility(
@@ -235,7 +239,7 @@ class DonationEligibilityCheckerTest {
     void testGetDaysUntilEligible() {
         LocalDate lastDonation = LocalDate.now().minusDays(30);
         long daysUntil = DonationEligibilityChecker.getDaysUntilEligible(lastDonation, "whole_blood");
-        assertEquals(26, daysUntil); // 56 - 30 = 26
+        assertEquals(INTERVAL - 30, daysUntil);
     }
 
     @Test
@@ -0,0 +1,152 @@
+package com.bbms.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the keyset paging window behind infinite scrolling.
+ */
+class KeysetWindowTest {
+
+    private static final int PAGE = 10;
+
+    private final List<Integer> items = new ArrayList<>();
+    private final List<Runnable> pending = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<Integer> shifts = new ArrayList<>();
+    private KeysetWindow<Integer> window;
+
+    @BeforeEach
+    void setUp() {
+        // Fetches are held until run, like a background loader
+        window = new KeysetWindow<>(items, PAGE, 3, pending::add, Runnable::run);
+        window.setOnChange(shifts::add);
+    }
+
+    @Test
+    @DisplayName("Pages load by key as the end nears, and only one at a time")
+    void testScrollDown() {
+        window.reset(source(25));
+        assertTrue(items.isEmpty());
+        window.visible(0, 0);
+        runPending();
+        assertEquals(range(0, 10), items);
+
+        window.visible(0, 3);
+        assertTrue(pending.isEmpty(), "Far from the end");
+        window.visible(0, 6);
+        window.visible(0, 9);
+        assertEquals(1, pending.size(), "One fetch in flight");
+        runPending();
+        assertEquals(range(0, 20), items);
+
+        window.visible(15, 19);
+        runPending();
+        assertEquals(range(0, 25), items);
+        assertTrue(window.isComplete());
+        window.visible(20, 24);
+        assertTrue(pending.isEmpty(), "Nothing after the last page");
+        assertEquals(3, fetches.get());
+    }
+
+    @Test
+    @DisplayName("The window keeps at most its pages and refetches rows scrolled back to")
+    void testBoundedWindow() {
+        window.reset(source(1000));
+        runPending();
+        for (int i = 0; i < 10; i++) {
+            window.visible(items.size() - 2, items.size() - 1);
+            runPending();
+            assertTrue(items.size() <= 3 * PAGE);
+        }
+        assertEquals(range(80, 110), items);
+        assertEquals(-PAGE, shifts.get(shifts.size() - 1), "Rows above the view were dropped");
+        assertFalse(window.isComplete());
+
+        window.visible(0, 5);
+        runPending();
+        assertEquals(range(70, 100), items, "The page before is back and the last one dropped");
+        assertEquals(PAGE, shifts.get(shifts.size() - 1));
+
+        window.visible(items.size() - 1, items.size() - 1);
+        runPending();
+        assertEquals(range(80, 110), items, "Continues after the rows dropped at the bottom");
+    }
+
+    @Test
+    @DisplayName("A reset discards fetches still in flight for the old source")
+    void testResetDiscardsStaleFetch() {
+        window.reset(source(100));
+        runPending();
+        window.visible(5, 9);
+        List<Runnable> stale = new ArrayList<>(pending);
+        pending.clear();
+
+        window.reset(source(3));
+        stale.forEach(Runnable::run);
+        assertTrue(items.isEmpty());
+        runPending();
+        assertEquals(range(0, 3), items);
+        assertTrue(window.isComplete());
+    }
+
+    @Test
+    @DisplayName("A failed fetch can be retried")
+    void testFailedFetch() {
+        window.reset(new KeysetWindow.PageSource<>() {
+            @Override
+            public List<Integer> after(Integer key, int limit) {
+                throw new IllegalStateException("database unavailable");
+            }
+
+            @Override
+            public List<Integer> before(Integer key, int limit) {
+                throw new IllegalStateException("database unavailable");
+            }
+        });
+        runPending();
+        assertFalse(window.isLoading());
+        assertTrue(items.isEmpty());
+        window.visible(0, 0);
+        assertEquals(1, pending.size());
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    /**
+     * Rows 0 to size - 1, keyed by value.
+     */
+    private KeysetWindow.PageSource<Integer> source(int size) {
+        return new KeysetWindow.PageSource<>() {
+            @Override
+            public List<Integer> after(Integer key, int limit) {
+                fetches.incrementAndGet();
+                int from = key == null ? 0 : key + 1;
+                return range(from, Math.min(size, from + limit));
+            }
+
+            @Override
+            public List<Integer> before(Integer key, int limit) {
+                fetches.incrementAndGet();
+                int to = key == null ? size : key;
+                return range(Math.max(0, to - limit), to);
+            }
+        };
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.bbms.util;
+
+import com.bbms.event.EntityEvent;
+import com.bbms.model.Donor;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for row-level patching of table item lists.
+ */
+class TablePatcherTest {
+
+    private ObservableList<Donor> items;
+    private TablePatcher<Donor> patcher;
+
+    @BeforeEach
+    void setUp() {
+        items = FXCollections.observableArrayList(donor(1L, "A+"), donor(2L, "O-"));
+        patcher = TablePatcher.bind(items, Donor.class, Donor::getId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        patcher.close();
+    }
+
+    @Test
+    @DisplayName("Update replaces only the matching row")
+    void testUpdateReplacesRow() {
+        Donor updated = donor(2L, "O-");
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.UPDATED, Donor.class, 2L, updated));
+
+        assertEquals(2, items.size());
+        assertSame(updated, items.get(1));
+    }
+
+    @Test
+    @DisplayName("Create appends and delete removes by id")
+    void testCreateAndDelete() {
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.CREATED, Donor.class, 3L, donor(3L, "B+")));
+        assertEquals(3, items.size());
+
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.DELETED, Donor.class, 1L, donor(1L, "A+")));
+        assertEquals(2, items.size());
+        assertEquals(2L, items.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Update that no longer matches the filter removes the row")
+    void testFilterRemovesRow() {
+        patcher.setFilter(d -> "A+".equals(d.getBloodGroup()));
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.UPDATED, Donor.class, 1L, donor(1L, "B-")));
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.CREATED, Donor.class, 4L, donor(4L, "O+")));
+
+        assertEquals(1, items.size());
+        assertEquals(2L, items.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Rows are still found after the list is reloaded, trimmed or reordered")
+    void testIndexFollowsListChanges() {
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.UPDATED, Donor.class, 2L, donor(2L, "O-")));
+
+        items.setAll(donor(5L, "A-"), donor(6L, "B-"), donor(2L, "O-"));
+        Donor updated = donor(2L, "AB+");
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.UPDATED, Donor.class, 2L, updated));
+        assertSame(updated, items.get(2));
+
+        items.remove(0);
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.DELETED, Donor.class, 6L, donor(6L, "B-")));
+        assertEquals(1, items.size());
+
+        items.add(0, donor(7L, "O+"));
+        items.sort((a, b) -> Long.compare(b.getId(), a.getId()));
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.CREATED, Donor.class, 8L, donor(8L, "O+")));
+        patcher.apply(new EntityEvent<>(EntityEvent.Type.DELETED, Donor.class, 2L, updated));
+        assertEquals(List.of(7L, 8L), items.stream().map(Donor::getId).toList());
+    }
+
+    private static Donor donor(Long id, String bloodGroup) {
+        Donor donor = new Donor();
+        donor.setId(id);
+        donor.setBloodGroup(bloodGroup);
+        return donor;
+    }
+}
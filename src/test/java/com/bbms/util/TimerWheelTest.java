@@ -0,0 +1,72 @@
+package com.bbms.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the hashed timer wheel, driven tick by tick.
+ */
+class TimerWheelTest {
+
+    private final TimerWheel wheel = new TimerWheel(100, 8, "test-wheel");
+
+    @Test
+    @DisplayName("Timeout fires on the tick that covers its delay")
+    void testFiresOnDeadlineTick() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(fired::incrementAndGet, 250);
+
+        advance(2);
+        assertEquals(0, fired.get());
+        advance(1);
+        assertEquals(1, fired.get());
+        advance(8);
+        assertEquals(1, fired.get(), "Timeout should fire only once");
+    }
+
+    @Test
+    @DisplayName("Delay longer than one rotation waits for the right round")
+    void testDelayBeyondOneRotation() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(fired::incrementAndGet, 2_000);
+
+        advance(19);
+        assertEquals(0, fired.get());
+        advance(1);
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    @DisplayName("Cancelled timeout never fires")
+    void testCancelledTimeoutDoesNotFire() {
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(fired::incrementAndGet, 300);
+        advance(1);
+        timeout.cancel();
+
+        advance(10);
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Zero delay fires on the next tick and a failing task does not stop the wheel")
+    void testZeroDelayAndFailingTask() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(() -> { throw new IllegalStateException("boom"); }, 0);
+        wheel.schedule(fired::incrementAndGet, 0);
+
+        advance(1);
+        assertEquals(1, fired.get());
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance();
+        }
+    }
+}